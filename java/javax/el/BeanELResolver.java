@@ -21,16 +21,18 @@ import java.beans.FeatureDescriptor;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.security.AccessController;
-import java.security.PrivilegedAction;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
-import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -38,22 +40,29 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class BeanELResolver extends ELResolver {
 
-    private static final int CACHE_SIZE;
-    private static final String CACHE_SIZE_PROP = "org.apache.el.BeanELResolver.CACHE_SIZE";
+    private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType WRITE_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType INVOKE_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
 
-    static {
-        if (System.getSecurityManager() == null) {
-            CACHE_SIZE = Integer.getInteger(CACHE_SIZE_PROP, 1000).intValue();
-        } else {
-            CACHE_SIZE = AccessController
-                    .doPrivileged((PrivilegedAction<Integer>) () -> Integer.getInteger(CACHE_SIZE_PROP, 1000))
-                    .intValue();
+    /*
+     * The accessor tables are associated with the bean classes rather than held in a map so they do not prevent the
+     * class loaders of the bean classes (e.g. web application class loaders) from being garbage collected.
+     */
+    private static final ClassValue<BeanProperties> propertiesCache = new ClassValue<BeanProperties>() {
+        @Override
+        protected BeanProperties computeValue(Class<?> type) {
+            return new BeanProperties(type);
         }
-    }
+    };
 
-    private final boolean readOnly;
+    private static final ClassValue<BeanMethods> methodsCache = new ClassValue<BeanMethods>() {
+        @Override
+        protected BeanMethods computeValue(Class<?> type) {
+            return new BeanMethods(type);
+        }
+    };
 
-    private final ConcurrentCache<String,BeanProperties> cache = new ConcurrentCache<>(CACHE_SIZE);
+    private final boolean readOnly;
 
     /**
      * Creates a writable instance of the standard JavaBean resolver.
@@ -90,7 +99,18 @@ public class BeanELResolver extends ELResolver {
         }
 
         context.setPropertyResolved(base, property);
-        Method m = this.property(context, base, property).read(context, base);
+        BeanProperty beanProperty = this.property(context, base, property);
+        Method m = beanProperty.read(context, base);
+        MethodHandle handle = beanProperty.readHandle;
+        if (handle != null) {
+            try {
+                return handle.invokeExact(base);
+            } catch (Throwable t) {
+                Util.handleThrowable(t);
+                throw new ELException(
+                        Util.message(context, "propertyReadError", base.getClass().getName(), property.toString()), t);
+            }
+        }
         try {
             return m.invoke(base, (Object[]) null);
         } catch (InvocationTargetException e) {
@@ -117,7 +137,19 @@ public class BeanELResolver extends ELResolver {
                     Util.message(context, "resolverNotWritable", base.getClass().getName()));
         }
 
-        Method m = this.property(context, base, property).write(context, base);
+        BeanProperty beanProperty = this.property(context, base, property);
+        Method m = beanProperty.write(context, base);
+        MethodHandle handle = beanProperty.writeHandle;
+        if (handle != null) {
+            try {
+                handle.invokeExact(base, value);
+            } catch (Throwable t) {
+                Util.handleThrowable(t);
+                throw new ELException(
+                        Util.message(context, "propertyWriteError", base.getClass().getName(), property.toString()), t);
+            }
+            return;
+        }
         try {
             m.invoke(base, value);
         } catch (InvocationTargetException e) {
@@ -142,20 +174,38 @@ public class BeanELResolver extends ELResolver {
         String methodName = (String) factory.coerceToType(method, String.class);
 
         // Find the matching method
-        Method matchingMethod = Util.findMethod(context, base.getClass(), base, methodName, paramTypes, params);
+        Method matchingMethod;
+        MethodHandle handle;
+        BeanMethod beanMethod = methodsCache.get(base.getClass()).get(base, methodName, paramTypes, params);
+        if (beanMethod == null) {
+            matchingMethod = Util.findMethod(context, base.getClass(), base, methodName, paramTypes, params);
+            handle = null;
+        } else {
+            matchingMethod = beanMethod.method;
+            handle = beanMethod.handle;
+        }
 
         Object[] parameters =
                 Util.buildParameters(context, matchingMethod.getParameterTypes(), matchingMethod.isVarArgs(), params);
 
         Object result = null;
-        try {
-            result = matchingMethod.invoke(base, parameters);
-        } catch (IllegalArgumentException | IllegalAccessException e) {
-            throw new ELException(e);
-        } catch (InvocationTargetException e) {
-            Throwable cause = e.getCause();
-            Util.handleThrowable(cause);
-            throw new ELException(cause);
+        if (handle == null) {
+            try {
+                result = matchingMethod.invoke(base, parameters);
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                throw new ELException(e);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                Util.handleThrowable(cause);
+                throw new ELException(cause);
+            }
+        } else {
+            try {
+                result = handle.invokeExact(base, parameters);
+            } catch (Throwable t) {
+                Util.handleThrowable(t);
+                throw new ELException(t);
+            }
         }
 
         context.setPropertyResolved(base, method);
@@ -254,10 +304,6 @@ public class BeanELResolver extends ELResolver {
             }
             return property;
         }
-
-        private Class<?> getType() {
-            return type;
-        }
     }
 
     static final class BeanProperty {
@@ -271,6 +317,14 @@ public class BeanELResolver extends ELResolver {
 
         private Method write;
 
+        /*
+         * Set before the corresponding method so a thread that sees the method will usually see the handle. If it
+         * does not, reflection is used.
+         */
+        private volatile MethodHandle readHandle;
+
+        private volatile MethodHandle writeHandle;
+
         BeanProperty(Class<?> owner, PropertyDescriptor descriptor) {
             this.owner = owner;
             this.descriptor = descriptor;
@@ -282,80 +336,155 @@ public class BeanELResolver extends ELResolver {
         }
 
         public boolean isReadOnly(Object base) {
-            return this.write == null &&
-                    (null == (this.write = Util.getMethod(this.owner, base, descriptor.getWriteMethod())));
+            return this.write == null && null == resolveWrite(base);
         }
 
         private Method write(ELContext ctx, Object base) {
-            if (this.write == null) {
-                this.write = Util.getMethod(this.owner, base, descriptor.getWriteMethod());
-                if (this.write == null) {
-                    throw new PropertyNotWritableException(Util.message(ctx, "propertyNotWritable",
-                            new Object[] { owner.getName(), descriptor.getName() }));
-                }
+            if (this.write == null && resolveWrite(base) == null) {
+                throw new PropertyNotWritableException(Util.message(ctx, "propertyNotWritable",
+                        new Object[] { owner.getName(), descriptor.getName() }));
             }
             return this.write;
         }
 
+        private Method resolveWrite(Object base) {
+            Method m = Util.getMethod(this.owner, base, descriptor.getWriteMethod());
+            if (m != null) {
+                this.writeHandle = getMethodHandle(m, WRITE_TYPE);
+                this.write = m;
+            }
+            return m;
+        }
+
         private Method read(ELContext ctx, Object base) {
             if (this.read == null) {
-                this.read = Util.getMethod(this.owner, base, descriptor.getReadMethod());
-                if (this.read == null) {
+                Method m = Util.getMethod(this.owner, base, descriptor.getReadMethod());
+                if (m == null) {
                     throw new PropertyNotFoundException(Util.message(ctx, "propertyNotReadable",
                             new Object[] { owner.getName(), descriptor.getName() }));
                 }
+                this.readHandle = getMethodHandle(m, READ_TYPE);
+                this.read = m;
             }
             return this.read;
         }
     }
 
-    private BeanProperty property(ELContext ctx, Object base, Object property) {
-        Class<?> type = base.getClass();
-        String prop = property.toString();
-
-        BeanProperties props = this.cache.get(type.getName());
-        if (props == null || type != props.getType()) {
-            props = new BeanProperties(type);
-            this.cache.put(type.getName(), props);
-        }
+    /*
+     * The methods of a bean class that can be selected by name alone, keyed by name. These are methods without
+     * parameters and methods with a single parameter that are not overloaded. The single parameter methods are only
+     * used when the type of the parameter is assignable so that no other method could be a better match.
+     */
+    static final class BeanMethods {
+        private static final BeanMethod NOT_CACHEABLE = new BeanMethod(null, null);
 
-        return props.get(ctx, prop);
-    }
+        private final Class<?> type;
 
-    private static final class ConcurrentCache<K, V> {
+        private final Map<String,BeanMethod> noParameter = new ConcurrentHashMap<>();
 
-        private final int size;
-        private final Map<K,V> eden;
-        private final Map<K,V> longterm;
+        private final Map<String,BeanMethod> oneParameter = new ConcurrentHashMap<>();
 
-        ConcurrentCache(int size) {
-            this.size = size;
-            this.eden = new ConcurrentHashMap<>(size);
-            this.longterm = new WeakHashMap<>(size);
+        BeanMethods(Class<?> type) {
+            this.type = type;
         }
 
-        public V get(K key) {
-            V value = this.eden.get(key);
-            if (value == null) {
-                synchronized (longterm) {
-                    value = this.longterm.get(key);
+        private BeanMethod get(Object base, String name, Class<?>[] paramTypes, Object[] params) {
+            int paramCount = params == null ? 0 : params.length;
+            if (paramTypes != null && paramTypes.length != paramCount || paramCount > 1) {
+                return null;
+            }
+            Map<String,BeanMethod> methods = paramCount == 0 ? noParameter : oneParameter;
+            BeanMethod beanMethod = methods.get(name);
+            if (beanMethod == null) {
+                beanMethod = find(base, name, paramCount);
+                if (beanMethod == null) {
+                    // Not a method of this type. Don't cache so arbitrary names can't fill the cache.
+                    return null;
                 }
-                if (value != null) {
-                    this.eden.put(key, value);
+                methods.put(name, beanMethod);
+            }
+            if (beanMethod == NOT_CACHEABLE) {
+                return null;
+            }
+            if (paramCount == 1) {
+                Class<?> paramType;
+                if (paramTypes == null) {
+                    paramType = params[0] == null ? null : params[0].getClass();
+                } else {
+                    paramType = paramTypes[0];
+                }
+                if (paramType == null || !Util.isAssignableFrom(paramType, beanMethod.method.getParameterTypes()[0])) {
+                    return null;
                 }
             }
-            return value;
+            return beanMethod;
         }
 
-        public void put(K key, V value) {
-            if (this.eden.size() >= this.size) {
-                synchronized (longterm) {
-                    this.longterm.putAll(this.eden);
+        private BeanMethod find(Object base, String name, int paramCount) {
+            Method m = null;
+            if (paramCount == 0) {
+                try {
+                    m = type.getMethod(name);
+                } catch (NoSuchMethodException | SecurityException e) {
+                    return null;
+                }
+            } else {
+                for (Method candidate : type.getMethods()) {
+                    if (candidate.getName().equals(name)) {
+                        if (m != null) {
+                            // Overloaded
+                            return NOT_CACHEABLE;
+                        }
+                        m = candidate;
+                    }
+                }
+                if (m == null) {
+                    return null;
+                }
+                if (m.isVarArgs() || m.getParameterCount() != 1) {
+                    return NOT_CACHEABLE;
                 }
-                this.eden.clear();
             }
-            this.eden.put(key, value);
+            m = Util.getMethod(type, base, m);
+            if (m == null) {
+                return NOT_CACHEABLE;
+            }
+            return new BeanMethod(m, getMethodHandle(m, INVOKE_TYPE));
+        }
+    }
+
+    static final class BeanMethod {
+        private final Method method;
+
+        private final MethodHandle handle;
+
+        BeanMethod(Method method, MethodHandle handle) {
+            this.method = method;
+            this.handle = handle;
         }
+    }
+
+    private BeanProperty property(ELContext ctx, Object base, Object property) {
+        return propertiesCache.get(base.getClass()).get(ctx, property.toString());
+    }
 
+    /*
+     * Once optimized by the JIT compiler, calls via a method handle are significantly faster than calls via
+     * reflection. If a method handle can't be created, reflection is used.
+     */
+    private static MethodHandle getMethodHandle(Method m, MethodType type) {
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(m);
+            if (Modifier.isStatic(m.getModifiers())) {
+                // Accept and ignore the base object
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            if (type == INVOKE_TYPE) {
+                handle = handle.asSpreader(Object[].class, m.getParameterCount());
+            }
+            return handle.asType(type);
+        } catch (IllegalAccessException | WrongMethodTypeException e) {
+            return null;
+        }
     }
 }
@@ -93,6 +93,20 @@ public final class Globals {
     public static final String REQUEST_FORWARDED_ATTRIBUTE = "org.apache.tomcat.request.forwarded";
 
 
+    /**
+     * The request attribute that provides the {@link org.apache.tomcat.StreamingParts} for a
+     * <code>multipart/form-data</code> request. Duplicated here for neater code in the catalina packages.
+     */
+    public static final String STREAMING_PARTS_ATTR = org.apache.tomcat.StreamingParts.ATTRIBUTE_NAME;
+
+
+    /**
+     * The request attribute that provides the {@link org.apache.tomcat.RequestBodyBuffers} for a request. Duplicated
+     * here for neater code in the catalina packages.
+     */
+    public static final String REQUEST_BODY_BUFFERS_ATTR = org.apache.tomcat.RequestBodyBuffers.ATTRIBUTE_NAME;
+
+
     /**
      * The request attribute that is set to the value of {@code Boolean.TRUE} if connector processing this request
      * supports use of sendfile. Duplicated here for neater code in the catalina packages.
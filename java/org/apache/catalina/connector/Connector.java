@@ -193,6 +193,12 @@ public class Connector extends LifecycleMBeanBase {
     protected static final StringManager sm = StringManager.getManager(Connector.class);
 
 
+    /**
+     * Should the names and values of request parameters be decoded when first looked up rather than when the
+     * parameters are parsed?
+     */
+    private boolean lazyParameterDecoding = false;
+
     /**
      * The maximum number of cookies permitted for a request. Use a value less than zero for no limit. Defaults to 200.
      */
@@ -442,6 +448,27 @@ public class Connector extends LifecycleMBeanBase {
     }
 
 
+    /**
+     * @return {@code true} if the names and values of request parameters are decoded when they are first looked up
+     *             rather than when the parameters are parsed
+     */
+    public boolean getLazyParameterDecoding() {
+        return lazyParameterDecoding;
+    }
+
+
+    /**
+     * Configure whether the names and values of request parameters are decoded when they are first looked up rather
+     * than when the parameters are parsed. The number of parameters is limited in the same way with either setting.
+     *
+     * @param lazyParameterDecoding {@code true} to decode request parameters when they are first looked up
+     */
+    public void setLazyParameterDecoding(boolean lazyParameterDecoding) {
+        this.lazyParameterDecoding = lazyParameterDecoding;
+        setProperty("lazyParameterDecoding", String.valueOf(lazyParameterDecoding));
+    }
+
+
     /**
      * @return the maximum number of parameters (GET plus POST) that will be automatically parsed by the container. A
      *             value of less than 0 means no limit.
@@ -27,6 +27,7 @@ import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 
 import org.apache.catalina.security.SecurityUtil;
+import org.apache.tomcat.RequestBodyBuffers;
 import org.apache.tomcat.util.res.StringManager;
 
 /**
@@ -34,7 +35,7 @@ import org.apache.tomcat.util.res.StringManager;
  *
  * @author Remy Maucherat
  */
-public class CoyoteInputStream extends ServletInputStream {
+public class CoyoteInputStream extends ServletInputStream implements RequestBodyBuffers {
 
     protected static final StringManager sm = StringManager.getManager(CoyoteInputStream.class);
 
@@ -167,6 +168,33 @@ public class CoyoteInputStream extends ServletInputStream {
     }
 
 
+    @Override
+    public ByteBuffer readBuffer() throws IOException {
+        checkNonBlockingRead();
+
+        if (SecurityUtil.isPackageProtectionEnabled()) {
+            try {
+                return AccessController.doPrivileged(new PrivilegedReadBodyBuffer(ib));
+            } catch (PrivilegedActionException pae) {
+                Exception e = pae.getException();
+                if (e instanceof IOException) {
+                    throw (IOException) e;
+                } else {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+        } else {
+            return ib.readBodyBuffer();
+        }
+    }
+
+
+    @Override
+    public void releaseBuffer(ByteBuffer buffer) {
+        ib.releaseBodyBuffer(buffer);
+    }
+
+
     /**
      * Close the stream Since we re-cycle, we can't allow the call to super.close() which would permanently disable us.
      */
@@ -302,4 +330,19 @@ public class CoyoteInputStream extends ServletInputStream {
             return integer;
         }
     }
+
+
+    private static class PrivilegedReadBodyBuffer implements PrivilegedExceptionAction<ByteBuffer> {
+
+        private final InputBuffer inputBuffer;
+
+        PrivilegedReadBodyBuffer(InputBuffer inputBuffer) {
+            this.inputBuffer = inputBuffer;
+        }
+
+        @Override
+        public ByteBuffer run() throws IOException {
+            return inputBuffer.readBodyBuffer();
+        }
+    }
 }
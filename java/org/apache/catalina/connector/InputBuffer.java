@@ -118,6 +118,12 @@ public class InputBuffer extends Reader implements ByteChunk.ByteInputChannel, A
     private int markPos = -1;
 
 
+    /**
+     * Read-only view of the byte buffer that has been provided to the application and not yet released.
+     */
+    private ByteBuffer bodyBuffer = null;
+
+
     /**
      * Char buffer limit.
      */
@@ -192,6 +198,7 @@ public class InputBuffer extends Reader implements ByteChunk.ByteInputChannel, A
         readLimit = size;
         markPos = -1;
         clear(bb);
+        bodyBuffer = null;
         closed = false;
 
         if (conv != null) {
@@ -211,6 +218,10 @@ public class InputBuffer extends Reader implements ByteChunk.ByteInputChannel, A
     public int available() {
         int available = availableInThisBuffer();
         if (available == 0) {
+            if (bodyBuffer != null) {
+                // Nothing more can be read until the buffer is released
+                return 0;
+            }
             coyoteRequest.action(ActionCode.AVAILABLE, Boolean.valueOf(coyoteRequest.getReadListener() != null));
             available = (coyoteRequest.getAvailable() > 0) ? 1 : 0;
         }
@@ -278,6 +289,7 @@ public class InputBuffer extends Reader implements ByteChunk.ByteInputChannel, A
             return true;
         }
 
+        checkBodyBufferReleased();
         return coyoteRequest.isReady();
     }
 
@@ -295,6 +307,8 @@ public class InputBuffer extends Reader implements ByteChunk.ByteInputChannel, A
             return -1;
         }
 
+        checkBodyBufferReleased();
+
         if (state == INITIAL_STATE) {
             state = BYTE_STATE;
         }
@@ -391,6 +405,68 @@ public class InputBuffer extends Reader implements ByteChunk.ByteInputChannel, A
     }
 
 
+    /**
+     * Provides access to the buffered bytes without copying them, reading more bytes if none are buffered. The caller
+     * consumes bytes by advancing the position of the returned buffer. When using non-blocking IO, the returned buffer
+     * may be empty.
+     *
+     * @return the buffer or {@code null} if the end of the stream is reached
+     *
+     * @throws IOException if an input or output exception has occurred
+     */
+    ByteBuffer readDirect() throws IOException {
+        throwIfClosed();
+
+        if (checkByteBufferEof()) {
+            return null;
+        }
+        return bb;
+    }
+
+
+    /**
+     * Provides the buffered bytes, reading more bytes if none are buffered, as a read-only view that remains valid
+     * until it is released. The view must be released before any more bytes are read since reading may overwrite the
+     * bytes it contains. When using non-blocking IO, the returned buffer may be empty.
+     *
+     * @return the buffer or {@code null} if the end of the stream is reached
+     *
+     * @throws IOException if an input or output exception has occurred
+     */
+    ByteBuffer readBodyBuffer() throws IOException {
+        checkBodyBufferReleased();
+
+        ByteBuffer src = readDirect();
+        if (src == null) {
+            return null;
+        }
+        ByteBuffer result = src.slice().asReadOnlyBuffer();
+        src.position(src.limit());
+        bodyBuffer = result;
+        return result;
+    }
+
+
+    /**
+     * Release a buffer provided by {@link #readBodyBuffer()}.
+     *
+     * @param buffer The buffer to release
+     */
+    void releaseBodyBuffer(ByteBuffer buffer) {
+        if (buffer == null || buffer != bodyBuffer) {
+            throw new IllegalArgumentException(sm.getString("inputBuffer.bodyBufferInvalid"));
+        }
+        bodyBuffer = null;
+    }
+
+
+    private void checkBodyBufferReleased() {
+        if (bodyBuffer != null) {
+            throw new IllegalStateException(sm.getString("inputBuffer.bodyBufferNotReleased"));
+        }
+    }
+
+
     // ------------------------------------------------- Chars Handling Methods
 
     public int realReadChars() throws IOException {
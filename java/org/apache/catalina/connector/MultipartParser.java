@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.connector;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.tomcat.StreamingPart;
+import org.apache.tomcat.StreamingPartHandler;
+import org.apache.tomcat.util.http.fileupload.FileItemHeaders;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadBase;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.MultipartStream;
+import org.apache.tomcat.util.http.fileupload.impl.FileCountLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.apache.tomcat.util.res.StringManager;
+
+/**
+ * Parses a <code>multipart/form-data</code> request body that is provided in blocks of any size, passing the parts to
+ * a {@link StreamingPartHandler} as they are found. The data of each part is passed to the handler directly from the
+ * blocks provided to the parser. Unlike {@link MultipartStream}, which reads from an {@link java.io.InputStream}, the
+ * parser never waits for data so it can be used with non-blocking IO.
+ * <p>
+ * The format and limits are the same as those of the bundled Commons FileUpload, except that nested
+ * <code>multipart/mixed</code> parts are not supported. Parts without a form field name are ignored.
+ */
+class MultipartParser {
+
+    private static final StringManager sm = StringManager.getManager(MultipartParser.class);
+
+    private enum State {
+        PREAMBLE,
+        BOUNDARY,
+        HEADERS,
+        BODY,
+        EPILOGUE
+    }
+
+    private final StreamingPartHandler handler;
+    private final FileUpload upload;
+    private final Charset headerCharset;
+
+    // CRLF, "--" and the boundary
+    private final byte[] delimiter;
+    // Used to search for the delimiter (Knuth-Morris-Pratt)
+    private final int[] fallback;
+
+    private final long sizeMax;
+    private final long fileSizeMax;
+    private final long fileCountMax;
+
+    private State state = State.PREAMBLE;
+    /*
+     * The number of bytes at the end of the data processed so far that match the start of the delimiter. These bytes
+     * are held back until it is known whether they are part of the delimiter. The start of the body is treated as if
+     * it follows a CRLF so that a boundary at the very start is found.
+     */
+    private int matched = 2;
+    private final byte[] boundarySuffix = new byte[2];
+    private int boundarySuffixLength = 0;
+    private byte[] headerBytes = new byte[256];
+    private int headerLength = 0;
+
+    private long size = 0;
+    private long partCount = 0;
+    private long partSize = 0;
+    private Part part = null;
+
+
+    /**
+     * Create a parser.
+     *
+     * @param handler       The handler for the parts
+     * @param upload        Provides the limits and the parsing of boundaries and part headers
+     * @param boundary      The boundary from the content type of the request
+     * @param headerCharset The character set for the headers of the parts
+     */
+    MultipartParser(StreamingPartHandler handler, FileUpload upload, byte[] boundary, Charset headerCharset) {
+        this.handler = handler;
+        this.upload = upload;
+        this.headerCharset = headerCharset;
+
+        delimiter = new byte[boundary.length + 4];
+        delimiter[0] = MultipartStream.CR;
+        delimiter[1] = MultipartStream.LF;
+        delimiter[2] = MultipartStream.DASH;
+        delimiter[3] = MultipartStream.DASH;
+        System.arraycopy(boundary, 0, delimiter, 4, boundary.length);
+
+        fallback = new int[delimiter.length + 1];
+        int k = 0;
+        for (int i = 1; i < delimiter.length; i++) {
+            while (k > 0 && delimiter[i] != delimiter[k]) {
+                k = fallback[k];
+            }
+            if (delimiter[i] == delimiter[k]) {
+                k++;
+            }
+            fallback[i + 1] = k;
+        }
+
+        sizeMax = upload.getSizeMax();
+        fileSizeMax = upload.getFileSizeMax();
+        fileCountMax = upload.getFileCountMax();
+    }
+
+
+    /**
+     * Parse the next block of the request body.
+     *
+     * @param b   The array that contains the block
+     * @param off The offset of the block in the array
+     * @param len The length of the block
+     *
+     * @throws IOException if the request body is not valid, a limit is exceeded or the handler fails
+     */
+    void parse(byte[] b, int off, int len) throws IOException {
+        size += len;
+        if (sizeMax >= 0 && size > sizeMax) {
+            throw new SizeLimitExceededException(
+                    sm.getString("multipartParser.sizeMax", Long.valueOf(size), Long.valueOf(sizeMax)), size,
+                    sizeMax);
+        }
+        int pos = off;
+        int end = off + len;
+        while (pos < end) {
+            switch (state) {
+                case PREAMBLE:
+                case BODY:
+                    pos = parseData(b, pos, end);
+                    break;
+                case BOUNDARY:
+                    pos = parseBoundary(b, pos, end);
+                    break;
+                case HEADERS:
+                    pos = parseHeaders(b, pos, end);
+                    break;
+                case EPILOGUE:
+                    // Ignored
+                    pos = end;
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Signal the end of the request body.
+     *
+     * @throws IOException if the request body ended before the closing boundary or the handler fails
+     */
+    void end() throws IOException {
+        if (state != State.EPILOGUE) {
+            throw new FileUploadException(sm.getString("multipartParser.eof"));
+        }
+        handler.onComplete();
+    }
+
+
+    private int parseData(byte[] b, int start, int end) throws IOException {
+        int held = matched;
+        int pos = start;
+        while (pos < end) {
+            byte c = b[pos++];
+            while (matched > 0 && c != delimiter[matched]) {
+                matched = fallback[matched];
+            }
+            if (c == delimiter[matched]) {
+                matched++;
+            }
+            if (matched == delimiter.length) {
+                data(held, b, start, held + pos - start - delimiter.length);
+                matched = 0;
+                if (state == State.BODY) {
+                    endPart();
+                }
+                state = State.BOUNDARY;
+                return pos;
+            }
+        }
+        data(held, b, start, held + end - start - matched);
+        return end;
+    }
+
+
+    /*
+     * Pass on the first count bytes of the held back bytes followed by the bytes from start. The held back bytes are
+     * always the start of the delimiter.
+     */
+    private void data(int held, byte[] b, int start, int count) throws IOException {
+        if (state == State.PREAMBLE || part == null || count <= 0) {
+            return;
+        }
+        partSize += count;
+        if (fileSizeMax >= 0 && partSize > fileSizeMax) {
+            FileSizeLimitExceededException e = new FileSizeLimitExceededException(
+                    sm.getString("multipartParser.fileSizeMax", part.getName(), Long.valueOf(fileSizeMax)), partSize,
+                    fileSizeMax);
+            e.setFieldName(part.getName());
+            e.setFileName(part.getSubmittedFileName());
+            throw e;
+        }
+        int fromHeld = Math.min(held, count);
+        if (fromHeld > 0) {
+            handler.onPartData(part, delimiter, 0, fromHeld);
+        }
+        if (count > fromHeld) {
+            handler.onPartData(part, b, start, count - fromHeld);
+        }
+    }
+
+
+    private int parseBoundary(byte[] b, int start, int end) throws IOException {
+        int pos = start;
+        while (pos < end && boundarySuffixLength < 2) {
+            boundarySuffix[boundarySuffixLength++] = b[pos++];
+        }
+        if (boundarySuffixLength < 2) {
+            return pos;
+        }
+        boundarySuffixLength = 0;
+        if (boundarySuffix[0] == MultipartStream.DASH && boundarySuffix[1] == MultipartStream.DASH) {
+            state = State.EPILOGUE;
+        } else if (boundarySuffix[0] == MultipartStream.CR && boundarySuffix[1] == MultipartStream.LF) {
+            state = State.HEADERS;
+            headerLength = 0;
+        } else {
+            throw new FileUploadException(sm.getString("multipartParser.invalidBoundary"));
+        }
+        return pos;
+    }
+
+
+    private int parseHeaders(byte[] b, int start, int end) throws IOException {
+        int pos = start;
+        while (pos < end) {
+            byte c = b[pos++];
+            if (headerLength == headerBytes.length) {
+                if (headerLength == MultipartStream.HEADER_PART_SIZE_MAX) {
+                    throw new FileUploadException(sm.getString("multipartParser.headerSizeMax",
+                            Integer.valueOf(MultipartStream.HEADER_PART_SIZE_MAX)));
+                }
+                byte[] tmp = new byte[Math.min(headerLength * 2, MultipartStream.HEADER_PART_SIZE_MAX)];
+                System.arraycopy(headerBytes, 0, tmp, 0, headerLength);
+                headerBytes = tmp;
+            }
+            headerBytes[headerLength++] = c;
+            if (c == MultipartStream.LF && isEndOfHeaders()) {
+                startPart();
+                state = State.BODY;
+                return pos;
+            }
+        }
+        return end;
+    }
+
+
+    /*
+     * The headers end with an empty line. That is the first line if the part has no headers.
+     */
+    private boolean isEndOfHeaders() {
+        if (headerLength < 2 || headerBytes[headerLength - 2] != MultipartStream.CR) {
+            return false;
+        }
+        return headerLength == 2 || headerLength >= 4 && headerBytes[headerLength - 3] == MultipartStream.LF &&
+                headerBytes[headerLength - 4] == MultipartStream.CR;
+    }
+
+
+    private void startPart() throws IOException {
+        FileItemHeaders headers = upload.getParsedHeaders(new String(headerBytes, 0, headerLength, headerCharset));
+        String fieldName = upload.getFieldName(headers);
+        partSize = 0;
+        if (fieldName == null) {
+            part = null;
+            return;
+        }
+        if (fileCountMax >= 0 && partCount == fileCountMax) {
+            throw new FileCountLimitExceededException(
+                    sm.getString("multipartParser.fileCountMax", Long.valueOf(fileCountMax)), fileCountMax);
+        }
+        partCount++;
+        part = new Part(fieldName, upload.getFileName(headers), headers);
+        handler.onPartStart(part);
+    }
+
+
+    private void endPart() throws IOException {
+        if (part != null) {
+            handler.onPartEnd(part);
+            part = null;
+        }
+    }
+
+
+    private static class Part implements StreamingPart {
+
+        private final String name;
+        private final String submittedFileName;
+        private final FileItemHeaders headers;
+
+        Part(String name, String submittedFileName, FileItemHeaders headers) {
+            this.name = name;
+            this.submittedFileName = submittedFileName;
+            this.headers = headers;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getSubmittedFileName() {
+            return submittedFileName;
+        }
+
+        @Override
+        public String getContentType() {
+            return headers.getHeader(FileUploadBase.CONTENT_TYPE);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return headers.getHeader(name);
+        }
+
+        @Override
+        public Collection<String> getHeaders(String name) {
+            return toList(headers.getHeaders(name));
+        }
+
+        @Override
+        public Collection<String> getHeaderNames() {
+            return toList(headers.getHeaderNames());
+        }
+
+        private static Collection<String> toList(Iterator<String> iter) {
+            if (!iter.hasNext()) {
+                return Collections.emptyList();
+            }
+            List<String> result = new ArrayList<>();
+            while (iter.hasNext()) {
+                result.add(iter.next());
+            }
+            return result;
+        }
+    }
+}
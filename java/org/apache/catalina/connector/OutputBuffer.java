@@ -540,6 +540,56 @@ public class OutputBuffer extends Writer {
     }
 
 
+    /**
+     * Write text that has already been encoded. Any buffered characters are converted first so that the order of the
+     * output is preserved.
+     *
+     * @param b         The encoded text
+     * @param charCount The number of characters the bytes were encoded from
+     * @param charset   The character set used to encode the text
+     *
+     * @return {@code true} if the text was written or {@code false} if the character set does not match the one in
+     *             use or the converter holds part of a surrogate pair, in which case the text must be written as
+     *             characters
+     *
+     * @throws IOException An underlying IOException occurred
+     */
+    public boolean writeEncoded(byte[] b, int charCount, Charset charset) throws IOException {
+
+        if (suspended) {
+            return true;
+        }
+
+        if (conv == null || !conv.getCharset().equals(charset)) {
+            return false;
+        }
+
+        if (cb.remaining() > 0) {
+            flushCharBuffer();
+        }
+        if (conv.isUnderflow()) {
+            return false;
+        }
+
+        append(b, 0, b.length);
+        charsWritten += charCount;
+
+        return true;
+    }
+
+
+    /**
+     * @return the character set used to convert characters written to this buffer or {@code null} if a converter has
+     *             not yet been configured
+     */
+    public Charset getCharset() {
+        if (conv == null) {
+            return null;
+        }
+        return conv.getCharset();
+    }
+
+
     public void checkConverter() throws IOException {
         if (conv != null) {
             return;
@@ -759,16 +809,11 @@ public class OutputBuffer extends Writer {
             return;
         }
 
-        int limit = bb.capacity();
-        int fromLimit = from.limit();
-        while (from.remaining() > limit) {
-            from.limit(from.position() + limit);
+        if (from.remaining() > bb.capacity()) {
+            // Pass large buffers through whole so the connector can write them without copying them
             realWriteBytes(from.slice());
             from.position(from.limit());
-            from.limit(fromLimit);
-        }
-
-        if (from.remaining() > 0) {
+        } else {
             transfer(from, bb);
         }
     }
@@ -94,6 +94,8 @@ import org.apache.coyote.http11.upgrade.InternalHttpUpgradeHandler;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 import org.apache.tomcat.InstanceManager;
+import org.apache.tomcat.RequestBodyBuffers;
+import org.apache.tomcat.StreamingParts;
 import org.apache.tomcat.util.ExceptionUtils;
 import org.apache.tomcat.util.buf.B2CConverter;
 import org.apache.tomcat.util.buf.ByteChunk;
@@ -350,6 +352,12 @@ public class Request implements HttpServletRequest {
     protected Exception partsParseException = null;
 
 
+    /**
+     * The streaming multipart API for this request, created when first requested.
+     */
+    private StreamingParts streamingParts = null;
+
+
     /**
      * The currently active session for this request.
      */
@@ -482,6 +490,7 @@ public class Request implements HttpServletRequest {
             parts = null;
         }
         partsParseException = null;
+        streamingParts = null;
         locales.clear();
         localesParsed = false;
         secure = false;
@@ -1043,6 +1052,27 @@ public class Request implements HttpServletRequest {
     }
 
 
+    /**
+     * Provides the request body as read-only views of the buffer into which the connector reads the body. Each buffer
+     * must be released before more of the request body is read. Since the buffers are read via the input stream for
+     * this request, calling this method has the same effect on {@link #getReader()} as calling
+     * {@link #getInputStream()}.
+     *
+     * @return the request body buffers or {@code null} if {@link #getReader()} has already been called for this
+     *             request
+     */
+    public RequestBodyBuffers getRequestBodyBuffers() {
+        if (usingReader) {
+            return null;
+        }
+        usingInputStream = true;
+        if (inputStream == null) {
+            inputStream = new CoyoteInputStream(inputBuffer);
+        }
+        return inputStream;
+    }
+
+
     @Override
     public Locale getLocale() {
 
@@ -2545,20 +2575,15 @@ public class Request implements HttpServletRequest {
         }
 
         Context context = getContext();
-        MultipartConfigElement mce = getWrapper().getMultipartConfigElement();
+        MultipartConfigElement mce = getMultipartConfigElement();
 
         if (mce == null) {
-            if (context.getAllowCasualMultipartParsing()) {
-                mce = new MultipartConfigElement(null, connector.getMaxPostSize(), connector.getMaxPostSize(),
-                        connector.getMaxPostSize());
+            if (explicit) {
+                partsParseException = new IllegalStateException(sm.getString("coyoteRequest.noMultipartConfig"));
+                return;
             } else {
-                if (explicit) {
-                    partsParseException = new IllegalStateException(sm.getString("coyoteRequest.noMultipartConfig"));
-                    return;
-                } else {
-                    parts = Collections.emptyList();
-                    return;
-                }
+                parts = Collections.emptyList();
+                return;
             }
         }
 
@@ -2683,6 +2708,38 @@ public class Request implements HttpServletRequest {
     }
 
 
+    /*
+     * Returns null if multipart processing is not enabled for the target servlet.
+     */
+    private MultipartConfigElement getMultipartConfigElement() {
+        MultipartConfigElement mce = getWrapper().getMultipartConfigElement();
+        if (mce == null && getContext().getAllowCasualMultipartParsing()) {
+            mce = new MultipartConfigElement(null, connector.getMaxPostSize(), connector.getMaxPostSize(),
+                    connector.getMaxPostSize());
+        }
+        return mce;
+    }
+
+
+    /*
+     * Returns null if the request does not have a multipart/form-data body or multipart processing is not enabled for
+     * the target servlet.
+     */
+    private StreamingParts getStreamingParts() {
+        if (streamingParts == null) {
+            if (getWrapper() == null || !"multipart/form-data".equals(MediaType.parseMediaTypeOnly(getContentType()))) {
+                return null;
+            }
+            MultipartConfigElement mce = getMultipartConfigElement();
+            if (mce == null) {
+                return null;
+            }
+            streamingParts = new StreamingMultipart(this, mce);
+        }
+        return streamingParts;
+    }
+
+
     @Override
     public Part getPart(String name) throws IOException, IllegalStateException, ServletException {
         for (Part part : getParts()) {
@@ -2922,6 +2979,7 @@ public class Request implements HttpServletRequest {
                 maxParameterCount -= parts.size();
             }
             parameters.setLimit(maxParameterCount);
+            parameters.setLazyDecoding(connector.getLazyParameterDecoding());
 
             // getCharacterEncoding() may have been overridden to search for
             // hidden form field containing request encoding
@@ -3260,6 +3318,28 @@ public class Request implements HttpServletRequest {
                 // NO-OP
             }
         });
+        specialAttributes.put(Globals.STREAMING_PARTS_ATTR, new SpecialAttributeAdapter() {
+            @Override
+            public Object get(Request request, String name) {
+                return request.getStreamingParts();
+            }
+
+            @Override
+            public void set(Request request, String name, Object value) {
+                // NO-OP
+            }
+        });
+        specialAttributes.put(Globals.REQUEST_BODY_BUFFERS_ATTR, new SpecialAttributeAdapter() {
+            @Override
+            public Object get(Request request, String name) {
+                return request.getRequestBodyBuffers();
+            }
+
+            @Override
+            public void set(Request request, String name, Object value) {
+                // NO-OP
+            }
+        });
         specialAttributes.put(Globals.SENDFILE_SUPPORTED_ATTR, new SpecialAttributeAdapter() {
             @Override
             public Object get(Request request, String name) {
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.connector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+import org.apache.tomcat.StreamingPartHandler;
+import org.apache.tomcat.StreamingParts;
+import org.apache.tomcat.util.buf.B2CConverter;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.apache.tomcat.util.res.StringManager;
+
+/**
+ * Provides the parts of a <code>multipart/form-data</code> request as they are read. The request body is passed to
+ * the {@link MultipartParser} directly from the buffer of the {@link InputBuffer}.
+ */
+class StreamingMultipart implements StreamingParts {
+
+    private static final StringManager sm = StringManager.getManager(StreamingMultipart.class);
+
+    private final Request request;
+    private final MultipartConfigElement config;
+    private boolean started = false;
+    // Only used if the buffers of the connector do not have a backing array
+    private byte[] copyBuffer;
+
+
+    StreamingMultipart(Request request, MultipartConfigElement config) {
+        this.request = request;
+        this.config = config;
+    }
+
+
+    @Override
+    public void read(StreamingPartHandler handler) throws IOException {
+        if (!request.inputBuffer.isBlocking()) {
+            throw new IllegalStateException(sm.getString("streamingMultipart.nonBlocking"));
+        }
+        MultipartParser parser = start(handler);
+        try {
+            ByteBuffer buffer;
+            while ((buffer = request.inputBuffer.readDirect()) != null) {
+                parse(parser, buffer);
+            }
+            parser.end();
+        } catch (SizeException e) {
+            request.checkSwallowInput();
+            throw e;
+        }
+    }
+
+
+    @Override
+    public void setHandler(StreamingPartHandler handler) throws IOException {
+        if (!request.isAsyncStarted()) {
+            throw new IllegalStateException(sm.getString("streamingMultipart.notAsync"));
+        }
+        MultipartParser parser = start(handler);
+        ServletInputStream in = request.getInputStream();
+        in.setReadListener(new PartReadListener(in, parser, handler));
+    }
+
+
+    private MultipartParser start(StreamingPartHandler handler) throws IOException {
+        Objects.requireNonNull(handler);
+        if (started) {
+            throw new IllegalStateException(sm.getString("streamingMultipart.started"));
+        }
+        if (request.usingReader || request.parts != null || request.partsParseException != null) {
+            throw new IllegalStateException(sm.getString("streamingMultipart.bodyUsed"));
+        }
+        started = true;
+        request.partsParseException = new IllegalStateException(sm.getString("streamingMultipart.partsStreamed"));
+
+        // Once the input stream has been obtained, request parameters are only parsed from the query string
+        request.getInputStream();
+        if (!request.parametersParsed) {
+            request.parseParameters();
+        }
+
+        FileUpload upload = new FileUpload();
+        upload.setFileSizeMax(config.getMaxFileSize());
+        upload.setSizeMax(config.getMaxRequestSize());
+        int maxParameterCount = request.getConnector().getMaxParameterCount();
+        if (maxParameterCount > -1) {
+            // As for getParts(), the parts and the parameters from the query string share the limit
+            upload.setFileCountMax(maxParameterCount - request.getCoyoteRequest().getParameters().size());
+        }
+
+        long requestSize = request.getContentLengthLong();
+        if (upload.getSizeMax() >= 0 && requestSize > upload.getSizeMax()) {
+            request.checkSwallowInput();
+            throw new SizeLimitExceededException(sm.getString("multipartParser.sizeMax", Long.valueOf(requestSize),
+                    Long.valueOf(upload.getSizeMax())), requestSize, upload.getSizeMax());
+        }
+
+        byte[] boundary = upload.getBoundary(request.getContentType());
+        if (boundary == null) {
+            throw new FileUploadException(sm.getString("streamingMultipart.noBoundary"));
+        }
+
+        // Same as the bundled Commons FileUpload
+        Charset headerCharset;
+        String characterEncoding = request.getCharacterEncoding();
+        if (characterEncoding == null) {
+            headerCharset = Charset.defaultCharset();
+        } else {
+            headerCharset = B2CConverter.getCharset(characterEncoding);
+        }
+
+        return new MultipartParser(handler, upload, boundary, headerCharset);
+    }
+
+
+    private void parse(MultipartParser parser, ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            int len = buffer.remaining();
+            parser.parse(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.position() + len);
+        } else {
+            if (copyBuffer == null) {
+                copyBuffer = new byte[InputBuffer.DEFAULT_BUFFER_SIZE];
+            }
+            while (buffer.hasRemaining()) {
+                int len = Math.min(buffer.remaining(), copyBuffer.length);
+                buffer.get(copyBuffer, 0, len);
+                parser.parse(copyBuffer, 0, len);
+            }
+        }
+    }
+
+
+    private class PartReadListener implements ReadListener {
+
+        private final ServletInputStream in;
+        private final MultipartParser parser;
+        private final StreamingPartHandler handler;
+        private boolean failed = false;
+
+        PartReadListener(ServletInputStream in, MultipartParser parser, StreamingPartHandler handler) {
+            this.in = in;
+            this.parser = parser;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            try {
+                while (!failed && in.isReady()) {
+                    ByteBuffer buffer = request.inputBuffer.readDirect();
+                    if (buffer == null) {
+                        return;
+                    }
+                    parse(parser, buffer);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            if (failed) {
+                return;
+            }
+            try {
+                parser.end();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (!failed) {
+                failed = true;
+                handler.onError(t);
+            }
+        }
+
+        private void fail(IOException e) {
+            failed = true;
+            if (e instanceof SizeException) {
+                request.checkSwallowInput();
+            }
+            handler.onError(e);
+        }
+    }
+}
@@ -799,6 +799,12 @@ public class StandardContext extends ContainerBase implements Context, Notificat
 
     private int notFoundClassResourceCacheSize = 1000;
 
+    private boolean notFoundClassResourceFilter = false;
+
+    private boolean jarScanIndex = false;
+
+    private String startAfter = null;
+
     private EncodedSolidusHandling encodedReverseSolidusHandling = EncodedSolidusHandling.DECODE;
 
     private EncodedSolidusHandling encodedSolidusHandling = EncodedSolidusHandling.DECODE;
@@ -852,6 +858,67 @@ public class StandardContext extends ContainerBase implements Context, Notificat
     }
 
 
+    /**
+     * @return {@code true} if the class loader uses a bloom filter of its resources to avoid looking up resources that
+     *             do not exist
+     */
+    public boolean getNotFoundClassResourceFilter() {
+        return notFoundClassResourceFilter;
+    }
+
+
+    /**
+     * Configure whether the class loader uses a bloom filter of its resources, created when the web application
+     * starts, to avoid looking up resources that do not exist.
+     *
+     * @param notFoundClassResourceFilter {@code true} to use the filter
+     */
+    public void setNotFoundClassResourceFilter(boolean notFoundClassResourceFilter) {
+        this.notFoundClassResourceFilter = notFoundClassResourceFilter;
+    }
+
+
+    /**
+     * @return {@code true} if the results of scanning the JARs of this web application are stored in the work
+     *             directory so that unchanged JARs are not scanned again the next time the web application starts
+     */
+    public boolean getJarScanIndex() {
+        return jarScanIndex;
+    }
+
+
+    /**
+     * Configure whether the results of scanning the JARs of this web application are stored in the work directory so
+     * that unchanged JARs are not scanned again the next time the web application starts.
+     *
+     * @param jarScanIndex {@code true} to store the results of JAR scanning
+     */
+    public void setJarScanIndex(boolean jarScanIndex) {
+        this.jarScanIndex = jarScanIndex;
+    }
+
+
+    /**
+     * @return The comma separated list of the names of the contexts that must be deployed before this context is
+     *             started or {@code null} if there are none
+     */
+    public String getStartAfter() {
+        return startAfter;
+    }
+
+
+    /**
+     * Configure the contexts that must be deployed before this context is started when the applications of the Host
+     * are deployed together (e.g. when the Host starts). Contexts that are not being deployed at the same time are
+     * ignored.
+     *
+     * @param startAfter The comma separated list of context names
+     */
+    public void setStartAfter(String startAfter) {
+        this.startAfter = startAfter;
+    }
+
+
     @Override
     public void setCreateUploadTargets(boolean createUploadTargets) {
         this.createUploadTargets = createUploadTargets;
@@ -4367,6 +4434,7 @@ public class StandardContext extends ContainerBase implements Context, Notificat
                     cl.setClearReferencesThreadLocals(getClearReferencesThreadLocals());
                     cl.setSkipMemoryLeakChecksOnJvmShutdown(getSkipMemoryLeakChecksOnJvmShutdown());
                     cl.setNotFoundClassResourceCacheSize(getNotFoundClassResourceCacheSize());
+                    cl.setNotFoundClassResourceFilter(getNotFoundClassResourceFilter());
                 }
 
                 // By calling unbindThread and bindThread in a row, we set up the
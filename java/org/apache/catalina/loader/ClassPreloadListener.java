@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.loader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import javax.servlet.ServletContext;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.Context;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleEvent;
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.Loader;
+import org.apache.catalina.Server;
+import org.apache.catalina.Service;
+import org.apache.catalina.WebResource;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.util.ExceptionUtils;
+import org.apache.tomcat.util.buf.HexUtils;
+import org.apache.tomcat.util.res.StringManager;
+import org.apache.tomcat.util.security.ConcurrentMessageDigest;
+
+/**
+ * Implementation of {@code LifecycleListener} that records the classes loaded by a web application and loads the same
+ * classes the next time the web application starts so that the cost of loading them is not incurred by the first
+ * requests.
+ * <p>
+ * When the web application stops, the names of the classes loaded from the web application are written to a file in
+ * the work directory along with a fingerprint of the classes in {@code /WEB-INF/classes} and the JARs in
+ * {@code /WEB-INF/lib}. When the web application starts, if the classes and JARs are unchanged, the recorded classes
+ * are loaded and linked, but not initialized, using the utility executor. Linking includes the verification of the
+ * class where the JVM verifies the classes of web applications.
+ * <p>
+ * This listener must only be nested within {@link Context} elements and requires a {@link WebappClassLoaderBase}.
+ */
+public class ClassPreloadListener implements LifecycleListener {
+
+    private static final Log log = LogFactory.getLog(ClassPreloadListener.class);
+    private static final StringManager sm = StringManager.getManager(ClassPreloadListener.class);
+
+    /**
+     * The name of the file, in the work directory of the web application, where the loaded classes are recorded.
+     */
+    public static final String CLASS_LIST_FILE = "preloadClasses.txt";
+
+    private boolean record = true;
+    private boolean preload = true;
+    private boolean background = true;
+
+    private volatile Future<?> preloadFuture = null;
+    private volatile int preloadedCount = 0;
+    private volatile int failedCount = 0;
+
+
+    /**
+     * @return {@code true} if the loaded classes will be recorded when the web application stops
+     */
+    public boolean getRecord() {
+        return record;
+    }
+
+
+    /**
+     * Configure whether the classes loaded by the web application are recorded when the web application stops. This
+     * is typically enabled for a training run and then disabled so the list of classes is not modified further.
+     *
+     * @param record {@code true} to record the loaded classes
+     */
+    public void setRecord(boolean record) {
+        this.record = record;
+    }
+
+
+    /**
+     * @return {@code true} if the recorded classes will be loaded when the web application starts
+     */
+    public boolean getPreload() {
+        return preload;
+    }
+
+
+    /**
+     * Configure whether the recorded classes are loaded when the web application starts.
+     *
+     * @param preload {@code true} to load the recorded classes
+     */
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+
+    /**
+     * @return {@code true} if the recorded classes will be loaded using the utility executor once the web application
+     *             has started rather than before the start of the web application completes
+     */
+    public boolean getBackground() {
+        return background;
+    }
+
+
+    /**
+     * Configure whether the recorded classes are loaded using the utility executor once the web application has
+     * started or before the start of the web application completes.
+     *
+     * @param background {@code true} to load the recorded classes in the background
+     */
+    public void setBackground(boolean background) {
+        this.background = background;
+    }
+
+
+    /**
+     * @return The number of classes loaded by the most recent preload
+     */
+    public int getPreloadedCount() {
+        return preloadedCount;
+    }
+
+
+    /**
+     * @return The number of recorded classes that could not be loaded by the most recent preload
+     */
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+
+    @Override
+    public void lifecycleEvent(LifecycleEvent event) {
+        if (Lifecycle.AFTER_START_EVENT.equals(event.getType())) {
+            Context context = getContext(event);
+            if (context != null && preload) {
+                startPreload(context);
+            }
+        } else if (Lifecycle.BEFORE_STOP_EVENT.equals(event.getType())) {
+            Context context = getContext(event);
+            if (context != null) {
+                Future<?> future = preloadFuture;
+                if (future != null) {
+                    // Don't interrupt since that could close channels used to read resources
+                    future.cancel(false);
+                    preloadFuture = null;
+                }
+                if (record) {
+                    recordClasses(context);
+                }
+            }
+        }
+    }
+
+
+    private Context getContext(LifecycleEvent event) {
+        if (!(event.getLifecycle() instanceof Context)) {
+            log.warn(sm.getString("classPreloadListener.notContext", event.getLifecycle().getClass().getSimpleName()));
+            return null;
+        }
+        return (Context) event.getLifecycle();
+    }
+
+
+    private void startPreload(Context context) {
+        WebappClassLoaderBase classLoader = getClassLoader(context);
+        File file = getFile(context);
+        if (classLoader == null || file == null || !file.isFile()) {
+            return;
+        }
+
+        List<String> classNames = new ArrayList<>();
+        String fingerprint;
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            fingerprint = reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    classNames.add(line);
+                }
+            }
+        } catch (IOException ioe) {
+            log.warn(sm.getString("classPreloadListener.readFail", file), ioe);
+            return;
+        }
+
+        if (!getFingerprint(context).equals(fingerprint)) {
+            if (log.isDebugEnabled()) {
+                log.debug(sm.getString("classPreloadListener.changed", context.getName()));
+            }
+            return;
+        }
+
+        Runnable task = () -> preload(context, classLoader, classNames);
+        ScheduledExecutorService executor = background ? getUtilityExecutor(context) : null;
+        if (executor != null) {
+            try {
+                preloadFuture = executor.submit(task);
+                return;
+            } catch (RejectedExecutionException ree) {
+                // Fall through and preload on the current thread
+            }
+        }
+        task.run();
+    }
+
+
+    private void preload(Context context, WebappClassLoaderBase classLoader, List<String> classNames) {
+        long start = System.nanoTime();
+        int loaded = 0;
+        int failed = 0;
+        for (String className : classNames) {
+            if (Thread.currentThread().isInterrupted() || !context.getState().isAvailable()) {
+                break;
+            }
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                /*
+                 * Loading a class does not link it. HotSpot links, and therefore verifies, a class without
+                 * initializing it when its declared constructors are first requested.
+                 */
+                clazz.getDeclaredConstructors();
+                loaded++;
+            } catch (Throwable t) {
+                ExceptionUtils.handleThrowable(t);
+                failed++;
+                if (log.isDebugEnabled()) {
+                    log.debug(sm.getString("classPreloadListener.loadFail", className, context.getName()), t);
+                }
+            }
+        }
+        preloadedCount = loaded;
+        failedCount = failed;
+        if (log.isInfoEnabled()) {
+            log.info(sm.getString("classPreloadListener.preloaded", Integer.valueOf(loaded), context.getName(),
+                    Long.valueOf((System.nanoTime() - start) / 1_000_000), Integer.valueOf(failed)));
+        }
+    }
+
+
+    private void recordClasses(Context context) {
+        WebappClassLoaderBase classLoader = getClassLoader(context);
+        File file = getFile(context);
+        if (classLoader == null || file == null) {
+            return;
+        }
+
+        List<String> classNames = classLoader.getLoadedClassNames();
+        if (classNames.isEmpty()) {
+            return;
+        }
+        // Load in a predictable order, which also places super classes near their sub classes
+        Collections.sort(classNames);
+
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                writer.write(getFingerprint(context));
+                writer.write('\n');
+                for (String className : classNames) {
+                    writer.write(className);
+                    writer.write('\n');
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ioe) {
+            log.warn(sm.getString("classPreloadListener.writeFail", file), ioe);
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(sm.getString("classPreloadListener.recorded", Integer.valueOf(classNames.size()),
+                    context.getName(), file));
+        }
+    }
+
+
+    private static WebappClassLoaderBase getClassLoader(Context context) {
+        Loader loader = context.getLoader();
+        if (loader != null && loader.getClassLoader() instanceof WebappClassLoaderBase) {
+            return (WebappClassLoaderBase) loader.getClassLoader();
+        }
+        return null;
+    }
+
+
+    private static File getFile(Context context) {
+        Object workDir = context.getServletContext().getAttribute(ServletContext.TEMPDIR);
+        if (workDir instanceof File) {
+            return new File((File) workDir, CLASS_LIST_FILE);
+        }
+        return null;
+    }
+
+
+    /*
+     * The recorded classes are only used if the classes and JARs of the web application are unchanged.
+     */
+    private static String getFingerprint(Context context) {
+        List<String> parts = new ArrayList<>();
+        addFingerprint(context.getResources(), "/WEB-INF/classes", ".class", parts);
+        addFingerprint(context.getResources(), "/WEB-INF/lib", ".jar", parts);
+        Collections.sort(parts);
+        return HexUtils.toHexString(
+                ConcurrentMessageDigest.digestMD5(String.join("\n", parts).getBytes(StandardCharsets.UTF_8)));
+    }
+
+
+    private static void addFingerprint(WebResourceRoot resources, String path, String suffix, List<String> parts) {
+        for (WebResource resource : resources.listResources(path)) {
+            if (resource.isDirectory()) {
+                if (suffix.equals(".class")) {
+                    addFingerprint(resources, resource.getWebappPath(), suffix, parts);
+                }
+            } else if (resource.getName().endsWith(suffix)) {
+                parts.add(resource.getWebappPath() + ' ' + resource.getContentLength() + ' ' +
+                        resource.getLastModified());
+            }
+        }
+    }
+
+
+    private static ScheduledExecutorService getUtilityExecutor(Context context) {
+        Service service = Container.getService(context);
+        if (service == null) {
+            return null;
+        }
+        Server server = service.getServer();
+        if (server == null) {
+            return null;
+        }
+        return server.getUtilityExecutor();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.loader;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.catalina.WebResource;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.WebResourceSet;
+import org.apache.tomcat.Jar;
+import org.apache.tomcat.util.compat.JreCompat;
+import org.apache.tomcat.util.scan.JarFactory;
+
+/**
+ * Bloom filter of the paths, relative to {@code /WEB-INF/classes}, of the class loader resources of a web application.
+ * If the filter reports that a path is not present, the resource does not exist and the lookup can be skipped. The
+ * filter is immutable once created so it may be used concurrently without locking.
+ */
+final class ResourceNameFilter {
+
+    private static final String CLASSES = "/WEB-INF/classes";
+    private static final String VERSIONS = "META-INF/versions/";
+
+    /*
+     * 10 bits per name with 5 hash functions gives a false positive rate of about 1%.
+     */
+    private static final int BITS_PER_NAME = 10;
+    private static final int HASH_COUNT = 5;
+
+    private final BitSet bits;
+    private final int size;
+
+
+    ResourceNameFilter(Collection<String> paths) {
+        size = Math.max(64, paths.size() * BITS_PER_NAME);
+        bits = new BitSet(size);
+        for (String path : paths) {
+            int h1 = path.hashCode();
+            int h2 = hash2(path);
+            for (int i = 0; i < HASH_COUNT; i++) {
+                bits.set(index(h1, h2, i));
+            }
+        }
+    }
+
+
+    /**
+     * @param path The path of the resource relative to {@code /WEB-INF/classes}, starting with {@code '/'}
+     *
+     * @return {@code false} if the resource definitely does not exist, otherwise {@code true}
+     */
+    boolean mightContain(String path) {
+        int h1 = path.hashCode();
+        int h2 = hash2(path);
+        for (int i = 0; i < HASH_COUNT; i++) {
+            if (!bits.get(index(h1, h2, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private int index(int h1, int h2, int i) {
+        return ((h1 + i * h2) & Integer.MAX_VALUE) % size;
+    }
+
+
+    private static int hash2(String path) {
+        // FNV-1a so collisions are independent of String.hashCode()
+        int h = 0x811C9DC5;
+        for (int i = 0; i < path.length(); i++) {
+            h ^= path.charAt(i);
+            h *= 0x01000193;
+        }
+        // Must be odd so the hashes do not repeat
+        return h | 1;
+    }
+
+
+    /**
+     * Create a filter for the class loader resources of a web application.
+     *
+     * @param resources The resources of the web application
+     *
+     * @return The filter or {@code null} if the class loader resources cannot be listed
+     *
+     * @throws IOException If a JAR in {@code /WEB-INF/lib} cannot be read
+     */
+    static ResourceNameFilter create(WebResourceRoot resources) throws IOException {
+        // Resources only visible to the class loader are not included in the listings used below
+        if (hasClassLoaderOnly(resources.getPreResources()) || hasClassLoaderOnly(resources.getJarResources()) ||
+                hasClassLoaderOnly(resources.getPostResources())) {
+            return null;
+        }
+
+        Set<String> paths = new HashSet<>();
+        addPaths(resources, CLASSES + "/", paths);
+
+        int runtimeVersion = JreCompat.getInstance().jarFileRuntimeMajorVersion();
+        for (WebResource jarResource : resources.listResources("/WEB-INF/lib")) {
+            if (!jarResource.getName().endsWith(".jar") || !jarResource.isFile()) {
+                continue;
+            }
+            try (Jar jar = JarFactory.newInstance(jarResource.getURL())) {
+                jar.nextEntry();
+                String entryName = jar.getEntryName();
+                while (entryName != null) {
+                    addPath(entryName, paths);
+                    // Versioned entries are also visible under their real name
+                    if (entryName.startsWith(VERSIONS)) {
+                        int i = entryName.indexOf('/', VERSIONS.length());
+                        if (i > 0) {
+                            try {
+                                int version = Integer.parseInt(entryName.substring(VERSIONS.length(), i));
+                                if (version <= runtimeVersion && i + 1 < entryName.length()) {
+                                    addPath(entryName.substring(i + 1), paths);
+                                }
+                            } catch (NumberFormatException e) {
+                                // Not a versioned entry
+                            }
+                        }
+                    }
+                    jar.nextEntry();
+                    entryName = jar.getEntryName();
+                }
+            }
+        }
+
+        return new ResourceNameFilter(paths);
+    }
+
+
+    private static boolean hasClassLoaderOnly(WebResourceSet[] webResourceSets) {
+        for (WebResourceSet webResourceSet : webResourceSets) {
+            if (webResourceSet.getClassLoaderOnly()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static void addPaths(WebResourceRoot resources, String dir, Set<String> paths) {
+        Set<String> children = resources.listWebAppPaths(dir);
+        if (children == null) {
+            return;
+        }
+        for (String child : children) {
+            String path = child.substring(CLASSES.length());
+            paths.add(path);
+            if (child.endsWith("/")) {
+                // Directories may be looked up with or without the trailing '/'
+                paths.add(path.substring(0, path.length() - 1));
+                addPaths(resources, child, paths);
+            }
+        }
+    }
+
+
+    /*
+     * Adds the JAR entry and its parent directories as JARs do not always contain directory entries.
+     */
+    private static void addPath(String entryName, Set<String> paths) {
+        String path = '/' + entryName;
+        paths.add(path);
+        int i = path.indexOf('/', 1);
+        while (i > 0) {
+            paths.add(path.substring(0, i));
+            paths.add(path.substring(0, i + 1));
+            i = path.indexOf('/', i + 1);
+        }
+    }
+}
@@ -55,6 +55,7 @@ import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
 import java.util.jar.Manifest;
@@ -397,6 +398,22 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
      */
     private final ConcurrentLruCache<String> notFoundClassResources = new ConcurrentLruCache<>(1000);
 
+    /*
+     * Should a bloom filter of the class loader resources be used to avoid lookups of resources that do not exist?
+     */
+    private volatile boolean notFoundClassResourceFilter = false;
+
+    /*
+     * Unlike notFoundClassResources, no lock is required to use the filter.
+     */
+    private volatile ResourceNameFilter classResourceFilter = null;
+
+    private final LongAdder loadClassCount = new LongAdder();
+    private final LongAdder loadClassTime = new LongAdder();
+    private final LongAdder loadClassCacheHitCount = new LongAdder();
+    private final LongAdder notFoundFilterHitCount = new LongAdder();
+    private final LongAdder notFoundCacheHitCount = new LongAdder();
+
 
     // ------------------------------------------------------------- Properties
 
@@ -410,6 +427,70 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
     }
 
 
+    /**
+     * Configure whether a bloom filter of the class loader resources is used to avoid looking up resources that do not
+     * exist. The filter is created when this class loader starts or, if already started, when this method is called.
+     * Resources added to the web application after the filter has been created will not be found.
+     *
+     * @param notFoundClassResourceFilter {@code true} to use the filter
+     */
+    public void setNotFoundClassResourceFilter(boolean notFoundClassResourceFilter) {
+        this.notFoundClassResourceFilter = notFoundClassResourceFilter;
+        if (state.isAvailable()) {
+            initClassResourceFilter();
+        }
+    }
+
+
+    public boolean getNotFoundClassResourceFilter() {
+        return notFoundClassResourceFilter;
+    }
+
+
+    /**
+     * @return The number of calls to {@link #loadClass(String, boolean)}
+     */
+    public long getLoadClassCount() {
+        return loadClassCount.sum();
+    }
+
+
+    /**
+     * @return The total time, in milliseconds, spent in {@link #loadClass(String, boolean)}. Nested calls, such as the
+     *             loading of super classes, are included in the time of both the outer and the nested call.
+     */
+    public long getLoadClassTime() {
+        return loadClassTime.sum() / 1_000_000;
+    }
+
+
+    /**
+     * @return The number of calls to {@link #loadClass(String, boolean)} that returned a class that had already been
+     *             loaded
+     */
+    public long getLoadClassCacheHitCount() {
+        return loadClassCacheHitCount.sum();
+    }
+
+
+    /**
+     * @return The number of lookups of class loader resources that were skipped because the bloom filter showed the
+     *             resource did not exist
+     */
+    public long getNotFoundFilterHitCount() {
+        return notFoundFilterHitCount.sum();
+    }
+
+
+    /**
+     * @return The number of lookups of class loader resources that were skipped because the resource was in the cache
+     *             of resources that were not found
+     */
+    public long getNotFoundCacheHitCount() {
+        return notFoundCacheHitCount.sum();
+    }
+
+
     /**
      * Unused. Always returns {@code null}.
      *
@@ -679,6 +760,25 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
         base.loaderPC.putAll(this.loaderPC);
     }
 
+    /**
+     * Obtain the binary names of the classes that have been loaded from the web application by this class loader.
+     * Classes loaded by delegating to the parent class loader are not included.
+     *
+     * @return The binary names of the loaded classes
+     */
+    public List<String> getLoadedClassNames() {
+        List<String> result = new ArrayList<>();
+        for (Entry<String,ResourceEntry> entry : resourceEntries.entrySet()) {
+            if (entry.getValue().loadedClass != null) {
+                String path = entry.getKey();
+                // Remove leading '/' and trailing ".class"
+                result.add(path.substring(1, path.length() - CLASS_FILE_SUFFIX.length()).replace('/', '.'));
+            }
+        }
+        return result;
+    }
+
+
     /**
      * Have one or more classes or resources been modified so that a reload is appropriate?
      *
@@ -815,7 +915,7 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
             if (log.isTraceEnabled()) {
                 log.trace("      findClassInternal(" + name + ")");
             }
-            if (!notFoundClassResources.contains(path)) {
+            if (!isKnownNotFound(path)) {
                 try {
                     if (securityManager != null) {
                         PrivilegedAction<Class<?>> dp = new PrivilegedFindClassByName(name);
@@ -899,7 +999,7 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
 
         String path = nameToPath(name);
 
-        if (!notFoundClassResources.contains(path)) {
+        if (!isKnownNotFound(path)) {
             WebResource resource = resources.getClassLoaderResource(path);
             if (resource.exists()) {
                 url = resource.getURL();
@@ -927,6 +1027,43 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
     }
 
 
+    /*
+     * Determines if a class loader resource is known not to exist in the resources of the web application.
+     */
+    private boolean isKnownNotFound(String path) {
+        ResourceNameFilter filter = classResourceFilter;
+        // The filter only covers the resources of the web application and paths that do not need normalization
+        if (filter != null && !hasExternalRepositories && path.length() > 1 && path.indexOf("/.") == -1 &&
+                path.indexOf("//") == -1 && path.indexOf('\\') == -1 && !filter.mightContain(path)) {
+            notFoundFilterHitCount.increment();
+            return true;
+        }
+        if (notFoundClassResources.contains(path)) {
+            notFoundCacheHitCount.increment();
+            return true;
+        }
+        return false;
+    }
+
+
+    private void initClassResourceFilter() {
+        ResourceNameFilter filter = null;
+        if (notFoundClassResourceFilter && resources != null) {
+            long start = System.nanoTime();
+            try {
+                filter = ResourceNameFilter.create(resources);
+            } catch (IOException | RuntimeException e) {
+                log.warn(sm.getString("webappClassLoader.resourceFilterFail", getContextName()), e);
+            }
+            if (filter != null && log.isDebugEnabled()) {
+                log.debug(sm.getString("webappClassLoader.resourceFilter", getContextName(),
+                        Long.valueOf((System.nanoTime() - start) / 1_000_000)));
+            }
+        }
+        classResourceFilter = filter;
+    }
+
+
     private void trackLastModified(String path, WebResource resource) {
         if (resourceEntries.containsKey(path)) {
             return;
@@ -1100,7 +1237,7 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
             log.trace("  Searching local repositories");
         }
         String path = nameToPath(name);
-        if (!notFoundClassResources.contains(path)) {
+        if (!isKnownNotFound(path)) {
             WebResource resource = resources.getClassLoaderResource(path);
             if (resource.exists()) {
                 stream = resource.getInputStream();
@@ -1185,6 +1322,27 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
      */
     @Override
     public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        long start = System.nanoTime();
+        try {
+            // Classes previously loaded by this class loader can be returned without obtaining the class loading lock
+            checkStateForClassLoading(name);
+            Class<?> clazz = findLoadedClass0(name);
+            if (clazz != null) {
+                loadClassCacheHitCount.increment();
+                if (resolve) {
+                    resolveClass(clazz);
+                }
+                return clazz;
+            }
+            return loadClassInternal(name, resolve);
+        } finally {
+            loadClassCount.increment();
+            loadClassTime.add(System.nanoTime() - start);
+        }
+    }
+
+
+    private Class<?> loadClassInternal(String name, boolean resolve) throws ClassNotFoundException {
 
         synchronized (JreCompat.isGraalAvailable() ? this : getClassLoadingLock(name)) {
             if (log.isTraceEnabled()) {
@@ -1201,6 +1359,7 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
                 if (log.isTraceEnabled()) {
                     log.trace("  Returning class from cache");
                 }
+                loadClassCacheHitCount.increment();
                 if (resolve) {
                     resolveClass(clazz);
                 }
@@ -1213,6 +1372,7 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
                 if (log.isTraceEnabled()) {
                     log.trace("  Returning class from cache");
                 }
+                loadClassCacheHitCount.increment();
                 if (resolve) {
                     resolveClass(clazz);
                 }
@@ -1496,6 +1656,10 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
         }
 
         state = LifecycleState.STARTED;
+
+        if (notFoundClassResourceFilter) {
+            initClassResourceFilter();
+        }
     }
 
 
@@ -1512,6 +1676,7 @@ public abstract class WebappClassLoaderBase extends URLClassLoader
 
         resourceEntries.clear();
         notFoundClassResources.clear();
+        classResourceFilter = null;
         jarModificationTimes.clear();
         resources = null;
 
@@ -16,12 +16,11 @@
  */
 package org.apache.catalina.session;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.sql.Connection;
@@ -29,7 +28,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -38,6 +42,7 @@ import javax.sql.DataSource;
 
 import org.apache.catalina.Container;
 import org.apache.catalina.Globals;
+import org.apache.catalina.LifecycleException;
 import org.apache.catalina.Server;
 import org.apache.catalina.Service;
 import org.apache.catalina.Session;
@@ -46,21 +51,149 @@ import org.apache.juli.logging.Log;
 /**
  * Implementation of the {@link org.apache.catalina.Store Store} interface that stores serialized session objects in a
  * database. Sessions that are saved are still subject to being expired based on inactivity.
+ * <p>
+ * Session attributes may optionally be stored as individual rows of a separate table, in which case only the
+ * attributes that have been set or removed since the session was last saved are written. Saves may also optionally be
+ * queued and written to the database in batches by the background thread.
  *
  * @author Bip Thelin
  */
 @SuppressWarnings("deprecation")
 public class DataSourceStore extends JDBCStore {
 
+    // ------------------------------------------------------------ Table & cols
+
+    /**
+     * Table to use for storing session attributes as individual rows. If {@code null}, all attributes are serialized
+     * into the data column of the session table.
+     */
+    protected String sessionAttributeTable = null;
+
+    /**
+     * Attribute name column to use in the session attribute table.
+     */
+    protected String sessionAttributeNameCol = "name";
+
+
+    // ----------------------------------------------------- Write-behind Queue
+
+    /**
+     * Should session saves be queued and written to the database in batches?
+     */
+    protected boolean writeBehind = false;
+
+    /**
+     * Number of queued session saves that triggers an immediate write to the database.
+     */
+    protected int writeBehindMaxPending = 1000;
+
+    /**
+     * Session saves waiting to be written to the database, keyed by session ID.
+     */
+    private final Map<String,PendingSave> pendingSaves = new ConcurrentHashMap<>();
+
+    /**
+     * Lock held while queued saves are written so that they cannot be reordered with removals.
+     */
+    private final Object writeBehindLock = new Object();
+
+
+    // -------------------------------------------------------------- Properties
+
+    /**
+     * Set the table used to store session attributes as individual rows. Once set, only the attributes that have been
+     * set or removed since the session was last saved are written to the database.
+     *
+     * @param sessionAttributeTable The new table or {@code null} to store all attributes in the session table
+     */
+    public void setSessionAttributeTable(String sessionAttributeTable) {
+        String oldSessionAttributeTable = this.sessionAttributeTable;
+        this.sessionAttributeTable = sessionAttributeTable;
+        support.firePropertyChange("sessionAttributeTable", oldSessionAttributeTable, this.sessionAttributeTable);
+    }
+
+    /**
+     * @return the table used to store session attributes as individual rows
+     */
+    public String getSessionAttributeTable() {
+        return sessionAttributeTable;
+    }
+
+    /**
+     * Set the attribute name column for the session attribute table.
+     *
+     * @param sessionAttributeNameCol the column name
+     */
+    public void setSessionAttributeNameCol(String sessionAttributeNameCol) {
+        String oldSessionAttributeNameCol = this.sessionAttributeNameCol;
+        this.sessionAttributeNameCol = sessionAttributeNameCol;
+        support.firePropertyChange("sessionAttributeNameCol", oldSessionAttributeNameCol,
+                this.sessionAttributeNameCol);
+    }
+
+    /**
+     * @return the attribute name column for the session attribute table
+     */
+    public String getSessionAttributeNameCol() {
+        return this.sessionAttributeNameCol;
+    }
+
+    /**
+     * Configure whether session saves are queued and written to the database in batches, either by the background
+     * thread or once {@link #getWriteBehindMaxPending()} saves are queued.
+     *
+     * @param writeBehind {@code true} to queue session saves
+     */
+    public void setWriteBehind(boolean writeBehind) {
+        boolean oldWriteBehind = this.writeBehind;
+        this.writeBehind = writeBehind;
+        support.firePropertyChange("writeBehind", oldWriteBehind, this.writeBehind);
+    }
+
+    /**
+     * @return {@code true} if session saves are queued and written to the database in batches
+     */
+    public boolean getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Set the number of queued session saves that triggers an immediate write to the database.
+     *
+     * @param writeBehindMaxPending The new maximum number of queued session saves
+     */
+    public void setWriteBehindMaxPending(int writeBehindMaxPending) {
+        int oldWriteBehindMaxPending = this.writeBehindMaxPending;
+        this.writeBehindMaxPending = writeBehindMaxPending;
+        support.firePropertyChange("writeBehindMaxPending", oldWriteBehindMaxPending, this.writeBehindMaxPending);
+    }
+
+    /**
+     * @return the number of queued session saves that triggers an immediate write to the database
+     */
+    public int getWriteBehindMaxPending() {
+        return writeBehindMaxPending;
+    }
+
+    /**
+     * @return the number of session saves currently waiting to be written to the database
+     */
+    public int getPendingSaveCount() {
+        return pendingSaves.size();
+    }
+
+
     // --------------------------------------------------------- Public Methods
 
     @Override
     public String[] expiredKeys() throws IOException {
+        flushPendingSaves();
         return keys(true);
     }
 
     @Override
     public String[] keys() throws IOException {
+        flushPendingSaves();
         return keys(false);
     }
 
@@ -119,6 +252,7 @@ public class DataSourceStore extends JDBCStore {
 
     @Override
     public int getSize() throws IOException {
+        flushPendingSaves();
         int size = 0;
         String sizeSql = "SELECT COUNT(" + sessionIdCol + ") FROM " + sessionTable + " WHERE " + sessionAppCol + " = ?";
 
@@ -155,6 +289,10 @@ public class DataSourceStore extends JDBCStore {
         org.apache.catalina.Context context = getManager().getContext();
         Log contextLog = context.getLogger();
 
+        if (pendingSaves.containsKey(id)) {
+            flushPendingSaves();
+        }
+
         int numberOfTries = 2;
         String loadSql = "SELECT " + sessionIdCol + ", " + sessionDataCol + " FROM " + sessionTable + " WHERE " +
                 sessionIdCol + " = ? AND " + sessionAppCol + " = ?";
@@ -180,6 +318,11 @@ public class DataSourceStore extends JDBCStore {
                             _session.readObjectData(ois);
                             _session.setManager(manager);
                         }
+                        if (sessionAttributeTable != null) {
+                            loadAttributes(_session, _conn);
+                        }
+                        // The database now holds the current state of the session
+                        _session.resetDirtyAttributes();
                     } else if (context.getLogger().isDebugEnabled()) {
                         contextLog.debug(getStoreName() + ": No persisted data object found");
                     }
@@ -197,8 +340,47 @@ public class DataSourceStore extends JDBCStore {
         return _session;
     }
 
+    /**
+     * Load the attributes of the given session from the session attribute table.
+     *
+     * @param session The session being loaded
+     * @param _conn   open connection to be used
+     *
+     * @throws SQLException           if an error occurs while talking to the database
+     * @throws ClassNotFoundException if an unknown class is specified
+     * @throws IOException            if an input/output error occurs
+     */
+    private void loadAttributes(StandardSession session, Connection _conn)
+            throws SQLException, ClassNotFoundException, IOException {
+        String loadAttributesSql = "SELECT " + sessionAttributeNameCol + ", " + sessionDataCol + " FROM " +
+                sessionAttributeTable + " WHERE " + sessionIdCol + " = ? AND " + sessionAppCol + " = ?";
+        try (PreparedStatement preparedLoadAttributesSql = _conn.prepareStatement(loadAttributesSql)) {
+            preparedLoadAttributesSql.setString(1, session.getIdInternal());
+            preparedLoadAttributesSql.setString(2, getName());
+            try (ResultSet rst = preparedLoadAttributesSql.executeQuery()) {
+                while (rst.next()) {
+                    String name = rst.getString(1);
+                    try (ObjectInputStream ois = getObjectInputStream(rst.getBinaryStream(2))) {
+                        session.loadAttribute(name, ois.readObject());
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public void remove(String id) throws IOException {
+        if (writeBehind) {
+            synchronized (writeBehindLock) {
+                pendingSaves.remove(id);
+                removeInternal(id);
+            }
+        } else {
+            removeInternal(id);
+        }
+    }
+
+    private void removeInternal(String id) {
 
         int numberOfTries = 2;
         while (numberOfTries > 0) {
@@ -242,10 +424,30 @@ public class DataSourceStore extends JDBCStore {
             preparedRemoveSql.setString(2, getName());
             preparedRemoveSql.execute();
         }
+        if (sessionAttributeTable != null) {
+            String removeAttributesSql = "DELETE FROM " + sessionAttributeTable + " WHERE " + sessionIdCol +
+                    " = ?  AND " + sessionAppCol + " = ?";
+            try (PreparedStatement preparedRemoveAttributesSql = _conn.prepareStatement(removeAttributesSql)) {
+                preparedRemoveAttributesSql.setString(1, id);
+                preparedRemoveAttributesSql.setString(2, getName());
+                preparedRemoveAttributesSql.execute();
+            }
+        }
     }
 
     @Override
     public void clear() throws IOException {
+        if (writeBehind) {
+            synchronized (writeBehindLock) {
+                pendingSaves.clear();
+                clearInternal();
+            }
+        } else {
+            clearInternal();
+        }
+    }
+
+    private void clearInternal() {
         String clearSql = "DELETE FROM " + sessionTable + " WHERE " + sessionAppCol + " = ?";
 
         int numberOfTries = 2;
@@ -258,6 +460,14 @@ public class DataSourceStore extends JDBCStore {
             try (PreparedStatement preparedClearSql = _conn.prepareStatement(clearSql)) {
                 preparedClearSql.setString(1, getName());
                 preparedClearSql.execute();
+                if (sessionAttributeTable != null) {
+                    String clearAttributesSql = "DELETE FROM " + sessionAttributeTable + " WHERE " + sessionAppCol +
+                            " = ?";
+                    try (PreparedStatement preparedClearAttributesSql = _conn.prepareStatement(clearAttributesSql)) {
+                        preparedClearAttributesSql.setString(1, getName());
+                        preparedClearAttributesSql.execute();
+                    }
+                }
                 // Break out after the finally block
                 numberOfTries = 0;
             } catch (SQLException e) {
@@ -271,59 +481,266 @@ public class DataSourceStore extends JDBCStore {
 
     @Override
     public void save(Session session) throws IOException {
+        StandardSession standardSession = (StandardSession) session;
+        PendingSave pendingSave;
+        synchronized (session) {
+            try {
+                pendingSave = createPendingSave(standardSession);
+            } catch (IOException e) {
+                // The dirty attribute names have been reset. Make sure the next save writes everything.
+                standardSession.markAllAttributesDirty();
+                return;
+            }
+        }
+
+        if (writeBehind) {
+            pendingSaves.merge(pendingSave.id, pendingSave, PendingSave::merge);
+            if (pendingSaves.size() >= writeBehindMaxPending) {
+                flushPendingSaves();
+            }
+        } else if (!write(Collections.singletonList(pendingSave))) {
+            // Make sure the next save writes everything
+            standardSession.markAllAttributesDirty();
+        }
+
+        if (manager.getContext().getLogger().isTraceEnabled()) {
+            manager.getContext().getLogger()
+                    .trace(sm.getString(getStoreName() + ".saving", session.getIdInternal(), sessionTable));
+        }
+    }
+
+    /**
+     * Write all queued session saves to the database using batched statements. Saves that cannot be written are kept
+     * in the queue and retried on the next call unless they have been superseded by a later save of the same session.
+     */
+    public void flushPendingSaves() {
+        if (pendingSaves.isEmpty()) {
+            return;
+        }
+        synchronized (writeBehindLock) {
+            List<PendingSave> saves = new ArrayList<>(pendingSaves.size());
+            for (String id : pendingSaves.keySet()) {
+                PendingSave pendingSave = pendingSaves.remove(id);
+                if (pendingSave != null) {
+                    saves.add(pendingSave);
+                }
+            }
+            if (saves.isEmpty()) {
+                return;
+            }
+            if (!write(saves)) {
+                manager.getContext().getLogger()
+                        .warn(sm.getString("dataSourceStore.writeBehindFailed", Integer.valueOf(saves.size())));
+                for (PendingSave failed : saves) {
+                    pendingSaves.merge(failed.id, failed, (later, earlier) -> PendingSave.merge(earlier, later));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void processExpires() {
+        flushPendingSaves();
+        super.processExpires();
+    }
+
+
+    // --------------------------------------------------------- Private Methods
+
+    /**
+     * Serialize the current state of the given session. The caller must hold the lock on the session.
+     *
+     * @param session The session to serialize
+     *
+     * @return the serialized form of the session, ready to be written to the database
+     *
+     * @throws IOException if an error occurs serializing the session
+     */
+    private PendingSave createPendingSave(StandardSession session) throws IOException {
+        boolean separateAttributes = sessionAttributeTable != null;
+        // Capture the attributes to write before serializing the session so any that are unbound during
+        // serialization are picked up by the next save
+        String[] names = null;
+        if (separateAttributes) {
+            names = session.getAndResetDirtyAttributeNames();
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(bos))) {
+            session.writeObjectData(oos, !separateAttributes);
+        }
+        PendingSave pendingSave = new PendingSave(session.getIdInternal(), session.isValid(),
+                session.getMaxInactiveInterval(), session.getLastAccessedTime(), bos.toByteArray());
+        if (!separateAttributes) {
+            return pendingSave;
+        }
+
+        if (names == null) {
+            pendingSave.replaceAttributes = true;
+            names = session.keys();
+        }
+        for (String name : names) {
+            Object value = session.attributes.get(name);
+            byte[] data = null;
+            if (value == null) {
+                // Removed
+            } else if (session.isAttributeDistributable(name, value) && !session.exclude(name, value)) {
+                bos = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(bos))) {
+                    oos.writeObject(value);
+                } catch (NotSerializableException e) {
+                    manager.getContext().getLogger()
+                            .warn(sm.getString("standardSession.notSerializable", name, session.getIdInternal()), e);
+                    bos = null;
+                }
+                if (bos != null) {
+                    data = bos.toByteArray();
+                }
+            } else {
+                // Consistent with the handling of attributes when the whole session is serialized
+                session.removeAttributeInternal(name, true);
+            }
+            if (data != null || !pendingSave.replaceAttributes) {
+                pendingSave.attributes.put(name, data);
+            }
+        }
+        return pendingSave;
+    }
+
+    /**
+     * Write the given session saves to the database in a single transaction.
+     *
+     * @param saves The session saves to write
+     *
+     * @return {@code true} if the saves were written, otherwise {@code false}
+     */
+    private boolean write(Collection<PendingSave> saves) {
+        String removeSql =
+                "DELETE FROM " + sessionTable + " WHERE " + sessionIdCol + " = ?  AND " + sessionAppCol + " = ?";
         String saveSql = "INSERT INTO " + sessionTable + " (" + sessionIdCol + ", " + sessionAppCol + ", " +
                 sessionDataCol + ", " + sessionValidCol + ", " + sessionMaxInactiveCol + ", " + sessionLastAccessedCol +
                 ") VALUES (?, ?, ?, ?, ?, ?)";
 
-        synchronized (session) {
-            int numberOfTries = 2;
-            while (numberOfTries > 0) {
-                Connection _conn = getConnection();
-                if (_conn == null) {
-                    return;
-                }
-
-                try {
-                    // Remove session if it exists and insert again.
-                    remove(session.getIdInternal(), _conn);
+        int numberOfTries = 2;
+        while (numberOfTries > 0) {
+            Connection _conn = getConnection();
+            if (_conn == null) {
+                return false;
+            }
 
-                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                    try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(bos))) {
-                        ((StandardSession) session).writeObjectData(oos);
-                    }
-                    byte[] obs = bos.toByteArray();
-                    int size = obs.length;
-                    try (ByteArrayInputStream bis = new ByteArrayInputStream(obs, 0, size);
-                            InputStream in = new BufferedInputStream(bis, size);
-                            PreparedStatement preparedSaveSql = _conn.prepareStatement(saveSql)) {
-                        preparedSaveSql.setString(1, session.getIdInternal());
+            boolean autoCommit = true;
+            try {
+                autoCommit = _conn.getAutoCommit();
+                if (autoCommit) {
+                    _conn.setAutoCommit(false);
+                }
+                try (PreparedStatement preparedRemoveSql = _conn.prepareStatement(removeSql);
+                        PreparedStatement preparedSaveSql = _conn.prepareStatement(saveSql)) {
+                    // Remove sessions if they exist and insert again.
+                    for (PendingSave save : saves) {
+                        preparedRemoveSql.setString(1, save.id);
+                        preparedRemoveSql.setString(2, getName());
+                        preparedRemoveSql.addBatch();
+                        preparedSaveSql.setString(1, save.id);
                         preparedSaveSql.setString(2, getName());
-                        preparedSaveSql.setBinaryStream(3, in, size);
-                        preparedSaveSql.setString(4, session.isValid() ? "1" : "0");
-                        preparedSaveSql.setInt(5, session.getMaxInactiveInterval());
-                        preparedSaveSql.setLong(6, session.getLastAccessedTime());
-                        preparedSaveSql.execute();
-                        // Break out after the finally block
-                        numberOfTries = 0;
+                        preparedSaveSql.setBinaryStream(3, new ByteArrayInputStream(save.data), save.data.length);
+                        preparedSaveSql.setString(4, save.valid ? "1" : "0");
+                        preparedSaveSql.setInt(5, save.maxInactiveInterval);
+                        preparedSaveSql.setLong(6, save.lastAccessedTime);
+                        preparedSaveSql.addBatch();
+                    }
+                    preparedRemoveSql.executeBatch();
+                    preparedSaveSql.executeBatch();
+                }
+                if (sessionAttributeTable != null) {
+                    writeAttributes(saves, _conn);
+                }
+                _conn.commit();
+                return true;
+            } catch (SQLException e) {
+                manager.getContext().getLogger().error(sm.getString(getStoreName() + ".SQLException", e));
+                try {
+                    _conn.rollback();
+                } catch (SQLException e2) {
+                    // Ignore
+                }
+            } finally {
+                try {
+                    if (autoCommit) {
+                        _conn.setAutoCommit(true);
                     }
                 } catch (SQLException e) {
-                    manager.getContext().getLogger().error(sm.getString(getStoreName() + ".SQLException", e));
-                } catch (IOException e) {
                     // Ignore
-                } finally {
-                    release(_conn);
                 }
-                numberOfTries--;
+                release(_conn);
             }
+            numberOfTries--;
         }
+        return false;
+    }
 
-        if (manager.getContext().getLogger().isTraceEnabled()) {
-            manager.getContext().getLogger()
-                    .trace(sm.getString(getStoreName() + ".saving", session.getIdInternal(), sessionTable));
+    /**
+     * Write the session attribute rows for the given session saves.
+     *
+     * @param saves The session saves being written
+     * @param _conn open connection to be used
+     *
+     * @throws SQLException if an error occurs while talking to the database
+     */
+    private void writeAttributes(Collection<PendingSave> saves, Connection _conn) throws SQLException {
+        String removeAllSql = "DELETE FROM " + sessionAttributeTable + " WHERE " + sessionIdCol + " = ?  AND " +
+                sessionAppCol + " = ?";
+        String removeSql = removeAllSql + " AND " + sessionAttributeNameCol + " = ?";
+        String saveSql = "INSERT INTO " + sessionAttributeTable + " (" + sessionIdCol + ", " + sessionAppCol + ", " +
+                sessionAttributeNameCol + ", " + sessionDataCol + ") VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement preparedRemoveAllSql = _conn.prepareStatement(removeAllSql);
+                PreparedStatement preparedRemoveSql = _conn.prepareStatement(removeSql);
+                PreparedStatement preparedSaveSql = _conn.prepareStatement(saveSql)) {
+            for (PendingSave save : saves) {
+                if (save.replaceAttributes) {
+                    preparedRemoveAllSql.setString(1, save.id);
+                    preparedRemoveAllSql.setString(2, getName());
+                    preparedRemoveAllSql.addBatch();
+                }
+                for (Map.Entry<String,byte[]> attribute : save.attributes.entrySet()) {
+                    if (!save.replaceAttributes) {
+                        preparedRemoveSql.setString(1, save.id);
+                        preparedRemoveSql.setString(2, getName());
+                        preparedRemoveSql.setString(3, attribute.getKey());
+                        preparedRemoveSql.addBatch();
+                    }
+                    byte[] data = attribute.getValue();
+                    if (data != null) {
+                        preparedSaveSql.setString(1, save.id);
+                        preparedSaveSql.setString(2, getName());
+                        preparedSaveSql.setString(3, attribute.getKey());
+                        preparedSaveSql.setBinaryStream(4, new ByteArrayInputStream(data), data.length);
+                        preparedSaveSql.addBatch();
+                    }
+                }
+            }
+            preparedRemoveAllSql.executeBatch();
+            preparedRemoveSql.executeBatch();
+            preparedSaveSql.executeBatch();
         }
     }
 
 
+    // --------------------------------------------------------- Lifecycle Methods
+
+    /**
+     * Write any queued session saves to the database and then stop this component.
+     *
+     * @exception LifecycleException if this component detects a fatal error that prevents this component from being
+     *                                   used
+     */
+    @Override
+    protected synchronized void stopInternal() throws LifecycleException {
+        flushPendingSaves();
+        super.stopInternal();
+    }
+
+
     // --------------------------------------------------------- Protected Methods
 
     /**
@@ -412,4 +829,54 @@ public class DataSourceStore extends JDBCStore {
         }
     }
 
+
+
+    /**
+     * The serialized state of a session that is waiting to be written to the database.
+     */
+    private static class PendingSave {
+
+        private final String id;
+        private final boolean valid;
+        private final int maxInactiveInterval;
+        private final long lastAccessedTime;
+        private final byte[] data;
+
+        /*
+         * Only used when attributes are stored in the session attribute table. A null value indicates that the
+         * attribute has been removed.
+         */
+        private boolean replaceAttributes = false;
+        private final Map<String,byte[]> attributes = new LinkedHashMap<>();
+
+        PendingSave(String id, boolean valid, int maxInactiveInterval, long lastAccessedTime, byte[] data) {
+            this.id = id;
+            this.valid = valid;
+            this.maxInactiveInterval = maxInactiveInterval;
+            this.lastAccessedTime = lastAccessedTime;
+            this.data = data;
+        }
+
+        /*
+         * Combine two saves of the same session so that a single write results in the same database state as writing
+         * both in order.
+         */
+        static PendingSave merge(PendingSave earlier, PendingSave later) {
+            if (later.replaceAttributes) {
+                return later;
+            }
+            Map<String,byte[]> merged = new LinkedHashMap<>(earlier.attributes);
+            for (Map.Entry<String,byte[]> attribute : later.attributes.entrySet()) {
+                if (earlier.replaceAttributes && attribute.getValue() == null) {
+                    merged.remove(attribute.getKey());
+                } else {
+                    merged.put(attribute.getKey(), attribute.getValue());
+                }
+            }
+            later.replaceAttributes = earlier.replaceAttributes;
+            later.attributes.clear();
+            later.attributes.putAll(merged);
+            return later;
+        }
+    }
 }
@@ -0,0 +1,802 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.session;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import javax.servlet.ServletContext;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Globals;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.Session;
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.util.res.StringManager;
+
+/**
+ * Concrete implementation of the <b>Store</b> interface that appends saved Sessions to a small number of segment
+ * files in a configured directory rather than writing one file per Session. An in-memory index, rebuilt from the
+ * segment files on start, maps each session ID to the location of its most recent record so that load, remove,
+ * {@link #keys()} and {@link #getSize()} never need to list or open more than one file. Space occupied by removed and
+ * superseded records is reclaimed by the background thread, which rewrites the live records of the oldest segment and
+ * then deletes it. Sessions that are saved are still subject to being expired based on inactivity.
+ */
+public final class LogStructuredStore extends StoreBase {
+
+    private static final Log log = LogFactory.getLog(LogStructuredStore.class);
+    private static final StringManager sm = StringManager.getManager(LogStructuredStore.class);
+
+
+    // ----------------------------------------------------- Constants
+
+    /**
+     * The prefix and extension used for segment file names.
+     */
+    private static final String SEGMENT_PREFIX = "sessions-";
+    private static final String SEGMENT_EXT = ".log";
+
+    /**
+     * Record types.
+     */
+    private static final byte RECORD_SAVE = 1;
+    private static final byte RECORD_REMOVE = 2;
+
+    /**
+     * Size of the fixed part of a record: type, ID length, this accessed time, max inactive interval, data length and
+     * data CRC.
+     */
+    private static final int RECORD_HEADER_SIZE = 1 + 4 + 8 + 4 + 4 + 4;
+
+    /**
+     * Upper bound for session ID lengths in bytes. Longer IDs are rejected when writing and treated as corruption when
+     * reading.
+     */
+    private static final int MAX_ID_LENGTH = 1024;
+
+
+    // ----------------------------------------------------- Instance Variables
+
+    /**
+     * The pathname of the directory in which Sessions are stored. This may be an absolute pathname, or a relative path
+     * that is resolved against the temporary work directory for this application.
+     */
+    private String directory = "sessions";
+
+
+    /**
+     * A File representing the directory in which Sessions are stored.
+     */
+    private File directoryFile = null;
+
+
+    /**
+     * The maximum size of a segment file before a new one is started.
+     */
+    private long maxSegmentSize = 16 * 1024 * 1024;
+
+
+    /**
+     * The fraction of the total size of all segments that may be occupied by removed or superseded records before the
+     * background thread starts to compact the segments.
+     */
+    private double compactionThreshold = 0.5;
+
+
+    /**
+     * The location of the current record for each session in the store.
+     */
+    private final Map<String,IndexEntry> index = new ConcurrentHashMap<>();
+
+
+    /**
+     * The open segments, ordered from oldest to newest. Guarded by {@link #lock}.
+     */
+    private final TreeMap<Long,Segment> segments = new TreeMap<>();
+
+
+    /**
+     * The segment to which new records are appended. Guarded by {@link #lock}.
+     */
+    private Segment activeSegment = null;
+
+
+    /**
+     * Appends, compaction and lifecycle changes hold the write lock. Reads hold the read lock so that a segment cannot
+     * be closed while it is being read.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+
+    /**
+     * Name to register for this Store, used for logging.
+     */
+    private static final String storeName = "logStructuredStore";
+
+
+    /**
+     * Name to register for the background thread.
+     */
+    private static final String threadName = "LogStructuredStore";
+
+
+    // ------------------------------------------------------------- Properties
+
+    /**
+     * @return The directory path for this Store.
+     */
+    public String getDirectory() {
+        return directory;
+    }
+
+
+    /**
+     * Set the directory path for this Store.
+     *
+     * @param path The new directory path
+     */
+    public void setDirectory(String path) {
+        String oldDirectory = this.directory;
+        this.directory = path;
+        this.directoryFile = null;
+        support.firePropertyChange("directory", oldDirectory, this.directory);
+    }
+
+
+    /**
+     * @return The maximum size in bytes of a segment file.
+     */
+    public long getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+
+    /**
+     * Set the maximum size of a segment file. A segment may exceed this size if it contains a single session that is
+     * larger than this size.
+     *
+     * @param maxSegmentSize The new maximum size in bytes
+     */
+    public void setMaxSegmentSize(long maxSegmentSize) {
+        long oldMaxSegmentSize = this.maxSegmentSize;
+        this.maxSegmentSize = maxSegmentSize;
+        support.firePropertyChange("maxSegmentSize", oldMaxSegmentSize, this.maxSegmentSize);
+    }
+
+
+    /**
+     * @return The fraction of the segments that may be occupied by removed or superseded records before compaction
+     *             starts.
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+
+    /**
+     * Set the fraction of the total size of the segments that may be occupied by removed or superseded records before
+     * the background thread starts to compact the segments.
+     *
+     * @param compactionThreshold The new threshold, between 0 and 1
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        double oldCompactionThreshold = this.compactionThreshold;
+        this.compactionThreshold = compactionThreshold;
+        support.firePropertyChange("compactionThreshold", oldCompactionThreshold, this.compactionThreshold);
+    }
+
+
+    /**
+     * @return The thread name for this Store.
+     */
+    public String getThreadName() {
+        return threadName;
+    }
+
+
+    @Override
+    public String getStoreName() {
+        return storeName;
+    }
+
+
+    /**
+     * @return The number of segment files currently in use.
+     */
+    public int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * @return The total size in bytes of the segment files currently in use.
+     */
+    public long getTotalBytes() {
+        lock.readLock().lock();
+        try {
+            long result = 0;
+            for (Segment segment : segments.values()) {
+                result += segment.size;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * @return The size in bytes of the records of the sessions currently in the store.
+     */
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            long result = 0;
+            for (Segment segment : segments.values()) {
+                result += segment.liveBytes;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    @Override
+    public int getSize() throws IOException {
+        return index.size();
+    }
+
+
+    // --------------------------------------------------------- Public Methods
+
+    @Override
+    public void clear() throws IOException {
+        String[] keys = keys();
+        for (String key : keys) {
+            remove(key);
+        }
+    }
+
+
+    @Override
+    public String[] keys() throws IOException {
+        return index.keySet().toArray(new String[0]);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation uses the access time and maximum inactive interval recorded in the index so that sessions
+     * that have not expired do not need to be loaded.
+     */
+    @Override
+    public String[] expiredKeys() throws IOException {
+        long timeNow = System.currentTimeMillis();
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String,IndexEntry> entry : index.entrySet()) {
+            IndexEntry indexEntry = entry.getValue();
+            if (indexEntry.thisAccessedTime + indexEntry.maxInactiveInterval * 1000L < timeNow) {
+                result.add(entry.getKey());
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+
+    @Override
+    public Session load(String id) throws ClassNotFoundException, IOException {
+        byte[] data;
+        lock.readLock().lock();
+        try {
+            IndexEntry indexEntry = index.get(id);
+            if (indexEntry == null) {
+                return null;
+            }
+            data = new byte[indexEntry.dataLength];
+            indexEntry.segment.read(ByteBuffer.wrap(data), indexEntry.dataOffset());
+            if (crc(data) != indexEntry.crc) {
+                log.warn(sm.getString("logStructuredStore.invalidRecord", id, indexEntry.segment.file));
+                return null;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Context context = getManager().getContext();
+        Log contextLog = context.getLogger();
+
+        if (contextLog.isTraceEnabled()) {
+            contextLog.trace(sm.getString(getStoreName() + ".loading", id, directoryFile));
+        }
+
+        ClassLoader oldThreadContextCL = context.bind(Globals.IS_SECURITY_ENABLED, null);
+
+        try (ObjectInputStream ois = getObjectInputStream(new ByteArrayInputStream(data))) {
+            StandardSession session = (StandardSession) manager.createEmptySession();
+            session.readObjectData(ois);
+            session.setManager(manager);
+            return session;
+        } finally {
+            context.unbind(Globals.IS_SECURITY_ENABLED, oldThreadContextCL);
+        }
+    }
+
+
+    @Override
+    public void remove(String id) throws IOException {
+        if (manager.getContext().getLogger().isTraceEnabled()) {
+            manager.getContext().getLogger().trace(sm.getString(getStoreName() + ".removing", id, directoryFile));
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!index.containsKey(id)) {
+                return;
+            }
+            append(RECORD_REMOVE, id, 0, 0, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    @Override
+    public void save(Session session) throws IOException {
+        if (manager.getContext().getLogger().isTraceEnabled()) {
+            manager.getContext().getLogger()
+                    .trace(sm.getString(getStoreName() + ".saving", session.getIdInternal(), directoryFile));
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(bos))) {
+            ((StandardSession) session).writeObjectData(oos);
+        }
+        byte[] data = bos.toByteArray();
+
+        lock.writeLock().lock();
+        try {
+            append(RECORD_SAVE, session.getIdInternal(), ((StandardSession) session).getThisAccessedTimeInternal(),
+                    session.getMaxInactiveInterval(), data);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Once expired sessions have been removed, the oldest segments are compacted if the proportion of removed and
+     * superseded records exceeds {@link #getCompactionThreshold()}.
+     */
+    @Override
+    public void processExpires() {
+        super.processExpires();
+        if (!getState().isAvailable()) {
+            return;
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            log.error(sm.getString("logStructuredStore.compactFail", directoryFile), e);
+        }
+    }
+
+
+    /**
+     * Compact the segments until the proportion of removed and superseded records is no greater than
+     * {@link #getCompactionThreshold()}. Each step copies the live records of the oldest segment to the active segment
+     * and deletes the oldest segment.
+     *
+     * @throws IOException if an input/output error occurs
+     */
+    public void compact() throws IOException {
+        while (true) {
+            lock.writeLock().lock();
+            try {
+                long totalBytes = 0;
+                long liveBytes = 0;
+                for (Segment segment : segments.values()) {
+                    totalBytes += segment.size;
+                    liveBytes += segment.liveBytes;
+                }
+                if (segments.size() < 2 || totalBytes - liveBytes <= totalBytes * compactionThreshold) {
+                    return;
+                }
+                compactOldestSegment();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+
+    // ------------------------------------------------------ Lifecycle Methods
+
+    @Override
+    protected void startInternal() throws LifecycleException {
+        lock.writeLock().lock();
+        try {
+            openSegments();
+        } catch (IOException e) {
+            closeSegments();
+            throw new LifecycleException(sm.getString("logStructuredStore.openFail", directoryFile), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        super.startInternal();
+    }
+
+
+    @Override
+    protected void stopInternal() throws LifecycleException {
+        super.stopInternal();
+        lock.writeLock().lock();
+        try {
+            closeSegments();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    // -------------------------------------------------------- Private Methods
+
+    /**
+     * Open the existing segments and rebuild the index. The caller must hold the write lock.
+     */
+    private void openSegments() throws IOException {
+        File dir = directory();
+        index.clear();
+        segments.clear();
+        activeSegment = null;
+
+        String[] files = dir.list();
+        if (files != null) {
+            for (String file : files) {
+                if (file.startsWith(SEGMENT_PREFIX) && file.endsWith(SEGMENT_EXT)) {
+                    try {
+                        long sequence = Long.parseLong(
+                                file.substring(SEGMENT_PREFIX.length(), file.length() - SEGMENT_EXT.length()));
+                        segments.put(Long.valueOf(sequence), new Segment(sequence, new File(dir, file)));
+                    } catch (NumberFormatException e) {
+                        // Not a segment
+                    }
+                }
+            }
+        }
+
+        for (Segment segment : segments.values()) {
+            scan(segment);
+        }
+
+        if (segments.isEmpty()) {
+            newSegment(1);
+        } else {
+            activeSegment = segments.lastEntry().getValue();
+        }
+    }
+
+
+    /**
+     * Read the record headers of the given segment and apply them to the index. A truncated or corrupted record, as
+     * may be left by a crash, ends the segment.
+     */
+    private void scan(Segment segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE + MAX_ID_LENGTH);
+        long position = 0;
+        long fileSize = segment.channel.size();
+        while (position < fileSize) {
+            header.clear();
+            header.limit((int) Math.min(header.capacity(), fileSize - position));
+            segment.read(header, position);
+            header.flip();
+            if (header.remaining() < 5) {
+                break;
+            }
+            byte type = header.get();
+            int idLength = header.getInt();
+            if ((type != RECORD_SAVE && type != RECORD_REMOVE) || idLength <= 0 || idLength > MAX_ID_LENGTH ||
+                    header.remaining() < idLength + RECORD_HEADER_SIZE - 5) {
+                break;
+            }
+            byte[] idBytes = new byte[idLength];
+            header.get(idBytes);
+            String id = new String(idBytes, StandardCharsets.UTF_8);
+            long thisAccessedTime = header.getLong();
+            int maxInactiveInterval = header.getInt();
+            int dataLength = header.getInt();
+            int crc = header.getInt();
+            int recordLength = RECORD_HEADER_SIZE + idLength + dataLength;
+            if (dataLength < 0 || position + recordLength > fileSize) {
+                break;
+            }
+            segment.size = position + recordLength;
+            if (type == RECORD_SAVE) {
+                index(id, new IndexEntry(segment, position, recordLength, idLength, dataLength, crc, thisAccessedTime,
+                        maxInactiveInterval));
+            } else {
+                index(id, null);
+            }
+            position += recordLength;
+        }
+        if (position < fileSize) {
+            log.warn(sm.getString("logStructuredStore.truncate", segment.file, Long.valueOf(position)));
+            segment.channel.truncate(position);
+            segment.size = position;
+        }
+    }
+
+
+    /**
+     * Append a record to the active segment and update the index. The caller must hold the write lock.
+     */
+    private void append(byte type, String id, long thisAccessedTime, int maxInactiveInterval, byte[] data)
+            throws IOException {
+        if (activeSegment == null) {
+            throw new IOException(sm.getString("logStructuredStore.notStarted"));
+        }
+
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        if (idBytes.length > MAX_ID_LENGTH) {
+            // Writing the record would cause the segment to be truncated at this point on the next start
+            throw new IOException(sm.getString("logStructuredStore.idTooLong", id, Integer.valueOf(MAX_ID_LENGTH)));
+        }
+        int dataLength = data == null ? 0 : data.length;
+        int crc = data == null ? 0 : crc(data);
+        int recordLength = RECORD_HEADER_SIZE + idBytes.length + dataLength;
+
+        if (activeSegment.size > 0 && activeSegment.size + recordLength > maxSegmentSize) {
+            newSegment(activeSegment.sequence + 1);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordLength);
+        record.put(type);
+        record.putInt(idBytes.length);
+        record.put(idBytes);
+        record.putLong(thisAccessedTime);
+        record.putInt(maxInactiveInterval);
+        record.putInt(dataLength);
+        record.putInt(crc);
+        if (data != null) {
+            record.put(data);
+        }
+        record.flip();
+
+        long position = activeSegment.size;
+        while (record.hasRemaining()) {
+            position += activeSegment.channel.write(record, position);
+        }
+        long start = activeSegment.size;
+        activeSegment.size = position;
+
+        if (type == RECORD_SAVE) {
+            index(id, new IndexEntry(activeSegment, start, recordLength, idBytes.length, dataLength, crc,
+                    thisAccessedTime, maxInactiveInterval));
+        } else {
+            index(id, null);
+        }
+    }
+
+
+    /**
+     * Update the index and the live byte counts of the affected segments.
+     */
+    private void index(String id, IndexEntry indexEntry) {
+        IndexEntry previous;
+        if (indexEntry == null) {
+            previous = index.remove(id);
+        } else {
+            indexEntry.segment.liveBytes += indexEntry.recordLength;
+            previous = index.put(id, indexEntry);
+        }
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.recordLength;
+        }
+    }
+
+
+    /**
+     * Copy the live records of the oldest segment to the active segment and delete the oldest segment. Any remove
+     * records in the oldest segment can be discarded as there are no older records for them to hide. The caller must
+     * hold the write lock.
+     */
+    private void compactOldestSegment() throws IOException {
+        Segment oldest = segments.firstEntry().getValue();
+        if (oldest == activeSegment) {
+            newSegment(activeSegment.sequence + 1);
+        }
+
+        List<Map.Entry<String,IndexEntry>> live = new ArrayList<>();
+        for (Map.Entry<String,IndexEntry> entry : index.entrySet()) {
+            if (entry.getValue().segment == oldest) {
+                live.add(entry);
+            }
+        }
+        for (Map.Entry<String,IndexEntry> entry : live) {
+            IndexEntry indexEntry = entry.getValue();
+            byte[] data = new byte[indexEntry.dataLength];
+            oldest.read(ByteBuffer.wrap(data), indexEntry.dataOffset());
+            append(RECORD_SAVE, entry.getKey(), indexEntry.thisAccessedTime, indexEntry.maxInactiveInterval, data);
+        }
+
+        segments.remove(Long.valueOf(oldest.sequence));
+        oldest.close();
+        if (!oldest.file.delete()) {
+            log.warn(sm.getString("logStructuredStore.deleteFailed", oldest.file));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug(sm.getString("logStructuredStore.compacted", oldest.file, Integer.valueOf(live.size())));
+        }
+    }
+
+
+    /**
+     * Start a new active segment. The caller must hold the write lock.
+     */
+    private void newSegment(long sequence) throws IOException {
+        File file = new File(directory(), SEGMENT_PREFIX + String.format("%016d", Long.valueOf(sequence)) + SEGMENT_EXT);
+        Segment segment = new Segment(sequence, file);
+        segments.put(Long.valueOf(sequence), segment);
+        activeSegment = segment;
+    }
+
+
+    /**
+     * Close all segments and clear the index. The caller must hold the write lock.
+     */
+    private void closeSegments() {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+        index.clear();
+        activeSegment = null;
+    }
+
+
+    private static int crc(byte[] data) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, 0, data.length);
+        return (int) crc32.getValue();
+    }
+
+
+    /**
+     * Return a File object representing the pathname to our session persistence directory, if any. The directory will
+     * be created if it does not already exist.
+     */
+    private File directory() throws IOException {
+        if (this.directoryFile != null) {
+            // NOTE: Race condition is harmless, so do not synchronize
+            return this.directoryFile;
+        }
+        File file = new File(this.directory);
+        if (!file.isAbsolute()) {
+            Context context = manager.getContext();
+            ServletContext servletContext = context.getServletContext();
+            File work = (File) servletContext.getAttribute(ServletContext.TEMPDIR);
+            file = new File(work, this.directory);
+        }
+        if (!file.exists() || !file.isDirectory()) {
+            if (!file.delete() && file.exists()) {
+                throw new IOException(sm.getString("fileStore.deleteFailed", file));
+            }
+            if (!file.mkdirs() && !file.isDirectory()) {
+                throw new IOException(sm.getString("fileStore.createFailed", file));
+            }
+        }
+        this.directoryFile = file;
+        return file;
+    }
+
+
+    /**
+     * An append-only segment file.
+     */
+    private static class Segment {
+
+        private final long sequence;
+        private final File file;
+        private final FileChannel channel;
+        // Guarded by the store lock
+        private long size = 0;
+        private long liveBytes = 0;
+
+        Segment(long sequence, File file) throws IOException {
+            this.sequence = sequence;
+            this.file = file;
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        void read(ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn(sm.getString("logStructuredStore.closeFailed", file), e);
+            }
+        }
+    }
+
+
+    /**
+     * The location and metadata of the current record of a session.
+     */
+    private static class IndexEntry {
+
+        private final Segment segment;
+        private final long position;
+        private final int recordLength;
+        private final int idLength;
+        private final int dataLength;
+        private final int crc;
+        private final long thisAccessedTime;
+        private final int maxInactiveInterval;
+
+        IndexEntry(Segment segment, long position, int recordLength, int idLength, int dataLength, int crc,
+                long thisAccessedTime, int maxInactiveInterval) {
+            this.segment = segment;
+            this.position = position;
+            this.recordLength = recordLength;
+            this.idLength = idLength;
+            this.dataLength = dataLength;
+            this.crc = crc;
+            this.thisAccessedTime = thisAccessedTime;
+            this.maxInactiveInterval = maxInactiveInterval;
+        }
+
+        long dataOffset() {
+            return position + RECORD_HEADER_SIZE + idLength;
+        }
+    }
+}
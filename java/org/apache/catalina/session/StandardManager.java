@@ -30,6 +30,8 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletContext;
 
@@ -105,6 +107,27 @@ public class StandardManager extends ManagerBase {
     protected String pathname = "SESSIONS.ser";
 
 
+    /**
+     * Minimum time in seconds a session must be idle before its attributes are moved out of the Java heap. A negative
+     * value disables off-heap storage of session attributes.
+     */
+    protected int offHeapIdleThreshold = -1;
+
+
+    /**
+     * The maximum number of bytes that may be used to hold session attributes outside of the Java heap.
+     */
+    protected long maxOffHeapBytes = 64 * 1024 * 1024;
+
+
+    private final AtomicLong offHeapBytes = new AtomicLong();
+    private final AtomicInteger offHeapSessionCount = new AtomicInteger();
+    private final AtomicLong offHeapStoreCount = new AtomicLong();
+    private final AtomicLong offHeapRestoreCount = new AtomicLong();
+    private final AtomicLong offHeapRestoreTime = new AtomicLong();
+    private volatile long offHeapRestoreMaxTime = 0;
+
+
     // ------------------------------------------------------------- Properties
 
     @Override
@@ -134,6 +157,104 @@ public class StandardManager extends ManagerBase {
     }
 
 
+    /**
+     * @return The minimum time in seconds a session must be idle before its attributes are moved out of the Java heap.
+     *             A negative value indicates that off-heap storage is disabled.
+     */
+    public int getOffHeapIdleThreshold() {
+        return offHeapIdleThreshold;
+    }
+
+
+    /**
+     * Set the minimum time in seconds a session must be idle before its attributes are moved out of the Java heap. A
+     * negative value disables off-heap storage. Enabling off-heap storage only applies to sessions created after it
+     * has been enabled.
+     *
+     * @param offHeapIdleThreshold The new idle threshold in seconds
+     */
+    public void setOffHeapIdleThreshold(int offHeapIdleThreshold) {
+        int oldOffHeapIdleThreshold = this.offHeapIdleThreshold;
+        this.offHeapIdleThreshold = offHeapIdleThreshold;
+        support.firePropertyChange("offHeapIdleThreshold", Integer.valueOf(oldOffHeapIdleThreshold),
+                Integer.valueOf(this.offHeapIdleThreshold));
+    }
+
+
+    /**
+     * @return The maximum number of bytes that may be used to hold session attributes outside of the Java heap.
+     */
+    public long getMaxOffHeapBytes() {
+        return maxOffHeapBytes;
+    }
+
+
+    /**
+     * Set the maximum number of bytes that may be used to hold session attributes outside of the Java heap. Once the
+     * limit is reached, the attributes of further idle sessions remain on the heap.
+     *
+     * @param maxOffHeapBytes The new limit
+     */
+    public void setMaxOffHeapBytes(long maxOffHeapBytes) {
+        long oldMaxOffHeapBytes = this.maxOffHeapBytes;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+        support.firePropertyChange("maxOffHeapBytes", Long.valueOf(oldMaxOffHeapBytes),
+                Long.valueOf(this.maxOffHeapBytes));
+    }
+
+
+    /**
+     * @return The number of bytes currently used to hold session attributes outside of the Java heap.
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes.get();
+    }
+
+
+    /**
+     * @return The number of sessions that currently have attributes held outside of the Java heap.
+     */
+    public int getOffHeapSessionCount() {
+        return offHeapSessionCount.get();
+    }
+
+
+    /**
+     * @return The number of times session attributes have been moved out of the Java heap.
+     */
+    public long getOffHeapStoreCount() {
+        return offHeapStoreCount.get();
+    }
+
+
+    /**
+     * @return The number of times session attributes have been restored to the Java heap.
+     */
+    public long getOffHeapRestoreCount() {
+        return offHeapRestoreCount.get();
+    }
+
+
+    /**
+     * @return The average time in microseconds taken to restore session attributes to the Java heap.
+     */
+    public long getOffHeapRestoreAverageTime() {
+        long count = offHeapRestoreCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        return offHeapRestoreTime.get() / count / 1000;
+    }
+
+
+    /**
+     * @return The longest time in microseconds taken to restore session attributes to the Java heap.
+     */
+    public long getOffHeapRestoreMaxTime() {
+        return offHeapRestoreMaxTime / 1000;
+    }
+
+
     // --------------------------------------------------------- Public Methods
 
     @Override
@@ -397,8 +518,105 @@ public class StandardManager extends ManagerBase {
     }
 
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Once expired sessions have been processed, the attributes of sessions that have been idle for longer than
+     * {@link #getOffHeapIdleThreshold()} are moved out of the Java heap.
+     */
+    @Override
+    public void processExpires() {
+        super.processExpires();
+        processOffHeap();
+    }
+
+
     // ------------------------------------------------------ Protected Methods
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * When off-heap storage is enabled, the requests using each session are always counted so that the attributes of
+     * a session are never moved out of the Java heap while it is in use.
+     */
+    @Override
+    protected StandardSession getNewSession() {
+        StandardSession session = super.getNewSession();
+        if (offHeapIdleThreshold >= 0 && session.accessCount == null) {
+            session.accessCount = new AtomicInteger();
+        }
+        return session;
+    }
+
+
+    /**
+     * Move the attributes of sessions that have been idle for longer than the configured threshold out of the Java
+     * heap, subject to the configured limit.
+     */
+    protected void processOffHeap() {
+        if (!getState().isAvailable() || offHeapIdleThreshold < 0) {
+            return;
+        }
+
+        long timeNow = System.currentTimeMillis();
+        for (Session session : findSessions()) {
+            if (!(session instanceof StandardSession)) {
+                continue;
+            }
+            StandardSession standardSession = (StandardSession) session;
+            if (standardSession.isAttributesOffHeap() || !standardSession.isValidInternal()) {
+                continue;
+            }
+            // Sessions in use by a request are not eligible. Nor are sessions created before off-heap storage was
+            // enabled since their use is not tracked.
+            if (standardSession.accessCount == null || standardSession.accessCount.get() > 0) {
+                continue;
+            }
+            int timeIdle = (int) ((timeNow - standardSession.getThisAccessedTimeInternal()) / 1000L);
+            if (timeIdle < offHeapIdleThreshold) {
+                continue;
+            }
+            long available = maxOffHeapBytes - offHeapBytes.get();
+            if (available <= 0) {
+                if (log.isDebugEnabled()) {
+                    log.debug(sm.getString("standardManager.offHeapFull", Long.valueOf(maxOffHeapBytes)));
+                }
+                break;
+            }
+            try {
+                standardSession.offloadAttributes(available);
+            } catch (IOException ioe) {
+                if (log.isDebugEnabled()) {
+                    log.debug(sm.getString("standardManager.offHeapStoreFail", standardSession.getIdInternal()), ioe);
+                }
+            }
+        }
+    }
+
+
+    void offHeapStored(int bytes) {
+        offHeapBytes.addAndGet(bytes);
+        offHeapSessionCount.incrementAndGet();
+        offHeapStoreCount.incrementAndGet();
+    }
+
+
+    void offHeapRestored(int bytes, long nanos) {
+        offHeapReleased(bytes);
+        offHeapRestoreCount.incrementAndGet();
+        offHeapRestoreTime.addAndGet(nanos);
+        if (nanos > offHeapRestoreMaxTime) {
+            offHeapRestoreMaxTime = nanos;
+        }
+    }
+
+
+    void offHeapReleased(int bytes) {
+        offHeapBytes.addAndGet(-bytes);
+        offHeapSessionCount.decrementAndGet();
+    }
+
+
     /**
      * Return a File object representing the pathname to our persistence file, if any.
      *
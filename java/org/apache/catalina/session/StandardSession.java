@@ -17,6 +17,8 @@
 package org.apache.catalina.session;
 
 import java.beans.PropertyChangeSupport;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
@@ -24,12 +26,14 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.io.WriteAbortedException;
+import java.nio.ByteBuffer;
 import java.security.AccessController;
 import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -51,6 +55,7 @@ import javax.servlet.http.HttpSessionListener;
 
 import org.apache.catalina.Context;
 import org.apache.catalina.Globals;
+import org.apache.catalina.Loader;
 import org.apache.catalina.Manager;
 import org.apache.catalina.Session;
 import org.apache.catalina.SessionEvent;
@@ -58,6 +63,7 @@ import org.apache.catalina.SessionListener;
 import org.apache.catalina.TomcatPrincipal;
 import org.apache.catalina.authenticator.SavedRequest;
 import org.apache.catalina.security.SecurityUtil;
+import org.apache.catalina.util.CustomObjectInputStream;
 import org.apache.tomcat.util.ExceptionUtils;
 import org.apache.tomcat.util.res.StringManager;
 
@@ -254,6 +260,28 @@ public class StandardSession implements HttpSession, Session, Serializable {
     protected transient AtomicInteger accessCount = null;
 
 
+    /**
+     * The names of the attributes that have been set or removed since the dirty attribute information was last reset.
+     * NOTE: This value is not included in the serialized version of this object.
+     */
+    protected transient Set<String> dirtyAttributes = ConcurrentHashMap.newKeySet();
+
+
+    /**
+     * Flag indicating that every attribute must be considered to be dirty, such as when the session has never been
+     * persisted. NOTE: This value is not included in the serialized version of this object.
+     */
+    protected transient volatile boolean allAttributesDirty = true;
+
+
+    /**
+     * The serialized form of the attributes that have been moved out of the Java heap while this session was idle, or
+     * <code>null</code> if all attributes are held on the heap. NOTE: This value is not included in the serialized
+     * version of this object.
+     */
+    protected transient volatile ByteBuffer offHeapAttributes = null;
+
+
     // ----------------------------------------------------- Session Properties
 
 
@@ -537,7 +565,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
 
         this.thisAccessedTime = System.currentTimeMillis();
 
-        if (ACTIVITY_CHECK) {
+        if (accessCount != null) {
             accessCount.incrementAndGet();
         }
 
@@ -560,7 +588,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
             this.lastAccessedTime = this.thisAccessedTime;
         }
 
-        if (ACTIVITY_CHECK) {
+        if (accessCount != null) {
             accessCount.decrementAndGet();
         }
 
@@ -654,7 +682,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
                 }
             }
 
-            if (ACTIVITY_CHECK) {
+            if (accessCount != null) {
                 accessCount.set(0);
             }
 
@@ -775,6 +803,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
 
         // Reset the instance variables associated with this Session
         attributes.clear();
+        releaseOffHeapAttributes();
         setAuthType(null);
         creationTime = 0L;
         expiring = false;
@@ -786,6 +815,8 @@ public class StandardSession implements HttpSession, Session, Serializable {
         isNew = false;
         isValid = false;
         manager = null;
+        dirtyAttributes.clear();
+        allAttributesDirty = true;
 
     }
 
@@ -854,6 +885,213 @@ public class StandardSession implements HttpSession, Session, Serializable {
     }
 
 
+    /**
+     * Write a serialized version of the contents of this session object to the specified object output stream, without
+     * requiring that the StandardSession itself have been serialized. If attributes are not included, the serialized
+     * form is written as if the session had no attributes and may still be read with
+     * {@link #readObjectData(ObjectInputStream)}.
+     *
+     * @param stream            The object output stream to write to
+     * @param includeAttributes {@code true} to include the session attributes
+     *
+     * @exception IOException if an input/output error occurs
+     */
+    public void writeObjectData(ObjectOutputStream stream, boolean includeAttributes) throws IOException {
+
+        doWriteObject(stream, includeAttributes);
+
+    }
+
+
+    /**
+     * Return the names of the attributes that have been set or removed since the dirty attribute information was last
+     * reset and reset that information for the returned names. Note that changes made to the internal state of an
+     * attribute value are not tracked unless the attribute is set again.
+     *
+     * @return the names of the dirty attributes or {@code null} if every attribute must be considered to be dirty
+     */
+    public String[] getAndResetDirtyAttributeNames() {
+        if (allAttributesDirty) {
+            allAttributesDirty = false;
+            dirtyAttributes.clear();
+            return null;
+        }
+        List<String> result = new ArrayList<>(dirtyAttributes.size());
+        for (String name : dirtyAttributes) {
+            if (dirtyAttributes.remove(name)) {
+                result.add(name);
+            }
+        }
+        return result.toArray(EMPTY_ARRAY);
+    }
+
+
+    /**
+     * Mark every attribute of this session as dirty, typically because the current state of the session could not be
+     * persisted.
+     */
+    public void markAllAttributesDirty() {
+        allAttributesDirty = true;
+    }
+
+
+    /**
+     * Mark every attribute of this session as clean, typically because the current state of the session has just been
+     * loaded from persistent storage.
+     */
+    public void resetDirtyAttributes() {
+        allAttributesDirty = false;
+        dirtyAttributes.clear();
+    }
+
+
+    /**
+     * Add an attribute read from persistent storage to this session without triggering any notifications and without
+     * marking it as dirty.
+     *
+     * @param name  The attribute name
+     * @param value The attribute value
+     */
+    protected void loadAttribute(String name, Object value) {
+        // Handle the case where the filter configuration was changed while
+        // the web application was stopped.
+        if (name == null || value == null || exclude(name, value)) {
+            return;
+        }
+        attributes.put(name, value);
+    }
+
+
+    /**
+     * Move the attributes of this session out of the Java heap into a direct buffer. Attributes that are not
+     * serializable or that are binding or activation listeners remain on the heap so that no notifications are
+     * required. The attributes are restored transparently the next time any of them is accessed.
+     *
+     * @param maxBytes The maximum number of bytes that may be used to hold the attributes
+     *
+     * @return {@code true} if attributes were moved off the heap, otherwise {@code false}
+     *
+     * @exception IOException if an error occurs serializing the attributes
+     */
+    protected synchronized boolean offloadAttributes(long maxBytes) throws IOException {
+        if (offHeapAttributes != null || !isValidInternal() || accessCount == null || accessCount.get() > 0) {
+            return false;
+        }
+        long accessedTime = thisAccessedTime;
+
+        Map<String,Object> offload = new HashMap<>();
+        for (Map.Entry<String,Object> entry : attributes.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Serializable && !(value instanceof HttpSessionBindingListener) &&
+                    !(value instanceof HttpSessionActivationListener)) {
+                offload.put(entry.getKey(), value);
+            }
+        }
+        if (offload.isEmpty()) {
+            return false;
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(Integer.valueOf(offload.size()));
+            for (Map.Entry<String,Object> entry : offload.entrySet()) {
+                oos.writeObject(entry.getKey());
+                oos.writeObject(entry.getValue());
+            }
+        }
+        if (bos.size() > maxBytes) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bos.size());
+        buffer.put(bos.toByteArray());
+        buffer.flip();
+
+        // Publish the buffer before removing the attributes so any concurrent
+        // access restores them. Only remove unchanged values.
+        offHeapAttributes = buffer;
+        if (manager instanceof StandardManager) {
+            ((StandardManager) manager).offHeapStored(buffer.capacity());
+        }
+        for (Map.Entry<String,Object> entry : offload.entrySet()) {
+            attributes.remove(entry.getKey(), entry.getValue());
+        }
+
+        // The session was accessed while the attributes were being moved
+        if (thisAccessedTime != accessedTime || accessCount.get() > 0) {
+            restoreAttributes();
+        }
+        return true;
+    }
+
+
+    /**
+     * Restore any attributes of this session that have been moved out of the Java heap. Values set since the
+     * attributes were moved take precedence over the restored values.
+     */
+    protected void restoreAttributes() {
+        if (offHeapAttributes == null) {
+            return;
+        }
+        synchronized (this) {
+            ByteBuffer buffer = offHeapAttributes;
+            if (buffer == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            byte[] data = new byte[buffer.remaining()];
+            buffer.duplicate().get(data);
+            try (ObjectInputStream ois = new CustomObjectInputStream(new ByteArrayInputStream(data),
+                    getAttributeClassLoader())) {
+                int n = ((Integer) ois.readObject()).intValue();
+                for (int i = 0; i < n; i++) {
+                    String name = (String) ois.readObject();
+                    Object value = ois.readObject();
+                    attributes.putIfAbsent(name, value);
+                }
+            } catch (ClassNotFoundException | IOException e) {
+                manager.getContext().getLogger().error(sm.getString("standardSession.offHeapRestoreFail", id), e);
+            } finally {
+                offHeapAttributes = null;
+                if (manager instanceof StandardManager) {
+                    ((StandardManager) manager).offHeapRestored(buffer.capacity(), System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return {@code true} if some of the attributes of this session are currently held outside of the Java heap
+     */
+    public boolean isAttributesOffHeap() {
+        return offHeapAttributes != null;
+    }
+
+
+    private synchronized void releaseOffHeapAttributes() {
+        ByteBuffer buffer = offHeapAttributes;
+        if (buffer != null) {
+            offHeapAttributes = null;
+            if (manager instanceof StandardManager) {
+                ((StandardManager) manager).offHeapReleased(buffer.capacity());
+            }
+        }
+    }
+
+
+    private ClassLoader getAttributeClassLoader() {
+        ClassLoader classLoader = null;
+        Loader loader = manager.getContext().getLoader();
+        if (loader != null) {
+            classLoader = loader.getClassLoader();
+        }
+        if (classLoader == null) {
+            classLoader = getClass().getClassLoader();
+        }
+        return classLoader;
+    }
+
+
     // ------------------------------------------------- HttpSession Properties
 
 
@@ -911,7 +1149,14 @@ public class StandardSession implements HttpSession, Session, Serializable {
             return null;
         }
 
-        return attributes.get(name);
+        restoreAttributes();
+        Object value = attributes.get(name);
+        if (value == null) {
+            // The attributes may have been moved out of the heap concurrently
+            restoreAttributes();
+            value = attributes.get(name);
+        }
+        return value;
     }
 
 
@@ -922,6 +1167,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
             throw new IllegalStateException(sm.getString("standardSession.getAttributeNames.ise"));
         }
 
+        restoreAttributes();
         Set<String> names = new HashSet<>(attributes.keySet());
         return Collections.enumeration(names);
     }
@@ -1064,6 +1310,9 @@ public class StandardSession implements HttpSession, Session, Serializable {
         if (context.getDistributable() && !isAttributeDistributable(name, value) && !exclude(name, value)) {
             throw new IllegalArgumentException(sm.getString("standardSession.setAttribute.iae", name));
         }
+
+        restoreAttributes();
+
         // Construct an event with the new value
         HttpSessionBindingEvent event = null;
 
@@ -1084,6 +1333,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
 
         // Replace or add this attribute
         Object unbound = attributes.put(name, value);
+        dirtyAttributes.add(name);
 
         // Call the valueUnbound() method if necessary
         if (notify && unbound instanceof HttpSessionBindingListener) {
@@ -1288,6 +1538,11 @@ public class StandardSession implements HttpSession, Session, Serializable {
         if (listeners == null) {
             listeners = new ArrayList<>();
         }
+
+        if (dirtyAttributes == null) {
+            dirtyAttributes = ConcurrentHashMap.newKeySet();
+        }
+        allAttributesDirty = true;
     }
 
 
@@ -1305,8 +1560,25 @@ public class StandardSession implements HttpSession, Session, Serializable {
      *
      * @exception IOException if an input/output error occurs
      */
-    @SuppressWarnings("deprecation")
     protected void doWriteObject(ObjectOutputStream stream) throws IOException {
+        doWriteObject(stream, true);
+    }
+
+
+    /**
+     * Write a serialized version of this session object to the specified object output stream, optionally omitting the
+     * session attributes.
+     *
+     * @param stream            The output stream to write to
+     * @param includeAttributes {@code true} to include the session attributes, {@code false} to write an attribute
+     *                              count of zero
+     *
+     * @exception IOException if an input/output error occurs
+     *
+     * @see #doWriteObject(ObjectOutputStream)
+     */
+    @SuppressWarnings("deprecation")
+    protected void doWriteObject(ObjectOutputStream stream, boolean includeAttributes) throws IOException {
 
         // Write the scalar instance variables (except Manager)
         stream.writeObject(Long.valueOf(creationTime));
@@ -1351,6 +1623,11 @@ public class StandardSession implements HttpSession, Session, Serializable {
             stream.writeObject(savedRequest);
         }
 
+        if (!includeAttributes) {
+            stream.writeObject(Integer.valueOf(0));
+            return;
+        }
+
         // Accumulate the names of serializable and non-serializable attributes
         String[] keys = keys();
         List<String> saveNames = new ArrayList<>();
@@ -1462,6 +1739,7 @@ public class StandardSession implements HttpSession, Session, Serializable {
      */
     protected String[] keys() {
 
+        restoreAttributes();
         return attributes.keySet().toArray(EMPTY_ARRAY);
 
     }
@@ -1485,7 +1763,11 @@ public class StandardSession implements HttpSession, Session, Serializable {
         }
 
         // Remove this attribute from our collection
+        restoreAttributes();
         Object value = attributes.remove(name);
+        if (value != null) {
+            dirtyAttributes.add(name);
+        }
 
         // Do we need to do valueUnbound() and attributeRemoved() notification?
         if (!notify || (value == null)) {
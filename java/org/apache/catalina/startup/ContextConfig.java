@@ -16,6 +16,8 @@
  */
 package org.apache.catalina.startup;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -26,7 +28,9 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,8 +44,12 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletContainerInitializer;
@@ -68,6 +76,7 @@ import org.apache.catalina.Wrapper;
 import org.apache.catalina.core.StandardContext;
 import org.apache.catalina.core.StandardHost;
 import org.apache.catalina.util.ContextName;
+import org.apache.catalina.util.IOTools;
 import org.apache.catalina.util.Introspection;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
@@ -80,10 +89,13 @@ import org.apache.tomcat.util.bcel.classfile.AnnotationEntry;
 import org.apache.tomcat.util.bcel.classfile.ArrayElementValue;
 import org.apache.tomcat.util.bcel.classfile.ClassFormatException;
 import org.apache.tomcat.util.bcel.classfile.ClassParser;
+import org.apache.tomcat.util.bcel.classfile.ConstantPoolFilter;
 import org.apache.tomcat.util.bcel.classfile.ElementValue;
 import org.apache.tomcat.util.bcel.classfile.ElementValuePair;
 import org.apache.tomcat.util.bcel.classfile.JavaClass;
+import org.apache.tomcat.util.buf.HexUtils;
 import org.apache.tomcat.util.buf.UriUtil;
+import org.apache.tomcat.util.compat.JreCompat;
 import org.apache.tomcat.util.descriptor.InputSourceUtil;
 import org.apache.tomcat.util.descriptor.XmlErrorHandler;
 import org.apache.tomcat.util.descriptor.web.ContextEjb;
@@ -112,6 +124,8 @@ import org.apache.tomcat.util.file.ConfigFileLoader;
 import org.apache.tomcat.util.file.ConfigurationSource;
 import org.apache.tomcat.util.res.StringManager;
 import org.apache.tomcat.util.scan.JarFactory;
+import org.apache.tomcat.util.scan.JarScanIndex;
+import org.apache.tomcat.util.security.ConcurrentMessageDigest;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXParseException;
 
@@ -172,6 +186,39 @@ public class ContextConfig implements LifecycleListener {
     private static final Set<ServletContainerInitializer> EMPTY_SCI_SET = Collections.emptySet();
 
 
+    /**
+     * The name of the file in the work directory in which the JAR scan index is stored.
+     */
+    private static final String JAR_SCAN_INDEX_FILE = "jarScanIndex.dat";
+
+
+    /**
+     * The section of the JAR scan index that records the classes that need to be processed for annotations and
+     * {@link HandlesTypes} matches.
+     */
+    private static final String ANNOTATIONS_INDEX_SECTION = "annotations";
+
+
+    /**
+     * The minimum number of classes a JAR must contain for the classes to be parsed in parallel when parallel
+     * annotation scanning is enabled.
+     */
+    private static final int PARALLEL_JAR_SCAN_THRESHOLD = 512;
+
+
+    /**
+     * The number of classes parsed by each task when the classes of a JAR are parsed in parallel.
+     */
+    private static final int PARALLEL_JAR_SCAN_BATCH_SIZE = 128;
+
+
+    /**
+     * The minimum number of bytes a class occupies in a JAR: the local file header and the central directory header,
+     * each with the shortest possible class entry name.
+     */
+    private static final int MIN_CLASS_ENTRY_SIZE = 30 + 46 + 2 * "A.class".length();
+
+
     // ----------------------------------------------------- Instance Variables
     /**
      * Custom mappings of login methods to authenticators
@@ -230,6 +277,28 @@ public class ContextConfig implements LifecycleListener {
      */
     protected boolean handlesTypesNonAnnotations = false;
 
+    /**
+     * The results of previous JAR scans, if enabled for the Context.
+     */
+    protected volatile JarScanIndex jarScanIndex = null;
+
+    /**
+     * Fingerprint of the state, other than the JAR itself, on which the results of scanning a JAR for annotations
+     * depend.
+     */
+    private volatile String annotationScanFingerprint = null;
+
+    /**
+     * Pool used to parse the classes of large JARs in parallel during annotation scanning, if enabled.
+     */
+    protected volatile ForkJoinPool classParserPool = null;
+
+    /**
+     * Filter used to skip parsing classes that cannot contain any of the annotations of interest during annotation
+     * scanning. {@code null} if every class has to be parsed.
+     */
+    protected volatile ConstantPoolFilter annotationScanFilter = null;
+
 
     // ------------------------------------------------------------- Properties
 
@@ -295,6 +364,7 @@ public class ContextConfig implements LifecycleListener {
             if (originalDocBase != null) {
                 context.setDocBase(originalDocBase);
             }
+            saveJarScanIndex();
         } else if (event.getType().equals(Lifecycle.CONFIGURE_STOP_EVENT)) {
             configureStop();
         } else if (event.getType().equals(Lifecycle.AFTER_INIT_EVENT)) {
@@ -969,6 +1039,8 @@ public class ContextConfig implements LifecycleListener {
                     Boolean.valueOf(context.getXmlValidation()), Boolean.valueOf(context.getXmlNamespaceAware())));
         }
 
+        initJarScanIndex();
+
         webConfig();
 
         if (!context.getIgnoreAnnotations()) {
@@ -1349,6 +1421,8 @@ public class ContextConfig implements LifecycleListener {
             javaClassCache = new HashMap<>();
         }
 
+        annotationScanFilter = createAnnotationScanFilter();
+
         if (ok) {
             WebResource[] webResources = context.getResources().listResources("/WEB-INF/classes");
 
@@ -1367,14 +1441,53 @@ public class ContextConfig implements LifecycleListener {
         // are going to use (remember orderedFragments includes any
         // container fragments)
         if (ok) {
-            processAnnotations(orderedFragments, webXml.isMetadataComplete(), javaClassCache);
+            if (jarScanIndex != null) {
+                annotationScanFingerprint = getAnnotationScanFingerprint(orderedFragments);
+            }
+            ForkJoinPool pool = null;
+            if (context.getParallelAnnotationScanning()) {
+                // A dedicated pool since the tasks scanning each JAR may already be using the utility executor
+                pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                        new SafeForkJoinWorkerThreadFactory(), null, false);
+                classParserPool = pool;
+            }
+            try {
+                processAnnotations(orderedFragments, webXml.isMetadataComplete(), javaClassCache);
+            } finally {
+                if (pool != null) {
+                    classParserPool = null;
+                    pool.shutdown();
+                }
+            }
         }
 
+        annotationScanFilter = null;
+
         // Cache, if used, is no longer required so clear it
         javaClassCache.clear();
     }
 
 
+    /*
+     * Matching a non-annotation HandlesTypes entry requires the super classes and interfaces of every class so no
+     * class may be skipped in that case. Otherwise only classes that reference one of the Servlet annotations or one
+     * of the HandlesTypes annotations need to be parsed.
+     */
+    private ConstantPoolFilter createAnnotationScanFilter() {
+        if (handlesTypesNonAnnotations) {
+            return null;
+        }
+        List<String> descriptors = new ArrayList<>();
+        descriptors.add("Ljavax/servlet/annotation/WebServlet;");
+        descriptors.add("Ljavax/servlet/annotation/WebFilter;");
+        descriptors.add("Ljavax/servlet/annotation/WebListener;");
+        for (Class<?> type : typeInitializerMap.keySet()) {
+            descriptors.add("L" + type.getName().replace('.', '/') + ";");
+        }
+        return new ConstantPoolFilter(descriptors);
+    }
+
+
     private void configureContext(WebXml webxml) {
         // As far as possible, process in alphabetical order so it is easy to
         // check everything is present
@@ -2193,25 +2306,171 @@ public class ContextConfig implements LifecycleListener {
                 log.trace(sm.getString("contextConfig.processAnnotationsJar.debug", url));
             }
 
+            // No fingerprint means the results cannot be indexed
+            JarScanIndex index = annotationScanFingerprint == null ? null : jarScanIndex;
+            if (index != null) {
+                List<String> entryNames =
+                        index.get(ANNOTATIONS_INDEX_SECTION, jar.getJarFileURL(), annotationScanFingerprint);
+                if (entryNames != null) {
+                    // The JAR is unchanged so only the classes that were relevant last time need to be processed
+                    for (String entryName : entryNames) {
+                        try (InputStream is = jar.getInputStream(entryName)) {
+                            if (is != null) {
+                                processAnnotationsStream(is, fragment, handlesTypesOnly, javaClassCache);
+                            }
+                        } catch (IOException | ClassFormatException e) {
+                            log.error(sm.getString("contextConfig.inputStreamJar", entryName, url), e);
+                        }
+                    }
+                    return;
+                }
+            }
+
+            long start = System.nanoTime();
+            List<String> relevantEntryNames = new ArrayList<>();
+            boolean complete = true;
+            ForkJoinPool pool = classParserPool;
+            File file = (pool == null) ? null : getFile(jar.getJarFileURL());
+            // Skip counting the classes of JARs that are too small to reach the threshold
+            if (file != null && file.length() >= (long) PARALLEL_JAR_SCAN_THRESHOLD * MIN_CLASS_ENTRY_SIZE) {
+                List<String> classEntryNames = new ArrayList<>();
+                jar.nextEntry();
+                String entryName = jar.getEntryName();
+                while (entryName != null) {
+                    if (entryName.endsWith(".class")) {
+                        classEntryNames.add(entryName);
+                    }
+                    jar.nextEntry();
+                    entryName = jar.getEntryName();
+                }
+                jar.reset();
+                if (classEntryNames.size() >= PARALLEL_JAR_SCAN_THRESHOLD) {
+                    // The Jar is not thread safe so the parser threads use their own JarFile
+                    try (JarFile jarFile = JreCompat.getInstance().jarFileNewInstance(file)) {
+                        complete = processAnnotationsJarInParallel(pool, jarFile, classEntryNames, url, fragment,
+                                handlesTypesOnly, javaClassCache, relevantEntryNames);
+                    }
+                    if (index != null && complete) {
+                        index.put(ANNOTATIONS_INDEX_SECTION, jar.getJarFileURL(), annotationScanFingerprint,
+                                relevantEntryNames, System.nanoTime() - start);
+                    }
+                    return;
+                }
+            }
+
             jar.nextEntry();
             String entryName = jar.getEntryName();
             while (entryName != null) {
                 if (entryName.endsWith(".class")) {
                     try (InputStream is = jar.getEntryInputStream()) {
-                        processAnnotationsStream(is, fragment, handlesTypesOnly, javaClassCache);
+                        if (index == null) {
+                            processAnnotationsStream(is, fragment, handlesTypesOnly, javaClassCache);
+                        } else {
+                            JavaClass clazz = parseClass(is, annotationScanFilter);
+                            if (clazz != null) {
+                                processAnnotationsClass(clazz, fragment, handlesTypesOnly, javaClassCache);
+                                if (isRelevantForAnnotationScan(clazz, javaClassCache)) {
+                                    relevantEntryNames.add(entryName);
+                                }
+                            }
+                        }
                     } catch (IOException | ClassFormatException e) {
+                        complete = false;
                         log.error(sm.getString("contextConfig.inputStreamJar", entryName, url), e);
                     }
                 }
                 jar.nextEntry();
                 entryName = jar.getEntryName();
             }
+            // Don't record a partial result else the error will not be reported on the next start
+            if (index != null && complete) {
+                index.put(ANNOTATIONS_INDEX_SECTION, jar.getJarFileURL(), annotationScanFingerprint,
+                        relevantEntryNames, System.nanoTime() - start);
+            }
         } catch (IOException e) {
             log.error(sm.getString("contextConfig.jarFile", url), e);
         }
     }
 
 
+    /*
+     * Parses the classes of a large JAR in batches using the given pool. The parsed classes are then processed by the
+     * current thread in the order they appear in the JAR so the result is the same as for a sequential scan.
+     */
+    private boolean processAnnotationsJarInParallel(ForkJoinPool pool, JarFile jarFile, List<String> classEntryNames,
+            URL url, WebXml fragment, boolean handlesTypesOnly, Map<String,JavaClassCacheEntry> javaClassCache,
+            List<String> relevantEntryNames) {
+        ConstantPoolFilter filter = annotationScanFilter;
+        List<Future<List<ParsedClass>>> batches = new ArrayList<>();
+        for (int i = 0; i < classEntryNames.size(); i += PARALLEL_JAR_SCAN_BATCH_SIZE) {
+            List<String> batch =
+                    classEntryNames.subList(i, Math.min(i + PARALLEL_JAR_SCAN_BATCH_SIZE, classEntryNames.size()));
+            batches.add(pool.submit(() -> parseClasses(jarFile, batch, filter)));
+        }
+        boolean complete = true;
+        try {
+            for (Future<List<ParsedClass>> batch : batches) {
+                for (ParsedClass parsedClass : batch.get()) {
+                    if (parsedClass.error != null) {
+                        complete = false;
+                        log.error(sm.getString("contextConfig.inputStreamJar", parsedClass.entryName, url),
+                                parsedClass.error);
+                    } else if (parsedClass.javaClass != null) {
+                        processAnnotationsClass(parsedClass.javaClass, fragment, handlesTypesOnly, javaClassCache);
+                        if (isRelevantForAnnotationScan(parsedClass.javaClass, javaClassCache)) {
+                            relevantEntryNames.add(parsedClass.entryName);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete = false;
+        } catch (ExecutionException e) {
+            complete = false;
+            log.error(sm.getString("contextConfig.jarFile", url), e.getCause());
+        } finally {
+            for (Future<List<ParsedClass>> batch : batches) {
+                batch.cancel(false);
+            }
+        }
+        return complete;
+    }
+
+
+    private static List<ParsedClass> parseClasses(JarFile jarFile, List<String> entryNames,
+            ConstantPoolFilter filter) {
+        List<ParsedClass> result = new ArrayList<>(entryNames.size());
+        for (String entryName : entryNames) {
+            JarEntry entry = jarFile.getJarEntry(entryName);
+            if (entry == null) {
+                result.add(new ParsedClass(entryName, null, null));
+                continue;
+            }
+            try (InputStream is = jarFile.getInputStream(entry)) {
+                // A null JavaClass without an error means the class was skipped by the filter
+                result.add(new ParsedClass(entryName, parseClass(is, filter), null));
+            } catch (IOException | ClassFormatException e) {
+                result.add(new ParsedClass(entryName, null, e));
+            }
+        }
+        return result;
+    }
+
+
+    private static File getFile(URL url) {
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            File file = new File(url.toURI());
+            return file.isFile() ? file : null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
     protected void processAnnotationsFile(File file, WebXml fragment, boolean handlesTypesOnly,
             Map<String,JavaClassCacheEntry> javaClassCache) {
 
@@ -2239,8 +2498,34 @@ public class ContextConfig implements LifecycleListener {
     protected void processAnnotationsStream(InputStream is, WebXml fragment, boolean handlesTypesOnly,
             Map<String,JavaClassCacheEntry> javaClassCache) throws ClassFormatException, IOException {
 
-        ClassParser parser = new ClassParser(is);
-        JavaClass clazz = parser.parse();
+        JavaClass clazz = parseClass(is, annotationScanFilter);
+        if (clazz != null) {
+            processAnnotationsClass(clazz, fragment, handlesTypesOnly, javaClassCache);
+        }
+    }
+
+
+    /*
+     * Returns null if the filter shows the class does not need to be processed.
+     */
+    private static JavaClass parseClass(InputStream is, ConstantPoolFilter filter)
+            throws ClassFormatException, IOException {
+        if (filter == null) {
+            return new ClassParser(is).parse();
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        IOTools.flow(is, baos);
+        byte[] classFile = baos.toByteArray();
+        if (!filter.matches(classFile)) {
+            return null;
+        }
+        return new ClassParser(new ByteArrayInputStream(classFile)).parse();
+    }
+
+
+    protected void processAnnotationsClass(JavaClass clazz, WebXml fragment, boolean handlesTypesOnly,
+            Map<String,JavaClassCacheEntry> javaClassCache) {
+
         checkHandlesTypes(clazz, javaClassCache);
 
         if (handlesTypesOnly) {
@@ -2251,6 +2536,160 @@ public class ContextConfig implements LifecycleListener {
     }
 
 
+    /*
+     * Determines if a class that has just been processed needs to be processed again on the next start if the JAR that
+     * contains it is unchanged. That is the case if the class has a Servlet annotation or it matches a HandlesTypes
+     * entry.
+     */
+    private boolean isRelevantForAnnotationScan(JavaClass clazz, Map<String,JavaClassCacheEntry> javaClassCache) {
+        AnnotationEntry[] annotationEntries = clazz.getAnnotationEntries();
+        if (annotationEntries != null) {
+            for (AnnotationEntry ae : annotationEntries) {
+                String type = ae.getAnnotationType();
+                if ("Ljavax/servlet/annotation/WebServlet;".equals(type) ||
+                        "Ljavax/servlet/annotation/WebFilter;".equals(type) ||
+                        "Ljavax/servlet/annotation/WebListener;".equals(type)) {
+                    return true;
+                }
+            }
+        }
+        if (handlesTypesAnnotations) {
+            AnnotationEntry[] allAnnotationEntries = clazz.getAllAnnotationEntries();
+            if (allAnnotationEntries != null) {
+                for (AnnotationEntry ae : allAnnotationEntries) {
+                    String annotationClassName = getClassName(ae.getAnnotationType());
+                    for (Class<?> type : typeInitializerMap.keySet()) {
+                        if (type.isAnnotation() && type.getName().equals(annotationClassName)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        if (handlesTypesNonAnnotations) {
+            JavaClassCacheEntry entry = javaClassCache.get(clazz.getClassName());
+            return entry != null && entry.getSciSet() != null && !entry.getSciSet().isEmpty();
+        }
+        return false;
+    }
+
+
+    /*
+     * Whether a class matches a non-annotation HandlesTypes entry depends on its super classes and interfaces. They are
+     * loaded using the web application class loader so they may be in /WEB-INF/classes, any JAR in /WEB-INF/lib or on
+     * the class path of the container. In that case a change to any of those has to invalidate the recorded results
+     * for every JAR. If the container class path cannot be fingerprinted, null is returned and the results are not
+     * indexed.
+     */
+    private String getAnnotationScanFingerprint(Set<WebXml> fragments) {
+        List<String> parts = new ArrayList<>();
+        for (Class<?> type : typeInitializerMap.keySet()) {
+            parts.add(type.getName());
+        }
+        if (handlesTypesNonAnnotations) {
+            for (WebXml fragment : fragments) {
+                URL url = fragment.getURL();
+                if (url != null) {
+                    parts.add(url.toExternalForm() + ' ' + JarScanIndex.getFileState(url));
+                }
+            }
+            addFingerprint(context.getResources(), "/WEB-INF/classes", parts);
+            addFingerprint(context.getResources(), "/WEB-INF/lib", parts);
+            // The system class loader is not a URLClassLoader and holds the few JARs required to start Tomcat
+            ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+            for (ClassLoader cl = context.getParentClassLoader(); cl instanceof URLClassLoader &&
+                    cl != systemClassLoader; cl = cl.getParent()) {
+                for (URL url : ((URLClassLoader) cl).getURLs()) {
+                    if (!addFingerprint(url, parts)) {
+                        if (log.isDebugEnabled()) {
+                            log.debug(sm.getString("contextConfig.jarScanIndex.notIndexed", context.getName(), url));
+                        }
+                        return null;
+                    }
+                }
+            }
+        }
+        Collections.sort(parts);
+        return HexUtils.toHexString(
+                ConcurrentMessageDigest.digestMD5(String.join("\n", parts).getBytes(StandardCharsets.UTF_8)));
+    }
+
+
+    private static void addFingerprint(WebResourceRoot resources, String path, List<String> parts) {
+        for (WebResource resource : resources.listResources(path)) {
+            if (resource.isDirectory()) {
+                addFingerprint(resources, resource.getWebappPath(), parts);
+            } else {
+                parts.add(resource.getWebappPath() + ' ' + resource.getContentLength() + ' ' +
+                        resource.getLastModified());
+            }
+        }
+    }
+
+
+    /*
+     * Returns false if the class path entry cannot be fingerprinted.
+     */
+    private static boolean addFingerprint(URL url, List<String> parts) {
+        if (!"file".equals(url.getProtocol())) {
+            return false;
+        }
+        File file;
+        try {
+            file = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return false;
+        }
+        addFingerprint(file, parts);
+        return true;
+    }
+
+
+    private static void addFingerprint(File file, List<String> parts) {
+        if (file.isDirectory()) {
+            File[] files = file.listFiles();
+            if (files != null) {
+                for (File f : files) {
+                    addFingerprint(f, parts);
+                }
+            }
+        } else {
+            // Also records class path entries that do not exist in case they are created
+            parts.add(file.getAbsolutePath() + ' ' + file.length() + ' ' + file.lastModified());
+        }
+    }
+
+
+    private void initJarScanIndex() {
+        jarScanIndex = null;
+        annotationScanFingerprint = null;
+        if (context instanceof StandardContext && ((StandardContext) context).getJarScanIndex()) {
+            String workPath = ((StandardContext) context).getWorkPath();
+            if (workPath != null) {
+                JarScanIndex index = JarScanIndex.load(new File(workPath, JAR_SCAN_INDEX_FILE));
+                context.getServletContext().setAttribute(JarScanIndex.SERVLET_CONTEXT_ATTRIBUTE_NAME, index);
+                jarScanIndex = index;
+            }
+        }
+    }
+
+
+    private void saveJarScanIndex() {
+        JarScanIndex index = jarScanIndex;
+        if (index == null) {
+            return;
+        }
+        try {
+            index.save();
+        } catch (IOException e) {
+            log.warn(sm.getString("contextConfig.jarScanIndex.saveFail", context.getName()), e);
+        }
+        log.info(sm.getString("contextConfig.jarScanIndex.stats", context.getName(),
+                Integer.valueOf(index.getHitCount()), Integer.valueOf(index.getMissCount()),
+                Long.valueOf(index.getTimeSaved())));
+    }
+
+
     protected void processClass(WebXml fragment, JavaClass clazz) {
         AnnotationEntry[] annotationsEntries = clazz.getAnnotationEntries();
         if (annotationsEntries != null) {
@@ -2799,4 +3238,16 @@ public class ContextConfig implements LifecycleListener {
             this.sciSet = sciSet;
         }
     }
+
+    private static class ParsedClass {
+        private final String entryName;
+        private final JavaClass javaClass;
+        private final Exception error;
+
+        ParsedClass(String entryName, JavaClass javaClass, Exception error) {
+            this.entryName = entryName;
+            this.javaClass = javaClass;
+            this.error = error;
+        }
+    }
 }
@@ -42,8 +42,10 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.regex.Matcher;
@@ -155,6 +157,17 @@ public class HostConfig implements LifecycleListener {
      */
     private final Set<String> servicedSet = ConcurrentHashMap.newKeySet();
 
+    /**
+     * Deployments that have been scheduled but have not yet completed, keyed by context name.
+     */
+    private final Map<String,ScheduledDeployment> scheduledDeployments = new ConcurrentHashMap<>();
+
+    /**
+     * For deployments that are waiting for a dependency to be deployed, the name of the dependency keyed by the name
+     * of the waiting deployment. Used to detect circular dependencies.
+     */
+    private final Map<String,String> waitingDeployments = new HashMap<>();
+
     /**
      * The <code>Digester</code> instance used to parse context descriptors.
      */
@@ -398,6 +411,24 @@ public class HostConfig implements LifecycleListener {
     }
 
 
+    /**
+     * Get the time taken to deploy an application, including any time spent waiting for the applications it depends
+     * on to be deployed.
+     *
+     * @param name the context name
+     *
+     * @return -1L if no application with that name is deployed or the application was not deployed by the automatic
+     *             deployment process, otherwise the deployment time in milliseconds
+     */
+    public long getDeploymentDuration(String name) {
+        DeployedApplication app = deployed.get(name);
+        if (app == null) {
+            return -1L;
+        }
+        return app.deploymentDuration;
+    }
+
+
     /**
      * Has the specified application been deployed? Note applications defined in server.xml will not have been deployed.
      *
@@ -462,12 +493,19 @@ public class HostConfig implements LifecycleListener {
         File appBase = host.getAppBaseFile();
         File configBase = host.getConfigBaseFile();
         String[] filteredAppPaths = filterAppPaths(appBase.list());
+        List<ScheduledDeployment> deployments = new ArrayList<>();
+        /*
+         * All applications are deployed concurrently. The order of scheduling still ensures that XML descriptors take
+         * priority over WARs and that WARs take priority over expanded folders of the same name as the context name
+         * is marked as serviced when the deployment is scheduled.
+         */
         // Deploy XML descriptors from configBase
-        deployDescriptors(configBase, configBase.list());
+        scheduleDescriptors(configBase, configBase.list(), deployments);
         // Deploy WARs
-        deployWARs(appBase, filteredAppPaths);
+        scheduleWARs(appBase, filteredAppPaths, deployments);
         // Deploy expanded folders
-        deployDirectories(appBase, filteredAppPaths);
+        scheduleDirectories(appBase, filteredAppPaths, deployments);
+        runDeployments(deployments);
     }
 
 
@@ -550,14 +588,18 @@ public class HostConfig implements LifecycleListener {
      * @param files      The XML descriptors which should be deployed
      */
     protected void deployDescriptors(File configBase, String[] files) {
+        List<ScheduledDeployment> deployments = new ArrayList<>();
+        scheduleDescriptors(configBase, files, deployments);
+        runDeployments(deployments);
+    }
+
+
+    private void scheduleDescriptors(File configBase, String[] files, List<ScheduledDeployment> deployments) {
 
         if (files == null) {
             return;
         }
 
-        ExecutorService es = host.getStartStopExecutor();
-        List<Future<?>> results = new ArrayList<>();
-
         for (String file : files) {
             File contextXml = new File(configBase, file);
 
@@ -572,21 +614,112 @@ public class HostConfig implements LifecycleListener {
                         }
 
                         // DeployDescriptor will call removeServiced
-                        results.add(es.submit(new DeployDescriptor(this, cn, contextXml)));
+                        deployments.add(new ScheduledDeployment(cn, new DeployDescriptor(this, cn, contextXml),
+                                "hostConfig.deployDescriptor.threaded.error"));
                     } catch (Throwable t) {
                         ExceptionUtils.handleThrowable(t);
                         removeServiced(cn.getName());
+                        abandon(deployments, 0);
                         throw t;
                     }
                 }
             }
         }
+    }
+
+
+    /**
+     * Start the given deployments concurrently using the start/stop executor of the Host and wait for them to
+     * complete.
+     */
+    private void runDeployments(List<ScheduledDeployment> deployments) {
+        ExecutorService es = host.getStartStopExecutor();
+        int i = 0;
+        try {
+            for (; i < deployments.size(); i++) {
+                es.execute(deployments.get(i));
+            }
+        } catch (Throwable t) {
+            ExceptionUtils.handleThrowable(t);
+            abandon(deployments, i);
+            throw t;
+        }
 
-        for (Future<?> result : results) {
+        for (ScheduledDeployment deployment : deployments) {
             try {
-                result.get();
+                deployment.get();
             } catch (Exception e) {
-                log.error(sm.getString("hostConfig.deployDescriptor.threaded.error"), e);
+                log.error(sm.getString(deployment.errorKey), e);
+            }
+        }
+    }
+
+
+    /*
+     * Release the deployments, starting at the given index, that will now never be started so that they are no longer
+     * marked as serviced and may be deployed later.
+     */
+    private static void abandon(List<ScheduledDeployment> deployments, int from) {
+        for (int i = from; i < deployments.size(); i++) {
+            deployments.get(i).abandon();
+        }
+    }
+
+
+    /**
+     * Wait for the applications the given context depends on to be deployed if they are currently being deployed. A
+     * dependency that has not yet started to deploy is deployed on the current thread so a deployment can never wait
+     * for a thread that is itself waiting. Circular dependencies are logged and ignored.
+     *
+     * @param context The context that is about to be started
+     *
+     * @see StandardContext#getStartAfter()
+     */
+    protected void awaitDependencies(Context context) {
+        if (!(context instanceof StandardContext)) {
+            return;
+        }
+        String startAfter = ((StandardContext) context).getStartAfter();
+        if (startAfter == null) {
+            return;
+        }
+        for (String dependency : startAfter.split(",")) {
+            dependency = dependency.trim();
+            if (dependency.isEmpty()) {
+                continue;
+            }
+            String dependencyName = new ContextName(dependency, false).getName();
+            ScheduledDeployment deployment = scheduledDeployments.get(dependencyName);
+            if (deployment == null || dependencyName.equals(context.getName())) {
+                // Not being deployed so there is nothing to wait for
+                continue;
+            }
+            synchronized (waitingDeployments) {
+                String name = dependencyName;
+                while (name != null && !name.equals(context.getName())) {
+                    name = waitingDeployments.get(name);
+                }
+                if (name != null) {
+                    log.warn(sm.getString("hostConfig.dependency.circular", context.getName(), dependencyName));
+                    continue;
+                }
+                waitingDeployments.put(context.getName(), dependencyName);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(sm.getString("hostConfig.dependency.wait", context.getName(), dependencyName));
+            }
+            try {
+                deployment.run();
+                deployment.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Logged by the deployment of the dependency
+            } finally {
+                synchronized (waitingDeployments) {
+                    waitingDeployments.remove(context.getName());
+                }
             }
         }
     }
@@ -677,6 +810,7 @@ public class HostConfig implements LifecycleListener {
                 }
             }
 
+            awaitDependencies(context);
             host.addChild(context);
         } catch (Throwable t) {
             ExceptionUtils.handleThrowable(t);
@@ -760,14 +894,18 @@ public class HostConfig implements LifecycleListener {
      * @param files   The WARs to deploy
      */
     protected void deployWARs(File appBase, String[] files) {
+        List<ScheduledDeployment> deployments = new ArrayList<>();
+        scheduleWARs(appBase, files, deployments);
+        runDeployments(deployments);
+    }
+
+
+    private void scheduleWARs(File appBase, String[] files, List<ScheduledDeployment> deployments) {
 
         if (files == null) {
             return;
         }
 
-        ExecutorService es = host.getStartStopExecutor();
-        List<Future<?>> results = new ArrayList<>();
-
         for (String file : files) {
             if (file.equalsIgnoreCase("META-INF")) {
                 continue;
@@ -814,23 +952,17 @@ public class HostConfig implements LifecycleListener {
                         }
 
                         // DeployWAR will call removeServiced
-                        results.add(es.submit(new DeployWar(this, cn, war)));
+                        deployments.add(new ScheduledDeployment(cn, new DeployWar(this, cn, war),
+                                "hostConfig.deployWar.threaded.error"));
                     } catch (Throwable t) {
                         ExceptionUtils.handleThrowable(t);
                         removeServiced(cn.getName());
+                        abandon(deployments, 0);
                         throw t;
                     }
                 }
             }
         }
-
-        for (Future<?> result : results) {
-            try {
-                result.get();
-            } catch (Exception e) {
-                log.error(sm.getString("hostConfig.deployWar.threaded.error"), e);
-            }
-        }
     }
 
 
@@ -1009,6 +1141,7 @@ public class HostConfig implements LifecycleListener {
             context.setPath(cn.getPath());
             context.setWebappVersion(cn.getVersion());
             context.setDocBase(cn.getBaseName() + ".war");
+            awaitDependencies(context);
             host.addChild(context);
         } catch (Throwable t) {
             ExceptionUtils.handleThrowable(t);
@@ -1053,14 +1186,18 @@ public class HostConfig implements LifecycleListener {
      * @param files   The exploded webapps that should be deployed
      */
     protected void deployDirectories(File appBase, String[] files) {
+        List<ScheduledDeployment> deployments = new ArrayList<>();
+        scheduleDirectories(appBase, files, deployments);
+        runDeployments(deployments);
+    }
+
+
+    private void scheduleDirectories(File appBase, String[] files, List<ScheduledDeployment> deployments) {
 
         if (files == null) {
             return;
         }
 
-        ExecutorService es = host.getStartStopExecutor();
-        List<Future<?>> results = new ArrayList<>();
-
         for (String file : files) {
             if (file.equalsIgnoreCase("META-INF")) {
                 continue;
@@ -1081,23 +1218,17 @@ public class HostConfig implements LifecycleListener {
                         }
 
                         // DeployDirectory will call removeServiced
-                        results.add(es.submit(new DeployDirectory(this, cn, dir)));
+                        deployments.add(new ScheduledDeployment(cn, new DeployDirectory(this, cn, dir),
+                                "hostConfig.deployDir.threaded.error"));
                     } catch (Throwable t) {
                         ExceptionUtils.handleThrowable(t);
                         removeServiced(cn.getName());
+                        abandon(deployments, 0);
                         throw t;
                     }
                 }
             }
         }
-
-        for (Future<?> result : results) {
-            try {
-                result.get();
-            } catch (Exception e) {
-                log.error(sm.getString("hostConfig.deployDir.threaded.error"), e);
-            }
-        }
     }
 
 
@@ -1170,6 +1301,7 @@ public class HostConfig implements LifecycleListener {
             context.setPath(cn.getPath());
             context.setWebappVersion(cn.getVersion());
             context.setDocBase(cn.getBaseName());
+            awaitDependencies(context);
             host.addChild(context);
         } catch (Throwable t) {
             ExceptionUtils.handleThrowable(t);
@@ -1818,6 +1950,74 @@ public class HostConfig implements LifecycleListener {
          * the auto deployer.
          */
         public boolean loggedDirWarning = false;
+
+        /**
+         * The time in milliseconds taken by the automatic deployment process to deploy the application or -1 if the
+         * application was not deployed by that process.
+         */
+        public long deploymentDuration = -1;
+    }
+
+    /**
+     * A deployment of an application that is registered when it is scheduled so that the applications that depend on
+     * it are able to wait for it to complete.
+     */
+    private class ScheduledDeployment extends FutureTask<Void> {
+
+        private final String name;
+        private final String errorKey;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile long start;
+
+        ScheduledDeployment(ContextName cn, Runnable deployer, String errorKey) {
+            super(deployer, null);
+            this.name = cn.getName();
+            this.errorKey = errorKey;
+            scheduledDeployments.put(name, this);
+        }
+
+        @Override
+        public void run() {
+            // May be called by the executor and by the deployment of a dependent application
+            if (started.compareAndSet(false, true)) {
+                start = System.nanoTime();
+                super.run();
+            }
+        }
+
+        /*
+         * Record the duration before the deployment is marked as complete so it is visible to anything waiting for
+         * the deployment.
+         */
+        @Override
+        protected void set(Void v) {
+            recordDuration();
+            super.set(v);
+        }
+
+        @Override
+        protected void setException(Throwable t) {
+            recordDuration();
+            super.setException(t);
+        }
+
+        private void recordDuration() {
+            DeployedApplication app = deployed.get(name);
+            if (app != null) {
+                app.deploymentDuration = (System.nanoTime() - start) / 1_000_000;
+            }
+        }
+
+        @Override
+        protected void done() {
+            scheduledDeployments.remove(name, this);
+        }
+
+        void abandon() {
+            if (cancel(false)) {
+                removeServiced(name);
+            }
+        }
     }
 
     private static class DeployDescriptor implements Runnable {
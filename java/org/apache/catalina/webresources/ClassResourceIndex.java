@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.webresources;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.catalina.WebResourceSet;
+import org.apache.tomcat.util.compat.JreCompat;
+
+/**
+ * Merged index of the entries of the JARs in {@code /WEB-INF/lib} that are mounted at {@code /WEB-INF/classes}. For
+ * any path below {@code /WEB-INF/classes/} the index provides, in order, the class resource sets that may contain the
+ * path so that the remaining class resource sets do not have to be probed. The index is immutable once created so it
+ * may be used concurrently without locking. It must be re-created if the class resource sets change.
+ * <p>
+ * The entry names for JARs on the file system are read directly from the central directory so the JARs do not need to
+ * be opened (and held open) to create the index.
+ */
+final class ClassResourceIndex {
+
+    private static final String CLASSES = "/WEB-INF/classes";
+    private static final String VERSIONS = "META-INF/versions/";
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int EOCD_LEN = 22;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int CEN_LEN = 46;
+
+    private final List<WebResourceSet> all;
+    private final Map<String,List<WebResourceSet>> owners;
+
+
+    private ClassResourceIndex(List<WebResourceSet> all, Map<String,List<WebResourceSet>> owners) {
+        this.all = all;
+        this.owners = owners;
+    }
+
+
+    /**
+     * Obtain the class resource sets that need to be checked for the given path.
+     *
+     * @param path The path of the resource within the web application
+     *
+     * @return The class resource sets, in the order they must be checked, that may contain the resource
+     */
+    List<WebResourceSet> getResourceSets(String path) {
+        if (path.length() <= CLASSES.length() + 1 || !path.startsWith(CLASSES) ||
+                path.charAt(CLASSES.length()) != '/') {
+            // The root of the class resources is provided by every set
+            return all;
+        }
+        List<WebResourceSet> result = owners.get(getKey(path, CLASSES.length() + 1));
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+
+    /**
+     * @return The number of distinct names in the index
+     */
+    int size() {
+        return owners.size();
+    }
+
+
+    /*
+     * Directories may be looked up with or without the trailing '/' so the key never includes it.
+     */
+    private static String getKey(String name, int start) {
+        int end = name.length();
+        if (end > start && name.charAt(end - 1) == '/') {
+            end--;
+        }
+        return name.substring(start, end);
+    }
+
+
+    /**
+     * Create an index for the given class resource sets.
+     *
+     * @param classResources The class resource sets in the order they are checked
+     *
+     * @return The index or {@code null} if the class resource sets cannot be indexed
+     *
+     * @throws IOException If the entries of an archive cannot be read
+     */
+    static ClassResourceIndex create(List<WebResourceSet> classResources) throws IOException {
+        for (WebResourceSet webResourceSet : classResources) {
+            if (!(webResourceSet instanceof AbstractArchiveResourceSet)) {
+                return null;
+            }
+            AbstractArchiveResourceSet archiveResourceSet = (AbstractArchiveResourceSet) webResourceSet;
+            if (!CLASSES.equals(archiveResourceSet.getWebAppMount()) ||
+                    !archiveResourceSet.getInternalPath().isEmpty()) {
+                return null;
+            }
+        }
+
+        int runtimeVersion = JreCompat.getInstance().jarFileRuntimeMajorVersion();
+        List<WebResourceSet> all = Collections.unmodifiableList(new ArrayList<>(classResources));
+        Map<String,List<WebResourceSet>> owners = new HashMap<>();
+        for (WebResourceSet webResourceSet : all) {
+            // Most names are only present in a single set so share that list
+            List<WebResourceSet> single = Collections.singletonList(webResourceSet);
+            for (String entryName : getEntryNames((AbstractArchiveResourceSet) webResourceSet)) {
+                addOwner(owners, getKey(entryName, 0), webResourceSet, single);
+                // Versioned entries may also be visible under their real name
+                if (entryName.startsWith(VERSIONS)) {
+                    int i = entryName.indexOf('/', VERSIONS.length());
+                    if (i > 0 && i + 1 < entryName.length()) {
+                        try {
+                            int version = Integer.parseInt(entryName.substring(VERSIONS.length(), i));
+                            if (version <= runtimeVersion) {
+                                addOwner(owners, getKey(entryName, i + 1), webResourceSet, single);
+                            }
+                        } catch (NumberFormatException e) {
+                            // Not a versioned entry
+                        }
+                    }
+                }
+            }
+        }
+        return new ClassResourceIndex(all, owners);
+    }
+
+
+    private static void addOwner(Map<String,List<WebResourceSet>> owners, String key, WebResourceSet webResourceSet,
+            List<WebResourceSet> single) {
+        List<WebResourceSet> current = owners.get(key);
+        if (current == null) {
+            owners.put(key, single);
+        } else if (current.get(current.size() - 1) != webResourceSet) {
+            WebResourceSet[] merged = current.toArray(new WebResourceSet[current.size() + 1]);
+            merged[current.size()] = webResourceSet;
+            owners.put(key, Collections.unmodifiableList(Arrays.asList(merged)));
+        }
+    }
+
+
+    private static Iterable<String> getEntryNames(AbstractArchiveResourceSet archiveResourceSet) throws IOException {
+        if (archiveResourceSet instanceof JarWarResourceSet) {
+            // The nested JAR has to be read via the WAR. The set caches the entries so use them.
+            return archiveResourceSet.getArchiveEntries(false).keySet();
+        }
+        File file = new File(archiveResourceSet.getBase());
+        List<String> names = readCentralDirectory(file);
+        if (names == null) {
+            // Not supported by the simple parser so use the JRE
+            names = new ArrayList<>();
+            try (JarFile jarFile = new JarFile(file)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    names.add(entries.nextElement().getName());
+                }
+            }
+        }
+        return names;
+    }
+
+
+    /**
+     * Read the names of the entries in an archive from the central directory of the archive.
+     *
+     * @param file The archive
+     *
+     * @return The names of the entries or {@code null} if the central directory cannot be processed (e.g. the archive
+     *             uses ZIP64 extensions)
+     *
+     * @throws IOException If the archive cannot be read
+     */
+    static List<String> readCentralDirectory(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < EOCD_LEN) {
+                return null;
+            }
+
+            // The end of central directory record is followed by a comment of up to 64k
+            int tailLen = (int) Math.min(size, EOCD_LEN + 0xFFFF);
+            ByteBuffer tail = read(channel, size - tailLen, tailLen);
+            int eocd = -1;
+            for (int i = tailLen - EOCD_LEN; i >= 0; i--) {
+                if (tail.getInt(i) == EOCD_SIG && i + EOCD_LEN + (tail.getShort(i + 20) & 0xFFFF) == tailLen) {
+                    eocd = i;
+                    break;
+                }
+            }
+            if (eocd == -1) {
+                return null;
+            }
+
+            int count = tail.getShort(eocd + 10) & 0xFFFF;
+            long cenLen = tail.getInt(eocd + 12) & 0xFFFFFFFFL;
+            long cenOffset = tail.getInt(eocd + 16) & 0xFFFFFFFFL;
+            long eocdPos = size - tailLen + eocd;
+            if (count == 0xFFFF || cenLen == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL || cenLen > eocdPos ||
+                    cenLen > Integer.MAX_VALUE) {
+                // ZIP64 or invalid
+                return null;
+            }
+
+            // Calculated from the end rather than using the offset to allow for data prepended to the archive
+            ByteBuffer cen = read(channel, eocdPos - cenLen, (int) cenLen);
+            List<String> names = new ArrayList<>(count);
+            int pos = 0;
+            while (pos + CEN_LEN <= cenLen) {
+                if (cen.getInt(pos) != CEN_SIG) {
+                    return null;
+                }
+                int nameLen = cen.getShort(pos + 28) & 0xFFFF;
+                int extraLen = cen.getShort(pos + 30) & 0xFFFF;
+                int commentLen = cen.getShort(pos + 32) & 0xFFFF;
+                if (pos + CEN_LEN + nameLen > cenLen) {
+                    return null;
+                }
+                // JarFile always uses UTF-8 for entry names
+                names.add(new String(cen.array(), pos + CEN_LEN, nameLen, StandardCharsets.UTF_8));
+                pos += CEN_LEN + nameLen + extraLen + commentLen;
+            }
+            if (pos != cenLen || names.size() != count) {
+                return null;
+            }
+            return names;
+        }
+    }
+
+
+    private static ByteBuffer read(FileChannel channel, long position, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(len);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
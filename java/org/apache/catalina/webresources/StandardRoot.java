@@ -83,6 +83,9 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
 
     private ArchiveIndexStrategy archiveIndexStrategy = ArchiveIndexStrategy.SIMPLE;
 
+    private boolean mergedArchiveIndex = false;
+    private volatile ClassResourceIndex classResourceIndex = null;
+
     // Constructs to make iteration over all WebResourceSets simpler
     private final List<WebResourceSet> mainResources = new ArrayList<>();
     private final List<List<WebResourceSet>> allResources = new ArrayList<>();
@@ -267,6 +270,9 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
         WebResource virtual = null;
         WebResource mainEmpty = null;
         for (List<WebResourceSet> list : allResources) {
+            if (list == classResources) {
+                list = getClassResources(path);
+            }
             for (WebResourceSet webResourceSet : list) {
                 if (!useClassLoaderResources && !webResourceSet.getClassLoaderOnly() ||
                         useClassLoaderResources && !webResourceSet.getStaticOnly()) {
@@ -312,6 +318,9 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
     protected WebResource[] getResourcesInternal(String path, boolean useClassLoaderResources) {
         List<WebResource> result = new ArrayList<>();
         for (List<WebResourceSet> list : allResources) {
+            if (list == classResources) {
+                list = getClassResources(path);
+            }
             for (WebResourceSet webResourceSet : list) {
                 if (useClassLoaderResources || !webResourceSet.getClassLoaderOnly()) {
                     WebResource webResource = webResourceSet.getResource(path);
@@ -452,6 +461,39 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
     protected void addClassResources(WebResourceSet webResourceSet) {
         webResourceSet.setRoot(this);
         classResources.add(webResourceSet);
+        if (getState().isAvailable()) {
+            createClassResourceIndex();
+        }
+    }
+
+    /*
+     * Only the class resource sets that may contain the path need to be checked.
+     */
+    List<WebResourceSet> getClassResources(String path) {
+        ClassResourceIndex index = classResourceIndex;
+        if (index == null) {
+            return classResources;
+        }
+        return index.getResourceSets(path);
+    }
+
+    private void createClassResourceIndex() {
+        classResourceIndex = null;
+        if (!mergedArchiveIndex || classResources.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            classResourceIndex = ClassResourceIndex.create(classResources);
+        } catch (IOException | RuntimeException e) {
+            log.warn(sm.getString("standardRoot.classResourceIndexFail", getContext().getName()), e);
+            return;
+        }
+        if (classResourceIndex != null && log.isDebugEnabled()) {
+            log.debug(sm.getString("standardRoot.classResourceIndex", getContext().getName(),
+                    Integer.valueOf(classResources.size()), Integer.valueOf(classResourceIndex.size()),
+                    Long.valueOf((System.nanoTime() - start) / 1_000_000)));
+        }
     }
 
     @Override
@@ -555,6 +597,27 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
         return this.archiveIndexStrategy;
     }
 
+    /**
+     * Configure whether a single index of the entries of all the JARs in {@code /WEB-INF/lib} is used to determine
+     * which JARs need to be checked when looking up a class loader resource. Without the index every JAR is checked
+     * until the resource is found.
+     *
+     * @param mergedArchiveIndex {@code true} to use a merged index
+     */
+    public void setMergedArchiveIndex(boolean mergedArchiveIndex) {
+        this.mergedArchiveIndex = mergedArchiveIndex;
+        if (getState().isAvailable()) {
+            createClassResourceIndex();
+        }
+    }
+
+    /**
+     * @return {@code true} if a merged index is used for class loader resources in {@code /WEB-INF/lib}
+     */
+    public boolean getMergedArchiveIndex() {
+        return mergedArchiveIndex;
+    }
+
     public List<String> getTrackedResources() {
         List<String> result = new ArrayList<>(trackedResources.size());
         for (TrackedWebResource resource : trackedResources) {
@@ -732,6 +795,7 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
         for (WebResourceSet classResource : classResources) {
             classResource.start();
         }
+        createClassResourceIndex();
 
         cache.enforceObjectMaxSizeLimit();
 
@@ -780,6 +844,7 @@ public class StandardRoot extends LifecycleMBeanBase implements WebResourceRoot
         }
         jarResources.clear();
 
+        classResourceIndex = null;
         for (WebResourceSet webResourceSet : classResources) {
             webResourceSet.destroy();
         }
@@ -1006,6 +1006,7 @@ public abstract class AbstractProtocol<S> implements ProtocolHandler, MBeanRegis
                     // processor. Continue to poll for the next request.
                     release(processor);
                     processor = null;
+                    wrapper.releaseIdleBuffers();
                     wrapper.registerReadInterest();
                 } else if (state == SocketState.SENDFILE) {
                     // Sendfile in progress. If it fails, the socket will be
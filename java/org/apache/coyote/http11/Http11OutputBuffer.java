@@ -559,6 +559,31 @@ public class Http11OutputBuffer implements HttpOutputBuffer {
             }
         }
 
+        @Override
+        public long doWrite(ByteBuffer[] chunks) throws IOException {
+            try {
+                long len = 0;
+                for (ByteBuffer chunk : chunks) {
+                    len += chunk.remaining();
+                }
+                SocketWrapperBase<?> socketWrapper = Http11OutputBuffer.this.socketWrapper;
+                if (socketWrapper != null) {
+                    socketWrapper.write(isBlocking(), chunks);
+                } else {
+                    throw new CloseNowException(sm.getString("iob.failedwrite"));
+                }
+                for (ByteBuffer chunk : chunks) {
+                    len -= chunk.remaining();
+                }
+                byteCount += len;
+                return len;
+            } catch (IOException ioe) {
+                response.action(ActionCode.CLOSE_NOW, ioe);
+                // Re-throw
+                throw ioe;
+            }
+        }
+
         @Override
         public long getBytesWritten() {
             return byteCount;
@@ -17,11 +17,31 @@
 package org.apache.coyote.http11;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.coyote.OutputBuffer;
 
 public interface HttpOutputBuffer extends OutputBuffer {
 
+    /**
+     * Write the given data, in order, to the response. The default implementation calls
+     * {@link #doWrite(ByteBuffer)} for each buffer. Implementations that write to the network may write all the data
+     * with a single gathering write.
+     *
+     * @param chunks The data to write
+     *
+     * @return The number of bytes written
+     *
+     * @throws IOException If an I/O error occurs while writing to the client
+     */
+    default long doWrite(ByteBuffer[] chunks) throws IOException {
+        long len = 0;
+        for (ByteBuffer chunk : chunks) {
+            len += doWrite(chunk);
+        }
+        return len;
+    }
+
     /**
      * Finish writing the current response. It is acceptable to write extra bytes using
      * {@link #doWrite(java.nio.ByteBuffer)} during the execution of this method.
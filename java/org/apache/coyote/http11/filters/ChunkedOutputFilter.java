@@ -77,6 +77,7 @@ public class ChunkedOutputFilter implements OutputFilter {
 
     protected final ByteBuffer lastChunk = ByteBuffer.wrap(LAST_CHUNK_BYTES);
     protected final ByteBuffer crlfChunk = ByteBuffer.wrap(CRLF_BYTES);
+    private final ByteBuffer[] chunkBuffers = new ByteBuffer[] { chunkHeader, null, crlfChunk };
     /**
      * End chunk.
      */
@@ -105,13 +106,15 @@ public class ChunkedOutputFilter implements OutputFilter {
 
         int pos = calculateChunkHeader(result);
 
+        // Write the chunk header, the data and the chunk trailer together
         chunkHeader.position(pos).limit(10);
-        buffer.doWrite(chunkHeader);
-
-        buffer.doWrite(chunk);
-
-        chunkHeader.position(8).limit(10);
-        buffer.doWrite(chunkHeader);
+        chunkBuffers[1] = chunk;
+        try {
+            buffer.doWrite(chunkBuffers);
+        } finally {
+            chunkBuffers[1] = null;
+            crlfChunk.position(0).limit(crlfChunk.capacity());
+        }
 
         return result;
     }
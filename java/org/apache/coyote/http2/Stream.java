@@ -1026,8 +1026,17 @@ class Stream extends AbstractNonZeroStream implements HeaderEmitter {
                 // chunk is always fully written
                 int result = chunk.remaining();
                 if (writeBuffer.isEmpty()) {
+                    boolean block = coyoteResponse.getWriteListener() == null;
                     int chunkLimit = chunk.limit();
                     while (chunk.remaining() > 0) {
+                        if (block && buffer.position() == 0 && chunk.remaining() > buffer.capacity()) {
+                            // Write large chunks directly rather than copying them to the buffer. The end of the
+                            // chunk is still buffered so it can be sent with the end of stream flag.
+                            chunk.limit(chunkLimit - buffer.capacity());
+                            writeData(chunk, true, true);
+                            chunk.position(chunk.limit());
+                            chunk.limit(chunkLimit);
+                        }
                         int thisTime = Math.min(buffer.remaining(), chunk.remaining());
                         chunk.limit(chunk.position() + thisTime);
                         buffer.put(chunk);
@@ -1035,7 +1044,7 @@ class Stream extends AbstractNonZeroStream implements HeaderEmitter {
                         if (chunk.remaining() > 0 && !buffer.hasRemaining()) {
                             // Only flush if we have more data to write and the buffer
                             // is full
-                            if (flush(true, coyoteResponse.getWriteListener() == null)) {
+                            if (flush(true, block)) {
                                 writeBuffer.add(chunk);
                                 dataLeft = true;
                                 break;
@@ -1107,33 +1116,12 @@ class Stream extends AbstractNonZeroStream implements HeaderEmitter {
                     return false;
                 }
                 buffer.flip();
-                int left = buffer.remaining();
-                while (left > 0) {
-                    if (streamReservation == 0) {
-                        streamReservation = reserveWindowSize(left, block);
-                        if (streamReservation == 0) {
-                            // Must be non-blocking.
-                            // Note: Can't add to the writeBuffer here as the write
-                            // may originate from the writeBuffer.
-                            buffer.compact();
-                            return true;
-                        }
-                    }
-                    while (streamReservation > 0) {
-                        int connectionReservation = handler.reserveWindowSize(Stream.this, streamReservation, block);
-                        if (connectionReservation == 0) {
-                            // Must be non-blocking.
-                            // Note: Can't add to the writeBuffer here as the write
-                            // may originate from the writeBuffer.
-                            buffer.compact();
-                            return true;
-                        }
-                        // Do the write
-                        handler.writeBody(Stream.this, buffer, connectionReservation, !writeInProgress && closed &&
-                                left == connectionReservation && coyoteResponse.getTrailerFields() == null);
-                        streamReservation -= connectionReservation;
-                        left -= connectionReservation;
-                    }
+                if (writeData(buffer, writeInProgress, block)) {
+                    // Must be non-blocking.
+                    // Note: Can't add to the writeBuffer here as the write
+                    // may originate from the writeBuffer.
+                    buffer.compact();
+                    return true;
                 }
                 buffer.clear();
                 return false;
@@ -1142,6 +1130,39 @@ class Stream extends AbstractNonZeroStream implements HeaderEmitter {
             }
         }
 
+        /*
+         * Writes the remaining data as DATA frames that are no larger than the maximum frame size of the client.
+         * Returns true if the data could not be written because a non-blocking write is waiting for an allocation.
+         */
+        private boolean writeData(ByteBuffer data, boolean writeInProgress, boolean block) throws IOException {
+            int maxFrameSize = handler.getRemoteSettings().getMaxFrameSize();
+            int left = data.remaining();
+            while (left > 0) {
+                if (streamReservation == 0) {
+                    streamReservation = reserveWindowSize(left, block);
+                    if (streamReservation == 0) {
+                        return true;
+                    }
+                }
+                while (streamReservation > 0) {
+                    int connectionReservation = handler.reserveWindowSize(Stream.this, streamReservation, block);
+                    if (connectionReservation == 0) {
+                        return true;
+                    }
+                    streamReservation -= connectionReservation;
+                    while (connectionReservation > 0) {
+                        int frameSize = Math.min(connectionReservation, maxFrameSize);
+                        // Do the write
+                        handler.writeBody(Stream.this, data, frameSize, !writeInProgress && closed &&
+                                left == frameSize && coyoteResponse.getTrailerFields() == null);
+                        connectionReservation -= frameSize;
+                        left -= frameSize;
+                    }
+                }
+            }
+            return false;
+        }
+
         final boolean isReady() {
             writeLock.lock();
             try {
@@ -16,10 +16,17 @@
  */
 package org.apache.el.lang;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
 import java.io.StringReader;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.List;
 
 import javax.el.ELContext;
 import javax.el.ELException;
@@ -40,7 +47,6 @@ import org.apache.el.parser.AstValue;
 import org.apache.el.parser.ELParser;
 import org.apache.el.parser.Node;
 import org.apache.el.parser.NodeVisitor;
-import org.apache.el.util.ConcurrentCache;
 import org.apache.el.util.ExceptionUtils;
 import org.apache.el.util.MessageFactory;
 
@@ -53,20 +59,42 @@ public final class ExpressionBuilder implements NodeVisitor {
 
     private static final int CACHE_SIZE;
     private static final String CACHE_SIZE_PROP = "org.apache.el.ExpressionBuilder.CACHE_SIZE";
+    private static final String SNAPSHOT_FILE_PROP = "org.apache.el.ExpressionBuilder.SNAPSHOT_FILE";
+
+    private static final ExpressionCache expressionCache;
 
     static {
         String cacheSizeStr;
+        String snapshotFileStr;
         if (System.getSecurityManager() == null) {
             cacheSizeStr = System.getProperty(CACHE_SIZE_PROP, "5000");
+            snapshotFileStr = System.getProperty(SNAPSHOT_FILE_PROP);
         } else {
             cacheSizeStr = AccessController
                     .doPrivileged((PrivilegedAction<String>) () -> System.getProperty(CACHE_SIZE_PROP, "5000"));
+            snapshotFileStr = AccessController
+                    .doPrivileged((PrivilegedAction<String>) () -> System.getProperty(SNAPSHOT_FILE_PROP));
         }
         CACHE_SIZE = Integer.parseInt(cacheSizeStr);
+        expressionCache = new ExpressionCache(CACHE_SIZE);
+
+        if (snapshotFileStr != null) {
+            final File snapshotFile = new File(snapshotFileStr);
+            readSnapshot(snapshotFile);
+            /*
+             * This class may be first loaded by a web application thread. Create the thread in a privileged block and
+             * set its context class loader so that it does not retain the access control context or the class loader
+             * of that web application until the JVM exits.
+             */
+            AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+                Thread writer = new Thread(() -> writeSnapshot(snapshotFile), "ELExpressionSnapshotWriter");
+                writer.setContextClassLoader(ExpressionBuilder.class.getClassLoader());
+                Runtime.getRuntime().addShutdownHook(writer);
+                return null;
+            });
+        }
     }
 
-    private static final ConcurrentCache<String,Node> expressionCache = new ConcurrentCache<>(CACHE_SIZE);
-
     private FunctionMapper fnMapper;
 
     private VariableMapper varMapper;
@@ -91,6 +119,117 @@ public final class ExpressionBuilder implements NodeVisitor {
         return createNodeInternal(expr);
     }
 
+    /**
+     * @return The number of expressions that were found in the cache of parsed expressions
+     */
+    public static long getCacheHitCount() {
+        return expressionCache.getHitCount();
+    }
+
+    /**
+     * @return The number of expressions that had to be parsed as they were not found in the cache of parsed
+     *             expressions
+     */
+    public static long getCacheMissCount() {
+        return expressionCache.getMissCount();
+    }
+
+    /**
+     * @return The number of expressions in the cache of parsed expressions
+     */
+    public static int getCacheSize() {
+        return expressionCache.size();
+    }
+
+    /**
+     * Parse the expressions in the given snapshot and add them to the cache of parsed expressions. Expressions that
+     * cannot be parsed are skipped.
+     *
+     * @param snapshotFile The snapshot
+     *
+     * @return The number of expressions added to the cache
+     */
+    static int readSnapshot(File snapshotFile) {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String expr = unescape(line);
+                try {
+                    expressionCache.put(expr, parse(expr));
+                    count++;
+                } catch (ELException e) {
+                    // Ignore. Will be reported if the expression is used.
+                }
+            }
+        } catch (IOException e) {
+            // Ignore. A missing or invalid snapshot just means the cache starts empty.
+        }
+        return count;
+    }
+
+    /**
+     * Write the expressions in the cache of parsed expressions that have been used, most frequently used first, to the
+     * given snapshot so they may be parsed in advance by {@link #readSnapshot(File)}.
+     *
+     * @param snapshotFile The snapshot
+     *
+     * @return The number of expressions written
+     */
+    static int writeSnapshot(File snapshotFile) {
+        List<String> expressions = expressionCache.getHotExpressions(CACHE_SIZE);
+        try (BufferedWriter writer = Files.newBufferedWriter(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            for (String expr : expressions) {
+                writer.write(escape(expr));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            // Ignore. The snapshot is only an optimisation.
+            return 0;
+        }
+        return expressions.size();
+    }
+
+    /*
+     * One expression per line so new lines (and the escape character) need to be escaped.
+     */
+    private static String escape(String expr) {
+        StringBuilder sb = new StringBuilder(expr.length());
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if (c == '\\') {
+                sb.append("\\\\");
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c == '\r') {
+                sb.append("\\r");
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(String line) {
+        StringBuilder sb = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                c = line.charAt(++i);
+                if (c == 'n') {
+                    c = '\n';
+                } else if (c == 'r') {
+                    c = '\r';
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
     private static Node createNodeInternal(String expr) throws ELException {
         if (expr == null) {
             throw new ELException(MessageFactory.get("error.null"));
@@ -98,48 +237,54 @@ public final class ExpressionBuilder implements NodeVisitor {
 
         Node n = expressionCache.get(expr);
         if (n == null) {
-            ELParser parser = parserCache.pop();
-            try {
-                if (parser == null) {
-                    parser = new ELParser(new StringReader(expr));
-                } else {
-                    parser.ReInit(new StringReader(expr));
-                }
-                n = parser.CompositeExpression();
+            n = parse(expr);
+            expressionCache.put(expr, n);
+        }
+        return n;
+    }
 
-                // validate composite expression
-                int numChildren = n.jjtGetNumChildren();
-                if (numChildren == 1) {
-                    n = n.jjtGetChild(0);
-                } else {
-                    Class<?> type = null;
-                    Node child;
-                    for (int i = 0; i < numChildren; i++) {
-                        child = n.jjtGetChild(i);
-                        if (child instanceof AstLiteralExpression) {
-                            continue;
-                        }
-                        if (type == null) {
-                            type = child.getClass();
-                        } else {
-                            if (!type.equals(child.getClass())) {
-                                throw new ELException(MessageFactory.get("error.mixed", expr));
-                            }
+    private static Node parse(String expr) throws ELException {
+        ELParser parser = parserCache.pop();
+        Node n;
+        try {
+            if (parser == null) {
+                parser = new ELParser(new StringReader(expr));
+            } else {
+                parser.ReInit(new StringReader(expr));
+            }
+            n = parser.CompositeExpression();
+
+            // validate composite expression
+            int numChildren = n.jjtGetNumChildren();
+            if (numChildren == 1) {
+                n = n.jjtGetChild(0);
+            } else {
+                Class<?> type = null;
+                Node child;
+                for (int i = 0; i < numChildren; i++) {
+                    child = n.jjtGetChild(i);
+                    if (child instanceof AstLiteralExpression) {
+                        continue;
+                    }
+                    if (type == null) {
+                        type = child.getClass();
+                    } else {
+                        if (!type.equals(child.getClass())) {
+                            throw new ELException(MessageFactory.get("error.mixed", expr));
                         }
                     }
                 }
+            }
 
-                if (n instanceof AstDeferredExpression || n instanceof AstDynamicExpression) {
-                    n = n.jjtGetChild(0);
-                }
-                expressionCache.put(expr, n);
-            } catch (Throwable t) {
-                ExceptionUtils.handleThrowable(t);
-                throw new ELException(MessageFactory.get("error.parseFail", expr), t);
-            } finally {
-                if (parser != null) {
-                    parserCache.push(parser);
-                }
+            if (n instanceof AstDeferredExpression || n instanceof AstDynamicExpression) {
+                n = n.jjtGetChild(0);
+            }
+        } catch (Throwable t) {
+            ExceptionUtils.handleThrowable(t);
+            throw new ELException(MessageFactory.get("error.parseFail", expr), t);
+        } finally {
+            if (parser != null) {
+                parserCache.push(parser);
             }
         }
         return n;
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.el.lang;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.el.parser.Node;
+
+/**
+ * Size bounded cache of parsed expressions. The cache is split into segments, each with its own lock and least
+ * recently used eviction, so concurrent look-ups of different expressions rarely contend. The number of times each
+ * cached expression has been used is tracked so the most frequently used expressions can be identified.
+ */
+final class ExpressionCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+
+    ExpressionCache(int size) {
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= size) {
+            segmentCount *= 2;
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread any remainder over the first segments so the total is exactly the requested size
+            segments[i] = new Segment(size / segmentCount + (i < size % segmentCount ? 1 : 0));
+        }
+        segmentMask = segmentCount - 1;
+    }
+
+
+    Node get(String expression) {
+        Segment segment = getSegment(expression);
+        CachedNode cached;
+        synchronized (segment) {
+            cached = segment.get(expression);
+        }
+        if (cached == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        cached.useCount.incrementAndGet();
+        return cached.node;
+    }
+
+
+    void put(String expression, Node node) {
+        Segment segment = getSegment(expression);
+        synchronized (segment) {
+            segment.put(expression, new CachedNode(node));
+        }
+    }
+
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+
+    long getMissCount() {
+        return missCount.sum();
+    }
+
+
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        hitCount.reset();
+        missCount.reset();
+    }
+
+
+    /**
+     * Obtain the cached expressions that have been used at least once since they were cached.
+     *
+     * @param max The maximum number of expressions to return
+     *
+     * @return The expressions, most frequently used first
+     */
+    List<String> getHotExpressions(int max) {
+        List<Map.Entry<String,Integer>> used = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Map.Entry<String,CachedNode> entry : segment.entrySet()) {
+                    int useCount = entry.getValue().useCount.get();
+                    if (useCount > 0) {
+                        used.add(new SimpleImmutableEntry<>(entry.getKey(), Integer.valueOf(useCount)));
+                    }
+                }
+            }
+        }
+        used.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
+        List<String> result = new ArrayList<>(Math.min(max, used.size()));
+        for (int i = 0; i < used.size() && i < max; i++) {
+            result.add(used.get(i).getKey());
+        }
+        return result;
+    }
+
+
+    private Segment getSegment(String expression) {
+        int h = expression.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+
+    private static final class CachedNode {
+        private final Node node;
+        private final AtomicInteger useCount = new AtomicInteger();
+
+        CachedNode(Node node) {
+            this.node = node;
+        }
+    }
+
+
+    private static final class Segment extends LinkedHashMap<String,CachedNode> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String,CachedNode> eldest) {
+            return size() > capacity;
+        }
+    }
+}
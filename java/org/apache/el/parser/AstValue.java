@@ -50,11 +50,22 @@ public final class AstValue extends SimpleNode {
     }
 
 
+    private ValueCompiler compiler;
+
+
     public AstValue(int id) {
         super(id);
     }
 
 
+    @Override
+    public void jjtClose() {
+        if (ValueCompiler.THRESHOLD > 0 && ValueCompiler.isCompilable(this)) {
+            compiler = new ValueCompiler(this, ValueCompiler.THRESHOLD);
+        }
+    }
+
+
     @Override
     public Class<?> getType(EvaluationContext ctx) throws ELException {
         Target t = getTarget(ctx);
@@ -134,8 +145,20 @@ public final class AstValue extends SimpleNode {
     @Override
     public Object getValue(EvaluationContext ctx) throws ELException {
         Object base = this.children[0].getValue(ctx);
+        if (compiler != null) {
+            return compiler.getValue(ctx, base);
+        }
+        return getValue(ctx, base, 1);
+    }
+
+
+    /*
+     * Evaluates the remainder of the expression starting with the child at the given index, using the provided value
+     * as the base.
+     */
+    Object getValue(EvaluationContext ctx, Object base, int start) throws ELException {
         int propCount = this.jjtGetNumChildren();
-        int i = 1;
+        int i = start;
         Object suffix = null;
         ELResolver resolver = ctx.getELResolver();
         while (base != null && i < propCount) {
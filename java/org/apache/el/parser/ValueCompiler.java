@@ -0,0 +1,418 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.el.parser;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.el.ELClass;
+import javax.el.ELException;
+import javax.el.ELResolver;
+import javax.el.PropertyNotFoundException;
+
+import org.apache.el.lang.EvaluationContext;
+import org.apache.el.util.ExceptionUtils;
+import org.apache.el.util.MessageFactory;
+
+/**
+ * Optional compilation tier for value expressions that consist of an identifier followed by one or more JavaBean
+ * property reads such as <code>${a.b.c}</code>.
+ * <p>
+ * The expression is interpreted, recording the type of the base object at each step, until it has been evaluated
+ * the configured number of times in a row with the same types. The read method for each step is then resolved once
+ * and subsequent evaluations call the read methods directly rather than searching the {@link ELResolver}s and the
+ * bean property cache for every step. Each step is guarded by a check that the base object has the type the step was
+ * compiled for. If a guard fails the compiled form is discarded and the evaluation continues in the interpreter from
+ * that step. An expression that is deoptimized repeatedly is no longer compiled.
+ * <p>
+ * Parsed expressions are cached and shared by all web applications. The profile and the compiled form are therefore
+ * kept separately for each {@link ELResolver}, which is usually one per web application, so that the applications do
+ * not deoptimize each other. The resolvers, the recorded types and the read methods are only weakly referenced so
+ * that a cached expression does not prevent a web application's class loader from being garbage collected once the
+ * application has been stopped.
+ * <p>
+ * Compilation assumes that, for bean types that are not maps, lists, arrays, resource bundles or {@link ELClass}, the
+ * {@link ELResolver} reads properties the same way as {@link javax.el.BeanELResolver}. It should not be enabled if an
+ * application registers an {@link ELResolver} that resolves properties of other types differently.
+ */
+final class ValueCompiler {
+
+    private static final boolean IS_SECURITY_ENABLED = (System.getSecurityManager() != null);
+
+    private static final String THRESHOLD_PROP = "org.apache.el.parser.COMPILE_THRESHOLD";
+
+    static final int THRESHOLD;
+
+    private static final int MAX_DEOPTIMIZATIONS = 4;
+
+    /*
+     * Resolvers beyond this number, such as resolvers created for each evaluation, are left to the interpreter.
+     */
+    private static final int MAX_RESOLVERS = 8;
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Object NO_GETTER = new Object();
+
+    /*
+     * The read methods of each type, keyed by property name. The values are held by the type itself so they do not
+     * prevent the type from being unloaded.
+     */
+    private static final ClassValue<ConcurrentMap<String,Object>> GETTERS =
+            new ClassValue<ConcurrentMap<String,Object>>() {
+                @Override
+                protected ConcurrentMap<String,Object> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    static {
+        String thresholdStr;
+        if (IS_SECURITY_ENABLED) {
+            thresholdStr = AccessController
+                    .doPrivileged((PrivilegedAction<String>) () -> System.getProperty(THRESHOLD_PROP, "0"));
+        } else {
+            thresholdStr = System.getProperty(THRESHOLD_PROP, "0");
+        }
+        THRESHOLD = Integer.parseInt(thresholdStr);
+    }
+
+
+    private final AstValue node;
+    private final int threshold;
+    private final String[] properties;
+
+    private volatile ResolverState[] states = new ResolverState[0];
+
+
+    ValueCompiler(AstValue node, int threshold) {
+        this.node = node;
+        this.threshold = threshold;
+        int count = node.jjtGetNumChildren() - 1;
+        properties = new String[count];
+        for (int i = 0; i < count; i++) {
+            properties[i] = node.jjtGetChild(i + 1).getImage();
+        }
+    }
+
+
+    /**
+     * Can the given node be compiled?
+     *
+     * @param node The node to test
+     *
+     * @return {@code true} if the node is an identifier followed only by property reads using the dot operator
+     */
+    static boolean isCompilable(AstValue node) {
+        int count = node.jjtGetNumChildren();
+        if (count < 2 || !(node.jjtGetChild(0) instanceof AstIdentifier)) {
+            return false;
+        }
+        for (int i = 1; i < count; i++) {
+            if (!(node.jjtGetChild(i) instanceof AstDotSuffix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Evaluate the property reads of the expression.
+     *
+     * @param ctx  The context in which the expression is being evaluated
+     * @param base The value of the identifier at the start of the expression
+     *
+     * @return The value of the expression
+     *
+     * @throws ELException If the expression cannot be evaluated
+     */
+    Object getValue(EvaluationContext ctx, Object base) throws ELException {
+        ResolverState state = getState(ctx.getELResolver(), true);
+        if (state == null) {
+            return node.getValue(ctx, base, 1);
+        }
+        return state.getValue(ctx, base);
+    }
+
+
+    boolean isCompiled(ELResolver resolver) {
+        ResolverState state = getState(resolver, false);
+        return state != null && state.compiled != null;
+    }
+
+
+    boolean isDisabled(ELResolver resolver) {
+        ResolverState state = getState(resolver, false);
+        return state != null && state.disabled;
+    }
+
+
+    int getResolverCount() {
+        return states.length;
+    }
+
+
+    private ResolverState getState(ELResolver resolver, boolean create) {
+        for (ResolverState state : states) {
+            if (state.resolver.get() == resolver) {
+                return state;
+            }
+        }
+        if (!create) {
+            return null;
+        }
+        synchronized (this) {
+            ResolverState[] current = states;
+            int live = 0;
+            for (ResolverState state : current) {
+                ELResolver r = state.resolver.get();
+                if (r == resolver) {
+                    return state;
+                }
+                if (r != null) {
+                    live++;
+                }
+            }
+            if (live >= MAX_RESOLVERS) {
+                if (live < current.length) {
+                    states = removeCleared(current, live);
+                }
+                return null;
+            }
+            ResolverState[] updated = removeCleared(current, live + 1);
+            ResolverState state = new ResolverState(resolver);
+            updated[live] = state;
+            states = updated;
+            return state;
+        }
+    }
+
+
+    private static ResolverState[] removeCleared(ResolverState[] states, int length) {
+        ResolverState[] result = new ResolverState[length];
+        int i = 0;
+        for (ResolverState state : states) {
+            if (state.resolver.get() != null && i < length) {
+                result[i++] = state;
+            }
+        }
+        return result;
+    }
+
+
+    private static MethodHandle getGetter(Class<?> type, String property) {
+        if (IS_SECURITY_ENABLED || type == null || type.isArray() || Map.class.isAssignableFrom(type) ||
+                List.class.isAssignableFrom(type) || ResourceBundle.class.isAssignableFrom(type) ||
+                type == ELClass.class) {
+            // Either resolved by another standard resolver or requires additional access checks
+            return null;
+        }
+        ConcurrentMap<String,Object> getters = GETTERS.get(type);
+        Object getter = getters.get(property);
+        if (getter == null) {
+            getter = findGetter(type, property);
+            getters.put(property, getter == null ? NO_GETTER : getter);
+        }
+        return getter instanceof MethodHandle ? (MethodHandle) getter : null;
+    }
+
+
+    private static MethodHandle findGetter(Class<?> type, String property) {
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                if (pd.getName().equals(property)) {
+                    Method m = pd.getReadMethod();
+                    if (m == null || !Modifier.isPublic(m.getDeclaringClass().getModifiers())) {
+                        // The resolver has to search for an accessible method
+                        return null;
+                    }
+                    return MethodHandles.publicLookup().unreflect(m).asType(GETTER_TYPE);
+                }
+            }
+        } catch (IntrospectionException | IllegalAccessException e) {
+            // Leave the expression to the interpreter
+        }
+        return null;
+    }
+
+
+    /*
+     * The profile and the compiled form of the expression for a single ELResolver.
+     */
+    private final class ResolverState {
+
+        private final WeakReference<ELResolver> resolver;
+
+        /*
+         * The profile and counters are updated without synchronization. Lost updates only delay or repeat compilation
+         * and the guards ensure that compiled code is only ever used for the types it was compiled for.
+         */
+        private final WeakReference<?>[] profile;
+        private int stableCount;
+        private int deoptimizations;
+
+        private volatile Compiled compiled;
+        private volatile boolean disabled;
+
+        ResolverState(ELResolver resolver) {
+            this.resolver = new WeakReference<>(resolver);
+            profile = new WeakReference<?>[properties.length];
+        }
+
+        Object getValue(EvaluationContext ctx, Object base) throws ELException {
+            Compiled compiled = this.compiled;
+            if (compiled == null) {
+                if (disabled) {
+                    return node.getValue(ctx, base, 1);
+                }
+                return interpret(ctx, base);
+            }
+
+            for (int i = 0; i < properties.length; i++) {
+                if (base == null) {
+                    // Not a change of type. The interpreter handles the end of the expression.
+                    return node.getValue(ctx, null, i + 1);
+                }
+                MethodHandle getter = compiled.getGetter(i, base.getClass());
+                if (getter == null) {
+                    deoptimize(compiled);
+                    return node.getValue(ctx, base, i + 1);
+                }
+                ctx.setPropertyResolved(base, properties[i]);
+                base = read(getter, base, properties[i]);
+            }
+            return base;
+        }
+
+        /*
+         * Equivalent to AstValue.getValue() for an expression that only has property reads but also records the type
+         * of the base object for each read.
+         */
+        private Object interpret(EvaluationContext ctx, Object base) throws ELException {
+            ELResolver resolver = ctx.getELResolver();
+            boolean stable = true;
+            for (int i = 0; i < properties.length; i++) {
+                if (base == null) {
+                    return node.getValue(ctx, null, i + 1);
+                }
+                Class<?> type = base.getClass();
+                if (profile[i] == null || profile[i].get() != type) {
+                    profile[i] = new WeakReference<>(type);
+                    stable = false;
+                }
+                ctx.setPropertyResolved(false);
+                base = resolver.getValue(ctx, base, properties[i]);
+            }
+            if (!ctx.isPropertyResolved()) {
+                throw new PropertyNotFoundException(
+                        MessageFactory.get("error.resolver.unhandled", base, properties[properties.length - 1]));
+            }
+
+            if (stable) {
+                stableCount++;
+            } else {
+                stableCount = 1;
+            }
+            if (stableCount >= threshold) {
+                compile();
+            }
+            return base;
+        }
+
+        private void compile() {
+            Class<?>[] types = new Class<?>[properties.length];
+            MethodHandle[] getters = new MethodHandle[properties.length];
+            for (int i = 0; i < types.length; i++) {
+                WeakReference<?> type = profile[i];
+                types[i] = type == null ? null : (Class<?>) type.get();
+                getters[i] = getGetter(types[i], properties[i]);
+                if (getters[i] == null) {
+                    disabled = true;
+                    return;
+                }
+            }
+            compiled = new Compiled(types, getters);
+        }
+
+        private void deoptimize(Compiled compiled) {
+            // Only count the deoptimization once if several threads observe the change of type
+            if (this.compiled == compiled) {
+                this.compiled = null;
+                stableCount = 0;
+                if (++deoptimizations >= MAX_DEOPTIMIZATIONS) {
+                    disabled = true;
+                }
+            }
+        }
+    }
+
+
+    private static Object read(MethodHandle getter, Object base, String property) throws ELException {
+        try {
+            return getter.invokeExact(base);
+        } catch (Throwable t) {
+            ExceptionUtils.handleThrowable(t);
+            throw new ELException(MessageFactory.get("error.property.read", base.getClass().getName(), property), t);
+        }
+    }
+
+
+    /*
+     * The types and read methods are only weakly referenced. The read methods remain reachable via GETTERS for as long
+     * as the types they belong to.
+     */
+    private static final class Compiled {
+
+        private final WeakReference<?>[] types;
+        private final WeakReference<?>[] getters;
+
+        Compiled(Class<?>[] types, MethodHandle[] getters) {
+            this.types = new WeakReference<?>[types.length];
+            this.getters = new WeakReference<?>[getters.length];
+            for (int i = 0; i < types.length; i++) {
+                this.types[i] = new WeakReference<>(types[i]);
+                this.getters[i] = new WeakReference<>(getters[i]);
+            }
+        }
+
+        /*
+         * Returns the read method for the given step if the type of the base object is the type the step was compiled
+         * for, otherwise null.
+         */
+        MethodHandle getGetter(int i, Class<?> type) {
+            if (types[i].get() != type) {
+                return null;
+            }
+            return (MethodHandle) getters[i].get();
+        }
+    }
+}
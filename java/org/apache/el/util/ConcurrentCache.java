@@ -20,6 +20,16 @@ import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * A simple cache that retains the most recently added entries and weakly references older entries.
+ *
+ * @param <K> The type of the cache keys
+ * @param <V> The type of the cached values
+ *
+ * @deprecated Unused. Expressions are cached by {@link org.apache.el.lang.ExpressionBuilder} which now uses its own
+ *                 bounded cache. Will be removed in Tomcat 10.
+ */
+@Deprecated
 public final class ConcurrentCache<K, V> {
 
     private final int size;
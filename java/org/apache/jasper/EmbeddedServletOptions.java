@@ -30,6 +30,7 @@ import org.apache.jasper.compiler.JspConfig;
 import org.apache.jasper.compiler.Localizer;
 import org.apache.jasper.compiler.TagPluginManager;
 import org.apache.jasper.compiler.TldCache;
+import org.apache.jasper.runtime.FragmentCache;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 
@@ -105,6 +106,16 @@ public final class EmbeddedServletOptions implements Options {
      */
     private boolean genStringAsCharArray = false;
 
+    /**
+     * Is template text to be generated as text that is encoded once?
+     */
+    private boolean genStringAsByteArray = false;
+
+    /**
+     * The maximum number of rendered fragments in the fragment cache.
+     */
+    private int fragmentCacheMaxSize = FragmentCache.DEFAULT_MAX_SIZE;
+
     private boolean errorOnUseBeanInvalidClassAttribute = true;
 
     /**
@@ -205,6 +216,12 @@ public final class EmbeddedServletOptions implements Options {
      */
     private boolean quoteAttributeEL = true;
 
+    /**
+     * The number of threads used to generate the Java source of JSPs when JSPs are compiled as a batch in the
+     * background. Zero disables batch compilation.
+     */
+    private int batchCompileThreads = 0;
+
     public String getProperty(String name) {
         return settings.getProperty(name);
     }
@@ -224,6 +241,15 @@ public final class EmbeddedServletOptions implements Options {
         return quoteAttributeEL;
     }
 
+    public void setBatchCompileThreads(int batchCompileThreads) {
+        this.batchCompileThreads = batchCompileThreads;
+    }
+
+    @Override
+    public int getBatchCompileThreads() {
+        return batchCompileThreads;
+    }
+
     @Override
     public boolean getKeepGenerated() {
         return keepGenerated;
@@ -289,6 +315,16 @@ public final class EmbeddedServletOptions implements Options {
         return this.genStringAsCharArray;
     }
 
+    @Override
+    public boolean genStringAsByteArray() {
+        return this.genStringAsByteArray;
+    }
+
+    @Override
+    public int getFragmentCacheMaxSize() {
+        return fragmentCacheMaxSize;
+    }
+
     @Deprecated
     @Override
     public String getIeClassId() {
@@ -562,6 +598,19 @@ public final class EmbeddedServletOptions implements Options {
             }
         }
 
+        String genByteArray = config.getInitParameter("genStringAsByteArray");
+        if (genByteArray != null) {
+            if (genByteArray.equalsIgnoreCase("true")) {
+                genStringAsByteArray = true;
+            } else if (genByteArray.equalsIgnoreCase("false")) {
+                genStringAsByteArray = false;
+            } else {
+                if (log.isWarnEnabled()) {
+                    log.warn(Localizer.getMessage("jsp.warning.genbytearray"));
+                }
+            }
+        }
+
         String errBeanClass = config.getInitParameter("errorOnUseBeanInvalidClassAttribute");
         if (errBeanClass != null) {
             if (errBeanClass.equalsIgnoreCase("true")) {
@@ -721,6 +770,28 @@ public final class EmbeddedServletOptions implements Options {
             }
         }
 
+        String batchCompileThreads = config.getInitParameter("batchCompileThreads");
+        if (batchCompileThreads != null) {
+            try {
+                this.batchCompileThreads = Integer.parseInt(batchCompileThreads);
+            } catch (NumberFormatException ex) {
+                if (log.isWarnEnabled()) {
+                    log.warn(Localizer.getMessage("jsp.warning.batchCompileThreads", "" + this.batchCompileThreads));
+                }
+            }
+        }
+
+        String fragmentCacheMaxSize = config.getInitParameter("fragmentCacheMaxSize");
+        if (fragmentCacheMaxSize != null) {
+            try {
+                this.fragmentCacheMaxSize = Integer.parseInt(fragmentCacheMaxSize);
+            } catch (NumberFormatException ex) {
+                if (log.isWarnEnabled()) {
+                    log.warn(Localizer.getMessage("jsp.warning.fragmentCacheMaxSize", "" + this.fragmentCacheMaxSize));
+                }
+            }
+        }
+
         // Setup the global Tag Libraries location cache for this
         // web-application.
         tldCache = TldCache.getInstance(context);
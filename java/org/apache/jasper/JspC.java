@@ -172,6 +172,7 @@ public class JspC extends Task implements Options {
     protected ClassLoader loader = null;
     protected TrimSpacesOption trimSpaces = TrimSpacesOption.FALSE;
     protected boolean genStringAsCharArray = false;
+    protected boolean genStringAsByteArray = false;
     protected boolean validateTld;
     protected boolean validateXml;
     protected boolean blockExternal = true;
@@ -651,6 +652,21 @@ public class JspC extends Task implements Options {
         return genStringAsCharArray;
     }
 
+    /**
+     * Determines whether the template text of JSP pages is to be generated as text that is encoded once and written to
+     * the response as bytes where possible.
+     *
+     * @param genStringAsByteArray true if template text is to be generated as encoded text, false otherwise
+     */
+    public void setGenStringAsByteArray(boolean genStringAsByteArray) {
+        this.genStringAsByteArray = genStringAsByteArray;
+    }
+
+    @Override
+    public boolean genStringAsByteArray() {
+        return genStringAsByteArray;
+    }
+
     /**
      * Sets the class-id value to be sent to Internet Explorer when using &lt;jsp:plugin&gt; tags.
      *
@@ -24,6 +24,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarEntry;
 
@@ -35,6 +36,7 @@ import org.apache.jasper.compiler.JspRuntimeContext;
 import org.apache.jasper.compiler.JspUtil;
 import org.apache.jasper.compiler.Localizer;
 import org.apache.jasper.compiler.ServletWriter;
+import org.apache.jasper.compiler.SmapStratum;
 import org.apache.jasper.servlet.JasperLoader;
 import org.apache.jasper.servlet.JspServletWrapper;
 import org.apache.juli.logging.Log;
@@ -591,26 +593,76 @@ public class JspCompilationContext {
                 jspCompiler.compile();
                 jsw.setReload(true);
                 jsw.setCompilationException(null);
-            } catch (JasperException ex) {
-                // Cache compilation exception
-                jsw.setCompilationException(ex);
-                if (options.getDevelopment() && options.getRecompileOnFail()) {
-                    // Force a recompilation attempt on next access
-                    jsw.setLastModificationTest(-1);
-                }
-                throw ex;
-            } catch (FileNotFoundException fnfe) {
-                // Re-throw to let caller handle this - will result in a 404
-                throw fnfe;
             } catch (Exception ex) {
-                JasperException je = new JasperException(Localizer.getMessage("jsp.error.unable.compile"), ex);
-                // Cache compilation exception
-                jsw.setCompilationException(je);
-                throw je;
+                throw compilationFailed(ex);
             }
         }
     }
 
+    /**
+     * Generate the Java source for the JSP, if the JSP is out of date, as the first step of compiling the JSP as part
+     * of a batch. The compilation must be completed with {@link #completeBatchCompile(Map)}.
+     *
+     * @return The source maps for the generated source or {@code null} if the JSP is not out of date
+     *
+     * @throws JasperException       If the Java source could not be generated
+     * @throws FileNotFoundException If the JSP no longer exists
+     */
+    public Map<String,SmapStratum> generateJavaForBatch() throws JasperException, FileNotFoundException {
+        createCompiler();
+        if (!jspCompiler.isOutDated()) {
+            return null;
+        }
+        if (isRemoved()) {
+            throw new FileNotFoundException(jspUri);
+        }
+        try {
+            jspCompiler.removeGeneratedFiles();
+            jspLoader = null;
+            return jspCompiler.generateJavaForBatch();
+        } catch (Exception ex) {
+            throw compilationFailed(ex);
+        }
+    }
+
+    /**
+     * Complete the compilation of the JSP as part of a batch.
+     *
+     * @param smaps The source maps returned by {@link #generateJavaForBatch()}
+     *
+     * @throws JasperException       If the JSP could not be compiled
+     * @throws FileNotFoundException If a source file is not found
+     */
+    public void completeBatchCompile(Map<String,SmapStratum> smaps) throws JasperException, FileNotFoundException {
+        try {
+            jspCompiler.completeBatch(smaps);
+            jsw.setReload(true);
+            jsw.setCompilationException(null);
+        } catch (Exception ex) {
+            throw compilationFailed(ex);
+        }
+    }
+
+    private JasperException compilationFailed(Exception ex) throws FileNotFoundException {
+        if (ex instanceof FileNotFoundException) {
+            // Re-throw to let caller handle this - will result in a 404
+            throw (FileNotFoundException) ex;
+        }
+        JasperException je;
+        if (ex instanceof JasperException) {
+            je = (JasperException) ex;
+            if (options.getDevelopment() && options.getRecompileOnFail()) {
+                // Force a recompilation attempt on next access
+                jsw.setLastModificationTest(-1);
+            }
+        } else {
+            je = new JasperException(Localizer.getMessage("jsp.error.unable.compile"), ex);
+        }
+        // Cache compilation exception
+        jsw.setCompilationException(je);
+        return je;
+    }
+
     // ==================== Manipulating the class ====================
 
     public Class<?> load() throws JasperException {
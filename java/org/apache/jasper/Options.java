@@ -24,6 +24,7 @@ import javax.servlet.jsp.tagext.TagLibraryInfo;
 import org.apache.jasper.compiler.JspConfig;
 import org.apache.jasper.compiler.TagPluginManager;
 import org.apache.jasper.compiler.TldCache;
+import org.apache.jasper.runtime.FragmentCache;
 
 /**
  * A class to hold all init parameters specific to the JSP engine.
@@ -256,6 +257,38 @@ public interface Options {
         return true;
     }
 
+    /**
+     * The number of threads used to generate the Java source of JSPs in parallel when JSPs are compiled as a batch in
+     * the background. If greater than zero, the JSPs of the web application are compiled as a batch in the background
+     * when the web application starts and, if a check interval is configured, when the JSPs are modified. Defaults to
+     * zero which disables batch compilation.
+     *
+     * @return the number of threads used for batch compilation
+     */
+    default int getBatchCompileThreads() {
+        return 0;
+    }
+
+    /**
+     * Indicates whether the template text of JSP pages is to be generated as text that is encoded once, when the page
+     * class is initialised, and written to the response as bytes where possible. Defaults to {@code false}.
+     *
+     * @return <code>true</code> if template text is to be generated as encoded text, <code>false</code> otherwise
+     */
+    default boolean genStringAsByteArray() {
+        return false;
+    }
+
+    /**
+     * The maximum number of rendered fragments held in the fragment cache of the web application. Zero or less
+     * disables the cache. Defaults to {@link FragmentCache#DEFAULT_MAX_SIZE}.
+     *
+     * @return the maximum number of rendered fragments in the fragment cache
+     */
+    default int getFragmentCacheMaxSize() {
+        return FragmentCache.DEFAULT_MAX_SIZE;
+    }
+
     /**
      * A string containing a comma-separated list of names to which custom tag implementations should be applied.
      * Unknown or unused tag entries are harmless.  Generally defined via an init parameter on the JspServlet.
@@ -69,6 +69,8 @@ public abstract class Compiler {
 
     protected Node.Nodes pageNodes;
 
+    private Long batchJspLastModified;
+
 
     // ------------------------------------------------------------ Constructor
 
@@ -363,45 +365,104 @@ public abstract class Compiler {
 
         try {
             final Long jspLastModified = ctxt.getLastModified(ctxt.getJspFile());
-            Map<String,SmapStratum> smaps = generateJava();
-            File javaFile = new File(ctxt.getServletJavaFileName());
-            if (!javaFile.setLastModified(jspLastModified.longValue())) {
-                throw new JasperException(Localizer.getMessage("jsp.error.setLastModified", javaFile));
-            }
+            Map<String,SmapStratum> smaps = generateJavaFile(jspLastModified);
             if (compileClass) {
                 generateClass(smaps);
-                // Fix for bugzilla 41606
-                // Set JspServletWrapper.servletClassLastModifiedTime after successful compile
-                File targetFile = new File(ctxt.getClassFileName());
-                if (targetFile.exists()) {
-                    if (!targetFile.setLastModified(jspLastModified.longValue())) {
-                        throw new JasperException(Localizer.getMessage("jsp.error.setLastModified", targetFile));
-                    }
-                    if (jsw != null) {
-                        jsw.setServletClassLastModifiedTime(jspLastModified.longValue());
-                    }
-                }
+                classGenerated(jspLastModified);
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Generate the Java source for the JSP as the first step of compiling the JSP as part of a batch. The compilation
+     * must be completed by calling {@link #completeBatch(Map)} with the returned source maps once the sources of all
+     * the JSPs in the batch have been generated.
+     *
+     * @return The source maps for the class(es) generated from the source file
+     *
+     * @throws FileNotFoundException Source files not found
+     * @throws JasperException       Compilation error
+     * @throws Exception             Some other error
+     */
+    public Map<String,SmapStratum> generateJavaForBatch() throws FileNotFoundException, JasperException, Exception {
+        errDispatcher = new ErrorDispatcher(false);
+        boolean generated = false;
+        try {
+            batchJspLastModified = ctxt.getLastModified(ctxt.getJspFile());
+            Map<String,SmapStratum> smaps = generateJavaFile(batchJspLastModified);
+            generated = true;
+            return smaps;
+        } finally {
+            if (!generated) {
+                release();
             }
+        }
+    }
+
+    /**
+     * Complete the compilation of a JSP started with {@link #generateJavaForBatch()}. If the generated source has not
+     * already been compiled with the rest of the batch, it is compiled now.
+     *
+     * @param smaps The source maps returned by {@link #generateJavaForBatch()}
+     *
+     * @throws FileNotFoundException Source files not found
+     * @throws JasperException       Compilation error
+     * @throws Exception             Some other error
+     */
+    public void completeBatch(Map<String,SmapStratum> smaps)
+            throws FileNotFoundException, JasperException, Exception {
+        try {
+            generateClass(smaps);
+            classGenerated(batchJspLastModified);
         } finally {
-            if (tfp != null && ctxt.isPrototypeMode()) {
-                tfp.removeProtoTypeFiles(null);
+            release();
+        }
+    }
+
+    private Map<String,SmapStratum> generateJavaFile(Long jspLastModified) throws Exception {
+        Map<String,SmapStratum> smaps = generateJava();
+        File javaFile = new File(ctxt.getServletJavaFileName());
+        if (!javaFile.setLastModified(jspLastModified.longValue())) {
+            throw new JasperException(Localizer.getMessage("jsp.error.setLastModified", javaFile));
+        }
+        return smaps;
+    }
+
+    private void classGenerated(Long jspLastModified) throws JasperException {
+        // Fix for bugzilla 41606
+        // Set JspServletWrapper.servletClassLastModifiedTime after successful compile
+        File targetFile = new File(ctxt.getClassFileName());
+        if (targetFile.exists()) {
+            if (!targetFile.setLastModified(jspLastModified.longValue())) {
+                throw new JasperException(Localizer.getMessage("jsp.error.setLastModified", targetFile));
             }
-            // Make sure these object which are only used during the
-            // generation and compilation of the JSP page get
-            // dereferenced so that they can be GCed and reduce the
-            // memory footprint.
-            tfp = null;
-            errDispatcher = null;
-            pageInfo = null;
-            pageNodes = null;
-
-            if (ctxt.getWriter() != null) {
-                ctxt.getWriter().close();
-                ctxt.setWriter(null);
+            if (jsw != null) {
+                jsw.setServletClassLastModifiedTime(jspLastModified.longValue());
             }
         }
     }
 
+    private void release() {
+        if (tfp != null && ctxt.isPrototypeMode()) {
+            tfp.removeProtoTypeFiles(null);
+        }
+        // Make sure these object which are only used during the
+        // generation and compilation of the JSP page get
+        // dereferenced so that they can be GCed and reduce the
+        // memory footprint.
+        tfp = null;
+        errDispatcher = null;
+        pageInfo = null;
+        pageNodes = null;
+
+        if (ctxt.getWriter() != null) {
+            ctxt.getWriter().close();
+            ctxt.setWriter(null);
+        }
+    }
+
     /**
      * This is a protected method intended to be overridden by subclasses of Compiler. This is used by the compile
      * method to do all the compilation.
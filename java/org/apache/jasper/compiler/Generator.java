@@ -2072,8 +2072,10 @@ class Generator {
                 return;
             }
 
-            if (ctxt.getOptions().genStringAsCharArray()) {
-                // Generate Strings as char arrays, for performance
+            // Tag files may be used by pages with different character sets
+            boolean genEncodedText = !ctxt.isTagFile() && ctxt.getOptions().genStringAsByteArray();
+            if (genEncodedText || ctxt.getOptions().genStringAsCharArray()) {
+                // Generate Strings as char arrays or encoded text, for performance
                 ServletWriter caOut;
                 if (charArrayBuffer == null) {
                     charArrayBuffer = new GenBuffer();
@@ -2093,17 +2095,32 @@ class Generator {
                     String output = text.substring(textIndex, textIndex + len);
                     String charArrayName = textMap.get(output);
                     if (charArrayName == null) {
-                        charArrayName = "_jspx_char_array_" + charArrayCount++;
+                        if (genEncodedText) {
+                            charArrayName = "_jspx_text_" + charArrayCount++;
+                            caOut.printin("static final org.apache.jasper.runtime.EncodedText ");
+                            caOut.print(charArrayName);
+                            caOut.print(" = new org.apache.jasper.runtime.EncodedText(");
+                            caOut.print(quote(output));
+                            caOut.print(", ");
+                            caOut.print(quote(getPageCharset()));
+                            caOut.println(");");
+                        } else {
+                            charArrayName = "_jspx_char_array_" + charArrayCount++;
+                            caOut.printin("static char[] ");
+                            caOut.print(charArrayName);
+                            caOut.print(" = ");
+                            caOut.print(quote(output));
+                            caOut.println(".toCharArray();");
+                        }
                         textMap.put(output, charArrayName);
-                        caOut.printin("static char[] ");
-                        caOut.print(charArrayName);
-                        caOut.print(" = ");
-                        caOut.print(quote(output));
-                        caOut.println(".toCharArray();");
                     }
 
                     n.setBeginJavaLine(out.getJavaLine());
-                    out.printil("out.write(" + charArrayName + ");");
+                    if (genEncodedText) {
+                        out.printil(charArrayName + ".write(out);");
+                    } else {
+                        out.printil("out.write(" + charArrayName + ");");
+                    }
                     n.setEndJavaLine(out.getJavaLine());
 
                     textIndex = textIndex + len;
@@ -3674,6 +3691,23 @@ class Generator {
         }
     }
 
+    /*
+     * Returns the character set declared for the page or null if none was declared.
+     */
+    private String getPageCharset() {
+        String contentType = pageInfo.getContentType();
+        int index = contentType.indexOf("charset=");
+        if (index == -1) {
+            return null;
+        }
+        String charset = contentType.substring(index + 8);
+        index = charset.indexOf(';');
+        if (index > -1) {
+            charset = charset.substring(0, index);
+        }
+        return charset.trim();
+    }
+
     private void generateCommentHeader() {
         out.println("/*");
         out.println(" * Generated by the Jasper component of Apache Tomcat");
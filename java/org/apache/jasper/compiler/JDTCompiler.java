@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -35,6 +36,7 @@ import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.apache.jasper.JasperException;
+import org.apache.jasper.JspCompilationContext;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 import org.eclipse.jdt.core.compiler.IProblem;
@@ -65,6 +67,11 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
 
     private final Log log = LogFactory.getLog(JDTCompiler.class); // must not be static
 
+    /*
+     * The compilation errors if the generated source has already been compiled as part of a batch.
+     */
+    private List<JavacErrorDetail> batchProblemList;
+
     @Override
     protected void generateClass(Map<String,SmapStratum> smaps)
             throws FileNotFoundException, JasperException, Exception {
@@ -74,15 +81,79 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
             t1 = System.currentTimeMillis();
         }
 
-        final String sourceFile = ctxt.getServletJavaFileName();
+        List<JavacErrorDetail> problemList = batchProblemList;
+        batchProblemList = null;
+        if (problemList == null) {
+            problemList = compileSources(Collections.singletonList(this)).get(0);
+        }
+
+        if (!ctxt.keepGenerated()) {
+            File javaFile = new File(ctxt.getServletJavaFileName());
+            if (!javaFile.delete()) {
+                throw new JasperException(Localizer.getMessage("jsp.warning.compiler.javafile.delete.fail", javaFile));
+            }
+        }
+
+        if (!problemList.isEmpty()) {
+            JavacErrorDetail[] jeds = problemList.toArray(new JavacErrorDetail[0]);
+            errDispatcher.javacError(jeds);
+        }
+
+        if (log.isDebugEnabled()) {
+            long t2 = System.currentTimeMillis();
+            log.debug(Localizer.getMessage("jsp.compiled", ctxt.getServletJavaFileName(), Long.valueOf(t2 - t1)));
+        }
+
+        if (ctxt.isPrototypeMode()) {
+            return;
+        }
+
+        // JSR45 Support
+        if (!options.isSmapSuppressed()) {
+            SmapUtil.installSmap(smaps);
+        }
+    }
+
+
+    /**
+     * Compile the generated sources of several JSPs with a single invocation of the JDT compiler so the name
+     * environment, and the types it has resolved, are shared by all the JSPs. The results are reported when
+     * {@link #completeBatch(Map)} is called for each JSP.
+     *
+     * @param compilers The compilers, all of which must have generated the Java source for a JSP of the same web
+     *                      application using {@link #generateJavaForBatch()}
+     */
+    static void compileBatch(List<JDTCompiler> compilers) {
+        List<List<JavacErrorDetail>> problemLists = compilers.get(0).compileSources(compilers);
+        for (int i = 0; i < compilers.size(); i++) {
+            compilers.get(i).batchProblemList = problemLists.get(i);
+        }
+    }
+
+
+    /*
+     * Uses the options and class loader of this compiler for all the sources.
+     */
+    private List<List<JavacErrorDetail>> compileSources(List<JDTCompiler> compilers) {
+
         final String outputDir = ctxt.getOptions().getScratchDir().getAbsolutePath();
-        String packageName = ctxt.getServletPackageName();
-        final String targetClassName =
-                ((packageName.length() != 0) ? (packageName + ".") : "") + ctxt.getServletClassName();
         final ClassLoader classLoader = ctxt.getJspLoader();
-        String[] fileNames = new String[] { sourceFile };
-        String[] classNames = new String[] { targetClassName };
-        final List<JavacErrorDetail> problemList = new ArrayList<>();
+        final int count = compilers.size();
+        String[] fileNames = new String[count];
+        String[] classNames = new String[count];
+        final Map<String,Integer> sourceIndexes = new HashMap<>();
+        final Map<String,String> targetClassNames = new HashMap<>();
+        final List<List<JavacErrorDetail>> problemLists = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            JspCompilationContext compilerCtxt = compilers.get(i).ctxt;
+            String packageName = compilerCtxt.getServletPackageName();
+            fileNames[i] = compilerCtxt.getServletJavaFileName();
+            classNames[i] = ((packageName.length() != 0) ? (packageName + ".") : "") +
+                    compilerCtxt.getServletClassName();
+            sourceIndexes.put(fileNames[i], Integer.valueOf(i));
+            targetClassNames.put(classNames[i], fileNames[i]);
+            problemLists.add(new ArrayList<>());
+        }
 
         class CompilationUnit implements ICompilationUnit {
 
@@ -188,7 +259,8 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
 
             private NameEnvironmentAnswer findType(String className) {
 
-                if (className.equals(targetClassName)) {
+                String sourceFile = targetClassNames.get(className);
+                if (sourceFile != null) {
                     ICompilationUnit compilationUnit = new CompilationUnit(sourceFile, className);
                     return new NameEnvironmentAnswer(compilationUnit, null);
                 }
@@ -217,7 +289,7 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
             }
 
             private boolean isPackage(String result) {
-                if (result.equals(targetClassName) || result.startsWith(targetClassName + '$')) {
+                if (isTargetClassName(result)) {
                     return false;
                 }
                 String resourceName = result.replace('.', '/') + ".class";
@@ -255,6 +327,21 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
                 return isPackage(result.toString());
             }
 
+            private boolean isTargetClassName(String name) {
+                if (targetClassNames.containsKey(name)) {
+                    return true;
+                }
+                // Inner classes
+                int i = name.indexOf('$');
+                while (i > 0) {
+                    if (targetClassNames.containsKey(name.substring(0, i))) {
+                        return true;
+                    }
+                    i = name.indexOf('$', i + 1);
+                }
+                return false;
+            }
+
             @Override
             public void cleanup() {
             }
@@ -483,6 +570,12 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
         final ICompilerRequestor requestor = new ICompilerRequestor() {
             @Override
             public void acceptResult(CompilationResult result) {
+                Integer index = sourceIndexes.get(new String(result.getFileName()));
+                if (index == null) {
+                    return;
+                }
+                JDTCompiler resultCompiler = compilers.get(index.intValue());
+                List<JavacErrorDetail> problemList = problemLists.get(index.intValue());
                 try {
                     if (result.hasProblems()) {
                         IProblem[] problems = result.getProblems();
@@ -490,9 +583,9 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
                             if (problem.isError()) {
                                 String name = new String(problem.getOriginatingFileName());
                                 try {
-                                    problemList.add(ErrorDispatcher.createJavacError(name, pageNodes,
-                                            new StringBuilder(problem.getMessage()), problem.getSourceLineNumber(),
-                                            ctxt));
+                                    problemList.add(ErrorDispatcher.createJavacError(name,
+                                            resultCompiler.pageNodes, new StringBuilder(problem.getMessage()),
+                                            problem.getSourceLineNumber(), resultCompiler.ctxt));
                                 } catch (JasperException e) {
                                     log.error(Localizer.getMessage("jsp.error.compilation.jdtProblemError"), e);
                                 }
@@ -553,30 +646,6 @@ public class JDTCompiler extends org.apache.jasper.compiler.Compiler {
         Compiler compiler = new Compiler(env, policy, cOptions, requestor, problemFactory);
         compiler.compile(compilationUnits);
 
-        if (!ctxt.keepGenerated()) {
-            File javaFile = new File(ctxt.getServletJavaFileName());
-            if (!javaFile.delete()) {
-                throw new JasperException(Localizer.getMessage("jsp.warning.compiler.javafile.delete.fail", javaFile));
-            }
-        }
-
-        if (!problemList.isEmpty()) {
-            JavacErrorDetail[] jeds = problemList.toArray(new JavacErrorDetail[0]);
-            errDispatcher.javacError(jeds);
-        }
-
-        if (log.isDebugEnabled()) {
-            long t2 = System.currentTimeMillis();
-            log.debug(Localizer.getMessage("jsp.compiled", ctxt.getServletJavaFileName(), Long.valueOf(t2 - t1)));
-        }
-
-        if (ctxt.isPrototypeMode()) {
-            return;
-        }
-
-        // JSR45 Support
-        if (!options.isSmapSuppressed()) {
-            SmapUtil.installSmap(smaps);
-        }
+        return problemLists;
     }
 }
@@ -28,15 +28,26 @@ import java.security.PermissionCollection;
 import java.security.Policy;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
 import org.apache.jasper.Constants;
+import org.apache.jasper.JasperException;
 import org.apache.jasper.JspCompilationContext;
 import org.apache.jasper.Options;
 import org.apache.jasper.runtime.ExceptionUtils;
@@ -44,6 +55,7 @@ import org.apache.jasper.servlet.JspServletWrapper;
 import org.apache.jasper.util.FastRemovalDequeue;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.util.threads.TaskThreadFactory;
 
 
 /**
@@ -133,6 +145,16 @@ public final class JspRuntimeContext {
 
         /* Init parameter is in seconds, locally we use milliseconds */
         jspIdleTimeout = options.getJspIdleTimeout() * 1000L;
+
+        int batchCompileThreads = options.getBatchCompileThreads();
+        if (batchCompileThreads > 0) {
+            batchCompileThreadFactory =
+                    new TaskThreadFactory("JspBatchCompile" + context.getContextPath() + "-", true, Thread.NORM_PRIORITY);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(batchCompileThreads, batchCompileThreads, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), batchCompileThreadFactory);
+            executor.allowCoreThreadTimeOut(true);
+            batchCompileExecutor = executor;
+        }
     }
 
     // ----------------------------------------------------- Instance Variables
@@ -172,6 +194,49 @@ public final class JspRuntimeContext {
      */
     private volatile boolean compileCheckInProgress = false;
 
+    /**
+     * Generates the Java source of JSPs in parallel for batch compilations. {@code null} if batch compilation is not
+     * enabled.
+     */
+    private ThreadPoolExecutor batchCompileExecutor = null;
+    private TaskThreadFactory batchCompileThreadFactory = null;
+
+    /**
+     * The maximum time, in milliseconds, to wait for background batch compilations to stop when the context is
+     * destroyed.
+     */
+    private static final long BATCH_COMPILE_STOP_TIMEOUT = 10000;
+
+    /**
+     * Set when the context is destroyed. Batch compilations in progress stop at the next opportunity.
+     */
+    private volatile boolean batchCompileStopped = false;
+
+    /**
+     * The threads running background batch compilations.
+     */
+    private final Set<Thread> batchCompileThreads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Only one batch compilation may run at a time.
+     */
+    private final Object batchCompileLock = new Object();
+
+    /**
+     * The number of JSPs waiting for a batch compilation to complete.
+     */
+    private final AtomicInteger batchCompileQueueLength = new AtomicInteger(0);
+
+    /**
+     * The number of JSPs compiled by batch compilations.
+     */
+    private final AtomicInteger batchCompileCount = new AtomicInteger(0);
+
+    /**
+     * The total time, in milliseconds, spent in batch compilations.
+     */
+    private final AtomicLong batchCompileTime = new AtomicLong(0);
+
 
     // ------------------------------------------------------ Public Methods
 
@@ -284,11 +349,57 @@ public final class JspRuntimeContext {
      * Process a "destroy" event for this web application context.
      */
     public void destroy() {
+        if (batchCompileExecutor != null) {
+            stopBatchCompile();
+        }
         for (JspServletWrapper jspServletWrapper : jsps.values()) {
             jspServletWrapper.destroy();
         }
     }
 
+    /*
+     * Stops any batch compilations that are in progress and waits, for a limited time, for background batch
+     * compilations to complete so that they do not write to the scratch directory once the context has stopped.
+     */
+    private void stopBatchCompile() {
+        batchCompileStopped = true;
+        for (Runnable r : batchCompileExecutor.shutdownNow()) {
+            // Batches waiting for the Java source to be generated must not wait for tasks that will never run
+            if (r instanceof Future) {
+                ((Future<?>) r).cancel(false);
+            }
+        }
+        for (Thread t : batchCompileThreads) {
+            t.interrupt();
+        }
+        long deadline = System.currentTimeMillis() + BATCH_COMPILE_STOP_TIMEOUT;
+        for (Thread t : batchCompileThreads) {
+            try {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining > 0) {
+                    t.join(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (t.isAlive()) {
+                log.warn(Localizer.getMessage("jsp.warning.batchCompileStop", context.getContextPath(),
+                        Long.valueOf(BATCH_COMPILE_STOP_TIMEOUT)));
+                return;
+            }
+        }
+        try {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || !batchCompileExecutor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                log.warn(Localizer.getMessage("jsp.warning.batchCompileStop", context.getContextPath(),
+                        Long.valueOf(BATCH_COMPILE_STOP_TIMEOUT)));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Increments the JSP reload counter.
      */
@@ -358,9 +469,19 @@ public final class JspRuntimeContext {
         // check is in progress. See BZ 62603.
         compileCheckInProgress = true;
 
+        List<JspServletWrapper> batch = null;
+        if (batchCompileExecutor != null) {
+            batch = new ArrayList<>();
+        }
+
         Object[] wrappers = jsps.values().toArray();
         for (Object wrapper : wrappers) {
             JspServletWrapper jsw = (JspServletWrapper) wrapper;
+            if (batch != null && !jsw.isTagFile()) {
+                // Compiled once any changed tag files have been compiled
+                batch.add(jsw);
+                continue;
+            }
             JspCompilationContext ctxt = jsw.getJspEngineContext();
             // Sync on JspServletWrapper when calling ctxt.compile()
             synchronized (jsw) {
@@ -378,6 +499,10 @@ public final class JspRuntimeContext {
             }
         }
 
+        if (batch != null && !batch.isEmpty()) {
+            wrappersToReload.addAll(compileBatch(batch));
+        }
+
         // See BZ 62603.
         // OK to process reload flag now.
         compileCheckInProgress = false;
@@ -405,6 +530,203 @@ public final class JspRuntimeContext {
         return compileCheckInProgress;
     }
 
+
+    /**
+     * Compile the given JSPs as a batch in the background. Requests for the JSPs wait for the batch compilation to
+     * complete rather than compiling the JSPs themselves. This is a NO-OP if batch compilation is not enabled.
+     *
+     * @param wrappers The wrappers for the JSPs to compile
+     */
+    public void startBatchCompile(Collection<JspServletWrapper> wrappers) {
+        if (batchCompileExecutor == null || wrappers.isEmpty()) {
+            return;
+        }
+        final List<JspServletWrapper> batch = new ArrayList<>(wrappers);
+        // Requests must wait for the batch from now on
+        for (JspServletWrapper jsw : batch) {
+            jsw.setBatchCompile(true);
+        }
+        batchCompileQueueLength.addAndGet(batch.size());
+        Thread t = batchCompileThreadFactory.newThread(() -> {
+            try {
+                compileBatch(batch, true);
+            } finally {
+                batchCompileThreads.remove(Thread.currentThread());
+            }
+        });
+        batchCompileThreads.add(t);
+        t.start();
+    }
+
+
+    /**
+     * Compile the given JSPs as a batch. The Java source of the JSPs that are out of date is generated in parallel.
+     * When the JDT compiler is used, the generated sources are then compiled by a single invocation of the compiler.
+     * Requests for the JSPs wait for the batch compilation to complete rather than compiling the JSPs themselves.
+     *
+     * @param wrappers The wrappers for the JSPs to compile
+     *
+     * @return The wrappers for the JSPs that were compiled
+     */
+    public List<JspServletWrapper> compileBatch(Collection<JspServletWrapper> wrappers) {
+        List<JspServletWrapper> batch = new ArrayList<>(wrappers);
+        for (JspServletWrapper jsw : batch) {
+            jsw.setBatchCompile(true);
+        }
+        batchCompileQueueLength.addAndGet(batch.size());
+        return compileBatch(batch, false);
+    }
+
+
+    public int getBatchCompileQueueLength() {
+        return batchCompileQueueLength.get();
+    }
+
+
+    public int getBatchCompileCount() {
+        return batchCompileCount.get();
+    }
+
+
+    public long getBatchCompileTime() {
+        return batchCompileTime.get();
+    }
+
+
+    /*
+     * The wrappers must already be marked as being batch compiled and counted in the queue length. They are released
+     * as soon as each JSP has been processed.
+     */
+    private List<JspServletWrapper> compileBatch(List<JspServletWrapper> batch, boolean background) {
+        List<JspServletWrapper> compiled = new ArrayList<>();
+        boolean[] released = new boolean[batch.size()];
+        Thread currentThread = Thread.currentThread();
+        ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+        try {
+            if (background) {
+                currentThread.setContextClassLoader(parentClassLoader);
+            }
+            synchronized (batchCompileLock) {
+                if (batchCompileStopped) {
+                    // Stopping. Any remaining JSPs are compiled on first use.
+                    return compiled;
+                }
+                long start = System.currentTimeMillis();
+
+                // Generate the Java sources in parallel
+                List<Future<Map<String,SmapStratum>>> futures = new ArrayList<>(batch.size());
+                for (JspServletWrapper jsw : batch) {
+                    futures.add(batchCompileExecutor.submit(() -> generateJavaForBatch(jsw)));
+                }
+                List<Map<String,SmapStratum>> smapsList = new ArrayList<>(batch.size());
+                List<JDTCompiler> jdtCompilers = new ArrayList<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    Map<String,SmapStratum> smaps = null;
+                    try {
+                        smaps = futures.get(i).get();
+                    } catch (ExecutionException e) {
+                        batch.get(i).getServletContext().log(
+                                Localizer.getMessage("jsp.error.backgroundCompilationFailed"), e.getCause());
+                    }
+                    smapsList.add(smaps);
+                    if (smaps == null) {
+                        release(batch, released, i);
+                    } else {
+                        Compiler compiler = batch.get(i).getJspEngineContext().getCompiler();
+                        if (compiler instanceof JDTCompiler) {
+                            jdtCompilers.add((JDTCompiler) compiler);
+                        }
+                    }
+                }
+
+                if (batchCompileStopped) {
+                    return compiled;
+                }
+
+                // Compile the generated sources together. Any JSPs not compiled here are compiled individually below.
+                if (!jdtCompilers.isEmpty()) {
+                    try {
+                        JDTCompiler.compileBatch(jdtCompilers);
+                    } catch (Throwable t) {
+                        ExceptionUtils.handleThrowable(t);
+                        log.warn(Localizer.getMessage("jsp.error.batchCompile", context.getContextPath()), t);
+                    }
+                }
+
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batchCompileStopped) {
+                        return compiled;
+                    }
+                    Map<String,SmapStratum> smaps = smapsList.get(i);
+                    if (smaps == null) {
+                        continue;
+                    }
+                    JspServletWrapper jsw = batch.get(i);
+                    synchronized (jsw) {
+                        try {
+                            jsw.getJspEngineContext().completeBatchCompile(smaps);
+                            compiled.add(jsw);
+                        } catch (FileNotFoundException ex) {
+                            jsw.getJspEngineContext().incrementRemoved();
+                        } catch (Throwable t) {
+                            ExceptionUtils.handleThrowable(t);
+                            jsw.getServletContext().log(Localizer.getMessage("jsp.error.backgroundCompilationFailed"),
+                                    t);
+                        }
+                    }
+                    release(batch, released, i);
+                }
+
+                long time = System.currentTimeMillis() - start;
+                batchCompileCount.addAndGet(compiled.size());
+                batchCompileTime.addAndGet(time);
+                if (log.isDebugEnabled()) {
+                    log.debug(Localizer.getMessage("jsp.message.batchCompile", Integer.valueOf(compiled.size()),
+                            Integer.valueOf(batch.size()), Long.valueOf(time), context.getContextPath()));
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopping. Any remaining JSPs are compiled on first use.
+            currentThread.interrupt();
+        } catch (RejectedExecutionException | CancellationException e) {
+            // Stopping. Any remaining JSPs are compiled on first use.
+        } finally {
+            for (int i = 0; i < batch.size(); i++) {
+                release(batch, released, i);
+            }
+            if (background) {
+                currentThread.setContextClassLoader(originalClassLoader);
+            }
+        }
+        return compiled;
+    }
+
+
+    private Map<String,SmapStratum> generateJavaForBatch(JspServletWrapper jsw) throws JasperException {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+        currentThread.setContextClassLoader(parentClassLoader);
+        try {
+            synchronized (jsw) {
+                return jsw.getJspEngineContext().generateJavaForBatch();
+            }
+        } catch (FileNotFoundException ex) {
+            jsw.getJspEngineContext().incrementRemoved();
+            return null;
+        } finally {
+            currentThread.setContextClassLoader(originalClassLoader);
+        }
+    }
+
+
+    private void release(List<JspServletWrapper> batch, boolean[] released, int i) {
+        if (!released[i]) {
+            released[i] = true;
+            batch.get(i).setBatchCompile(false);
+            batchCompileQueueLength.decrementAndGet();
+        }
+    }
+
     /**
      * @return the classpath that is passed off to the Java compiler.
      */
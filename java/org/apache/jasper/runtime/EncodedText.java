@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.runtime;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+
+import javax.servlet.jsp.JspWriter;
+
+import org.apache.tomcat.EncodedTextWriter;
+
+/**
+ * Text, such as the template text of a JSP page or a cached fragment, that is encoded once rather than every time it
+ * is written. The template text of a page is encoded when the page class is initialised using the character set
+ * declared for the page. The text is re-encoded if the response uses a different character set. The encoded text is
+ * only used when the page writes directly to the response. In all other cases, such as within the body of a tag, the
+ * characters are written.
+ * <p>
+ * Only stateless character sets for which encoding the text in isolation produces the same bytes as encoding it as
+ * part of the response are supported.
+ */
+public final class EncodedText {
+
+    private final char[] chars;
+    private volatile Encoded encoded;
+
+
+    /**
+     * Create the encoded form of the given text.
+     *
+     * @param text    The text
+     * @param charset The name of the character set expected to be used for the response or {@code null} if not known
+     */
+    public EncodedText(String text, String charset) {
+        chars = text.toCharArray();
+        if (charset != null) {
+            try {
+                encoded = encode(Charset.forName(charset));
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                // Encode once the character set of the response is known
+            }
+        }
+    }
+
+
+    /**
+     * Write the text.
+     *
+     * @param out The writer for the page
+     *
+     * @throws IOException If an I/O error occurs
+     */
+    public void write(JspWriter out) throws IOException {
+        if (out instanceof JspWriterImpl) {
+            ((JspWriterImpl) out).write(this);
+        } else {
+            out.write(chars);
+        }
+    }
+
+
+    char[] getChars() {
+        return chars;
+    }
+
+
+    /*
+     * Returns false if the text has to be written as characters.
+     */
+    boolean write(EncodedTextWriter writer) {
+        Charset charset = writer.getCharset();
+        if (charset == null) {
+            return false;
+        }
+        Encoded encoded = this.encoded;
+        if (encoded == null || !encoded.charset.equals(charset)) {
+            encoded = encode(charset);
+            this.encoded = encoded;
+        }
+        if (encoded.bytes == null) {
+            return false;
+        }
+        return writer.writeEncoded(encoded.bytes, chars.length, charset);
+    }
+
+
+    private Encoded encode(Charset charset) {
+        byte[] bytes = null;
+        if (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1) ||
+                charset.equals(StandardCharsets.US_ASCII)) {
+            try {
+                // Unlike the response, report rather than replace characters that cannot be encoded
+                ByteBuffer bb = charset.newEncoder().encode(CharBuffer.wrap(chars));
+                bytes = new byte[bb.remaining()];
+                bb.get(bytes);
+            } catch (CharacterCodingException e) {
+                // Includes a partial surrogate pair so leave the response to encode the text
+            }
+        }
+        return new Encoded(charset, bytes);
+    }
+
+
+    private static final class Encoded {
+        private final Charset charset;
+        private final byte[] bytes;
+
+        Encoded(Charset charset, byte[] bytes) {
+            this.charset = charset;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.runtime;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of rendered JSP fragments for a web application, used by {@link FragmentCacheTag}. Each entry is identified
+ * by the name of the fragment and a key and expires after a time to live. The number of entries is bounded. When the
+ * bound is exceeded, expired entries are removed followed by the entries that are closest to expiry.
+ * <p>
+ * Look-ups do not lock. Entries are only removed in bulk when the cache is full so the cost of a full cache is spread
+ * over many additions.
+ */
+public class FragmentCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Map<Key,Entry> entries = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+
+
+    /**
+     * Look up a rendered fragment.
+     *
+     * @param name The name of the fragment
+     * @param key  The key for the fragment
+     *
+     * @return the rendered fragment or {@code null} if the fragment is not in the cache or has expired
+     */
+    public EncodedText get(String name, String key) {
+        Key k = new Key(name, key);
+        Entry entry = entries.get(k);
+        if (entry != null) {
+            if (entry.expires - System.nanoTime() > 0) {
+                hitCount.increment();
+                return entry.content;
+            }
+            entries.remove(k, entry);
+        }
+        missCount.increment();
+        return null;
+    }
+
+
+    /**
+     * Add a rendered fragment to the cache. If the cache is disabled, this method has no effect.
+     *
+     * @param name    The name of the fragment
+     * @param key     The key for the fragment
+     * @param content The rendered fragment
+     * @param ttl     The time to live in milliseconds
+     */
+    public void put(String name, String key, EncodedText content, long ttl) {
+        int maxSize = this.maxSize;
+        if (maxSize <= 0 || ttl <= 0) {
+            return;
+        }
+        entries.put(new Key(name, key), new Entry(content, System.nanoTime() + ttl * 1000000));
+        if (entries.size() > maxSize) {
+            evict(maxSize);
+        }
+    }
+
+
+    /**
+     * Remove all entries for the given fragment.
+     *
+     * @param name The name of the fragment
+     */
+    public void invalidate(String name) {
+        entries.keySet().removeIf(k -> k.name.equals(name));
+    }
+
+
+    /**
+     * Remove all entries.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+
+    public int getSize() {
+        return entries.size();
+    }
+
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+
+    /**
+     * Set the maximum number of entries. A value of zero or less disables the cache.
+     *
+     * @param maxSize The maximum number of entries
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        if (entries.size() > maxSize) {
+            evict(maxSize);
+        }
+    }
+
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+
+    private void evict(int maxSize) {
+        synchronized (evictionLock) {
+            if (entries.size() <= maxSize) {
+                // Another thread has already made space
+                return;
+            }
+            long now = System.nanoTime();
+            List<Map.Entry<Key,Entry>> candidates = new ArrayList<>(entries.size());
+            Iterator<Map.Entry<Key,Entry>> iter = entries.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<Key,Entry> e = iter.next();
+                if (e.getValue().expires - now <= 0) {
+                    iter.remove();
+                    evictionCount.increment();
+                } else {
+                    candidates.add(e);
+                }
+            }
+            // Make space for a tenth of the entries so this does not happen on every addition
+            int target = maxSize - maxSize / 10;
+            int excess = entries.size() - target;
+            if (excess > 0) {
+                candidates.sort(Comparator.comparingLong(e -> e.getValue().expires - now));
+                for (int i = 0; i < excess && i < candidates.size(); i++) {
+                    Map.Entry<Key,Entry> e = candidates.get(i);
+                    if (entries.remove(e.getKey(), e.getValue())) {
+                        evictionCount.increment();
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static final class Key {
+        private final String name;
+        private final String key;
+        private final int hashCode;
+
+        Key(String name, String key) {
+            this.name = name;
+            this.key = key;
+            hashCode = 31 * name.hashCode() + key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return name.equals(other.name) && key.equals(other.key);
+        }
+    }
+
+
+    private static final class Entry {
+        private final EncodedText content;
+        private final long expires;
+
+        Entry(EncodedText content, long expires) {
+            this.content = content;
+            this.expires = expires;
+        }
+    }
+}
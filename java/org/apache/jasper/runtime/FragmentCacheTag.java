@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.runtime;
+
+import java.io.IOException;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.JspTagException;
+import javax.servlet.jsp.tagext.BodyTagSupport;
+
+/**
+ * Tag handler for the <code>fragment</code> tag of the fragment cache tag library provided by Jasper. The rendered
+ * body of the tag is stored in the {@link FragmentCache} of the web application and written from the cache, without
+ * evaluating the body, until it expires or is invalidated.
+ * <p>
+ * The cached output is identified by the required <code>name</code> attribute and the optional <code>key</code>
+ * attribute. The key is usually an expression, such as <code>${sessionScope.locale}</code>, that identifies the
+ * values the output depends on. The <code>ttl</code> attribute is the time to live in seconds.
+ */
+public class FragmentCacheTag extends BodyTagSupport {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The URI of the fragment cache tag library.
+     */
+    public static final String TAGLIB_URI = "http://tomcat.apache.org/jasper/fragment-cache";
+
+    /**
+     * The default time to live in seconds.
+     */
+    public static final int DEFAULT_TTL = 300;
+
+    private String name;
+    private String key = "";
+    private int ttl = DEFAULT_TTL;
+
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+
+    public void setKey(String key) {
+        this.key = (key == null) ? "" : key;
+    }
+
+
+    public void setTtl(int ttl) {
+        this.ttl = ttl;
+    }
+
+
+    @Override
+    public int doStartTag() throws JspException {
+        // Clear any body content from the previous use of a pooled handler
+        bodyContent = null;
+        EncodedText content = getFragmentCache().get(name, key);
+        if (content == null) {
+            return EVAL_BODY_BUFFERED;
+        }
+        try {
+            content.write(pageContext.getOut());
+        } catch (IOException ioe) {
+            throw new JspTagException(ioe.toString(), ioe);
+        }
+        return SKIP_BODY;
+    }
+
+
+    @Override
+    public int doEndTag() throws JspException {
+        if (bodyContent != null) {
+            EncodedText content =
+                    new EncodedText(bodyContent.getString(), pageContext.getResponse().getCharacterEncoding());
+            getFragmentCache().put(name, key, content, ttl * 1000L);
+            try {
+                content.write(pageContext.getOut());
+            } catch (IOException ioe) {
+                throw new JspTagException(ioe.toString(), ioe);
+            }
+        }
+        return EVAL_PAGE;
+    }
+
+
+    @Override
+    public void release() {
+        super.release();
+        name = null;
+        key = "";
+        ttl = DEFAULT_TTL;
+    }
+
+
+    private FragmentCache getFragmentCache() {
+        return JspApplicationContextImpl.getInstance(pageContext.getServletContext()).getFragmentCache();
+    }
+}
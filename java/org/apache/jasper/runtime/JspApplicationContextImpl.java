@@ -54,6 +54,8 @@ public class JspApplicationContextImpl implements JspApplicationContext {
 
     private ELResolver resolver;
 
+    private final FragmentCache fragmentCache = new FragmentCache();
+
     public JspApplicationContextImpl() {
 
     }
@@ -130,4 +132,11 @@ public class JspApplicationContextImpl implements JspApplicationContext {
         return expressionFactory;
     }
 
+    /**
+     * @return the cache of rendered fragments for the web application
+     */
+    public FragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+
 }
@@ -25,6 +25,7 @@ import javax.servlet.jsp.JspWriter;
 
 import org.apache.jasper.Constants;
 import org.apache.jasper.compiler.Localizer;
+import org.apache.tomcat.EncodedTextWriter;
 
 /**
  * Write text to a character-output stream, buffering characters to provide efficient writing of single
@@ -262,6 +263,26 @@ public class JspWriterImpl extends JspWriter {
         write(buf, 0, buf.length);
     }
 
+    /*
+     * Text that fits in the remaining space is copied to the buffer. Otherwise, if the buffer is flushed automatically,
+     * the buffer is flushed and the encoded text is written directly to the underlying writer. Copying the characters
+     * would have flushed the buffer anyway so clear() and the handling of buffer overflow are not affected.
+     */
+    void write(EncodedText text) throws IOException {
+        char[] chars = text.getChars();
+        if (bufferSize == 0 || (autoFlush && chars.length >= bufferSize - nextChar)) {
+            ensureOpen();
+            flushBuffer();
+            initOut();
+            if (out instanceof EncodedTextWriter && text.write((EncodedTextWriter) out)) {
+                return;
+            }
+            out.write(chars, 0, chars.length);
+            return;
+        }
+        write(chars, 0, chars.length);
+    }
+
     @Override
     public void write(String s, int off, int len) throws IOException {
         ensureOpen();
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.runtime;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.Tag;
+
+/**
+ * Pool of tag handlers that can be reused without locking. It may be selected by setting the
+ * {@link TagHandlerPool#OPTION_TAGPOOL} option to the name of this class.
+ * <p>
+ * Each thread starts with one of a number of slots, selected using the thread's ID, so that threads rarely access the
+ * same slots. If that slot and the next few slots are empty (or full), a thread uses a shared, lock-free stack. The
+ * total number of pooled tag handlers never exceeds {@link TagHandlerPool#OPTION_MAXSIZE}. A {@code ThreadLocal} is
+ * not used as it would retain the tag handlers, and hence the web application class loader, in the container's
+ * threads after the web application has stopped.
+ */
+public class StripedTagHandlerPool extends TagHandlerPool {
+
+    private static final int MAX_PROBES = 4;
+
+    private AtomicReferenceArray<Tag> slots;
+    private int probes;
+    private int stackCapacity;
+
+    private final AtomicReference<Node> stackHead = new AtomicReference<>();
+    private final AtomicInteger stackSize = new AtomicInteger();
+
+    private volatile boolean released = false;
+
+
+    @Override
+    protected void init(ServletConfig config) {
+        int maxSize = getMaxSize(config);
+        int slotCount = Math.min(maxSize, Runtime.getRuntime().availableProcessors() * 4);
+        slots = new AtomicReferenceArray<>(slotCount);
+        probes = Math.min(slotCount, MAX_PROBES);
+        stackCapacity = maxSize - slotCount;
+        instanceManager = InstanceManagerFactory.getInstanceManager(config);
+    }
+
+
+    @Override
+    public Tag get(Class<? extends Tag> handlerClass) throws JspException {
+        int index = getSlotIndex();
+        for (int i = 0; i < probes; i++) {
+            Tag handler = slots.get(index);
+            if (handler != null && slots.compareAndSet(index, handler, null)) {
+                return handler;
+            }
+            index = nextSlotIndex(index);
+        }
+        Tag handler = pop();
+        if (handler != null) {
+            return handler;
+        }
+        return newInstance(handlerClass);
+    }
+
+
+    @Override
+    public void reuse(Tag handler) {
+        if (!released) {
+            int index = getSlotIndex();
+            for (int i = 0; i < probes; i++) {
+                if (slots.get(index) == null && slots.compareAndSet(index, null, handler)) {
+                    if (released && slots.compareAndSet(index, handler, null)) {
+                        // The pool was released concurrently and the handler was not seen
+                        JspRuntimeLibrary.releaseTag(handler, instanceManager);
+                    }
+                    return;
+                }
+                index = nextSlotIndex(index);
+            }
+            if (push(handler)) {
+                if (released) {
+                    releaseStack();
+                }
+                return;
+            }
+        }
+        JspRuntimeLibrary.releaseTag(handler, instanceManager);
+    }
+
+
+    @Override
+    public void release() {
+        released = true;
+        for (int i = 0; i < slots.length(); i++) {
+            Tag handler = slots.getAndSet(i, null);
+            if (handler != null) {
+                JspRuntimeLibrary.releaseTag(handler, instanceManager);
+            }
+        }
+        releaseStack();
+    }
+
+
+    private int getSlotIndex() {
+        if (slots.length() == 0) {
+            return 0;
+        }
+        return (int) (Thread.currentThread().getId() % slots.length());
+    }
+
+
+    private int nextSlotIndex(int index) {
+        index++;
+        if (index == slots.length()) {
+            return 0;
+        }
+        return index;
+    }
+
+
+    private boolean push(Tag handler) {
+        if (stackSize.incrementAndGet() > stackCapacity) {
+            stackSize.decrementAndGet();
+            return false;
+        }
+        Node node = new Node(handler);
+        do {
+            node.next = stackHead.get();
+        } while (!stackHead.compareAndSet(node.next, node));
+        return true;
+    }
+
+
+    private Tag pop() {
+        Node node;
+        do {
+            node = stackHead.get();
+            if (node == null) {
+                return null;
+            }
+        } while (!stackHead.compareAndSet(node, node.next));
+        stackSize.decrementAndGet();
+        return node.handler;
+    }
+
+
+    private void releaseStack() {
+        Tag handler;
+        while ((handler = pop()) != null) {
+            JspRuntimeLibrary.releaseTag(handler, instanceManager);
+        }
+    }
+
+
+    private static final class Node {
+        private final Tag handler;
+        private Node next;
+
+        Node(Tag handler) {
+            this.handler = handler;
+        }
+    }
+}
@@ -62,19 +62,7 @@ public class TagHandlerPool {
     }
 
     protected void init(ServletConfig config) {
-        int maxSize = -1;
-        String maxSizeS = getOption(config, OPTION_MAXSIZE, null);
-        if (maxSizeS != null) {
-            try {
-                maxSize = Integer.parseInt(maxSizeS);
-            } catch (Exception ex) {
-                // Ignore
-            }
-        }
-        if (maxSize < 0) {
-            maxSize = Constants.MAX_POOL_SIZE;
-        }
-        this.handlers = new Tag[maxSize];
+        this.handlers = new Tag[getMaxSize(config)];
         this.current = -1;
         instanceManager = InstanceManagerFactory.getInstanceManager(config);
     }
@@ -108,6 +96,19 @@ public class TagHandlerPool {
 
         // Out of sync block - there is no need for other threads to
         // wait for us to construct a tag for this thread.
+        return newInstance(handlerClass);
+    }
+
+    /**
+     * Creates a new tag handler.
+     *
+     * @param handlerClass Tag handler class
+     *
+     * @return Newly instantiated tag handler
+     *
+     * @throws JspException if a tag handler cannot be instantiated
+     */
+    protected Tag newInstance(Class<? extends Tag> handlerClass) throws JspException {
         try {
             if (Constants.USE_INSTANCE_MANAGER_FOR_TAGS) {
                 return (Tag) instanceManager.newInstance(handlerClass.getName(), handlerClass.getClassLoader());
@@ -150,6 +151,23 @@ public class TagHandlerPool {
     }
 
 
+    protected static int getMaxSize(ServletConfig config) {
+        int maxSize = -1;
+        String maxSizeS = getOption(config, OPTION_MAXSIZE, null);
+        if (maxSizeS != null) {
+            try {
+                maxSize = Integer.parseInt(maxSizeS);
+            } catch (Exception ex) {
+                // Ignore
+            }
+        }
+        if (maxSize < 0) {
+            maxSize = Constants.MAX_POOL_SIZE;
+        }
+        return maxSize;
+    }
+
+
     protected static String getOption(ServletConfig config, String name, String defaultV) {
         if (config == null) {
             return defaultV;
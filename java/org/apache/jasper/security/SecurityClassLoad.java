@@ -37,6 +37,11 @@ public final class SecurityClassLoad {
             // Ensure XMLInputFactory is loaded with Tomcat's class loader
             loader.loadClass(basePackage + "compiler.EncodingDetector");
 
+            loader.loadClass(basePackage + "runtime.EncodedText");
+            loader.loadClass(basePackage + "runtime.EncodedText$Encoded");
+            loader.loadClass(basePackage + "runtime.FragmentCache");
+            loader.loadClass(basePackage + "runtime.FragmentCache$Entry");
+            loader.loadClass(basePackage + "runtime.FragmentCache$Key");
             loader.loadClass(basePackage + "runtime.JspContextWrapper");
             loader.loadClass(basePackage + "runtime.JspFactoryImpl$PrivilegedGetPageContext");
             loader.loadClass(basePackage + "runtime.JspFactoryImpl$PrivilegedReleasePageContext");
@@ -49,6 +54,8 @@ public final class SecurityClassLoad {
 
             loader.loadClass(basePackage + "runtime.ProtectedFunctionMapper");
             loader.loadClass(basePackage + "runtime.ServletResponseWrapperInclude");
+            loader.loadClass(basePackage + "runtime.StripedTagHandlerPool");
+            loader.loadClass(basePackage + "runtime.StripedTagHandlerPool$Node");
             loader.loadClass(basePackage + "runtime.TagHandlerPool");
 
             // Trigger loading of class and reading of property
@@ -23,6 +23,9 @@ import java.net.MalformedURLException;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletConfig;
@@ -38,6 +41,8 @@ import org.apache.jasper.Options;
 import org.apache.jasper.compiler.JspRuntimeContext;
 import org.apache.jasper.compiler.Localizer;
 import org.apache.jasper.runtime.ExceptionUtils;
+import org.apache.jasper.runtime.FragmentCache;
+import org.apache.jasper.runtime.JspApplicationContextImpl;
 import org.apache.jasper.security.SecurityUtil;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
@@ -108,6 +113,12 @@ public class JspServlet extends HttpServlet implements PeriodicEventListener {
             options = new EmbeddedServletOptions(config, context);
         }
         rctxt = new JspRuntimeContext(context, options);
+        getFragmentCache().setMaxSize(options.getFragmentCacheMaxSize());
+        if (options.getBatchCompileThreads() > 0 && config.getInitParameter("jspFile") == null) {
+            List<JspServletWrapper> wrappers = new ArrayList<>();
+            addBatchCompileWrappers("/", wrappers);
+            rctxt.startBatchCompile(wrappers);
+        }
         if (config.getInitParameter("jspFile") != null) {
             jspFile = config.getInitParameter("jspFile");
             try {
@@ -204,6 +215,117 @@ public class JspServlet extends HttpServlet implements PeriodicEventListener {
     }
 
 
+    /**
+     * Gets the number of JSPs that are waiting for a batch compilation to complete.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The number of JSPs (in the webapp with which this JspServlet is associated) that are waiting for a batch
+     *             compilation to complete
+     */
+    public int getBatchCompileQueueLength() {
+        return this.rctxt.getBatchCompileQueueLength();
+    }
+
+
+    /**
+     * Gets the number of JSPs that have been compiled by batch compilations.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The number of JSPs (in the webapp with which this JspServlet is associated) that have been compiled by
+     *             batch compilations
+     */
+    public int getBatchCompileCount() {
+        return this.rctxt.getBatchCompileCount();
+    }
+
+
+    /**
+     * Gets the total time spent in batch compilations.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The total time, in milliseconds, spent in batch compilations of the JSPs in the webapp with which this
+     *             JspServlet is associated
+     */
+    public long getBatchCompileTime() {
+        return this.rctxt.getBatchCompileTime();
+    }
+
+
+    /**
+     * Gets the number of rendered fragments in the fragment cache.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The number of rendered fragments in the fragment cache of the webapp with which this JspServlet is
+     *             associated
+     */
+    public int getFragmentCacheSize() {
+        return getFragmentCache().getSize();
+    }
+
+
+    /**
+     * Gets the number of times a rendered fragment was found in the fragment cache.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The number of fragment cache hits for the webapp with which this JspServlet is associated
+     */
+    public long getFragmentCacheHitCount() {
+        return getFragmentCache().getHitCount();
+    }
+
+
+    /**
+     * Gets the number of times a rendered fragment was not found in the fragment cache.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The number of fragment cache misses for the webapp with which this JspServlet is associated
+     */
+    public long getFragmentCacheMissCount() {
+        return getFragmentCache().getMissCount();
+    }
+
+
+    /**
+     * Gets the number of rendered fragments removed from the fragment cache because the cache was full.
+     * <p>
+     * This info may be used for monitoring purposes.
+     *
+     * @return The number of fragment cache evictions for the webapp with which this JspServlet is associated
+     */
+    public long getFragmentCacheEvictionCount() {
+        return getFragmentCache().getEvictionCount();
+    }
+
+
+    /**
+     * Removes all the rendered fragments with the given name from the fragment cache.
+     *
+     * @param name The name of the fragment
+     */
+    public void invalidateFragment(String name) {
+        getFragmentCache().invalidate(name);
+    }
+
+
+    /**
+     * Removes all the rendered fragments from the fragment cache.
+     */
+    public void invalidateFragmentCache() {
+        getFragmentCache().invalidateAll();
+    }
+
+
+    private FragmentCache getFragmentCache() {
+        return JspApplicationContextImpl.getInstance(context).getFragmentCache();
+    }
+
+
     /**
      * <p>
      * Look for a <em>precompilation request</em> as described in Section 8.4.2 of the JSP 1.2 Specification.
@@ -332,6 +454,37 @@ public class JspServlet extends HttpServlet implements PeriodicEventListener {
 
     // -------------------------------------------------------- Private Methods
 
+    /*
+     * Create (if necessary) the wrappers for the JSPs in the given directory, and its sub-directories, so they can be
+     * compiled as a batch. Files are treated as JSPs based on their extension.
+     */
+    private void addBatchCompileWrappers(String path, List<JspServletWrapper> wrappers) {
+        Set<String> paths = context.getResourcePaths(path);
+        if (paths == null) {
+            return;
+        }
+        for (String jspUri : paths) {
+            if (jspUri.endsWith("/")) {
+                /*
+                 * JSPs under WEB-INF are often fragments that are only included by other JSPs and cannot be compiled
+                 * on their own. They, and any JSPs under META-INF, are compiled on first use.
+                 */
+                if (!jspUri.equals("/WEB-INF/") && !jspUri.equals("/META-INF/")) {
+                    addBatchCompileWrappers(jspUri, wrappers);
+                }
+            } else if (jspUri.endsWith(".jsp") || jspUri.endsWith(".jspx")) {
+                synchronized (this) {
+                    JspServletWrapper wrapper = rctxt.getWrapper(jspUri);
+                    if (wrapper == null) {
+                        wrapper = new JspServletWrapper(config, options, jspUri, rctxt);
+                        rctxt.addWrapper(jspUri, wrapper);
+                    }
+                    wrappers.add(wrapper);
+                }
+            }
+        }
+    }
+
     private void serviceJspFile(HttpServletRequest request, HttpServletResponse response, String jspUri,
             boolean precompile) throws ServletException, IOException {
 
@@ -91,6 +91,8 @@ public class JspServletWrapper {
     private volatile boolean mustCompile = true;
     /* Whether the servlet/tag file needs reloading on next access */
     private volatile boolean reload = true;
+    /* The number of batches compiling the JSP. Guarded by this. */
+    private int batchCompileCount = 0;
     private final boolean isTagFile;
     private int tripCount;
     private JasperException compileException;
@@ -206,6 +208,22 @@ public class JspServletWrapper {
         this.compileException = je;
     }
 
+    /**
+     * Marks the start or the end of the compilation of this JSP as part of a batch. While the batch compilation is in
+     * progress, requests for the JSP wait for the batch compilation to complete rather than compiling the JSP.
+     *
+     * @param batchCompile {@code true} at the start of the batch compilation and {@code false} at the end
+     */
+    public void setBatchCompile(boolean batchCompile) {
+        synchronized (this) {
+            if (batchCompile) {
+                batchCompileCount++;
+            } else if (--batchCompileCount == 0) {
+                notifyAll();
+            }
+        }
+    }
+
     /**
      * Sets the last-modified time of the servlet class file associated with this JspServletWrapper.
      *
@@ -374,6 +392,7 @@ public class JspServletWrapper {
              */
             if (options.getDevelopment() || mustCompile) {
                 synchronized (this) {
+                    awaitBatchCompile();
                     if (options.getDevelopment() || mustCompile) {
                         // The following sets reload to true, if necessary
                         ctxt.compile();
@@ -478,6 +497,20 @@ public class JspServletWrapper {
         }
     }
 
+    /*
+     * Must be called with the lock on this wrapper held.
+     */
+    private void awaitBatchCompile() throws JasperException {
+        while (batchCompileCount > 0) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JasperException(e);
+            }
+        }
+    }
+
     public void destroy() {
         if (theServlet != null) {
             try {
@@ -38,6 +38,7 @@ import javax.servlet.descriptor.TaglibDescriptor;
 
 import org.apache.jasper.compiler.JarScannerFactory;
 import org.apache.jasper.compiler.Localizer;
+import org.apache.jasper.runtime.FragmentCacheTag;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 import org.apache.tomcat.Jar;
@@ -47,6 +48,7 @@ import org.apache.tomcat.JarScannerCallback;
 import org.apache.tomcat.util.descriptor.tld.TaglibXml;
 import org.apache.tomcat.util.descriptor.tld.TldParser;
 import org.apache.tomcat.util.descriptor.tld.TldResourcePath;
+import org.apache.tomcat.util.scan.JarScanIndex;
 import org.xml.sax.SAXException;
 
 /**
@@ -56,6 +58,7 @@ public class TldScanner {
     private final Log log = LogFactory.getLog(TldScanner.class); // must not be static
     private static final String MSG = "org.apache.jasper.servlet.TldScanner";
     private static final String TLD_EXT = ".tld";
+    private static final String TLD_INDEX_SECTION = "tld";
     private static final String WEB_INF = "/WEB-INF/";
     private final ServletContext context;
     private final TldParser tldParser;
@@ -136,9 +139,18 @@ public class TldScanner {
     }
 
     /**
-     * Scan for TLDs required by the platform specification.
+     * Scan for TLDs required by the platform specification and the TLDs provided by Jasper.
      */
     protected void scanPlatform() {
+        URL url = FragmentCacheTag.class.getResource("fragment-cache.tld");
+        if (url != null) {
+            try {
+                parseTld(new TldResourcePath(url, null));
+            } catch (IOException | SAXException e) {
+                // The tag library is optional so do not prevent the web application from starting
+                log.warn(Localizer.getMessage(MSG + ".platformFail", url), e);
+            }
+        }
     }
 
     /**
@@ -285,12 +297,29 @@ public class TldScanner {
         public void scan(Jar jar, String webappPath, boolean isWebapp) throws IOException {
             boolean found = false;
             URL jarFileUrl = jar.getJarFileURL();
-            jar.nextEntry();
-            for (String entryName = jar.getEntryName(); entryName != null; jar.nextEntry(), entryName =
-                    jar.getEntryName()) {
-                if (!(entryName.startsWith("META-INF/") && entryName.endsWith(TLD_EXT))) {
-                    continue;
+            JarScanIndex index = null;
+            List<String> entryNames = null;
+            if (context != null) {
+                index = (JarScanIndex) context.getAttribute(JarScanIndex.SERVLET_CONTEXT_ATTRIBUTE_NAME);
+                if (index != null) {
+                    entryNames = index.get(TLD_INDEX_SECTION, jarFileUrl, null);
                 }
+            }
+            if (entryNames == null) {
+                long start = System.nanoTime();
+                entryNames = new ArrayList<>();
+                jar.nextEntry();
+                for (String entryName = jar.getEntryName(); entryName != null; jar.nextEntry(), entryName =
+                        jar.getEntryName()) {
+                    if (entryName.startsWith("META-INF/") && entryName.endsWith(TLD_EXT)) {
+                        entryNames.add(entryName);
+                    }
+                }
+                if (index != null) {
+                    index.put(TLD_INDEX_SECTION, jarFileUrl, null, entryNames, System.nanoTime() - start);
+                }
+            }
+            for (String entryName : entryNames) {
                 found = true;
                 TldResourcePath tldResourcePath = new TldResourcePath(jarFileUrl, webappPath, entryName);
                 try {
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat;
+
+import java.nio.charset.Charset;
+
+/**
+ * Implemented by a {@link java.io.Writer} that can accept text that has already been encoded with the character set
+ * the writer uses. This allows text that is written many times, such as the template text of a JSP page, to be
+ * encoded once rather than every time it is written.
+ */
+public interface EncodedTextWriter {
+
+    /**
+     * Obtain the character set the writer uses to encode characters.
+     *
+     * @return the character set or {@code null} if it is not yet known
+     */
+    Charset getCharset();
+
+    /**
+     * Write text that has already been encoded. The result must be the same as writing the characters the bytes were
+     * encoded from.
+     *
+     * @param bytes     The encoded text
+     * @param charCount The number of characters the bytes were encoded from
+     * @param charset   The character set used to encode the text
+     *
+     * @return {@code true} if the text was written or {@code false} if the writer cannot currently accept encoded text,
+     *             in which case the caller must write the characters instead
+     */
+    boolean writeEncoded(byte[] bytes, int charCount, Charset charset);
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Provides the request body as read-only views of the buffer into which the connector reads the body rather than
+ * copying the body into buffers provided by the application. This allows an application, such as a proxy, to pass
+ * the request body on without copying it.
+ * <p>
+ * The buffers are reused by the connector so each buffer returned by {@link #readBuffer()} must be passed to
+ * {@link #releaseBuffer(ByteBuffer)} once the application has finished with it and before any further data is read
+ * from the request body. Until the buffer has been released, any attempt to read more data, including via
+ * {@link javax.servlet.ServletInputStream#isReady()}, will trigger an {@link IllegalStateException}. A buffer must not
+ * be used once it has been released.
+ * <p>
+ * An instance is available as the request attribute named {@link #ATTRIBUTE_NAME}. It is the
+ * {@link javax.servlet.ServletInputStream} for the request so, as for any other use of the input stream, the request
+ * body cannot then be read via {@link javax.servlet.ServletRequest#getReader()}. Non-blocking IO is used by
+ * registering a {@link javax.servlet.ReadListener} with the input stream in the usual way and reading buffers while
+ * {@link javax.servlet.ServletInputStream#isReady()} returns {@code true}.
+ */
+public interface RequestBodyBuffers {
+
+    /**
+     * The name of the request attribute that provides the {@link RequestBodyBuffers} for the request.
+     */
+    String ATTRIBUTE_NAME = "org.apache.tomcat.request.body.buffers";
+
+    /**
+     * Read the next section of the request body. With blocking IO, this method blocks until data is available. With
+     * non-blocking IO, this method may only be called when {@link javax.servlet.ServletInputStream#isReady()} has
+     * returned {@code true}.
+     *
+     * @return a read-only buffer containing the next section of the request body or {@code null} if the end of the
+     *             request body has been reached
+     *
+     * @throws IOException           if an I/O error occurs
+     * @throws IllegalStateException if the previous buffer has not been released or, for non-blocking IO, the request
+     *                                   body is not ready to be read
+     */
+    ByteBuffer readBuffer() throws IOException;
+
+    /**
+     * Release a buffer previously returned by {@link #readBuffer()}, allowing the connector to reuse the memory.
+     *
+     * @param buffer The buffer to release
+     *
+     * @throws IllegalArgumentException if the buffer is not the buffer most recently returned by {@link #readBuffer()}
+     *                                      or it has already been released
+     */
+    void releaseBuffer(ByteBuffer buffer);
+}
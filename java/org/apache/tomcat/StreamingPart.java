@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat;
+
+import java.util.Collection;
+
+/**
+ * A part of a <code>multipart/form-data</code> request read via {@link StreamingParts}. This provides the headers of
+ * the part. The data of the part is passed to {@link StreamingPartHandler#onPartData(StreamingPart, byte[], int, int)}.
+ */
+public interface StreamingPart {
+
+    /**
+     * @return the name of the form field the part is for
+     */
+    String getName();
+
+    /**
+     * @return the file name specified by the client or {@code null} if the part is not a file
+     */
+    String getSubmittedFileName();
+
+    /**
+     * @return the content type of the part or {@code null} if not specified
+     */
+    String getContentType();
+
+    /**
+     * @param name The name of the header
+     *
+     * @return the first value of the header or {@code null} if the part does not have the header
+     */
+    String getHeader(String name);
+
+    /**
+     * @param name The name of the header
+     *
+     * @return the values of the header
+     */
+    Collection<String> getHeaders(String name);
+
+    /**
+     * @return the names of the headers of the part
+     */
+    Collection<String> getHeaderNames();
+}
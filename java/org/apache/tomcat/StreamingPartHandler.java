@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat;
+
+import java.io.IOException;
+
+/**
+ * Receives the parts of a <code>multipart/form-data</code> request as they are read. See {@link StreamingParts}.
+ * Parts are processed in order, so the methods for one part are called before those for the next.
+ */
+public interface StreamingPartHandler {
+
+    /**
+     * Called when the headers of a part have been read.
+     *
+     * @param part The part
+     *
+     * @throws IOException if the part cannot be processed, which ends the reading of the parts
+     */
+    void onPartStart(StreamingPart part) throws IOException;
+
+    /**
+     * Called with data for the current part. The data is only valid for the duration of the call as the array is a
+     * buffer used by the container.
+     *
+     * @param part The part
+     * @param b    The array that contains the data
+     * @param off  The offset of the data in the array
+     * @param len  The number of bytes of data
+     *
+     * @throws IOException if the data cannot be processed, which ends the reading of the parts
+     */
+    void onPartData(StreamingPart part, byte[] b, int off, int len) throws IOException;
+
+    /**
+     * Called when all the data for a part has been passed to the handler.
+     *
+     * @param part The part
+     *
+     * @throws IOException if the part cannot be processed, which ends the reading of the parts
+     */
+    void onPartEnd(StreamingPart part) throws IOException;
+
+    /**
+     * Called when all the parts have been read.
+     *
+     * @throws IOException if the parts cannot be processed
+     */
+    void onComplete() throws IOException;
+
+    /**
+     * Called when reading the parts using non-blocking IO fails. When using blocking IO, the error is thrown by
+     * {@link StreamingParts#read(StreamingPartHandler)} instead.
+     *
+     * @param t The cause of the failure
+     */
+    void onError(Throwable t);
+}
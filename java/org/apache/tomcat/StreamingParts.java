@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat;
+
+import java.io.IOException;
+
+/**
+ * Provides the parts of a <code>multipart/form-data</code> request as they are read from the client rather than
+ * after the complete request body has been read and stored. The data of each part is passed directly to a
+ * {@link StreamingPartHandler} so it is not written to memory or disk by the container. The limits configured for the
+ * multipart processing of the target servlet, and the limit on the number of request parameters, still apply.
+ * <p>
+ * An instance is available as the request attribute named {@link #ATTRIBUTE_NAME} when the request has a
+ * <code>multipart/form-data</code> body and multipart processing is enabled for the target servlet. The parts may
+ * only be read once and cannot be read if the request body has already been used, for example by calling
+ * {@link javax.servlet.http.HttpServletRequest#getParts()} or
+ * {@link javax.servlet.ServletRequest#getParameter(String)}. Once the parts have been read, request parameters only
+ * include those from the query string.
+ */
+public interface StreamingParts {
+
+    /**
+     * The name of the request attribute that provides the {@link StreamingParts} for the request.
+     */
+    String ATTRIBUTE_NAME = "org.apache.tomcat.multipart.streaming";
+
+    /**
+     * Read the parts using blocking IO. The handler is called by the current thread and this method returns once all
+     * the parts have been read.
+     *
+     * @param handler The handler for the parts
+     *
+     * @throws IOException           if an I/O error occurs, the request body is not valid or a limit is exceeded
+     * @throws IllegalStateException if the parts, or the request body, have already been read
+     */
+    void read(StreamingPartHandler handler) throws IOException;
+
+    /**
+     * Read the parts using non-blocking IO. This method registers a {@link javax.servlet.ReadListener} for the
+     * request so, as with {@link javax.servlet.ServletInputStream#setReadListener(javax.servlet.ReadListener)},
+     * asynchronous processing must have been started. The handler is called by container threads as data arrives.
+     * Any errors are reported via {@link StreamingPartHandler#onError(Throwable)}.
+     *
+     * @param handler The handler for the parts
+     *
+     * @throws IOException           if the request does not include a valid multipart boundary or exceeds a limit
+     * @throws IllegalStateException if the parts, or the request body, have already been read or asynchronous
+     *                                   processing has not been started
+     */
+    void setHandler(StreamingPartHandler handler) throws IOException;
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.bcel.classfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.apache.tomcat.util.bcel.Const;
+
+/**
+ * Checks the constant pool of a class file for any of a set of UTF-8 constants, such as annotation type descriptors,
+ * without creating a {@link JavaClass}. Every type name used anywhere in a class file is stored in its constant pool so
+ * a class that does not contain any of the constants cannot use the associated types and does not need to be parsed.
+ * <p>
+ * This class is thread safe.
+ */
+public final class ConstantPoolFilter {
+
+    private final byte[][] constants;
+    private final int minLength;
+    private final int maxLength;
+
+
+    /**
+     * Creates a filter that matches class files that contain at least one of the given constants.
+     *
+     * @param utf8Constants The values of the CONSTANT_Utf8 entries to look for, e.g.
+     *                          {@code "Ljavax/servlet/annotation/WebServlet;"}
+     */
+    public ConstantPoolFilter(Collection<String> utf8Constants) {
+        constants = new byte[utf8Constants.size()][];
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        int i = 0;
+        for (String constant : utf8Constants) {
+            byte[] encoded = encode(constant);
+            constants[i++] = encoded;
+            min = Math.min(min, encoded.length);
+            max = Math.max(max, encoded.length);
+        }
+        minLength = min;
+        maxLength = max;
+    }
+
+
+    /**
+     * Determine if the constant pool of the given class file contains at least one of the constants of this filter.
+     * Only the header and the constant pool are read.
+     *
+     * @param classFile The complete content of a class file
+     *
+     * @return {@code true} if at least one of the constants is present, otherwise {@code false}
+     *
+     * @throws ClassFormatException if the class file is truncated or the constant pool is malformed
+     */
+    public boolean matches(byte[] classFile) throws ClassFormatException {
+        // Magic (4), minor version (2), major version (2), constant pool count (2)
+        if (classFile.length < 10 || readInt(classFile, 0) != Const.JVM_CLASSFILE_MAGIC) {
+            throw new ClassFormatException("It is not a Java .class file");
+        }
+        int count = readUnsignedShort(classFile, 8);
+        int pos = 10;
+        // Index 0 is not used
+        for (int i = 1; i < count; i++) {
+            if (pos >= classFile.length) {
+                throw new ClassFormatException("Truncated constant pool");
+            }
+            byte tag = classFile[pos++];
+            switch (tag) {
+            case Const.CONSTANT_Utf8:
+                int length = readUnsignedShort(classFile, pos);
+                pos += 2;
+                if (pos + length > classFile.length) {
+                    throw new ClassFormatException("Truncated constant pool");
+                }
+                if (length >= minLength && length <= maxLength && contains(classFile, pos, length)) {
+                    return true;
+                }
+                pos += length;
+                break;
+            case Const.CONSTANT_Integer:
+            case Const.CONSTANT_Float:
+                pos += 4;
+                break;
+            case Const.CONSTANT_Long:
+            case Const.CONSTANT_Double:
+                pos += 8;
+                // Eight byte constants take up two entries
+                i++;
+                break;
+            case Const.CONSTANT_Class:
+            case Const.CONSTANT_String:
+            case Const.CONSTANT_MethodType:
+            case Const.CONSTANT_Module:
+            case Const.CONSTANT_Package:
+                pos += 2;
+                break;
+            case Const.CONSTANT_MethodHandle:
+                pos += 3;
+                break;
+            case Const.CONSTANT_Fieldref:
+            case Const.CONSTANT_Methodref:
+            case Const.CONSTANT_InterfaceMethodref:
+            case Const.CONSTANT_NameAndType:
+            case Const.CONSTANT_Dynamic:
+            case Const.CONSTANT_InvokeDynamic:
+                pos += 4;
+                break;
+            default:
+                throw new ClassFormatException("Invalid byte tag in constant pool: " + tag);
+            }
+        }
+        if (pos > classFile.length) {
+            throw new ClassFormatException("Truncated constant pool");
+        }
+        return false;
+    }
+
+
+    private boolean contains(byte[] classFile, int start, int length) {
+        for (byte[] constant : constants) {
+            if (constant.length == length && equals(constant, classFile, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean equals(byte[] constant, byte[] classFile, int start) {
+        // Type descriptors share long prefixes so compare from the end
+        for (int i = constant.length - 1; i >= 0; i--) {
+            if (constant[i] != classFile[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static int readInt(byte[] b, int pos) {
+        return ((b[pos] & 0xFF) << 24) | ((b[pos + 1] & 0xFF) << 16) | ((b[pos + 2] & 0xFF) << 8) | (b[pos + 3] & 0xFF);
+    }
+
+
+    private static int readUnsignedShort(byte[] b, int pos) throws ClassFormatException {
+        if (pos + 2 > b.length) {
+            throw new ClassFormatException("Truncated constant pool");
+        }
+        return ((b[pos] & 0xFF) << 8) | (b[pos + 1] & 0xFF);
+    }
+
+
+    /*
+     * Class files use the modified UTF-8 encoding of DataOutput.writeUTF() without the leading length.
+     */
+    private static byte[] encode(String constant) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(constant.length() + 2);
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeUTF(constant);
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(ioe);
+        }
+        byte[] encoded = baos.toByteArray();
+        return Arrays.copyOfRange(encoded, 2, encoded.length);
+    }
+}
@@ -23,11 +23,13 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 import org.apache.tomcat.util.buf.ByteChunk;
+import org.apache.tomcat.util.buf.HexUtils;
 import org.apache.tomcat.util.buf.MessageBytes;
 import org.apache.tomcat.util.buf.StringUtils;
 import org.apache.tomcat.util.buf.UDecoder;
@@ -58,6 +60,17 @@ public final class Parameters {
     private int limit = -1;
     private int parameterCount = 0;
 
+    /*
+     * Used in place of paramHashValues when decoding is lazy. The parameters are held in the order they were added and
+     * decoded when first looked up. The parameter objects are re-used for subsequent requests.
+     */
+    private boolean lazyDecoding = false;
+    private final List<LazyParameter> lazyParameters = new ArrayList<>();
+    private int lazyParameterCount = 0;
+    private final Map<String,LazyParameter> lazyIndex = new LinkedHashMap<>();
+    private boolean lazyIndexed = false;
+    private int lazyLookupCount = 0;
+
     /**
      * Set to the reason for the failure (the first failure if there is more than one) if there were failures during
      * parameter parsing.
@@ -76,6 +89,27 @@ public final class Parameters {
         this.limit = limit;
     }
 
+    public boolean getLazyDecoding() {
+        return lazyDecoding;
+    }
+
+    /**
+     * Configure whether the names and values of parameters parsed from the query string and request body are decoded
+     * when they are parsed or when they are first looked up. Lazy decoding avoids the cost of decoding parameters the
+     * application does not use. The boundaries of each parameter are still found and checked, and the limit on the
+     * number of parameters applied, when the parameters are parsed. With lazy decoding, the bytes passed to
+     * {@link #processParameters(byte[], int, int)} must not be modified until the parameters are recycled.
+     * <p>
+     * This setting has no effect once any parameters have been added.
+     *
+     * @param lazyDecoding {@code true} to decode parameters when they are first looked up
+     */
+    public void setLazyDecoding(boolean lazyDecoding) {
+        if (parameterCount == 0) {
+            this.lazyDecoding = lazyDecoding;
+        }
+    }
+
     public Charset getCharset() {
         return charset;
     }
@@ -127,6 +161,13 @@ public final class Parameters {
     public void recycle() {
         parameterCount = 0;
         paramHashValues.clear();
+        for (int i = 0; i < lazyParameterCount; i++) {
+            lazyParameters.get(i).recycle();
+        }
+        lazyParameterCount = 0;
+        lazyIndex.clear();
+        lazyIndexed = false;
+        lazyLookupCount = 0;
         didQueryParameters = false;
         charset = DEFAULT_BODY_CHARSET;
         decodedQuery.recycle();
@@ -140,6 +181,9 @@ public final class Parameters {
 
     public String[] getParameterValues(String name) {
         handleQueryParameters();
+        if (lazyDecoding) {
+            return getLazyParameterValues(name);
+        }
         // no "facade"
         ArrayList<String> values = paramHashValues.get(name);
         if (values == null) {
@@ -150,11 +194,22 @@ public final class Parameters {
 
     public Enumeration<String> getParameterNames() {
         handleQueryParameters();
+        if (lazyDecoding) {
+            indexLazyParameters();
+            return Collections.enumeration(lazyIndex.keySet());
+        }
         return Collections.enumeration(paramHashValues.keySet());
     }
 
     public String getParameter(String name) {
         handleQueryParameters();
+        if (lazyDecoding) {
+            LazyParameter parameter = findLazyParameter(name);
+            if (parameter == null) {
+                return null;
+            }
+            return getValue(parameter);
+        }
         ArrayList<String> values = paramHashValues.get(name);
         if (values != null) {
             if (values.isEmpty()) {
@@ -209,7 +264,36 @@ public final class Parameters {
         }
         parameterCount++;
 
-        paramHashValues.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        if (lazyDecoding) {
+            LazyParameter parameter = nextLazyParameter();
+            parameter.name = key;
+            parameter.value = value;
+            addLazyParameter(parameter);
+        } else {
+            paramHashValues.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        }
+    }
+
+
+    private void addParameter(byte[] bytes, int nameStart, int nameEnd, int valueStart, int valueEnd,
+            boolean decodeName, boolean decodeValue, Charset charset) throws IllegalStateException {
+
+        if (limit > -1 && parameterCount >= limit) {
+            setParseFailedReason(FailReason.TOO_MANY_PARAMETERS);
+            throw new IllegalStateException(sm.getString("parameters.maxCountFail", Integer.valueOf(limit)));
+        }
+        parameterCount++;
+
+        LazyParameter parameter = nextLazyParameter();
+        parameter.bytes = bytes;
+        parameter.nameStart = nameStart;
+        parameter.nameEnd = nameEnd;
+        parameter.valueStart = valueStart;
+        parameter.valueEnd = valueEnd;
+        parameter.decodeName = decodeName;
+        parameter.decodeValue = decodeValue;
+        parameter.charset = charset;
+        addLazyParameter(parameter);
     }
 
     public void setURLDecoder(UDecoder u) {
@@ -342,6 +426,18 @@ public final class Parameters {
                 // invalid chunk - it's better to ignore
             }
 
+            if (lazyDecoding && (!decodeName || isValidEncoding(bytes, nameStart, nameEnd)) &&
+                    (!decodeValue || isValidEncoding(bytes, valueStart, valueEnd))) {
+                // Decoding cannot fail so it can be deferred until the parameter is looked up
+                try {
+                    addParameter(bytes, nameStart, nameEnd, valueStart, valueEnd, decodeName, decodeValue, charset);
+                } catch (IllegalStateException ise) {
+                    logMaxParameterCount(ise);
+                    break;
+                }
+                continue;
+            }
+
             tmpName.setBytes(bytes, nameStart, nameEnd - nameStart);
             if (valueStart >= 0) {
                 tmpValue.setBytes(bytes, valueStart, valueEnd - valueStart);
@@ -389,22 +485,7 @@ public final class Parameters {
                 try {
                     addParameter(name, value);
                 } catch (IllegalStateException ise) {
-                    // Hitting limit stops processing further params but does
-                    // not cause request to fail.
-                    UserDataHelper.Mode logMode = maxParamCountLog.getNextMode();
-                    if (logMode != null) {
-                        String message = ise.getMessage();
-                        switch (logMode) {
-                            case INFO_THEN_DEBUG:
-                                message += sm.getString("parameters.maxCountFail.fallToDebug");
-                                //$FALL-THROUGH$
-                            case INFO:
-                                log.info(message);
-                                break;
-                            case DEBUG:
-                                log.debug(message);
-                        }
-                    }
+                    logMaxParameterCount(ise);
                     break;
                 }
             } catch (IOException e) {
@@ -462,6 +543,39 @@ public final class Parameters {
         }
     }
 
+    private void logMaxParameterCount(IllegalStateException ise) {
+        // Hitting limit stops processing further params but does
+        // not cause request to fail.
+        UserDataHelper.Mode logMode = maxParamCountLog.getNextMode();
+        if (logMode != null) {
+            String message = ise.getMessage();
+            switch (logMode) {
+                case INFO_THEN_DEBUG:
+                    message += sm.getString("parameters.maxCountFail.fallToDebug");
+                    //$FALL-THROUGH$
+                case INFO:
+                    log.info(message);
+                    break;
+                case DEBUG:
+                    log.debug(message);
+            }
+        }
+    }
+
+    /*
+     * Performs the same checks as UDecoder for a query string.
+     */
+    private static boolean isValidEncoding(byte[] bytes, int start, int end) {
+        int pos = ByteChunk.findByte(bytes, start, end, (byte) '%');
+        while (pos > -1) {
+            if (pos + 2 >= end || HexUtils.getDec(bytes[pos + 1]) < 0 || HexUtils.getDec(bytes[pos + 2]) < 0) {
+                return false;
+            }
+            pos = ByteChunk.findByte(bytes, pos + 3, end, (byte) '%');
+        }
+        return true;
+    }
+
     private void urlDecode(ByteChunk bc) throws IOException {
         if (urlDec == null) {
             urlDec = new UDecoder();
@@ -481,12 +595,184 @@ public final class Parameters {
         processParameters(bc.getBytes(), bc.getStart(), bc.getLength(), charset);
     }
 
+    // -------------------- Lazy decoding --------------------
+    /*
+     * A linear search is used for the first few look-ups as it only needs to decode the name of each parameter that
+     * is not a simple ASCII string until a match is found. Any further look-ups decode all the names and use an index.
+     */
+    private static final int LAZY_LINEAR_LOOKUP_LIMIT = 8;
+
+    private LazyParameter nextLazyParameter() {
+        LazyParameter parameter;
+        if (lazyParameterCount < lazyParameters.size()) {
+            parameter = lazyParameters.get(lazyParameterCount);
+        } else {
+            parameter = new LazyParameter();
+            lazyParameters.add(parameter);
+        }
+        lazyParameterCount++;
+        return parameter;
+    }
+
+    private void addLazyParameter(LazyParameter parameter) {
+        if (lazyIndexed) {
+            indexLazyParameter(parameter);
+        }
+    }
+
+    private void indexLazyParameters() {
+        if (lazyIndexed) {
+            return;
+        }
+        for (int i = 0; i < lazyParameterCount; i++) {
+            indexLazyParameter(lazyParameters.get(i));
+        }
+        lazyIndexed = true;
+    }
+
+    private void indexLazyParameter(LazyParameter parameter) {
+        LazyParameter first = lazyIndex.putIfAbsent(getName(parameter), parameter);
+        if (first == null) {
+            parameter.last = parameter;
+        } else {
+            first.last.next = parameter;
+            first.last = parameter;
+        }
+    }
+
+    private LazyParameter findLazyParameter(String name) {
+        if (lazyIndexed || ++lazyLookupCount > LAZY_LINEAR_LOOKUP_LIMIT) {
+            indexLazyParameters();
+            return lazyIndex.get(name);
+        }
+        boolean ascii = isAscii(name);
+        for (int i = 0; i < lazyParameterCount; i++) {
+            LazyParameter parameter = lazyParameters.get(i);
+            if (nameMatches(parameter, name, ascii)) {
+                return parameter;
+            }
+        }
+        return null;
+    }
+
+    private String[] getLazyParameterValues(String name) {
+        LazyParameter parameter = findLazyParameter(name);
+        if (parameter == null) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(1);
+        if (lazyIndexed) {
+            while (parameter != null) {
+                values.add(getValue(parameter));
+                parameter = parameter.next;
+            }
+        } else {
+            boolean ascii = isAscii(name);
+            for (int i = lazyParameters.indexOf(parameter); i < lazyParameterCount; i++) {
+                parameter = lazyParameters.get(i);
+                if (nameMatches(parameter, name, ascii)) {
+                    values.add(getValue(parameter));
+                }
+            }
+        }
+        return values.toArray(new String[0]);
+    }
+
+    private boolean nameMatches(LazyParameter parameter, String name, boolean ascii) {
+        if (parameter.name == null && ascii && !parameter.decodeName && isAsciiCompatible(parameter.charset)) {
+            /*
+             * With these character sets an ASCII name can only be decoded from the same ASCII bytes so the bytes can
+             * be compared without decoding them.
+             */
+            int len = parameter.nameEnd - parameter.nameStart;
+            if (len != name.length()) {
+                return false;
+            }
+            byte[] bytes = parameter.bytes;
+            int start = parameter.nameStart;
+            for (int i = 0; i < len; i++) {
+                if (bytes[start + i] != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return getName(parameter).equals(name);
+    }
+
+    private String getName(LazyParameter parameter) {
+        if (parameter.name == null) {
+            parameter.name = decode(parameter.bytes, parameter.nameStart, parameter.nameEnd, parameter.decodeName,
+                    parameter.charset);
+        }
+        return parameter.name;
+    }
+
+    private String getValue(LazyParameter parameter) {
+        if (parameter.value == null) {
+            if (parameter.valueStart < 0) {
+                parameter.value = "";
+            } else {
+                parameter.value = decode(parameter.bytes, parameter.valueStart, parameter.valueEnd,
+                        parameter.decodeValue, parameter.charset);
+            }
+        }
+        return parameter.value;
+    }
+
+    private String decode(byte[] bytes, int start, int end, boolean urlDecode, Charset charset) {
+        tmpValue.setBytes(bytes, start, end - start);
+        try {
+            if (urlDecode) {
+                urlDecode(tmpValue);
+            }
+        } catch (IOException e) {
+            // Can't happen, as the encoding was checked when the parameter was added
+            log.error(sm.getString("parameters.decodeFail.lazy"), e);
+        }
+        tmpValue.setCharset(charset);
+        String result = tmpValue.toString();
+        tmpValue.recycle();
+        return result;
+    }
+
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1) ||
+                charset.equals(StandardCharsets.US_ASCII);
+    }
+
+
     /**
      * Debug purpose
      */
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
+        if (lazyDecoding) {
+            indexLazyParameters();
+            for (Map.Entry<String,LazyParameter> e : lazyIndex.entrySet()) {
+                sb.append(e.getKey()).append('=');
+                LazyParameter parameter = e.getValue();
+                while (parameter != null) {
+                    sb.append(getValue(parameter));
+                    parameter = parameter.next;
+                    if (parameter != null) {
+                        sb.append(',');
+                    }
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
         for (Map.Entry<String,ArrayList<String>> e : paramHashValues.entrySet()) {
             sb.append(e.getKey()).append('=');
             StringUtils.join(e.getValue(), ',', sb);
@@ -496,6 +782,33 @@ public final class Parameters {
     }
 
 
+    private static final class LazyParameter {
+        private byte[] bytes;
+        private int nameStart;
+        private int nameEnd;
+        private int valueStart;
+        private int valueEnd;
+        private boolean decodeName;
+        private boolean decodeValue;
+        private Charset charset;
+        // Set once decoded
+        private String name;
+        private String value;
+        // Other parameters with the same name, set once indexed
+        private LazyParameter next;
+        private LazyParameter last;
+
+        void recycle() {
+            bytes = null;
+            charset = null;
+            name = null;
+            value = null;
+            next = null;
+            last = null;
+        }
+    }
+
+
     public enum FailReason {
         CLIENT_DISCONNECT,
         MULTIPART_CONFIG_INVALID,
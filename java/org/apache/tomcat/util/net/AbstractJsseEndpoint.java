@@ -24,9 +24,12 @@ import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSessionContext;
 
 import org.apache.tomcat.util.compat.JreCompat;
 import org.apache.tomcat.util.net.openssl.ciphers.Cipher;
@@ -38,6 +41,8 @@ public abstract class AbstractJsseEndpoint<S,U> extends AbstractEndpoint<S,U> {
 
     private SSLImplementation sslImplementation = null;
 
+    private volatile ScheduledFuture<?> sessionTicketKeyFuture = null;
+
     public String getSslImplementationName() {
         return sslImplementationName;
     }
@@ -120,6 +125,117 @@ public abstract class AbstractJsseEndpoint<S,U> extends AbstractEndpoint<S,U> {
 
             logCertificate(certificate);
         }
+
+        if (sslHostConfig.getSessionTicketKeyFile() != null) {
+            sslHostConfig.setSessionTicketKeys(new SessionTicketKeys(sslHostConfig.getSessionTicketKeyFile(),
+                    sslHostConfig.getSessionTicketKeyRotation()));
+            try {
+                updateSessionTicketKeys(sslHostConfig);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        } else {
+            sslHostConfig.setSessionTicketKeys(null);
+        }
+    }
+
+
+    /**
+     * Reload the session ticket keys of the given TLS virtual host, if
+     * configured, and pass any new keys to the TLS implementation.
+     *
+     * @param sslHostConfig The TLS virtual host
+     *
+     * @throws IOException if the keys cannot be loaded
+     */
+    protected void updateSessionTicketKeys(SSLHostConfig sslHostConfig) throws IOException {
+        SessionTicketKeys sessionTicketKeys = sslHostConfig.getSessionTicketKeys();
+        if (sessionTicketKeys == null) {
+            return;
+        }
+        byte[] keys = sessionTicketKeys.refresh(System.currentTimeMillis());
+        if (keys == null) {
+            return;
+        }
+        for (SSLHostConfigCertificate certificate : sslHostConfig.getCertificates(true)) {
+            SSLContext sslContext = certificate.getSslContext();
+            if (sslContext == null) {
+                continue;
+            }
+            SSLSessionContext sessionContext = sslContext.getServerSessionContext();
+            if (sessionContext instanceof SSLUtil.SessionTicketKeySupport) {
+                ((SSLUtil.SessionTicketKeySupport) sessionContext).setTicketKeys(keys);
+            } else {
+                getLog().warn(sm.getString("sessionTicketKeys.notSupported", sslHostConfig.getHostName()));
+            }
+        }
+    }
+
+
+    /**
+     * Start the periodic reloading of the session ticket keys. The keys are
+     * checked every minute or, if shorter, every rotation interval.
+     */
+    protected void startSessionTicketKeyMonitor() {
+        if (!isSSLEnabled()) {
+            return;
+        }
+        long delay = 60;
+        boolean configured = false;
+        for (SSLHostConfig sslHostConfig : sslHostConfigs.values()) {
+            if (sslHostConfig.getSessionTicketKeyFile() != null) {
+                configured = true;
+                if (sslHostConfig.getSessionTicketKeyRotation() > 0) {
+                    delay = Math.min(delay, sslHostConfig.getSessionTicketKeyRotation());
+                }
+            }
+        }
+        if (configured) {
+            sessionTicketKeyFuture = getUtilityExecutor().scheduleWithFixedDelay(
+                    this::updateSessionTicketKeys, delay, delay, TimeUnit.SECONDS);
+        }
+    }
+
+
+    protected void stopSessionTicketKeyMonitor() {
+        ScheduledFuture<?> future = sessionTicketKeyFuture;
+        if (future != null) {
+            future.cancel(false);
+            sessionTicketKeyFuture = null;
+        }
+    }
+
+
+    private void updateSessionTicketKeys() {
+        for (SSLHostConfig sslHostConfig : sslHostConfigs.values()) {
+            try {
+                updateSessionTicketKeys(sslHostConfig);
+            } catch (Exception e) {
+                getLog().warn(sm.getString("sessionTicketKeys.refreshFailed", sslHostConfig.getHostName()), e);
+            }
+        }
+    }
+
+
+    /**
+     * Record the completion of a TLS handshake in the statistics of the TLS
+     * virtual host used for the connection.
+     *
+     * @param sniHostName        The SNI host name used to select the TLS
+     *                           virtual host
+     * @param engine             The engine that completed the handshake
+     * @param handshakeStartTime The time, in milliseconds, at which the
+     *                           handshake started
+     */
+    protected void handshakeCompleted(String sniHostName, SSLEngine engine, long handshakeStartTime) {
+        boolean resumed;
+        if (engine instanceof SSLUtil.SessionResumptionInfo) {
+            resumed = ((SSLUtil.SessionResumptionInfo) engine).isSessionResumed();
+        } else {
+            // A resumed session was created before this handshake started
+            resumed = engine.getSession().getCreationTime() < handshakeStartTime;
+        }
+        getSSLHostConfig(sniHostName).handshakeCompleted(resumed);
     }
 
 
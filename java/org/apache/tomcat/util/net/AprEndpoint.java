@@ -2529,12 +2529,25 @@ public class AprEndpoint extends AbstractEndpoint<Long,Long> implements SNICallB
                     if (thisTime > 0) {
                         sslOutputBuffer.position(sslOutputBuffer.position() + thisTime);
                     }
-                } else {
+                } else if (from.isDirect()) {
                     thisTime = Socket.sendb(getSocket().longValue(), from, from.position(),
                             from.remaining());
                     if (thisTime > 0) {
                         from.position(from.position() + thisTime);
                     }
+                } else {
+                    // Heap buffers may be passed via doWrite(boolean, ByteBuffer[])
+                    if (from.hasArray()) {
+                        thisTime = Socket.send(getSocket().longValue(), from.array(),
+                                from.arrayOffset() + from.position(), from.remaining());
+                    } else {
+                        byte[] bytes = new byte[from.remaining()];
+                        from.duplicate().get(bytes);
+                        thisTime = Socket.send(getSocket().longValue(), bytes, 0, bytes.length);
+                    }
+                    if (thisTime > 0) {
+                        from.position(from.position() + thisTime);
+                    }
                 }
                 if (Status.APR_STATUS_IS_EAGAIN(-thisTime)) {
                     thisTime = 0;
@@ -29,8 +29,10 @@ import java.nio.channels.AsynchronousServerSocketChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
 import java.nio.channels.FileChannel;
+import java.nio.channels.InterruptedByTimeoutException;
 import java.nio.channels.NetworkChannel;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -176,6 +178,7 @@ public class Nio2Endpoint extends AbstractJsseEndpoint<Nio2Channel,AsynchronousS
 
             initializeConnectionLatch();
             startAcceptorThread();
+            startSessionTicketKeyMonitor();
         }
     }
 
@@ -210,6 +213,7 @@ public class Nio2Endpoint extends AbstractJsseEndpoint<Nio2Channel,AsynchronousS
         }
         if (running) {
             running = false;
+            stopSessionTicketKeyMonitor();
             acceptor.stopMillis(10);
             // Use the executor to avoid binding the main thread if something bad
             // occurs and unbind will also wait for a bit for it to complete
@@ -518,6 +522,18 @@ public class Nio2Endpoint extends AbstractJsseEndpoint<Nio2Channel,AsynchronousS
 
     public static class Nio2SocketWrapper extends SocketWrapperBase<Nio2Channel> {
 
+        private static final CompletionHandler<Long, CompletableFuture<Long>> blockingGatheringWriteCompletionHandler =
+                new CompletionHandler<Long, CompletableFuture<Long>>() {
+            @Override
+            public void completed(Long nBytes, CompletableFuture<Long> attachment) {
+                attachment.complete(nBytes);
+            }
+            @Override
+            public void failed(Throwable exc, CompletableFuture<Long> attachment) {
+                attachment.completeExceptionally(exc);
+            }
+        };
+
         private final SynchronizedStack<Nio2Channel> nioChannels;
 
         private SendfileData sendfileData = null;
@@ -1227,6 +1243,42 @@ public class Nio2Endpoint extends AbstractJsseEndpoint<Nio2Channel,AsynchronousS
         }
 
 
+        /**
+         * {@inheritDoc}
+         * <p>
+         * Overridden for NIO2 since the data has to be copied to the socket
+         * write buffer and the non-blocking write buffer before the
+         * asynchronous write starts. All the data is then written with a
+         * single gathering write.
+         */
+        @Override
+        protected void writeNonBlocking(ByteBuffer[] from) throws IOException {
+            synchronized (writeCompletionHandler) {
+                checkError();
+                if (writeNotify || writePending.tryAcquire()) {
+                    // No pending completion handler, so writing to the main buffer
+                    // is possible
+                    socketBufferHandler.configureWriteBufferForWrite();
+                    for (ByteBuffer buffer : from) {
+                        // Once the main buffer is full, nothing more is transferred
+                        transfer(buffer, socketBufferHandler.getWriteBuffer());
+                        if (buffer.remaining() > 0) {
+                            // Remaining data must be buffered
+                            nonBlockingWriteBuffer.add(buffer);
+                        }
+                    }
+                    flushNonBlockingInternal(true);
+                } else {
+                    for (ByteBuffer buffer : from) {
+                        if (buffer.remaining() > 0) {
+                            nonBlockingWriteBuffer.add(buffer);
+                        }
+                    }
+                }
+            }
+        }
+
+
         /**
          * {@inheritDoc}
          * <p>
@@ -1299,6 +1351,41 @@ public class Nio2Endpoint extends AbstractJsseEndpoint<Nio2Channel,AsynchronousS
         }
 
 
+        /**
+         * @param block Ignored since this method is only called in the
+         *              blocking case
+         */
+        @Override
+        protected void doWrite(boolean block, ByteBuffer[] from) throws IOException {
+            try {
+                do {
+                    CompletableFuture<Long> nBytes = new CompletableFuture<>();
+                    getSocket().write(from, 0, from.length, toTimeout(getWriteTimeout()), TimeUnit.MILLISECONDS,
+                            nBytes, blockingGatheringWriteCompletionHandler);
+                    if (nBytes.get().longValue() < 0) {
+                        throw new EOFException(sm.getString("iob.failedwrite"));
+                    }
+                } while (buffersArrayHasRemaining(from, 0, from.length));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof InterruptedByTimeoutException) {
+                    throw new SocketTimeoutException();
+                } else if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else {
+                    throw new IOException(e);
+                }
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+
+        @Override
+        protected boolean isGatheringWritePreferred() {
+            return true;
+        }
+
+
         @Override
         protected void flushBlocking() throws IOException {
             checkError();
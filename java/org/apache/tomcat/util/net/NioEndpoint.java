@@ -103,6 +103,12 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
      */
     private SynchronizedStack<NioChannel> nioChannels;
 
+    /**
+     * Pool of application buffers shared by the connections when the buffers of
+     * idle connections are released
+     */
+    private volatile SocketBufferPool socketBufferPool;
+
     private SocketAddress previousAcceptedSocketRemoteAddress = null;
     private long previousAcceptedSocketNanoTime = 0;
 
@@ -201,6 +207,70 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
     }
 
 
+    /**
+     * Number of application buffers held by the pool of buffers released by
+     * idle connections.
+     *
+     * @return The number of pooled buffers or -1 if the buffers of idle
+     *         connections are not released
+     */
+    public int getPooledSocketBufferCount() {
+        SocketBufferPool socketBufferPool = this.socketBufferPool;
+        if (socketBufferPool == null) {
+            return -1;
+        }
+        return socketBufferPool.getPooledCount();
+    }
+
+
+    /**
+     * Total size of the application buffers held by the pool of buffers
+     * released by idle connections.
+     *
+     * @return The size in bytes of the pooled buffers or -1 if the buffers of
+     *         idle connections are not released
+     */
+    public long getPooledSocketBufferBytes() {
+        SocketBufferPool socketBufferPool = this.socketBufferPool;
+        if (socketBufferPool == null) {
+            return -1;
+        }
+        return socketBufferPool.getPooledBytes();
+    }
+
+
+    /**
+     * Number of application buffers currently held by connections when the
+     * buffers of idle connections are released.
+     *
+     * @return The number of buffers in use or -1 if the buffers of idle
+     *         connections are not released
+     */
+    public int getAcquiredSocketBufferCount() {
+        SocketBufferPool socketBufferPool = this.socketBufferPool;
+        if (socketBufferPool == null) {
+            return -1;
+        }
+        return socketBufferPool.getAcquiredCount();
+    }
+
+
+    /**
+     * Total size of the application buffers currently held by connections when
+     * the buffers of idle connections are released.
+     *
+     * @return The size in bytes of the buffers in use or -1 if the buffers of
+     *         idle connections are not released
+     */
+    public long getAcquiredSocketBufferBytes() {
+        SocketBufferPool socketBufferPool = this.socketBufferPool;
+        if (socketBufferPool == null) {
+            return -1;
+        }
+        return socketBufferPool.getAcquiredBytes();
+    }
+
+
     @Override
     public String getId() {
         if (getUseInheritedChannel()) {
@@ -293,6 +363,12 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                 nioChannels = new SynchronizedStack<>(SynchronizedStack.DEFAULT_SIZE,
                         socketProperties.getBufferPool());
             }
+            if (socketProperties.getReleaseIdleBuffers()) {
+                socketBufferPool = new SocketBufferPool(socketProperties.getDirectBuffer(),
+                        socketProperties.getBufferPoolSize());
+            } else {
+                socketBufferPool = null;
+            }
 
             // Create worker collection
             if (getExecutor() == null) {
@@ -309,6 +385,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
             pollerThread.start();
 
             startAcceptorThread();
+            startSessionTicketKeyMonitor();
         }
     }
 
@@ -323,6 +400,7 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
         }
         if (running) {
             running = false;
+            stopSessionTicketKeyMonitor();
             /*
              * Need to wait for the acceptor to unlock but not too long. 100ms plus twice the unlock timeout should be
              * plenty of time for the acceptor to unlock without being an excessively long wait if the unlock fails.
@@ -352,6 +430,9 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                 }
                 nioChannels = null;
             }
+            if (socketBufferPool != null) {
+                socketBufferPool.clear();
+            }
             if (processorCache != null) {
                 processorCache.clear();
                 processorCache = null;
@@ -478,10 +559,19 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                 channel = nioChannels.pop();
             }
             if (channel == null) {
-                SocketBufferHandler bufhandler = new SocketBufferHandler(
-                        socketProperties.getAppReadBufSize(),
-                        socketProperties.getAppWriteBufSize(),
-                        socketProperties.getDirectBuffer());
+                SocketBufferPool socketBufferPool = this.socketBufferPool;
+                SocketBufferHandler bufhandler;
+                if (socketBufferPool == null) {
+                    bufhandler = new SocketBufferHandler(
+                            socketProperties.getAppReadBufSize(),
+                            socketProperties.getAppWriteBufSize(),
+                            socketProperties.getDirectBuffer());
+                } else {
+                    bufhandler = new SocketBufferHandler(
+                            socketProperties.getAppReadBufSize(),
+                            socketProperties.getAppWriteBufSize(),
+                            socketBufferPool);
+                }
                 if (isSSLEnabled()) {
                     channel = new SecureNioChannel(bufhandler, this);
                 } else {
@@ -933,7 +1023,9 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                 // Configure output channel
                 sc = socketWrapper.getSocket();
                 // TLS/SSL channel is slightly different
-                WritableByteChannel wc = ((sc instanceof SecureNioChannel) ? sc : sc.getIOChannel());
+                // unless the kernel is encrypting the outgoing records
+                WritableByteChannel wc = ((sc instanceof SecureNioChannel && !((SecureNioChannel) sc).isKernelTls()) ?
+                        sc : sc.getIOChannel());
 
                 // We still have data in the buffer
                 if (sc.getOutboundRemaining() > 0) {
@@ -1263,6 +1355,8 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                     getSocket().close(true);
                 }
                 if (getEndpoint().running) {
+                    // Return any pooled buffers while the channel is cached
+                    getSocket().getBufHandler().reset();
                     if (nioChannels == null || !nioChannels.push(getSocket())) {
                         getSocket().free();
                     }
@@ -1389,7 +1483,28 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
 
         @Override
         protected void doWrite(boolean block, ByteBuffer buffer) throws IOException {
-            int n;
+            doWrite(block, buffer, null);
+        }
+
+
+        @Override
+        protected void doWrite(boolean block, ByteBuffer[] buffers) throws IOException {
+            doWrite(block, null, buffers);
+        }
+
+
+        @Override
+        protected boolean isGatheringWritePreferred() {
+            return true;
+        }
+
+
+        /*
+         * Writes either the single buffer or, if it is null, the array of
+         * buffers using a gathering write.
+         */
+        private void doWrite(boolean block, ByteBuffer buffer, ByteBuffer[] buffers) throws IOException {
+            long n;
             if (getSocket() == NioChannel.CLOSED_NIO_CHANNEL) {
                 throw new ClosedChannelException();
             }
@@ -1426,12 +1541,12 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                         }
                     }
                     synchronized (writeLock) {
-                        n = getSocket().write(buffer);
+                        n = write(buffer, buffers);
                         // n == 0 could be an incomplete write, but it could also
                         // indicate that a previous incomplete write of the
                         // outbound buffer (for TLS) has now completed. Only
                         // block if there is still data to write.
-                        if (n == 0 && (buffer.hasRemaining() || getSocket().getOutboundRemaining() > 0)) {
+                        if (n == 0 && (hasRemaining(buffer, buffers) || getSocket().getOutboundRemaining() > 0)) {
                             // Ensure a spurious wake-up doesn't trigger a duplicate registration
                             if (!writeBlocking) {
                                 writeBlocking = true;
@@ -1453,11 +1568,11 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
                             startNanos = 0;
                         }
                     }
-                } while (buffer.hasRemaining() || getSocket().getOutboundRemaining() > 0);
+                } while (hasRemaining(buffer, buffers) || getSocket().getOutboundRemaining() > 0);
             } else {
                 do {
-                    n = getSocket().write(buffer);
-                } while (n > 0 && buffer.hasRemaining());
+                    n = write(buffer, buffers);
+                } while (n > 0 && hasRemaining(buffer, buffers));
                 // If there is data left in the buffer the socket will be registered for
                 // write further up the stack. This is to ensure the socket is only
                 // registered for write once as both container and user code can trigger
@@ -1467,6 +1582,24 @@ public class NioEndpoint extends AbstractJsseEndpoint<NioChannel,SocketChannel>
         }
 
 
+        private long write(ByteBuffer buffer, ByteBuffer[] buffers) throws IOException {
+            if (buffers == null) {
+                return getSocket().write(buffer);
+            } else {
+                return getSocket().write(buffers);
+            }
+        }
+
+
+        private boolean hasRemaining(ByteBuffer buffer, ByteBuffer[] buffers) {
+            if (buffers == null) {
+                return buffer.hasRemaining();
+            } else {
+                return buffersArrayHasRemaining(buffers, 0, buffers.length);
+            }
+        }
+
+
         @Override
         public void registerReadInterest() {
             if (log.isTraceEnabled()) {
@@ -29,6 +29,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.management.ObjectName;
 import javax.net.ssl.KeyManagerFactory;
@@ -87,6 +88,9 @@ public class SSLHostConfig implements Serializable {
     private String[] enabledCiphers;
     private String[] enabledProtocols;
     private ObjectName oname;
+    private transient volatile SessionTicketKeys sessionTicketKeys = null;
+    private final LongAdder fullHandshakeCount = new LongAdder();
+    private final LongAdder resumedHandshakeCount = new LongAdder();
     // Need to know if TLS 1.3 has been explicitly requested as a warning needs
     // to generated if it is explicitly requested for a JVM that does not
     // support it. Uses a set so it is extensible for TLS 1.4 etc.
@@ -126,7 +130,10 @@ public class SSLHostConfig implements Serializable {
     private boolean disableCompression = true;
     private boolean disableSessionTickets = false;
     private boolean insecureRenegotiation = false;
+    private boolean kernelTls = false;
     private OpenSSLConf openSslConf = null;
+    private String sessionTicketKeyFile = null;
+    private int sessionTicketKeyRotation = 0;
 
     public SSLHostConfig() {
         // Set defaults that can't be (easily) set when defining the fields.
@@ -233,6 +240,52 @@ public class SSLHostConfig implements Serializable {
     }
 
 
+    SessionTicketKeys getSessionTicketKeys() {
+        return sessionTicketKeys;
+    }
+
+
+    void setSessionTicketKeys(SessionTicketKeys sessionTicketKeys) {
+        this.sessionTicketKeys = sessionTicketKeys;
+    }
+
+
+    /**
+     * @return The number of TLS handshakes for this virtual host that
+     *         established a new session
+     */
+    public long getFullHandshakeCount() {
+        return fullHandshakeCount.sum();
+    }
+
+
+    /**
+     * @return The number of TLS handshakes for this virtual host that resumed
+     *         an existing session
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakeCount.sum();
+    }
+
+
+    /**
+     * Reset the full and resumed handshake counters.
+     */
+    public void resetHandshakeCounts() {
+        fullHandshakeCount.reset();
+        resumedHandshakeCount.reset();
+    }
+
+
+    void handshakeCompleted(boolean resumed) {
+        if (resumed) {
+            resumedHandshakeCount.increment();
+        } else {
+            fullHandshakeCount.increment();
+        }
+    }
+
+
     // ------------------------------------------- Nested configuration elements
 
     private void registerDefaultCertificate() {
@@ -994,6 +1047,39 @@ public class SSLHostConfig implements Serializable {
     }
 
 
+    public void setKernelTls(boolean kernelTls) {
+        setProperty("kernelTls", Type.OPENSSL);
+        this.kernelTls = kernelTls;
+    }
+
+
+    public boolean getKernelTls() {
+        return kernelTls;
+    }
+
+
+    public void setSessionTicketKeyFile(String sessionTicketKeyFile) {
+        setProperty("sessionTicketKeyFile", Type.OPENSSL);
+        this.sessionTicketKeyFile = sessionTicketKeyFile;
+    }
+
+
+    public String getSessionTicketKeyFile() {
+        return sessionTicketKeyFile;
+    }
+
+
+    public void setSessionTicketKeyRotation(int sessionTicketKeyRotation) {
+        setProperty("sessionTicketKeyRotation", Type.OPENSSL);
+        this.sessionTicketKeyRotation = sessionTicketKeyRotation;
+    }
+
+
+    public int getSessionTicketKeyRotation() {
+        return sessionTicketKeyRotation;
+    }
+
+
     // --------------------------------------------------------- Support methods
 
     public Set<X509Certificate> certificatesExpiringBefore(Date date) {
@@ -16,9 +16,11 @@
  */
 package org.apache.tomcat.util.net;
 
+import java.nio.channels.SocketChannel;
 import java.util.List;
 
 import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509KeyManager;
@@ -97,4 +99,66 @@ public interface SSLUtil {
          */
         String getNegotiatedProtocol();
     }
+
+    /**
+     * Optional interface that can be implemented by
+     * {@link javax.net.ssl.SSLEngine}s to indicate that they can hand the
+     * encryption of outgoing TLS records over to the operating system kernel
+     * once the handshake has completed.
+     */
+    interface KernelTlsOffload {
+        /**
+         * Prepare the hand over of the outgoing traffic. This may generate
+         * additional TLS records that must be wrapped and written to the
+         * network before calling {@link #enableKernelTls(SocketChannel)}.
+         *
+         * @return {@code true} if the outgoing traffic may be handed over
+         *         once any pending records have been written
+         *
+         * @throws SSLException if an error occurs
+         */
+        boolean prepareKernelTls() throws SSLException;
+
+        /**
+         * Hand the encryption of outgoing TLS records over to the kernel. If
+         * this is successful, application data must be written directly to
+         * the socket and this engine must no longer be used to wrap data.
+         *
+         * @param channel The channel for the underlying socket
+         *
+         * @return {@code true} if the kernel now encrypts outgoing records,
+         *         {@code false} if this engine must continue to be used
+         */
+        boolean enableKernelTls(SocketChannel channel);
+    }
+
+    /**
+     * Optional interface that can be implemented by
+     * {@link javax.net.ssl.SSLEngine}s to indicate whether the handshake
+     * resumed a previously established TLS session.
+     */
+    interface SessionResumptionInfo {
+        /**
+         * @return {@code true} if the completed handshake resumed an existing
+         *         session rather than performing a full handshake
+         */
+        boolean isSessionResumed();
+    }
+
+    /**
+     * Optional interface that can be implemented by
+     * {@link SSLSessionContext}s to indicate that the keys used to protect
+     * TLS session tickets can be configured.
+     */
+    interface SessionTicketKeySupport {
+        /**
+         * Sets the keys used to protect TLS session tickets. Each key is 48
+         * bytes long and is formed of a 16 byte name, a 16 byte HMAC secret
+         * and a 16 byte AES key. The first key is used to issue new tickets
+         * and all of the keys are accepted when a session is resumed.
+         *
+         * @param keys The session ticket keys
+         */
+        void setTicketKeys(byte[] keys);
+    }
 }
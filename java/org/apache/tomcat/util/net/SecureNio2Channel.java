@@ -74,6 +74,10 @@ public class SecureNio2Channel extends Nio2Channel  {
     private final AtomicInteger handshakeWrapQueueLength = new AtomicInteger();
     private volatile HandshakeStatus handshakeStatus; //gets set by handshake
 
+    // Used to record the outcome of the initial handshake
+    private volatile String sniHostName = null;
+    private volatile long handshakeStartTime = 0;
+
     protected boolean closed;
     protected boolean closing;
 
@@ -141,6 +145,8 @@ public class SecureNio2Channel extends Nio2Channel  {
         handshakeComplete = false;
         handshakeWrapQueueLength.set(0);
         unwrapBeforeRead = true;
+        sniHostName = null;
+        handshakeStartTime = 0;
         closed = false;
         closing = false;
         netInBuffer.clear();
@@ -260,6 +266,10 @@ public class SecureNio2Channel extends Nio2Channel  {
                                     JreCompat.getInstance().getApplicationProtocol(sslEngine));
                         }
                     }
+                    if (handshakeStartTime > 0) {
+                        endpoint.handshakeCompleted(sniHostName, sslEngine, handshakeStartTime);
+                        handshakeStartTime = 0;
+                    }
                     //we are complete if we have delivered the last package
                     handshakeComplete = !netOutBuffer.hasRemaining();
                     //return 0 if we are complete, otherwise we still have data to write
@@ -437,6 +447,8 @@ public class SecureNio2Channel extends Nio2Channel  {
 
         sslEngine = endpoint.createSSLEngine(hostName, clientRequestedCiphers,
                 clientRequestedApplicationProtocols);
+        sniHostName = hostName;
+        handshakeStartTime = System.currentTimeMillis();
 
         // Populate additional TLS attributes obtained from the handshake that
         // aren't available from the session
@@ -72,6 +72,18 @@ public class SecureNioChannel extends NioChannel {
     protected boolean closed = false;
     protected boolean closing = false;
 
+    /*
+     * Outgoing records are encrypted by the kernel so application data is
+     * written directly to the socket.
+     */
+    protected boolean kernelTls = false;
+    private boolean kernelTlsChecked = false;
+    private boolean kernelTlsPending = false;
+
+    // Used to record the outcome of the initial handshake
+    private String sniHostName = null;
+    private long handshakeStartTime = 0;
+
     private final Map<String,List<String>> additionalTlsAttributes = new HashMap<>();
 
     public SecureNioChannel(SocketBufferHandler bufHandler, NioEndpoint endpoint) {
@@ -97,6 +109,11 @@ public class SecureNioChannel extends NioChannel {
         handshakeComplete = false;
         closed = false;
         closing = false;
+        kernelTls = false;
+        kernelTlsChecked = false;
+        kernelTlsPending = false;
+        sniHostName = null;
+        handshakeStartTime = 0;
         netInBuffer.clear();
     }
 
@@ -181,8 +198,22 @@ public class SecureNioChannel extends NioChannel {
                                     JreCompat.getInstance().getApplicationProtocol(sslEngine));
                         }
                     }
+                    if (handshakeStartTime > 0) {
+                        endpoint.handshakeCompleted(sniHostName, sslEngine, handshakeStartTime);
+                        handshakeStartTime = 0;
+                    }
+                    if (!kernelTlsChecked) {
+                        kernelTlsChecked = true;
+                        kernelTlsPending = prepareKernelTls();
+                    }
                     //we are complete if we have delivered the last package
                     handshakeComplete = !netOutBuffer.hasRemaining();
+                    if (handshakeComplete && kernelTlsPending) {
+                        // Everything written with the engine's keys is now on
+                        // the network so the kernel can take over
+                        kernelTlsPending = false;
+                        kernelTls = ((SSLUtil.KernelTlsOffload) sslEngine).enableKernelTls(sc);
+                    }
                     //return 0 if we are complete, otherwise we still have data to write
                     return handshakeComplete ? 0 : SelectionKey.OP_WRITE;
                 case NEED_WRAP:
@@ -237,6 +268,31 @@ public class SecureNioChannel extends NioChannel {
     }
 
 
+    /*
+     * Prepares the hand over of outgoing TLS records to the kernel if the
+     * engine supports it. Any records generated as part of the preparation are
+     * added to the network output buffer and must be written before the hand
+     * over is completed.
+     *
+     * @return true if the hand over should be completed once the network
+     *         output buffer has been written
+     */
+    private boolean prepareKernelTls() throws IOException {
+        if (!(sslEngine instanceof SSLUtil.KernelTlsOffload) ||
+                !((SSLUtil.KernelTlsOffload) sslEngine).prepareKernelTls()) {
+            return false;
+        }
+        netOutBuffer.compact();
+        SSLEngineResult result = sslEngine.wrap(getEmptyBuf(), netOutBuffer);
+        netOutBuffer.flip();
+        if (result.getStatus() != Status.OK) {
+            throw new IOException(sm.getString("channel.nio.ssl.unexpectedStatusDuringWrap", result.getStatus()));
+        }
+        flush(netOutBuffer);
+        return true;
+    }
+
+
     /*
      * Peeks at the initial network bytes to determine if the SNI extension is
      * present and, if it is, what host name has been requested. Based on the
@@ -308,6 +364,8 @@ public class SecureNioChannel extends NioChannel {
 
         sslEngine = endpoint.createSSLEngine(hostName, clientRequestedCiphers,
                 clientRequestedApplicationProtocols);
+        sniHostName = hostName;
+        handshakeStartTime = System.currentTimeMillis();
 
         // Populate additional TLS attributes obtained from the handshake that
         // aren't available from the session
@@ -349,6 +407,10 @@ public class SecureNioChannel extends NioChannel {
      */
     @SuppressWarnings("null") // key cannot be null
     public void rehandshake(long timeout) throws IOException {
+        if (kernelTls) {
+            // The engine can no longer send the handshake messages
+            throw new IOException(sm.getString("channel.nio.ssl.kernelTlsRehandshake"));
+        }
         //validate the network buffers are empty
         if (netInBuffer.position() > 0 && netInBuffer.position() < netInBuffer.limit()) {
             throw new IOException(sm.getString("channel.nio.ssl.netInputNotEmpty"));
@@ -531,6 +593,13 @@ public class SecureNioChannel extends NioChannel {
             closed = true;
             return;
         }
+        if (kernelTls) {
+            // The engine no longer has the current keys so the close_notify
+            // alert cannot be sent
+            sslEngine.closeOutbound();
+            closed = true;
+            return;
+        }
         sslEngine.closeOutbound();
 
         if (!flush(netOutBuffer)) {
@@ -816,6 +885,10 @@ public class SecureNioChannel extends NioChannel {
                 return 0;
             }
 
+            if (kernelTls) {
+                return sc.write(src);
+            }
+
             if (!src.hasRemaining()) {
                 // Nothing left to write
                 return 0;
@@ -860,6 +933,10 @@ public class SecureNioChannel extends NioChannel {
             return 0;
         }
 
+        if (kernelTls) {
+            return sc.write(srcs, offset, length);
+        }
+
         // The data buffer is empty, we can reuse the entire buffer.
         netOutBuffer.clear();
 
@@ -905,6 +982,14 @@ public class SecureNioChannel extends NioChannel {
         return closing;
     }
 
+    /**
+     * @return {@code true} if outgoing TLS records are encrypted by the kernel
+     *         so data may be written directly to the underlying socket
+     */
+    public boolean isKernelTls() {
+        return kernelTls;
+    }
+
     public SSLEngine getSslEngine() {
         return sslEngine;
     }
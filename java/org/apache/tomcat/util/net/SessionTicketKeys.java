@@ -0,0 +1,161 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.tomcat.util.net;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.tomcat.util.res.StringManager;
+
+/**
+ * Loads the keys used to protect TLS session tickets from a file, or a directory of files, that is shared by all the
+ * nodes serving a virtual host so that a session established with one node can be resumed with any other node.
+ * <p>
+ * Each key is {@value #KEY_LENGTH} bytes long. The first key is used to issue new tickets and all of the keys are
+ * accepted when a session is resumed. The files in a directory are read in reverse name order so that, if the files
+ * are named after the time they were created, the newest key is used to issue tickets.
+ * <p>
+ * If a rotation interval is configured, the first key is used as a shared secret from which a new key is derived for
+ * each interval. The keys for the previous and the next interval are also accepted so the nodes do not need to switch
+ * keys at exactly the same time.
+ */
+final class SessionTicketKeys {
+
+    private static final StringManager sm = StringManager.getManager(SessionTicketKeys.class);
+
+    static final int KEY_LENGTH = 48;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] LABEL = "Tomcat session ticket key".getBytes(StandardCharsets.US_ASCII);
+
+    private final String path;
+    private final int rotation;
+
+    private long lastModified = -1;
+    private int fileCount = -1;
+    private byte[] loadedKeys = null;
+    private byte[] currentKeys = null;
+
+
+    SessionTicketKeys(String path, int rotation) {
+        this.path = path;
+        this.rotation = rotation;
+    }
+
+
+    /**
+     * Reload the keys if the configured files have changed and, if rotation is enabled, derive the keys for the
+     * current interval.
+     *
+     * @param now The current time in milliseconds
+     *
+     * @return The keys to use or {@code null} if the keys have not changed since the previous call
+     *
+     * @throws IOException if the keys cannot be loaded
+     */
+    synchronized byte[] refresh(long now) throws IOException {
+        File file = new File(SSLHostConfig.adjustRelativePath(path));
+        File[] files;
+        if (file.isDirectory()) {
+            files = file.listFiles(File::isFile);
+            if (files == null) {
+                throw new IOException(sm.getString("sessionTicketKeys.listFailed", file));
+            }
+            Arrays.sort(files, Collections.reverseOrder());
+        } else {
+            files = new File[] { file };
+        }
+
+        long modified = 0;
+        for (File f : files) {
+            modified = Math.max(modified, f.lastModified());
+        }
+        if (loadedKeys == null || modified != lastModified || files.length != fileCount) {
+            loadedKeys = load(file, files);
+            lastModified = modified;
+            fileCount = files.length;
+        }
+
+        byte[] keys;
+        if (rotation > 0) {
+            long interval = now / 1000 / rotation;
+            keys = new byte[3 * KEY_LENGTH];
+            derive(loadedKeys, interval, keys, 0);
+            derive(loadedKeys, interval - 1, keys, KEY_LENGTH);
+            derive(loadedKeys, interval + 1, keys, 2 * KEY_LENGTH);
+        } else {
+            keys = loadedKeys;
+        }
+
+        if (Arrays.equals(keys, currentKeys)) {
+            return null;
+        }
+        currentKeys = keys;
+        return keys.clone();
+    }
+
+
+    private static byte[] load(File source, File[] files) throws IOException {
+        ByteArrayOutputStream keys = new ByteArrayOutputStream();
+        for (File f : files) {
+            byte[] content = Files.readAllBytes(f.toPath());
+            if (content.length == 0 || content.length % KEY_LENGTH != 0) {
+                throw new IOException(sm.getString("sessionTicketKeys.invalidLength", f,
+                        Integer.valueOf(content.length), Integer.valueOf(KEY_LENGTH)));
+            }
+            keys.write(content);
+        }
+        if (keys.size() == 0) {
+            throw new IOException(sm.getString("sessionTicketKeys.noKeys", source));
+        }
+        return keys.toByteArray();
+    }
+
+
+    /*
+     * Derives the key for the given interval from the first key using HMAC-SHA256 in counter mode.
+     */
+    static void derive(byte[] secret, long interval, byte[] dest, int offset) throws IOException {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, 0, KEY_LENGTH, MAC_ALGORITHM));
+            byte[] intervalBytes = ByteBuffer.allocate(Long.BYTES).putLong(interval).array();
+            int pos = 0;
+            for (byte counter = 1; pos < KEY_LENGTH; counter++) {
+                mac.update(LABEL);
+                mac.update(intervalBytes);
+                mac.update(counter);
+                byte[] block = mac.doFinal();
+                int len = Math.min(block.length, KEY_LENGTH - pos);
+                System.arraycopy(block, 0, dest, offset + pos, len);
+                pos += len;
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -48,9 +48,20 @@ public class SocketBufferHandler {
 
     private final boolean direct;
 
+    /*
+     * When the buffers are pooled, they are only held while they are in use.
+     * The sizes are retained so buffers of the same size are acquired when the
+     * buffers are next used.
+     */
+    private final SocketBufferPool pool;
+    private volatile boolean released;
+    private int readBufferSize;
+    private int writeBufferSize;
+
     public SocketBufferHandler(int readBufferSize, int writeBufferSize,
             boolean direct) {
         this.direct = direct;
+        this.pool = null;
         if (direct) {
             readBuffer = ByteBuffer.allocateDirect(readBufferSize);
             writeBuffer = ByteBuffer.allocateDirect(writeBufferSize);
@@ -61,6 +72,25 @@ public class SocketBufferHandler {
     }
 
 
+    /**
+     * Create a handler that obtains its buffers from a pool. The buffers are
+     * acquired when they are first used and may be returned to the pool via
+     * {@link #release()} while the connection is idle.
+     *
+     * @param readBufferSize  The size of the read buffer
+     * @param writeBufferSize The size of the write buffer
+     * @param pool            The pool from which to obtain the buffers
+     */
+    public SocketBufferHandler(int readBufferSize, int writeBufferSize,
+            SocketBufferPool pool) {
+        this.direct = false;
+        this.pool = pool;
+        this.readBufferSize = readBufferSize;
+        this.writeBufferSize = writeBufferSize;
+        released = true;
+    }
+
+
     public void configureReadBufferForWrite() {
         setReadBufferConfiguredForWrite(true);
     }
@@ -72,6 +102,7 @@ public class SocketBufferHandler {
 
 
     private void setReadBufferConfiguredForWrite(boolean readBufferConFiguredForWrite) {
+        checkAcquired();
         // NO-OP if buffer is already in correct state
         if (this.readBufferConfiguredForWrite != readBufferConFiguredForWrite) {
             if (readBufferConFiguredForWrite) {
@@ -92,11 +123,15 @@ public class SocketBufferHandler {
 
 
     public ByteBuffer getReadBuffer() {
+        checkAcquired();
         return readBuffer;
     }
 
 
     public boolean isReadBufferEmpty() {
+        if (released) {
+            return true;
+        }
         if (readBufferConfiguredForWrite) {
             return readBuffer.position() == 0;
         } else {
@@ -106,6 +141,7 @@ public class SocketBufferHandler {
 
 
     public void unReadReadBuffer(ByteBuffer returnedData) {
+        checkAcquired();
         if (isReadBufferEmpty()) {
             configureReadBufferForWrite();
             readBuffer.put(returnedData);
@@ -165,6 +201,7 @@ public class SocketBufferHandler {
 
 
     private void setWriteBufferConfiguredForWrite(boolean writeBufferConfiguredForWrite) {
+        checkAcquired();
         // NO-OP if buffer is already in correct state
         if (this.writeBufferConfiguredForWrite != writeBufferConfiguredForWrite) {
             if (writeBufferConfiguredForWrite) {
@@ -187,6 +224,7 @@ public class SocketBufferHandler {
 
 
     public boolean isWriteBufferWritable() {
+        checkAcquired();
         if (writeBufferConfiguredForWrite) {
             return writeBuffer.hasRemaining();
         } else {
@@ -196,11 +234,15 @@ public class SocketBufferHandler {
 
 
     public ByteBuffer getWriteBuffer() {
+        checkAcquired();
         return writeBuffer;
     }
 
 
     public boolean isWriteBufferEmpty() {
+        if (released) {
+            return true;
+        }
         if (writeBufferConfiguredForWrite) {
             return writeBuffer.position() == 0;
         } else {
@@ -209,7 +251,14 @@ public class SocketBufferHandler {
     }
 
 
+    /**
+     * Clear the buffers. Pooled buffers are returned to the pool.
+     */
     public void reset() {
+        if (pool != null) {
+            releaseBuffers();
+            return;
+        }
         readBuffer.clear();
         readBufferConfiguredForWrite = true;
         writeBuffer.clear();
@@ -219,16 +268,87 @@ public class SocketBufferHandler {
 
     public void expand(int newSize) {
         configureReadBufferForWrite();
-        readBuffer = ByteBufferUtils.expand(readBuffer, newSize);
         configureWriteBufferForWrite();
-        writeBuffer = ByteBufferUtils.expand(writeBuffer, newSize);
+        if (pool == null) {
+            readBuffer = ByteBufferUtils.expand(readBuffer, newSize);
+            writeBuffer = ByteBufferUtils.expand(writeBuffer, newSize);
+        } else {
+            readBuffer = expandPooled(readBuffer, newSize);
+            readBufferSize = readBuffer.capacity();
+            writeBuffer = expandPooled(writeBuffer, newSize);
+            writeBufferSize = writeBuffer.capacity();
+        }
+    }
+
+
+    private ByteBuffer expandPooled(ByteBuffer in, int newSize) {
+        if (in.capacity() >= newSize) {
+            return in;
+        }
+        ByteBuffer out = pool.acquire(newSize);
+        in.flip();
+        out.put(in);
+        pool.release(in);
+        return out;
     }
 
+
     public void free() {
-        if (direct) {
+        if (pool != null) {
+            releaseBuffers();
+        } else if (direct) {
             ByteBufferUtils.cleanDirectBuffer(readBuffer);
             ByteBufferUtils.cleanDirectBuffer(writeBuffer);
         }
     }
 
+
+    /**
+     * Return pooled buffers to the pool if they do not contain any data. The
+     * buffers are acquired from the pool again when they are next used.
+     *
+     * @return <code>true</code> if the buffers are pooled and are not currently
+     *         held by this handler
+     */
+    public boolean release() {
+        if (pool == null) {
+            return false;
+        }
+        synchronized (this) {
+            if (!released && isReadBufferEmpty() && isWriteBufferEmpty()) {
+                releaseBuffers();
+            }
+            return released;
+        }
+    }
+
+
+    private synchronized void releaseBuffers() {
+        if (!released) {
+            released = true;
+            pool.release(readBuffer);
+            readBuffer = null;
+            pool.release(writeBuffer);
+            writeBuffer = null;
+        }
+    }
+
+
+    private void checkAcquired() {
+        if (released) {
+            acquireBuffers();
+        }
+    }
+
+
+    private synchronized void acquireBuffers() {
+        if (released) {
+            readBuffer = pool.acquire(readBufferSize);
+            readBufferConfiguredForWrite = true;
+            writeBuffer = pool.acquire(writeBufferSize);
+            writeBufferConfiguredForWrite = true;
+            released = false;
+        }
+    }
+
 }
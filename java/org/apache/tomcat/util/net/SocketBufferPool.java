@@ -0,0 +1,202 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.tomcat.util.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.tomcat.util.buf.ByteBufferUtils;
+import org.apache.tomcat.util.collections.SynchronizedStack;
+
+/**
+ * Pool of socket buffers shared by the connections of an endpoint. Connections acquire buffers from the pool when they
+ * need them and return them when they are idle so the buffer memory required depends on the number of active
+ * connections rather than the number of open connections.
+ * <p>
+ * Buffers are grouped in size classes where each class holds buffers with a capacity that is a power of two. A request
+ * for a buffer is satisfied by a buffer from the smallest class that is large enough. The total capacity of the
+ * buffers held by the pool is limited. Buffers returned when the pool is full are discarded.
+ */
+public class SocketBufferPool {
+
+    // 512 bytes
+    private static final int MIN_SIZE_CLASS = 9;
+    // 16MB
+    private static final int MAX_SIZE_CLASS = 24;
+
+    private final boolean direct;
+    private final long maxPooledBytes;
+    private final SynchronizedStack<ByteBuffer>[] sizeClasses;
+
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicInteger acquiredCount = new AtomicInteger();
+    private final AtomicLong acquiredBytes = new AtomicLong();
+
+
+    /**
+     * Create a pool of socket buffers.
+     *
+     * @param direct         Should the buffers be direct buffers?
+     * @param maxPooledBytes The maximum total capacity of the buffers held by the pool. -1 means unlimited and 0 means
+     *                           buffers are discarded rather than pooled.
+     */
+    public SocketBufferPool(boolean direct, long maxPooledBytes) {
+        this.direct = direct;
+        this.maxPooledBytes = maxPooledBytes;
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        SynchronizedStack<ByteBuffer>[] stacks = new SynchronizedStack[MAX_SIZE_CLASS + 1];
+        for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++) {
+            stacks[i] = new SynchronizedStack<>();
+        }
+        sizeClasses = stacks;
+    }
+
+
+    /**
+     * Obtain a buffer from the pool, allocating a new buffer if the pool does not hold a buffer of a suitable size.
+     *
+     * @param size The minimum capacity of the buffer
+     *
+     * @return A cleared buffer with a capacity of at least the requested size
+     */
+    public ByteBuffer acquire(int size) {
+        int sizeClass = getSizeClass(size);
+        ByteBuffer buffer = null;
+        if (sizeClass <= MAX_SIZE_CLASS) {
+            buffer = sizeClasses[sizeClass].pop();
+            if (buffer != null) {
+                pooledCount.decrementAndGet();
+                pooledBytes.addAndGet(-buffer.capacity());
+            } else {
+                buffer = allocate(1 << sizeClass);
+            }
+        } else {
+            // Too large to pool
+            buffer = allocate(size);
+        }
+        acquiredCount.incrementAndGet();
+        acquiredBytes.addAndGet(buffer.capacity());
+        return buffer;
+    }
+
+
+    /**
+     * Return a buffer obtained from {@link #acquire(int)} to the pool. The buffer must not be used once it has been
+     * returned.
+     *
+     * @param buffer The buffer to return
+     */
+    public void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        acquiredCount.decrementAndGet();
+        acquiredBytes.addAndGet(-capacity);
+
+        int sizeClass = getSizeClass(capacity);
+        if (sizeClass <= MAX_SIZE_CLASS && capacity == 1 << sizeClass && reserve(capacity)) {
+            buffer.clear();
+            if (sizeClasses[sizeClass].push(buffer)) {
+                pooledCount.incrementAndGet();
+                return;
+            }
+            pooledBytes.addAndGet(-capacity);
+        }
+        if (direct) {
+            ByteBufferUtils.cleanDirectBuffer(buffer);
+        }
+    }
+
+
+    /**
+     * Discard all the buffers held by the pool.
+     */
+    public void clear() {
+        for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++) {
+            ByteBuffer buffer;
+            while ((buffer = sizeClasses[i].pop()) != null) {
+                pooledCount.decrementAndGet();
+                pooledBytes.addAndGet(-buffer.capacity());
+                if (direct) {
+                    ByteBufferUtils.cleanDirectBuffer(buffer);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of buffers held by the pool
+     */
+    public int getPooledCount() {
+        return pooledCount.get();
+    }
+
+
+    /**
+     * @return the total capacity in bytes of the buffers held by the pool
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+
+    /**
+     * @return the number of buffers obtained from the pool that have not been returned
+     */
+    public int getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+
+    /**
+     * @return the total capacity in bytes of the buffers obtained from the pool that have not been returned
+     */
+    public long getAcquiredBytes() {
+        return acquiredBytes.get();
+    }
+
+
+    private boolean reserve(int capacity) {
+        if (maxPooledBytes < 0) {
+            pooledBytes.addAndGet(capacity);
+            return true;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return false;
+        }
+        return true;
+    }
+
+
+    private ByteBuffer allocate(int capacity) {
+        if (direct) {
+            return ByteBuffer.allocateDirect(capacity);
+        } else {
+            return ByteBuffer.allocate(capacity);
+        }
+    }
+
+
+    private static int getSizeClass(int size) {
+        if (size <= 1 << MIN_SIZE_CLASS) {
+            return MIN_SIZE_CLASS;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+}
@@ -124,6 +124,15 @@ public class SocketProperties {
      */
     protected int bufferPoolSize = 1024*1024*100;
 
+    /**
+     * Return the application buffers of idle connections to a pool shared by
+     * the connections of the endpoint, so that buffer memory depends on the
+     * number of active rather than open connections. The size of the pool is
+     * limited by bufferPoolSize.
+     * Default value is disabled
+     */
+    protected boolean releaseIdleBuffers = false;
+
     /**
      * TCP_NO_DELAY option. JVM default used if not set.
      */
@@ -351,6 +360,10 @@ public class SocketProperties {
         return bufferPoolSize;
     }
 
+    public boolean getReleaseIdleBuffers() {
+        return releaseIdleBuffers;
+    }
+
     public int getEventCache() {
         return eventCache;
     }
@@ -440,6 +453,10 @@ public class SocketProperties {
         this.bufferPoolSize = bufferPoolSize;
     }
 
+    public void setReleaseIdleBuffers(boolean releaseIdleBuffers) {
+        this.releaseIdleBuffers = releaseIdleBuffers;
+    }
+
     public void setEventCache(int eventCache) {
         this.eventCache = eventCache;
     }
@@ -44,6 +44,12 @@ public abstract class SocketWrapperBase<E> {
 
     protected static final StringManager sm = StringManager.getManager(SocketWrapperBase.class);
 
+    /*
+     * Heap ByteBuffers larger than this, and larger than the socket write
+     * buffer, are not included in gathering writes.
+     */
+    private static final int MAX_GATHERED_HEAP_BUFFER_SIZE = 64 * 1024;
+
     private E socket;
     private final AbstractEndpoint<E,?> endpoint;
     private final Lock lock = new ReentrantLock();
@@ -548,6 +554,35 @@ public abstract class SocketWrapperBase<E> {
     }
 
 
+    /**
+     * Writes the provided data to the socket, buffering any pending data as
+     * required. The data is written in the order it appears in the provided
+     * buffers. The outcome is the same as calling
+     * {@link #write(boolean, ByteBuffer)} for each buffer in turn but, where
+     * the endpoint prefers it, data that does not fit in the socket write
+     * buffer is written to the network together with the contents of the
+     * socket write buffer using a single gathering write rather than being
+     * copied to the socket write buffer in socket write buffer sized pieces.
+     *
+     * @param block  <code>true</code> if a blocking write should be used,
+     *               otherwise a non-blocking write will be used
+     * @param from   The ByteBuffers containing the data to be written
+     *
+     * @throws IOException If an IO error occurs during the write
+     */
+    public final void write(boolean block, ByteBuffer[] from) throws IOException {
+        if (from == null || !buffersArrayHasRemaining(from, 0, from.length)) {
+            return;
+        }
+
+        if (block) {
+            writeBlocking(from);
+        } else {
+            writeNonBlocking(from);
+        }
+    }
+
+
     /**
      * Writes the provided data to the socket write buffer. If the socket write
      * buffer fills during the write, the content of the socket write buffer is
@@ -587,6 +622,11 @@ public abstract class SocketWrapperBase<E> {
      * Depending on the size of the data to write, there may be multiple writes
      * to the network. On completion of this method there will always be space
      * remaining in the socket write buffer.
+     * <p>
+     * Once the socket write buffer has been written, any remaining data in a
+     * direct ByteBuffer that would fill it at least once more is written to the
+     * network directly from the provided ByteBuffer rather than being copied to
+     * the socket write buffer first.
      *
      * @param from The ByteBuffer containing the data to be written
      *
@@ -594,12 +634,50 @@ public abstract class SocketWrapperBase<E> {
      */
     protected void writeBlocking(ByteBuffer from) throws IOException {
         if (from.hasRemaining()) {
+            if (from.isDirect() && from.remaining() >= socketBufferHandler.getWriteBuffer().capacity() &&
+                    isGatheringWritePreferred()) {
+                // Write any pending data and the provided data together
+                doWrite(true, prependWriteBuffer(new ByteBuffer[] { from }));
+                return;
+            }
             socketBufferHandler.configureWriteBufferForWrite();
             transfer(from, socketBufferHandler.getWriteBuffer());
             while (from.hasRemaining()) {
                 doWrite(true);
-                socketBufferHandler.configureWriteBufferForWrite();
-                transfer(from, socketBufferHandler.getWriteBuffer());
+                if (from.isDirect() && from.remaining() >= socketBufferHandler.getWriteBuffer().capacity()) {
+                    /*
+                     * Not used for heap ByteBuffers since the JRE copies the
+                     * remaining contents of a heap ByteBuffer to a temporary
+                     * direct buffer on every write to the network.
+                     */
+                    doWrite(true, from);
+                } else {
+                    socketBufferHandler.configureWriteBufferForWrite();
+                    transfer(from, socketBufferHandler.getWriteBuffer());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Writes the provided data to the network. If the data fits in the socket
+     * write buffer, it is copied there. Otherwise, if the endpoint prefers
+     * gathering writes, the contents of the socket write buffer and the
+     * provided data are written using a blocking gathering write. If neither
+     * applies, each buffer is written in turn using
+     * {@link #writeBlocking(ByteBuffer)}.
+     *
+     * @param from The ByteBuffers containing the data to be written
+     *
+     * @throws IOException If an IO error occurs during the write
+     */
+    protected void writeBlocking(ByteBuffer[] from) throws IOException {
+        if (isGatheringWriteUseful(from)) {
+            doWrite(true, prependWriteBuffer(from));
+        } else {
+            for (ByteBuffer buffer : from) {
+                writeBlocking(buffer);
             }
         }
     }
@@ -681,6 +759,32 @@ public abstract class SocketWrapperBase<E> {
     }
 
 
+    /**
+     * Writes as much of the provided data as possible to the network without
+     * blocking and buffers the remainder. If the data does not fit in the
+     * socket write buffer and the endpoint prefers gathering writes, the
+     * contents of the socket write buffer and the provided data are written
+     * using a non-blocking gathering write. Any data that remains is then
+     * handled as if {@link #writeNonBlocking(ByteBuffer)} had been called for
+     * each buffer in turn.
+     *
+     * @param from The ByteBuffers containing the data to be written
+     *
+     * @throws IOException If an IO error occurs during the write
+     */
+    protected void writeNonBlocking(ByteBuffer[] from) throws IOException {
+        if (nonBlockingWriteBuffer.isEmpty() && socketBufferHandler.isWriteBufferWritable() &&
+                isGatheringWriteUseful(from)) {
+            doWrite(false, prependWriteBuffer(from));
+        }
+        for (ByteBuffer buffer : from) {
+            if (buffer.hasRemaining()) {
+                writeNonBlocking(buffer);
+            }
+        }
+    }
+
+
     /**
      * Separate method so it can be re-used by the socket write buffer to write
      * data to the network
@@ -790,11 +894,101 @@ public abstract class SocketWrapperBase<E> {
     protected abstract void doWrite(boolean block, ByteBuffer from) throws IOException;
 
 
+    /**
+     * Write the contents of the ByteBuffers, which may include heap
+     * ByteBuffers, to the socket in order. For blocking writes either then
+     * entire contents of the buffers will be written or an IOException will be
+     * thrown. Partial blocking writes will not occur. A non-blocking write
+     * never writes data from a buffer while data remains in an earlier buffer.
+     * <p>
+     * The default implementation writes each buffer in turn using
+     * {@link #doWrite(boolean, ByteBuffer)}. Endpoints that support gathering
+     * writes should override this method.
+     *
+     * @param block Should the write be blocking or not?
+     * @param from the ByteBuffers containing the data to be written
+     *
+     * @throws IOException If an I/O error such as a timeout occurs during the
+     *                     write
+     */
+    protected void doWrite(boolean block, ByteBuffer[] from) throws IOException {
+        for (ByteBuffer buffer : from) {
+            if (buffer.hasRemaining()) {
+                doWrite(block, buffer);
+                if (buffer.hasRemaining()) {
+                    // Non-blocking write that did not complete
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Is writing data from multiple ByteBuffers, including heap ByteBuffers,
+     * with a single call to {@link #doWrite(boolean, ByteBuffer[])} more
+     * efficient than writing the buffers individually? This is only a
+     * performance hint. {@link #doWrite(boolean, ByteBuffer[])} may be called
+     * regardless of the value returned.
+     *
+     * @return <code>true</code> if gathering writes are preferred, otherwise
+     *         <code>false</code>
+     */
+    protected boolean isGatheringWritePreferred() {
+        return false;
+    }
+
+
+    /*
+     * A gathering write is only used if the data will not fit in the socket
+     * write buffer. The JRE copies the remaining contents of a heap ByteBuffer
+     * to a temporary direct buffer on every write to the network so large heap
+     * ByteBuffers are copied to the socket write buffer in socket write buffer
+     * sized pieces instead.
+     */
+    private boolean isGatheringWriteUseful(ByteBuffer[] from) {
+        if (!isGatheringWritePreferred()) {
+            return false;
+        }
+        socketBufferHandler.configureWriteBufferForWrite();
+        int space = socketBufferHandler.getWriteBuffer().remaining();
+        int limit = Math.max(socketBufferHandler.getWriteBuffer().capacity(), MAX_GATHERED_HEAP_BUFFER_SIZE);
+        long remaining = 0;
+        for (ByteBuffer buffer : from) {
+            if (!buffer.isDirect() && buffer.remaining() > limit) {
+                return false;
+            }
+            remaining += buffer.remaining();
+        }
+        return remaining > space;
+    }
+
+
+    private ByteBuffer[] prependWriteBuffer(ByteBuffer[] from) {
+        socketBufferHandler.configureWriteBufferForRead();
+        ByteBuffer[] buffers = new ByteBuffer[from.length + 1];
+        buffers[0] = socketBufferHandler.getWriteBuffer();
+        System.arraycopy(from, 0, buffers, 1, from.length);
+        return buffers;
+    }
+
+
     public void processSocket(SocketEvent socketStatus, boolean dispatch) {
         endpoint.processSocket(this, socketStatus, dispatch);
     }
 
 
+    /**
+     * Called when the connection is idle between requests, before read interest
+     * is registered, to return any pooled socket buffers that do not contain
+     * data to the pool. The buffers are acquired again when the socket is next
+     * read or written.
+     */
+    public void releaseIdleBuffers() {
+        socketBufferHandler.release();
+    }
+
+
     public abstract void registerReadInterest();
 
     public abstract void registerWriteInterest();
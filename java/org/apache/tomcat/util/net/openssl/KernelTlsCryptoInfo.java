@@ -0,0 +1,158 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.tomcat.util.net.openssl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Builds the <code>tls12_crypto_info_aes_gcm_*</code> structures used to hand the transmit keys of a TLS 1.3
+ * connection to the Linux kernel (kTLS) from an application traffic secret. Only the AES-GCM cipher suites are
+ * supported.
+ */
+public final class KernelTlsCryptoInfo {
+
+    private static final int TLS_1_3_VERSION = 0x0304;
+    private static final int TLS_CIPHER_AES_GCM_128 = 51;
+    private static final int TLS_CIPHER_AES_GCM_256 = 52;
+
+    private static final int SALT_SIZE = 4;
+    private static final int IV_SIZE = 8;
+    private static final int REC_SEQ_SIZE = 8;
+
+    private KernelTlsCryptoInfo() {
+        // Utility class
+    }
+
+
+    /**
+     * @param cipherSuite The OpenSSL name of the negotiated cipher suite
+     *
+     * @return {@code true} if the kernel structure can be created for the given cipher suite
+     */
+    public static boolean isSupported(String cipherSuite) {
+        return "TLS_AES_128_GCM_SHA256".equals(cipherSuite) || "TLS_AES_256_GCM_SHA384".equals(cipherSuite);
+    }
+
+
+    /**
+     * Derive the next application traffic secret as used after a TLS 1.3 KeyUpdate (RFC 8446, section 7.2).
+     *
+     * @param cipherSuite The OpenSSL name of the negotiated cipher suite
+     * @param secret      The current application traffic secret
+     *
+     * @return the next application traffic secret
+     *
+     * @throws GeneralSecurityException if the required HMAC algorithm is not available
+     */
+    public static byte[] nextTrafficSecret(String cipherSuite, byte[] secret) throws GeneralSecurityException {
+        return expandLabel(getMacAlgorithm(cipherSuite), secret, "traffic upd", secret.length);
+    }
+
+
+    /**
+     * Create the kernel structure for the transmit direction from an application traffic secret.
+     *
+     * @param cipherSuite    The OpenSSL name of the negotiated cipher suite
+     * @param secret         The application traffic secret
+     * @param recordSequence The sequence number of the next record to be sent with the keys derived from the secret
+     *
+     * @return the structure to pass to <code>setsockopt(SOL_TLS, TLS_TX)</code>
+     *
+     * @throws GeneralSecurityException if the required HMAC algorithm is not available
+     */
+    public static byte[] create(String cipherSuite, byte[] secret, long recordSequence)
+            throws GeneralSecurityException {
+        String macAlgorithm = getMacAlgorithm(cipherSuite);
+        int keySize;
+        int cipherType;
+        if ("TLS_AES_128_GCM_SHA256".equals(cipherSuite)) {
+            keySize = 16;
+            cipherType = TLS_CIPHER_AES_GCM_128;
+        } else {
+            keySize = 32;
+            cipherType = TLS_CIPHER_AES_GCM_256;
+        }
+        byte[] key = expandLabel(macAlgorithm, secret, "key", keySize);
+        byte[] iv = expandLabel(macAlgorithm, secret, "iv", SALT_SIZE + IV_SIZE);
+        try {
+            ByteBuffer info = ByteBuffer.allocate(4 + IV_SIZE + keySize + SALT_SIZE + REC_SEQ_SIZE);
+            // struct tls_crypto_info uses the native byte order
+            info.order(ByteOrder.nativeOrder());
+            info.putShort((short) TLS_1_3_VERSION);
+            info.putShort((short) cipherType);
+            // The 12 byte TLS 1.3 IV is split into a 4 byte salt and an 8 byte IV
+            info.put(iv, SALT_SIZE, IV_SIZE);
+            info.put(key);
+            info.put(iv, 0, SALT_SIZE);
+            info.order(ByteOrder.BIG_ENDIAN);
+            info.putLong(recordSequence);
+            return info.array();
+        } finally {
+            Arrays.fill(key, (byte) 0);
+            Arrays.fill(iv, (byte) 0);
+        }
+    }
+
+
+    /*
+     * HKDF-Expand-Label from RFC 8446, section 7.1 with an empty context.
+     */
+    static byte[] expandLabel(String macAlgorithm, byte[] secret, String label, int length)
+            throws GeneralSecurityException {
+        byte[] fullLabel = ("tls13 " + label).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer hkdfLabel = ByteBuffer.allocate(2 + 1 + fullLabel.length + 1);
+        hkdfLabel.putShort((short) length);
+        hkdfLabel.put((byte) fullLabel.length);
+        hkdfLabel.put(fullLabel);
+        hkdfLabel.put((byte) 0);
+
+        // HKDF-Expand from RFC 5869
+        Mac mac = Mac.getInstance(macAlgorithm);
+        mac.init(new SecretKeySpec(secret, macAlgorithm));
+        byte[] result = new byte[length];
+        byte[] t = new byte[0];
+        int offset = 0;
+        for (int i = 1; offset < length; i++) {
+            mac.update(t);
+            mac.update(hkdfLabel.array());
+            mac.update((byte) i);
+            t = mac.doFinal();
+            int n = Math.min(t.length, length - offset);
+            System.arraycopy(t, 0, result, offset, n);
+            offset += n;
+        }
+        Arrays.fill(t, (byte) 0);
+        return result;
+    }
+
+
+    private static String getMacAlgorithm(String cipherSuite) {
+        if ("TLS_AES_128_GCM_SHA256".equals(cipherSuite)) {
+            return "HmacSHA256";
+        } else if ("TLS_AES_256_GCM_SHA384".equals(cipherSuite)) {
+            return "HmacSHA384";
+        }
+        throw new IllegalArgumentException(cipherSuite);
+    }
+}
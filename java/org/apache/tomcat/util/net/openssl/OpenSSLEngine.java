@@ -55,7 +55,7 @@ import org.apache.tomcat.util.res.StringManager;
  * <a href="https://www.openssl.org/docs/crypto/BIO_s_bio.html#EXAMPLE">OpenSSL
  * BIO abstractions</a>.
  */
-public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolInfo {
+public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolInfo, SSLUtil.SessionResumptionInfo {
 
     private static final Log logger = LogFactory.getLog(OpenSSLEngine.class);
     private static final StringManager sm = StringManager.getManager(OpenSSLEngine.class);
@@ -172,6 +172,9 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
 
     private final OpenSSLSession session;
 
+    // OpenSSL only tracks the creation time of a session to the second
+    private final long engineCreationTime = System.currentTimeMillis() / 1000;
+
     /**
      * Creates a new instance
      *
@@ -213,6 +216,18 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
         return selectedProtocol;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * tomcat-native does not provide access to {@code SSL_session_reused} so a session is treated as resumed if it was
+     * created before this engine. As OpenSSL only tracks the creation time of a session to the second, a session that
+     * is resumed within the same second as it was created is reported as a full handshake.
+     */
+    @Override
+    public synchronized boolean isSessionResumed() {
+        return !destroyed && SSL.getTime(ssl) < engineCreationTime;
+    }
+
     /**
      * Destroys this engine.
      */
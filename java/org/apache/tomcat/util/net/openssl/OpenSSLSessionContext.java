@@ -24,12 +24,13 @@ import javax.net.ssl.SSLSessionContext;
 
 import org.apache.tomcat.jni.SSL;
 import org.apache.tomcat.jni.SSLContext;
+import org.apache.tomcat.util.net.SSLUtil;
 import org.apache.tomcat.util.res.StringManager;
 
 /**
  * OpenSSL specific {@link SSLSessionContext} implementation.
  */
-public class OpenSSLSessionContext implements SSLSessionContext {
+public class OpenSSLSessionContext implements SSLSessionContext, SSLUtil.SessionTicketKeySupport {
     private static final StringManager sm = StringManager.getManager(OpenSSLSessionContext.class);
     private static final Enumeration<byte[]> EMPTY = new EmptyEnumeration();
 
@@ -59,10 +60,13 @@ public class OpenSSLSessionContext implements SSLSessionContext {
     }
 
     /**
-     * Sets the SSL session ticket keys of this context.
+     * Sets the SSL session ticket keys of this context. The first key is used
+     * to issue new tickets and all the keys are accepted when a session is
+     * resumed.
      *
-     * @param keys The session ticket keys
+     * @param keys The session ticket keys, one or more keys of 48 bytes
      */
+    @Override
     public void setTicketKeys(byte[] keys) {
         if (keys == null) {
             throw new IllegalArgumentException(sm.getString("sessionContext.nullTicketKeys"));
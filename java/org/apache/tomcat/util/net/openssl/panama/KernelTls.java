@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.net.openssl.panama;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Method;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.util.res.StringManager;
+
+/**
+ * Hands the encryption of outgoing TLS records of a socket over to the Linux kernel (kTLS). This requires the
+ * <code>tls</code> kernel module and access to the file descriptor of the socket which is only possible if the
+ * <code>sun.nio.ch</code> package is opened to Tomcat.
+ */
+final class KernelTls {
+
+    private static final Log log = LogFactory.getLog(KernelTls.class);
+    private static final StringManager sm = StringManager.getManager(KernelTls.class);
+
+    // From linux/tcp.h and linux/tls.h
+    private static final int SOL_TCP = 6;
+    private static final int TCP_ULP = 31;
+    private static final int SOL_TLS = 282;
+    private static final int TLS_TX = 1;
+    private static final int ENOENT = 2;
+
+    private static final MethodHandle SETSOCKOPT;
+    private static final StructLayout CAPTURE_STATE_LAYOUT;
+    private static final VarHandle ERRNO;
+    private static final Method GET_FD_VAL;
+
+    /*
+     * Cleared if the kernel reports that the TLS upper layer protocol is not available so further connections do not
+     * attempt to use it.
+     */
+    private static volatile boolean available;
+
+    static {
+        MethodHandle setsockopt = null;
+        StructLayout captureStateLayout = null;
+        VarHandle errno = null;
+        Method getFdVal = null;
+        if (!System.getProperty("os.name").toLowerCase(Locale.ENGLISH).startsWith("linux")) {
+            log.debug(sm.getString("kernelTls.notLinux"));
+        } else {
+            try {
+                Linker linker = Linker.nativeLinker();
+                captureStateLayout = Linker.Option.captureStateLayout();
+                errno = captureStateLayout.varHandle(MemoryLayout.PathElement.groupElement("errno"));
+                setsockopt = linker.downcallHandle(linker.defaultLookup().find("setsockopt").orElseThrow(),
+                        FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT,
+                                ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT),
+                        Linker.Option.captureCallState("errno"));
+                getFdVal = Class.forName("sun.nio.ch.SelChImpl").getMethod("getFDVal");
+                getFdVal.setAccessible(true);
+            } catch (Throwable t) {
+                log.warn(sm.getString("kernelTls.unavailable"), t);
+                setsockopt = null;
+            }
+        }
+        SETSOCKOPT = setsockopt;
+        CAPTURE_STATE_LAYOUT = captureStateLayout;
+        ERRNO = errno;
+        GET_FD_VAL = getFdVal;
+        available = SETSOCKOPT != null;
+    }
+
+
+    private KernelTls() {
+        // Utility class
+    }
+
+
+    /**
+     * @return {@code true} if the kernel may be able to encrypt outgoing TLS records
+     */
+    static boolean isAvailable() {
+        return available;
+    }
+
+
+    /**
+     * Hand the encryption of outgoing records over to the kernel.
+     *
+     * @param channel    The channel for the socket
+     * @param cryptoInfo The <code>tls12_crypto_info_*</code> structure holding the transmit keys
+     *
+     * @return {@code true} if the kernel now encrypts data written to the socket, {@code false} if the socket was not
+     *             modified
+     */
+    static boolean enableTx(SocketChannel channel, byte[] cryptoInfo) {
+        if (!available) {
+            return false;
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            int fd = ((Integer) GET_FD_VAL.invoke(channel)).intValue();
+            MemorySegment captureState = arena.allocate(CAPTURE_STATE_LAYOUT);
+            MemorySegment ulp = arena.allocateFrom("tls");
+            int result = (int) SETSOCKOPT.invokeExact(captureState, fd, SOL_TCP, TCP_ULP, ulp, (int) ulp.byteSize());
+            if (result != 0) {
+                int errno = (int) ERRNO.get(captureState, 0L);
+                if (errno == ENOENT) {
+                    // The tls module is not present
+                    available = false;
+                    log.warn(sm.getString("kernelTls.noModule"));
+                } else if (log.isDebugEnabled()) {
+                    log.debug(sm.getString("kernelTls.ulpFailed", Integer.valueOf(errno)));
+                }
+                return false;
+            }
+            MemorySegment info = arena.allocateFrom(ValueLayout.JAVA_BYTE, cryptoInfo);
+            result = (int) SETSOCKOPT.invokeExact(captureState, fd, SOL_TLS, TLS_TX, info, cryptoInfo.length);
+            // Don't leave the keys in native memory
+            info.fill((byte) 0);
+            if (result != 0) {
+                // The socket continues to work as a plain TCP socket
+                if (log.isDebugEnabled()) {
+                    log.debug(sm.getString("kernelTls.txFailed", Integer.valueOf((int) ERRNO.get(captureState, 0L))));
+                }
+                return false;
+            }
+            return true;
+        } catch (Throwable t) {
+            log.warn(sm.getString("kernelTls.enableFailed"), t);
+            return false;
+        }
+    }
+}
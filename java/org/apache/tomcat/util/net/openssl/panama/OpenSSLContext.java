@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
 import java.lang.ref.Cleaner;
@@ -65,6 +66,8 @@ import org.apache.tomcat.util.net.openssl.OpenSSLStatus;
 import org.apache.tomcat.util.net.openssl.OpenSSLUtil;
 import org.apache.tomcat.util.openssl.SSL_CTX_set_alpn_select_cb$cb;
 import org.apache.tomcat.util.openssl.SSL_CTX_set_cert_verify_callback$cb;
+import org.apache.tomcat.util.openssl.SSL_CTX_set_keylog_callback$cb;
+import org.apache.tomcat.util.openssl.SSL_CTX_set_tlsext_ticket_key_evp_cb$fp;
 import org.apache.tomcat.util.openssl.SSL_CTX_set_tmp_dh_callback$dh;
 import org.apache.tomcat.util.openssl.SSL_CTX_set_verify$callback;
 import org.apache.tomcat.util.openssl.openssl_h;
@@ -128,7 +131,9 @@ public class OpenSSLContext implements org.apache.tomcat.util.net.SSLContext {
     private boolean initialized = false;
 
     private boolean noOcspCheck = false;
+    private boolean kernelTls = false;
     private X509TrustManager x509TrustManager;
+    private TicketKeyCallback ticketKeyCallback = null;
 
     private final ContextState state;
     private final Arena contextArena;
@@ -529,6 +534,17 @@ public class OpenSSLContext implements org.apache.tomcat.util.net.SSLContext {
             SSL_CTX_set_verify(state.sslCtx, value,
                     SSL_CTX_set_verify$callback.allocate(new OpenSSLEngine.VerifyCallback(), contextArena));
 
+            // Capture the server traffic secret so that the transmit keys can be handed to the kernel
+            if (sslHostConfig.getKernelTls()) {
+                if (KernelTls.isAvailable()) {
+                    SSL_CTX_set_keylog_callback(state.sslCtx,
+                            SSL_CTX_set_keylog_callback$cb.allocate(new OpenSSLEngine.KeylogCallback(), contextArena));
+                    kernelTls = true;
+                } else {
+                    log.warn(sm.getString("openssl.kernelTlsUnavailable"));
+                }
+            }
+
             // Trust and certificate verification
             if (tms != null) {
                 // Client certificate verification based on custom trust managers
@@ -670,6 +686,22 @@ public class OpenSSLContext implements org.apache.tomcat.util.net.SSLContext {
         return state.sslCtx;
     }
 
+
+    /**
+     * Sets the session ticket keys, installing the callback that uses them if
+     * required.
+     *
+     * @param keys The session ticket keys, one or more keys of 48 bytes
+     */
+    synchronized void setTicketKeys(byte[] keys) {
+        if (ticketKeyCallback == null) {
+            ticketKeyCallback = new TicketKeyCallback();
+            SSL_CTX_set_tlsext_ticket_key_evp_cb(state.sslCtx,
+                    SSL_CTX_set_tlsext_ticket_key_evp_cb$fp.allocate(ticketKeyCallback, contextArena));
+        }
+        ticketKeyCallback.keys = keys;
+    }
+
     // DH *(*tmp_dh_callback)(SSL *ssl, int is_export, int keylength)
     private static class TmpDHCallback implements SSL_CTX_set_tmp_dh_callback$dh.Function {
         @Override
@@ -740,6 +772,99 @@ public class OpenSSLContext implements org.apache.tomcat.util.net.SSLContext {
     }
 
 
+    private static class TicketKeyCallback implements SSL_CTX_set_tlsext_ticket_key_evp_cb$fp.Function {
+        // Each key is formed of a name, an HMAC secret and an AES key
+        private static final int KEY_LENGTH = 48;
+        private static final int PART_LENGTH = 16;
+        private static final int IV_LENGTH = 16;
+        // From openssl/core.h
+        private static final int OSSL_PARAM_UTF8_STRING = 4;
+        private static final int OSSL_PARAM_OCTET_STRING = 5;
+        private static final long OSSL_PARAM_UNMODIFIED = -1;
+        private static final MemoryLayout OSSL_PARAM = MemoryLayout.structLayout(
+                ValueLayout.ADDRESS.withName("key"),
+                ValueLayout.JAVA_INT.withName("data_type"),
+                MemoryLayout.paddingLayout(4),
+                ValueLayout.ADDRESS.withName("data"),
+                ValueLayout.JAVA_LONG.withName("data_size"),
+                ValueLayout.JAVA_LONG.withName("return_size"));
+        private static final String DIGEST = "SHA256";
+
+        private volatile byte[] keys;
+
+        @Override
+        public int apply(MemorySegment ssl, MemorySegment keyName, MemorySegment iv,
+                MemorySegment cipherCtx, MemorySegment macCtx, int enc) {
+            byte[] keys = this.keys;
+            if (keys == null) {
+                return 0;
+            }
+            try (var localArena = Arena.ofConfined()) {
+                MemorySegment keyNameSeg = keyName.reinterpret(PART_LENGTH, localArena, null);
+                MemorySegment ivSeg = iv.reinterpret(IV_LENGTH, localArena, null);
+                int offset;
+                if (enc == 1) {
+                    // Issue a new ticket with the first key
+                    offset = 0;
+                    if (RAND_bytes(ivSeg, IV_LENGTH) <= 0) {
+                        return -1;
+                    }
+                    MemorySegment.copy(keys, 0, keyNameSeg, ValueLayout.JAVA_BYTE, 0, PART_LENGTH);
+                } else {
+                    byte[] name = keyNameSeg.toArray(ValueLayout.JAVA_BYTE);
+                    offset = -1;
+                    for (int i = 0; i < keys.length; i += KEY_LENGTH) {
+                        if (Arrays.equals(keys, i, i + PART_LENGTH, name, 0, PART_LENGTH)) {
+                            offset = i;
+                            break;
+                        }
+                    }
+                    if (offset < 0) {
+                        // Unknown key so perform a full handshake
+                        return 0;
+                    }
+                }
+
+                MemorySegment params = localArena.allocate(OSSL_PARAM, 3);
+                MemorySegment digest = localArena.allocateFrom(DIGEST);
+                MemorySegment hmacKey = localArena.allocateFrom(ValueLayout.JAVA_BYTE,
+                        Arrays.copyOfRange(keys, offset + PART_LENGTH, offset + 2 * PART_LENGTH));
+                setParam(params, 0, localArena.allocateFrom("digest"), OSSL_PARAM_UTF8_STRING, digest, DIGEST.length());
+                setParam(params, 1, localArena.allocateFrom("key"), OSSL_PARAM_OCTET_STRING, hmacKey, PART_LENGTH);
+                if (EVP_MAC_CTX_set_params(macCtx, params) != 1) {
+                    return -1;
+                }
+
+                MemorySegment aesKey = localArena.allocateFrom(ValueLayout.JAVA_BYTE,
+                        Arrays.copyOfRange(keys, offset + 2 * PART_LENGTH, offset + KEY_LENGTH));
+                int result = (enc == 1) ?
+                        EVP_EncryptInit_ex(cipherCtx, EVP_aes_128_cbc(), MemorySegment.NULL, aesKey, ivSeg) :
+                        EVP_DecryptInit_ex(cipherCtx, EVP_aes_128_cbc(), MemorySegment.NULL, aesKey, ivSeg);
+                hmacKey.fill((byte) 0);
+                aesKey.fill((byte) 0);
+                if (result != 1) {
+                    return -1;
+                }
+                // Ask for a new ticket if the session was resumed with an older key
+                return (offset == 0) ? 1 : 2;
+            }
+        }
+
+        private static void setParam(MemorySegment params, int index, MemorySegment key, int type,
+                MemorySegment data, long size) {
+            MemorySegment param = params.asSlice(index * OSSL_PARAM.byteSize(), OSSL_PARAM);
+            param.set(ValueLayout.ADDRESS, OSSL_PARAM.byteOffset(MemoryLayout.PathElement.groupElement("key")), key);
+            param.set(ValueLayout.JAVA_INT,
+                    OSSL_PARAM.byteOffset(MemoryLayout.PathElement.groupElement("data_type")), type);
+            param.set(ValueLayout.ADDRESS, OSSL_PARAM.byteOffset(MemoryLayout.PathElement.groupElement("data")), data);
+            param.set(ValueLayout.JAVA_LONG,
+                    OSSL_PARAM.byteOffset(MemoryLayout.PathElement.groupElement("data_size")), size);
+            param.set(ValueLayout.JAVA_LONG,
+                    OSSL_PARAM.byteOffset(MemoryLayout.PathElement.groupElement("return_size")), OSSL_PARAM_UNMODIFIED);
+        }
+    }
+
+
     private static class CertVerifyCallback implements SSL_CTX_set_cert_verify_callback$cb.Function {
         private final X509TrustManager x509TrustManager;
         CertVerifyCallback(X509TrustManager x509TrustManager) {
@@ -1323,7 +1448,7 @@ public class OpenSSLContext implements org.apache.tomcat.util.net.SSLContext {
                 alpn, initialized,
                 sslHostConfig.getCertificateVerificationDepth(),
                 sslHostConfig.getCertificateVerification() == CertificateVerification.OPTIONAL_NO_CA,
-                noOcspCheck);
+                noOcspCheck, kernelTls);
     }
 
     @Override
@@ -30,6 +30,8 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ReadOnlyBufferException;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
 import java.security.Principal;
 import java.security.cert.Certificate;
 import java.util.ArrayList;
@@ -56,9 +58,12 @@ import static org.apache.tomcat.util.openssl.openssl_h_Macros.*;
 import org.apache.juli.logging.Log;
 import org.apache.juli.logging.LogFactory;
 import org.apache.tomcat.util.buf.Asn1Parser;
+import org.apache.tomcat.util.buf.HexUtils;
 import org.apache.tomcat.util.net.Constants;
 import org.apache.tomcat.util.net.SSLUtil;
+import org.apache.tomcat.util.net.openssl.KernelTlsCryptoInfo;
 import org.apache.tomcat.util.net.openssl.ciphers.OpenSSLCipherConfigurationParser;
+import org.apache.tomcat.util.openssl.SSL_CTX_set_keylog_callback$cb;
 import org.apache.tomcat.util.openssl.SSL_CTX_set_verify$callback;
 import org.apache.tomcat.util.openssl.SSL_set_info_callback$cb;
 import org.apache.tomcat.util.openssl.SSL_set_verify$callback;
@@ -71,7 +76,8 @@ import org.apache.tomcat.util.res.StringManager;
  * <a href="https://www.openssl.org/docs/crypto/BIO_s_bio.html#EXAMPLE">OpenSSL
  * BIO abstractions</a>.
  */
-public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolInfo {
+public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolInfo, SSLUtil.KernelTlsOffload,
+        SSLUtil.SessionResumptionInfo {
 
     private static final Log log = LogFactory.getLog(OpenSSLEngine.class);
     private static final StringManager sm = StringManager.getManager(OpenSSLEngine.class);
@@ -145,6 +151,9 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
     private final boolean alpn;
     private final boolean initialized;
     private final boolean certificateVerificationOptionalNoCA;
+    private final boolean kernelTls;
+    private byte[] kernelTlsCryptoInfo;
+    private boolean kernelTlsActive;
 
     private String selectedProtocol = null;
 
@@ -166,11 +175,13 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
      * @param certificateVerificationDepth Certificate verification depth
      * @param certificateVerificationOptionalNoCA Skip CA verification in
      *   optional mode
+     * @param kernelTls {@code true} if outgoing records should be handed over
+     *   to the kernel once the handshake is complete
      */
     OpenSSLEngine(Cleaner cleaner, MemorySegment sslCtx, String fallbackApplicationProtocol,
             boolean clientMode, OpenSSLSessionContext sessionContext, boolean alpn,
             boolean initialized, int certificateVerificationDepth,
-            boolean certificateVerificationOptionalNoCA, boolean noOcspCheck) {
+            boolean certificateVerificationOptionalNoCA, boolean noOcspCheck, boolean kernelTls) {
         if (sslCtx == null) {
             throw new IllegalArgumentException(sm.getString("engine.noSSLContext"));
         }
@@ -201,6 +212,7 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
         this.alpn = alpn;
         this.initialized = initialized;
         this.certificateVerificationOptionalNoCA = certificateVerificationOptionalNoCA;
+        this.kernelTls = kernelTls;
         cleanable = cleaner.register(this, state);
     }
 
@@ -209,6 +221,74 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
         return selectedProtocol;
     }
 
+    @Override
+    public synchronized boolean isSessionResumed() {
+        if (destroyed) {
+            return false;
+        }
+        return SSL_session_reused(state.ssl) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only TLS 1.3 with AES-GCM is supported. A KeyUpdate is sent so that the
+     * kernel starts with new keys and a record sequence number of zero.
+     */
+    @Override
+    public synchronized boolean prepareKernelTls() throws SSLException {
+        if (!kernelTls || clientMode || destroyed || !handshakeFinished || !KernelTls.isAvailable()) {
+            return false;
+        }
+        byte[] secret = state.serverTrafficSecret;
+        state.serverTrafficSecret = null;
+        if (secret == null ||
+                !Constants.SSL_PROTO_TLSv1_3.equals(SSL_get_version(state.ssl).getString(0))) {
+            return false;
+        }
+        String cipherSuite = SSL_CIPHER_get_name(SSL_get_current_cipher(state.ssl)).getString(0);
+        if (!KernelTlsCryptoInfo.isSupported(cipherSuite)) {
+            return false;
+        }
+        byte[] nextSecret = null;
+        try {
+            nextSecret = KernelTlsCryptoInfo.nextTrafficSecret(cipherSuite, secret);
+            kernelTlsCryptoInfo = KernelTlsCryptoInfo.create(cipherSuite, nextSecret, 0);
+        } catch (GeneralSecurityException e) {
+            throw new SSLException(e);
+        } finally {
+            Arrays.fill(secret, (byte) 0);
+            if (nextSecret != null) {
+                Arrays.fill(nextSecret, (byte) 0);
+            }
+        }
+        clearLastError();
+        if (SSL_key_update(state.ssl, SSL_KEY_UPDATE_NOT_REQUESTED()) != 1 || SSL_do_handshake(state.ssl) != 1) {
+            // The KeyUpdate will be sent with the next record and the engine
+            // remains in use
+            checkLastError();
+            Arrays.fill(kernelTlsCryptoInfo, (byte) 0);
+            kernelTlsCryptoInfo = null;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean enableKernelTls(SocketChannel channel) {
+        byte[] cryptoInfo = kernelTlsCryptoInfo;
+        kernelTlsCryptoInfo = null;
+        if (cryptoInfo == null || destroyed) {
+            return false;
+        }
+        try {
+            kernelTlsActive = KernelTls.enableTx(channel, cryptoInfo);
+        } finally {
+            Arrays.fill(cryptoInfo, (byte) 0);
+        }
+        return kernelTlsActive;
+    }
+
     /**
      * Destroys this engine.
      */
@@ -329,6 +409,9 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
         if (dst.isReadOnly()) {
             throw new ReadOnlyBufferException();
         }
+        if (kernelTlsActive) {
+            throw new SSLException(sm.getString("engine.kernelTlsWrap"));
+        }
         // Prepare OpenSSL to work in server mode and receive handshake
         if (accepted == Accepted.NOT) {
             beginHandshakeImplicitly();
@@ -542,6 +625,13 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
             closeInbound();
         }
 
+        if (kernelTlsActive && BIO_ctrl_pending(state.networkBIO) > 0 && !engineClosed) {
+            // The peer requested a response (such as a KeyUpdate) that can
+            // only be sent with the keys now held by the kernel
+            shutdown();
+            throw new SSLException(sm.getString("engine.kernelTlsWrap"));
+        }
+
         if (bytesProduced == 0 && (written == 0 || (written > 0 && !src.hasRemaining() && handshakeFinished))) {
             return new SSLEngineResult(SSLEngineResult.Status.BUFFER_UNDERFLOW, getHandshakeStatus(), written, 0);
         } else {
@@ -1102,6 +1192,26 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
         }
     }
 
+    static class KeylogCallback implements SSL_CTX_set_keylog_callback$cb.Function {
+        private static final String SERVER_TRAFFIC_SECRET = "SERVER_TRAFFIC_SECRET_0 ";
+        @Override
+        public void apply(MemorySegment ssl, MemorySegment line) {
+            EngineState state = getState(ssl);
+            if (state == null) {
+                log.warn(sm.getString("engine.noSSL", Long.valueOf(ssl.address())));
+                return;
+            }
+            String value = line.getString(0);
+            if (value.startsWith(SERVER_TRAFFIC_SECRET)) {
+                // Format is label, client random, secret
+                int end = value.lastIndexOf(' ');
+                if (end > SERVER_TRAFFIC_SECRET.length()) {
+                    state.serverTrafficSecret = HexUtils.fromHexString(value.substring(end + 1));
+                }
+            }
+        }
+    }
+
     static class VerifyCallback implements SSL_set_verify$callback.Function, SSL_CTX_set_verify$callback.Function {
         @Override
         public int apply(int preverify_ok, MemorySegment /*X509_STORE_CTX*/ x509ctx) {
@@ -1654,6 +1764,7 @@ public final class OpenSSLEngine extends SSLEngine implements SSLUtil.ProtocolIn
         private PHAState phaState = PHAState.NONE;
         private int certificateVerifyMode = 0;
         private int handshakeCount = 0;
+        private byte[] serverTrafficSecret = null;
 
         private EngineState(MemorySegment ssl, MemorySegment networkBIO,
                 int certificateVerificationDepth, boolean noOcspCheck) {
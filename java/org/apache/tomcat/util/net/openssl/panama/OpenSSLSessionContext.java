@@ -18,6 +18,7 @@ package org.apache.tomcat.util.net.openssl.panama;
 
 import java.lang.foreign.Arena;
 import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.NoSuchElementException;
 
@@ -26,12 +27,14 @@ import javax.net.ssl.SSLSessionContext;
 
 import static org.apache.tomcat.util.openssl.openssl_h.*;
 import static org.apache.tomcat.util.openssl.openssl_h_Macros.*;
+import org.apache.tomcat.util.net.SSLUtil;
+import org.apache.tomcat.util.openssl.openssl_h_Compatibility;
 import org.apache.tomcat.util.res.StringManager;
 
 /**
  * OpenSSL specific {@link SSLSessionContext} implementation.
  */
-public class OpenSSLSessionContext implements SSLSessionContext {
+public class OpenSSLSessionContext implements SSLSessionContext, SSLUtil.SessionTicketKeySupport {
     private static final StringManager sm = StringManager.getManager(OpenSSLSessionContext.class);
     private static final Enumeration<byte[]> EMPTY = new EmptyEnumeration();
 
@@ -56,24 +59,33 @@ public class OpenSSLSessionContext implements SSLSessionContext {
     }
 
     /**
-     * Sets the SSL session ticket keys of this context.
+     * Sets the SSL session ticket keys of this context. The first key is used
+     * to issue new tickets and all the keys are accepted when a session is
+     * resumed.
      *
-     * @param keys The session ticket keys
+     * @param keys The session ticket keys, one or more keys of 48 bytes
      */
+    @Override
     public void setTicketKeys(byte[] keys) {
         if (keys == null) {
             throw new IllegalArgumentException(sm.getString("sessionContext.nullTicketKeys"));
         }
-        if (keys.length != TICKET_KEYS_SIZE) {
+        if (keys.length == 0 || keys.length % TICKET_KEYS_SIZE != 0) {
             throw new IllegalArgumentException(sm.getString("sessionContext.invalidTicketKeysLength",
                     Integer.valueOf(keys.length)));
         }
-        try (var memorySession = Arena.ofConfined()) {
-            var array = memorySession.allocateFrom(ValueLayout.JAVA_BYTE, keys);
-            SSL_CTX_set_tlsext_ticket_keys(context.getSSLContext(), array, TICKET_KEYS_SIZE);
+        if (openssl_h_Compatibility.OPENSSL3) {
+            context.setTicketKeys(keys);
+        } else {
+            // Only a single key can be configured without the callback
+            try (var memorySession = Arena.ofConfined()) {
+                var array = memorySession.allocateFrom(ValueLayout.JAVA_BYTE, Arrays.copyOf(keys, TICKET_KEYS_SIZE));
+                SSL_CTX_set_tlsext_ticket_keys(context.getSSLContext(), array, TICKET_KEYS_SIZE);
+            }
         }
     }
 
+
     /**
      * Enable or disable caching of SSL sessions.
      *
@@ -513,6 +513,15 @@ public class openssl_h {
     public static int SSL_VERIFY_FAIL_IF_NO_PEER_CERT() {
         return SSL_VERIFY_FAIL_IF_NO_PEER_CERT;
     }
+    private static final int SSL_KEY_UPDATE_NOT_REQUESTED = (int)0L;
+    /**
+     * {@snippet lang=c :
+     * #define SSL_KEY_UPDATE_NOT_REQUESTED 0
+     * }
+     */
+    public static int SSL_KEY_UPDATE_NOT_REQUESTED() {
+        return SSL_KEY_UPDATE_NOT_REQUESTED;
+    }
     private static final int SSL_ERROR_NONE = (int)0L;
     /**
      * {@snippet lang=c :
@@ -2760,6 +2769,245 @@ public class openssl_h {
         }
     }
 
+    private static class EVP_aes_128_cbc {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_POINTER    );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("EVP_aes_128_cbc");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * const EVP_CIPHER *EVP_aes_128_cbc()
+     * }
+     */
+    public static FunctionDescriptor EVP_aes_128_cbc$descriptor() {
+        return EVP_aes_128_cbc.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * const EVP_CIPHER *EVP_aes_128_cbc()
+     * }
+     */
+    public static MethodHandle EVP_aes_128_cbc$handle() {
+        return EVP_aes_128_cbc.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * const EVP_CIPHER *EVP_aes_128_cbc()
+     * }
+     */
+    public static MemorySegment EVP_aes_128_cbc$address() {
+        return EVP_aes_128_cbc.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * const EVP_CIPHER *EVP_aes_128_cbc()
+     * }
+     */
+    public static MemorySegment EVP_aes_128_cbc() {
+        var mh$ = EVP_aes_128_cbc.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("EVP_aes_128_cbc");
+            }
+            return (MemorySegment)mh$.invokeExact();
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
+    private static class EVP_EncryptInit_ex {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("EVP_EncryptInit_ex");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int EVP_EncryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static FunctionDescriptor EVP_EncryptInit_ex$descriptor() {
+        return EVP_EncryptInit_ex.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int EVP_EncryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static MethodHandle EVP_EncryptInit_ex$handle() {
+        return EVP_EncryptInit_ex.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int EVP_EncryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static MemorySegment EVP_EncryptInit_ex$address() {
+        return EVP_EncryptInit_ex.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int EVP_EncryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static int EVP_EncryptInit_ex(MemorySegment ctx, MemorySegment cipher, MemorySegment impl, MemorySegment key, MemorySegment iv) {
+        var mh$ = EVP_EncryptInit_ex.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("EVP_EncryptInit_ex", ctx, cipher, impl, key, iv);
+            }
+            return (int)mh$.invokeExact(ctx, cipher, impl, key, iv);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
+    private static class EVP_DecryptInit_ex {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("EVP_DecryptInit_ex");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int EVP_DecryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static FunctionDescriptor EVP_DecryptInit_ex$descriptor() {
+        return EVP_DecryptInit_ex.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int EVP_DecryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static MethodHandle EVP_DecryptInit_ex$handle() {
+        return EVP_DecryptInit_ex.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int EVP_DecryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static MemorySegment EVP_DecryptInit_ex$address() {
+        return EVP_DecryptInit_ex.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int EVP_DecryptInit_ex(EVP_CIPHER_CTX *ctx, const EVP_CIPHER *cipher, ENGINE *impl, const unsigned char *key, const unsigned char *iv)
+     * }
+     */
+    public static int EVP_DecryptInit_ex(MemorySegment ctx, MemorySegment cipher, MemorySegment impl, MemorySegment key, MemorySegment iv) {
+        var mh$ = EVP_DecryptInit_ex.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("EVP_DecryptInit_ex", ctx, cipher, impl, key, iv);
+            }
+            return (int)mh$.invokeExact(ctx, cipher, impl, key, iv);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
+    private static class EVP_MAC_CTX_set_params {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("EVP_MAC_CTX_set_params");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int EVP_MAC_CTX_set_params(EVP_MAC_CTX *ctx, const OSSL_PARAM params[])
+     * }
+     */
+    public static FunctionDescriptor EVP_MAC_CTX_set_params$descriptor() {
+        return EVP_MAC_CTX_set_params.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int EVP_MAC_CTX_set_params(EVP_MAC_CTX *ctx, const OSSL_PARAM params[])
+     * }
+     */
+    public static MethodHandle EVP_MAC_CTX_set_params$handle() {
+        return EVP_MAC_CTX_set_params.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int EVP_MAC_CTX_set_params(EVP_MAC_CTX *ctx, const OSSL_PARAM params[])
+     * }
+     */
+    public static MemorySegment EVP_MAC_CTX_set_params$address() {
+        return EVP_MAC_CTX_set_params.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int EVP_MAC_CTX_set_params(EVP_MAC_CTX *ctx, const OSSL_PARAM params[])
+     * }
+     */
+    public static int EVP_MAC_CTX_set_params(MemorySegment ctx, MemorySegment params) {
+        var mh$ = EVP_MAC_CTX_set_params.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("EVP_MAC_CTX_set_params", ctx, params);
+            }
+            return (int)mh$.invokeExact(ctx, params);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class EC_GROUP_free {
         public static final FunctionDescriptor DESC = FunctionDescriptor.ofVoid(
             openssl_h.C_POINTER
@@ -6572,6 +6820,64 @@ public class openssl_h {
         }
     }
 
+    private static class SSL_CTX_set_keylog_callback {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.ofVoid(
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("SSL_CTX_set_keylog_callback");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * void SSL_CTX_set_keylog_callback(SSL_CTX *ctx, SSL_CTX_keylog_cb_func cb)
+     * }
+     */
+    public static FunctionDescriptor SSL_CTX_set_keylog_callback$descriptor() {
+        return SSL_CTX_set_keylog_callback.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * void SSL_CTX_set_keylog_callback(SSL_CTX *ctx, SSL_CTX_keylog_cb_func cb)
+     * }
+     */
+    public static MethodHandle SSL_CTX_set_keylog_callback$handle() {
+        return SSL_CTX_set_keylog_callback.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * void SSL_CTX_set_keylog_callback(SSL_CTX *ctx, SSL_CTX_keylog_cb_func cb)
+     * }
+     */
+    public static MemorySegment SSL_CTX_set_keylog_callback$address() {
+        return SSL_CTX_set_keylog_callback.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * void SSL_CTX_set_keylog_callback(SSL_CTX *ctx, SSL_CTX_keylog_cb_func cb)
+     * }
+     */
+    public static void SSL_CTX_set_keylog_callback(MemorySegment ctx, MemorySegment cb) {
+        var mh$ = SSL_CTX_set_keylog_callback.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("SSL_CTX_set_keylog_callback", ctx, cb);
+            }
+            mh$.invokeExact(ctx, cb);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class SSL_CTX_set_cert_verify_callback {
         public static final FunctionDescriptor DESC = FunctionDescriptor.ofVoid(
             openssl_h.C_POINTER,
@@ -6925,6 +7231,65 @@ public class openssl_h {
         }
     }
 
+    private static class SSL_CTX_set_tlsext_ticket_key_evp_cb {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER,
+            openssl_h.C_POINTER
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("SSL_CTX_set_tlsext_ticket_key_evp_cb");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int SSL_CTX_set_tlsext_ticket_key_evp_cb(SSL_CTX *ctx, int (*fp)(SSL *, unsigned char *, unsigned char *, EVP_CIPHER_CTX *, EVP_MAC_CTX *, int))
+     * }
+     */
+    public static FunctionDescriptor SSL_CTX_set_tlsext_ticket_key_evp_cb$descriptor() {
+        return SSL_CTX_set_tlsext_ticket_key_evp_cb.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int SSL_CTX_set_tlsext_ticket_key_evp_cb(SSL_CTX *ctx, int (*fp)(SSL *, unsigned char *, unsigned char *, EVP_CIPHER_CTX *, EVP_MAC_CTX *, int))
+     * }
+     */
+    public static MethodHandle SSL_CTX_set_tlsext_ticket_key_evp_cb$handle() {
+        return SSL_CTX_set_tlsext_ticket_key_evp_cb.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int SSL_CTX_set_tlsext_ticket_key_evp_cb(SSL_CTX *ctx, int (*fp)(SSL *, unsigned char *, unsigned char *, EVP_CIPHER_CTX *, EVP_MAC_CTX *, int))
+     * }
+     */
+    public static MemorySegment SSL_CTX_set_tlsext_ticket_key_evp_cb$address() {
+        return SSL_CTX_set_tlsext_ticket_key_evp_cb.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int SSL_CTX_set_tlsext_ticket_key_evp_cb(SSL_CTX *ctx, int (*fp)(SSL *, unsigned char *, unsigned char *, EVP_CIPHER_CTX *, EVP_MAC_CTX *, int))
+     * }
+     */
+    public static int SSL_CTX_set_tlsext_ticket_key_evp_cb(MemorySegment ctx, MemorySegment fp) {
+        var mh$ = SSL_CTX_set_tlsext_ticket_key_evp_cb.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("SSL_CTX_set_tlsext_ticket_key_evp_cb", ctx, fp);
+            }
+            return (int)mh$.invokeExact(ctx, fp);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class SSL_new {
         public static final FunctionDescriptor DESC = FunctionDescriptor.of(
             openssl_h.C_POINTER,
@@ -7509,6 +7874,65 @@ public class openssl_h {
         }
     }
 
+    private static class SSL_key_update {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER,
+            openssl_h.C_INT
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("SSL_key_update");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int SSL_key_update(SSL *s, int updatetype)
+     * }
+     */
+    public static FunctionDescriptor SSL_key_update$descriptor() {
+        return SSL_key_update.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int SSL_key_update(SSL *s, int updatetype)
+     * }
+     */
+    public static MethodHandle SSL_key_update$handle() {
+        return SSL_key_update.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int SSL_key_update(SSL *s, int updatetype)
+     * }
+     */
+    public static MemorySegment SSL_key_update$address() {
+        return SSL_key_update.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int SSL_key_update(SSL *s, int updatetype)
+     * }
+     */
+    public static int SSL_key_update(MemorySegment s, int updatetype) {
+        var mh$ = SSL_key_update.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("SSL_key_update", s, updatetype);
+            }
+            return (int)mh$.invokeExact(s, updatetype);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class SSL_renegotiate {
         public static final FunctionDescriptor DESC = FunctionDescriptor.of(
             openssl_h.C_INT,
@@ -8322,6 +8746,64 @@ public class openssl_h {
         }
     }
 
+    private static class SSL_session_reused {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("SSL_session_reused");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int SSL_session_reused(const SSL *s)
+     * }
+     */
+    public static FunctionDescriptor SSL_session_reused$descriptor() {
+        return SSL_session_reused.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int SSL_session_reused(const SSL *s)
+     * }
+     */
+    public static MethodHandle SSL_session_reused$handle() {
+        return SSL_session_reused.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int SSL_session_reused(const SSL *s)
+     * }
+     */
+    public static MemorySegment SSL_session_reused$address() {
+        return SSL_session_reused.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int SSL_session_reused(const SSL *s)
+     * }
+     */
+    public static int SSL_session_reused(MemorySegment s) {
+        var mh$ = SSL_session_reused.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("SSL_session_reused", s);
+            }
+            return (int)mh$.invokeExact(s);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class SSL_set_info_callback {
         public static final FunctionDescriptor DESC = FunctionDescriptor.ofVoid(
             openssl_h.C_POINTER,
@@ -9658,6 +10140,65 @@ public class openssl_h {
         }
     }
 
+    private static class RAND_bytes {
+        public static final FunctionDescriptor DESC = FunctionDescriptor.of(
+            openssl_h.C_INT,
+            openssl_h.C_POINTER,
+            openssl_h.C_INT
+        );
+
+        public static final MemorySegment ADDR = openssl_h.findOrThrow("RAND_bytes");
+
+        public static final MethodHandle HANDLE = Linker.nativeLinker().downcallHandle(ADDR, DESC);
+    }
+
+    /**
+     * Function descriptor for:
+     * {@snippet lang=c :
+     * int RAND_bytes(unsigned char *buf, int num)
+     * }
+     */
+    public static FunctionDescriptor RAND_bytes$descriptor() {
+        return RAND_bytes.DESC;
+    }
+
+    /**
+     * Downcall method handle for:
+     * {@snippet lang=c :
+     * int RAND_bytes(unsigned char *buf, int num)
+     * }
+     */
+    public static MethodHandle RAND_bytes$handle() {
+        return RAND_bytes.HANDLE;
+    }
+
+    /**
+     * Address for:
+     * {@snippet lang=c :
+     * int RAND_bytes(unsigned char *buf, int num)
+     * }
+     */
+    public static MemorySegment RAND_bytes$address() {
+        return RAND_bytes.ADDR;
+    }
+
+    /**
+     * {@snippet lang=c :
+     * int RAND_bytes(unsigned char *buf, int num)
+     * }
+     */
+    public static int RAND_bytes(MemorySegment buf, int num) {
+        var mh$ = RAND_bytes.HANDLE;
+        try {
+            if (TRACE_DOWNCALLS) {
+                traceDowncall("RAND_bytes", buf, num);
+            }
+            return (int)mh$.invokeExact(buf, num);
+        } catch (Throwable ex$) {
+           throw new AssertionError("should not reach here", ex$);
+        }
+    }
+
     private static class X509_check_issued {
         public static final FunctionDescriptor DESC = FunctionDescriptor.of(
             openssl_h.C_INT,
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.scan;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.juli.logging.Log;
+import org.apache.juli.logging.LogFactory;
+import org.apache.tomcat.util.res.StringManager;
+
+/**
+ * Persistent record of the results of scanning JARs so that JARs that have not changed since the previous start of a
+ * web application do not need to be scanned again. The results are stored by section (the type of scan) and by the
+ * URL of the JAR. A result is only used if the size and last modified time of the JAR are unchanged and, if the result
+ * depends on more than the content of the JAR, if the fingerprint provided by the caller is unchanged.
+ * <p>
+ * Only JARs that are available as files may be indexed. Results that are not used during a start of the web
+ * application are not written when the index is saved.
+ * <p>
+ * This class is thread safe.
+ */
+public class JarScanIndex {
+
+    private static final Log log = LogFactory.getLog(JarScanIndex.class);
+    private static final StringManager sm = StringManager.getManager(JarScanIndex.class);
+
+    /**
+     * The name of the ServletContext attribute under which the index, if any, is made available to the components
+     * that scan the JARs of a web application.
+     */
+    public static final String SERVLET_CONTEXT_ATTRIBUTE_NAME = JarScanIndex.class.getName();
+
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final Map<String,Record> loaded;
+    private final Map<String,Record> used = new ConcurrentHashMap<>();
+
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+    private final AtomicLong timeSaved = new AtomicLong();
+
+
+    private JarScanIndex(File file, Map<String,Record> loaded) {
+        this.file = file;
+        this.loaded = loaded;
+    }
+
+
+    /**
+     * Load an index from a file. If the file does not exist or cannot be read, an empty index is returned.
+     *
+     * @param file The file from which the index should be loaded and to which it will be saved
+     *
+     * @return The index
+     */
+    public static JarScanIndex load(File file) {
+        Map<String,Record> records = new ConcurrentHashMap<>();
+        if (file.isFile()) {
+            try (DataInputStream in =
+                    new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        String key = in.readUTF();
+                        long size = in.readLong();
+                        long lastModified = in.readLong();
+                        String fingerprint = in.readUTF();
+                        long scanTime = in.readLong();
+                        int nameCount = in.readInt();
+                        List<String> names = new ArrayList<>(nameCount);
+                        for (int j = 0; j < nameCount; j++) {
+                            names.add(in.readUTF());
+                        }
+                        records.put(key, new Record(size, lastModified, fingerprint, scanTime,
+                                Collections.unmodifiableList(names)));
+                    }
+                }
+            } catch (IOException e) {
+                log.warn(sm.getString("jarScanIndex.loadFail", file), e);
+                records.clear();
+            }
+        }
+        return new JarScanIndex(file, records);
+    }
+
+
+    /**
+     * Obtain the result of a previous scan of a JAR.
+     *
+     * @param section     The type of scan
+     * @param jarFileUrl  The URL of the JAR
+     * @param fingerprint The fingerprint of anything other than the JAR on which the result depends or {@code null}
+     *                        if the result only depends on the JAR
+     *
+     * @return The names recorded by the previous scan or {@code null} if the JAR needs to be scanned
+     */
+    public List<String> get(String section, URL jarFileUrl, String fingerprint) {
+        File jarFile = toFile(jarFileUrl);
+        if (jarFile == null) {
+            return null;
+        }
+        String key = section + ' ' + jarFileUrl.toExternalForm();
+        Record record = loaded.get(key);
+        if (record == null || record.size != jarFile.length() || record.lastModified != jarFile.lastModified() ||
+                !record.fingerprint.equals(normalize(fingerprint))) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        used.put(key, record);
+        hitCount.incrementAndGet();
+        timeSaved.addAndGet(record.scanTime);
+        return record.names;
+    }
+
+
+    /**
+     * Record the result of a scan of a JAR.
+     *
+     * @param section     The type of scan
+     * @param jarFileUrl  The URL of the JAR
+     * @param fingerprint The fingerprint of anything other than the JAR on which the result depends or {@code null}
+     *                        if the result only depends on the JAR
+     * @param names       The names to record, typically the names of the JAR entries that will need to be processed
+     *                        when the JAR is next scanned
+     * @param scanTime    The time, in nanoseconds, taken to scan the JAR
+     */
+    public void put(String section, URL jarFileUrl, String fingerprint, List<String> names, long scanTime) {
+        File jarFile = toFile(jarFileUrl);
+        if (jarFile == null) {
+            return;
+        }
+        used.put(section + ' ' + jarFileUrl.toExternalForm(), new Record(jarFile.length(), jarFile.lastModified(),
+                normalize(fingerprint), scanTime, Collections.unmodifiableList(new ArrayList<>(names))));
+    }
+
+
+    /**
+     * Write the results used or recorded since this index was loaded to the file from which it was loaded.
+     *
+     * @throws IOException if the index could not be written
+     */
+    public void save() throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new FileNotFoundException(parent.getAbsolutePath());
+        }
+        File tmp = new File(parent, file.getName() + ".tmp");
+        // Copy so the count matches the records written
+        Map<String,Record> records = new HashMap<>(used);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+            for (Map.Entry<String,Record> entry : records.entrySet()) {
+                Record record = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(record.size);
+                out.writeLong(record.lastModified);
+                out.writeUTF(record.fingerprint);
+                out.writeLong(record.scanTime);
+                out.writeInt(record.names.size());
+                for (String name : record.names) {
+                    out.writeUTF(name);
+                }
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+
+    /**
+     * @return The number of JARs for which a previous result was used
+     */
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+
+    /**
+     * @return The number of JARs that had to be scanned because there was no valid previous result
+     */
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+
+    /**
+     * @return The time, in milliseconds, that the scans of the JARs for which a previous result was used took when
+     *             the results were recorded
+     */
+    public long getTimeSaved() {
+        return timeSaved.get() / 1_000_000;
+    }
+
+
+    /**
+     * @param url The URL of a JAR
+     *
+     * @return A description of the size and last modified time of the JAR or {@code null} if the JAR is not available
+     *             as a file
+     */
+    public static String getFileState(URL url) {
+        File f = toFile(url);
+        if (f == null) {
+            return null;
+        }
+        return f.length() + "/" + f.lastModified();
+    }
+
+
+    private static File toFile(URL url) {
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            File f = new File(url.toURI());
+            if (f.isFile()) {
+                return f;
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            // Not a file that can be indexed
+        }
+        return null;
+    }
+
+
+    private static String normalize(String fingerprint) {
+        return fingerprint == null ? "" : fingerprint;
+    }
+
+
+    private static final class Record {
+        private final long size;
+        private final long lastModified;
+        private final String fingerprint;
+        private final long scanTime;
+        private final List<String> names;
+
+        private Record(long size, long lastModified, String fingerprint, long scanTime, List<String> names) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.fingerprint = fingerprint;
+            this.scanTime = scanTime;
+            this.names = names;
+        }
+    }
+}
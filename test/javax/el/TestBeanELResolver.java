@@ -938,6 +938,70 @@ public class TestBeanELResolver {
         Assert.assertEquals(BEAN_NAME, result);
     }
 
+    /**
+     * Tests a method with a single parameter that is not overloaded. The second call uses the cached method.
+     */
+    @Test
+    public void testInvokeSingleParameter01() {
+        BeanELResolver resolver = new BeanELResolver();
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+
+        TesterBean bean = new TesterBean(BEAN_NAME);
+        for (int i = 0; i < 2; i++) {
+            resolver.invoke(context, bean, "setName", null, new Object[] { PROPERTY_VALUE + i });
+            Assert.assertEquals(PROPERTY_VALUE + i, bean.getName());
+        }
+    }
+
+    /**
+     * Tests a method with a single parameter where the parameter has to be coerced.
+     */
+    @Test
+    public void testInvokeSingleParameter02() {
+        BeanELResolver resolver = new BeanELResolver();
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+
+        TesterBean bean = new TesterBean(BEAN_NAME);
+        resolver.invoke(context, bean, "setName", null, new Object[] { PROPERTY_VALUE });
+        resolver.invoke(context, bean, "setName", null, new Object[] { Integer.valueOf(1) });
+        Assert.assertEquals("1", bean.getName());
+        resolver.invoke(context, bean, "setName", null, new Object[] { null });
+        Assert.assertEquals("", bean.getName());
+    }
+
+    /**
+     * Tests a static method with a single parameter invoked on an instance.
+     */
+    @Test
+    public void testInvokeSingleParameter03() {
+        BeanELResolver resolver = new BeanELResolver();
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+
+        for (int i = 0; i < 2; i++) {
+            Object result = resolver.invoke(context, Integer.valueOf(1), "toHexString", new Class<?>[] { Integer.class },
+                    new Object[] { Integer.valueOf(255) });
+            Assert.assertEquals("ff", result);
+        }
+    }
+
+    /**
+     * Tests that an exception thrown by a method is propagated.
+     */
+    @Test
+    public void testInvokeException() {
+        BeanELResolver resolver = new BeanELResolver();
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                resolver.invoke(context, new TesterBean(BEAN_NAME), "getValueA", null, null);
+                Assert.fail();
+            } catch (ELException e) {
+                Assert.assertEquals(Exception.class, e.getCause().getClass());
+            }
+        }
+    }
+
     private static class Bean {
 
         @SuppressWarnings("unused")
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javax.el;
+
+import org.junit.Test;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ */
+public class TesterBeanELResolverPerformance {
+
+    private static final int ITERATIONS = 10000000;
+
+    @Test
+    public void testGetValue() throws Exception {
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+        ELResolver resolver = new BeanELResolver();
+        TesterBean bean = new TesterBean("name");
+
+        // Warm-up
+        doGetValue(context, resolver, bean);
+
+        long start = System.nanoTime();
+        doGetValue(context, resolver, bean);
+        long duration = System.nanoTime() - start;
+
+        System.out.println("getValue performance test complete in " + duration + "ns");
+    }
+
+
+    @Test
+    public void testSetValue() throws Exception {
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+        ELResolver resolver = new BeanELResolver();
+        TesterBean bean = new TesterBean("name");
+
+        // Warm-up
+        doSetValue(context, resolver, bean);
+
+        long start = System.nanoTime();
+        doSetValue(context, resolver, bean);
+        long duration = System.nanoTime() - start;
+
+        System.out.println("setValue performance test complete in " + duration + "ns");
+    }
+
+
+    @Test
+    public void testInvoke() throws Exception {
+        ELContext context = new StandardELContext(ELManager.getExpressionFactory());
+        ELResolver resolver = new BeanELResolver();
+        TesterBean bean = new TesterBean("name");
+
+        // Warm-up
+        doInvoke(context, resolver, bean);
+
+        long start = System.nanoTime();
+        doInvoke(context, resolver, bean);
+        long duration = System.nanoTime() - start;
+
+        System.out.println("invoke performance test complete in " + duration + "ns");
+    }
+
+
+    private void doGetValue(ELContext context, ELResolver resolver, TesterBean bean) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            resolver.getValue(context, bean, "name");
+        }
+    }
+
+
+    private void doSetValue(ELContext context, ELResolver resolver, TesterBean bean) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            resolver.setValue(context, bean, "name", "value");
+        }
+    }
+
+
+    private void doInvoke(ELContext context, ELResolver resolver, TesterBean bean) {
+        Object[] params = new Object[] { "value" };
+        for (int i = 0; i < ITERATIONS; i++) {
+            resolver.invoke(context, bean, "getName", null, null);
+            resolver.invoke(context, bean, "setName", null, params);
+        }
+    }
+}
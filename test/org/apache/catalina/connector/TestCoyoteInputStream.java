@@ -16,11 +16,16 @@
  */
 package org.apache.catalina.connector;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -31,6 +36,7 @@ import org.junit.Test;
 import org.apache.catalina.Context;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.tomcat.RequestBodyBuffers;
 import org.apache.tomcat.util.buf.ByteChunk;
 
 public class TestCoyoteInputStream extends TomcatBaseTest {
@@ -53,6 +59,45 @@ public class TestCoyoteInputStream extends TomcatBaseTest {
         Assert.assertTrue(requestBody.equals(bc.toString()));
     }
 
+    @Test
+    public void testRequestBodyBuffersBlocking() throws Exception {
+        doTestRequestBodyBuffers(new BodyBuffersServlet(), false);
+    }
+
+
+    @Test
+    public void testRequestBodyBuffersNonBlocking() throws Exception {
+        doTestRequestBodyBuffers(new NonBlockingBodyBuffersServlet(), true);
+    }
+
+
+    @Test
+    public void testRequestBodyBuffersNotReleased() throws Exception {
+        doTestRequestBodyBuffers(new UnreleasedBodyBuffersServlet(), false);
+    }
+
+
+    private void doTestRequestBodyBuffers(HttpServlet servlet, boolean async) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        Context root = tomcat.addContext("", TEMP_DIR);
+        Tomcat.addServlet(root, "testServlet", servlet).setAsyncSupported(async);
+        root.addServletMappingDecoded("/", "testServlet");
+
+        tomcat.start();
+
+        // Large enough to need several reads
+        byte[] requestBody = new byte[256 * 1024];
+        for (int i = 0; i < requestBody.length; i++) {
+            requestBody[i] = (byte) ('a' + i % 26);
+        }
+        ByteChunk bc = new ByteChunk();
+        int rc = postUrl(requestBody, "http://localhost:" + getPort() + "/", bc, null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, rc);
+        Assert.assertArrayEquals(requestBody, Arrays.copyOfRange(bc.getBytes(), bc.getStart(), bc.getEnd()));
+    }
+
+
     private static final class TestServlet extends HttpServlet {
 
         private static final long serialVersionUID = 1L;
@@ -69,4 +114,102 @@ public class TestCoyoteInputStream extends TomcatBaseTest {
 
     }
 
+
+    private static final class BodyBuffersServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+                throws ServletException, IOException {
+            RequestBodyBuffers buffers = (RequestBodyBuffers) req.getAttribute(RequestBodyBuffers.ATTRIBUTE_NAME);
+            CoyoteOutputStream os = (CoyoteOutputStream) resp.getOutputStream();
+            ByteBuffer buffer;
+            while ((buffer = buffers.readBuffer()) != null) {
+                Assert.assertTrue(buffer.isReadOnly());
+                os.write(buffer);
+                buffers.releaseBuffer(buffer);
+            }
+        }
+    }
+
+
+    private static final class NonBlockingBodyBuffersServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+                throws ServletException, IOException {
+            AsyncContext ac = req.startAsync();
+            RequestBodyBuffers buffers = (RequestBodyBuffers) req.getAttribute(RequestBodyBuffers.ATTRIBUTE_NAME);
+            ServletInputStream is = (ServletInputStream) buffers;
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            is.setReadListener(new ReadListener() {
+
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (is.isReady()) {
+                        ByteBuffer buffer = buffers.readBuffer();
+                        if (buffer == null) {
+                            return;
+                        }
+                        while (buffer.hasRemaining()) {
+                            body.write(buffer.get());
+                        }
+                        buffers.releaseBuffer(buffer);
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() throws IOException {
+                    body.writeTo(ac.getResponse().getOutputStream());
+                    ac.complete();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    ac.complete();
+                }
+            });
+        }
+    }
+
+
+    private static final class UnreleasedBodyBuffersServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+                throws ServletException, IOException {
+            RequestBodyBuffers buffers = (RequestBodyBuffers) req.getAttribute(RequestBodyBuffers.ATTRIBUTE_NAME);
+            CoyoteOutputStream os = (CoyoteOutputStream) resp.getOutputStream();
+            ByteBuffer buffer = buffers.readBuffer();
+            try {
+                buffers.readBuffer();
+                Assert.fail();
+            } catch (IllegalStateException expected) {
+                // Expected
+            }
+            try {
+                req.getInputStream().read();
+                Assert.fail();
+            } catch (IllegalStateException expected) {
+                // Expected
+            }
+            try {
+                buffers.releaseBuffer(ByteBuffer.allocate(1));
+                Assert.fail();
+            } catch (IllegalArgumentException expected) {
+                // Expected
+            }
+            // The buffer is still valid
+            while (buffer != null) {
+                os.write(buffer);
+                buffers.releaseBuffer(buffer);
+                buffer = buffers.readBuffer();
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@ package org.apache.catalina.connector;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -123,6 +124,36 @@ public class TestCoyoteOutputStream extends TomcatBaseTest {
         }
     }
 
+    @Test
+    public void testWriteWithLargeDirectByteBufferChunked() throws Exception {
+        doTestWriteWithLargeByteBuffer(true, false);
+    }
+
+    @Test
+    public void testWriteWithLargeHeapByteBufferContentLength() throws Exception {
+        doTestWriteWithLargeByteBuffer(false, true);
+    }
+
+    private void doTestWriteWithLargeByteBuffer(boolean direct, boolean contentLength) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        Context root = tomcat.addContext("", TEMP_DIR);
+        Tomcat.addServlet(root, "testServlet", new LargeByteBufferServlet(direct, contentLength));
+        root.addServletMappingDecoded("/", "testServlet");
+
+        tomcat.start();
+
+        ByteChunk bc = new ByteChunk();
+        int rc = getUrl("http://localhost:" + getPort() + "/", bc, null, null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, rc);
+        Assert.assertEquals(LargeByteBufferServlet.SIZE + 2, bc.getLength());
+        Assert.assertEquals('[', bc.getBuffer()[bc.getStart()]);
+        for (int i = 0; i < LargeByteBufferServlet.SIZE; i++) {
+            Assert.assertEquals((byte) i, bc.getBuffer()[bc.getStart() + 1 + i]);
+        }
+        Assert.assertEquals(']', bc.getBuffer()[bc.getEnd() - 1]);
+    }
+
     private void doNonBlockingTest(int asyncWriteTarget, int syncWriteTarget,
             boolean useContainerThreadToSetListener) throws Exception {
 
@@ -290,4 +321,38 @@ public class TestCoyoteOutputStream extends TomcatBaseTest {
         }
 
     }
+
+    private static final class LargeByteBufferServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        // Much larger than the response and socket buffers
+        private static final int SIZE = 1024 * 1024;
+
+        private final boolean direct;
+        private final boolean contentLength;
+
+        LargeByteBufferServlet(boolean direct, boolean contentLength) {
+            this.direct = direct;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+                throws ServletException, IOException {
+            if (contentLength) {
+                resp.setContentLength(SIZE + 2);
+            }
+            ByteBuffer data = direct ? ByteBuffer.allocateDirect(SIZE) : ByteBuffer.allocate(SIZE);
+            for (int i = 0; i < SIZE; i++) {
+                data.put((byte) i);
+            }
+            data.flip();
+            CoyoteOutputStream os = (CoyoteOutputStream) resp.getOutputStream();
+            // Ensure the response buffer is not empty when the large buffer is written
+            os.write('[');
+            os.write(data);
+            os.write(']');
+        }
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.connector;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.tomcat.StreamingPart;
+import org.apache.tomcat.StreamingPartHandler;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.FileCountLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+
+public class TestMultipartParser {
+
+    private static final String BOUNDARY = "AaB03x";
+
+    private static final String BODY = "preamble\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"field\"\r\n" +
+            "\r\n" +
+            "value\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "line1\r\n--AaB03\r\n-\r\nline2\r\r\n\r\n--AaB03y\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "no name\r\n" +
+            "--" + BOUNDARY + "\r\n" +
+            "Content-Disposition: form-data; name=\"empty\"\r\n" +
+            "\r\n" +
+            "\r\n" +
+            "--" + BOUNDARY + "--\r\n" +
+            "epilogue";
+
+    private static final String EXPECTED = "start[field,null,null]data[value]end[field]" +
+            "start[file,a.txt,text/plain]data[line1\r\n--AaB03\r\n-\r\nline2\r\r\n\r\n--AaB03y]end[file]" +
+            "start[empty,null,null]end[empty]complete";
+
+
+    @Test
+    public void testSingleBlock() throws Exception {
+        Assert.assertEquals(EXPECTED, doParse(BODY, BODY.length(), new FileUpload()));
+    }
+
+
+    @Test
+    public void testSmallBlocks() throws Exception {
+        for (int blockSize = 1; blockSize < 20; blockSize++) {
+            Assert.assertEquals(EXPECTED, doParse(BODY, blockSize, new FileUpload()));
+        }
+    }
+
+
+    @Test
+    public void testNoPreamble() throws Exception {
+        String body = "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n" +
+                "\r\n" +
+                "value\r\n" +
+                "--" + BOUNDARY + "--";
+        Assert.assertEquals("start[field,null,null]data[value]end[field]complete", doParse(body, 3, new FileUpload()));
+    }
+
+
+    @Test(expected = FileUploadException.class)
+    public void testNoClosingBoundary() throws Exception {
+        doParse(BODY.substring(0, BODY.indexOf("epilogue") - 4), 7, new FileUpload());
+    }
+
+
+    @Test(expected = FileUploadException.class)
+    public void testInvalidBoundary() throws Exception {
+        doParse("--" + BOUNDARY + "XX\r\n", 100, new FileUpload());
+    }
+
+
+    @Test(expected = FileSizeLimitExceededException.class)
+    public void testFileSizeMax() throws Exception {
+        FileUpload upload = new FileUpload();
+        upload.setFileSizeMax(10);
+        doParse(BODY, 5, upload);
+    }
+
+
+    @Test(expected = SizeLimitExceededException.class)
+    public void testSizeMax() throws Exception {
+        FileUpload upload = new FileUpload();
+        upload.setSizeMax(BODY.length() - 1);
+        doParse(BODY, 5, upload);
+    }
+
+
+    @Test(expected = FileCountLimitExceededException.class)
+    public void testFileCountMax() throws Exception {
+        FileUpload upload = new FileUpload();
+        upload.setFileCountMax(2);
+        doParse(BODY, 5, upload);
+    }
+
+
+    @Test
+    public void testFileCountMaxNotExceeded() throws Exception {
+        FileUpload upload = new FileUpload();
+        // The part without a name does not count towards the limit
+        upload.setFileCountMax(3);
+        Assert.assertEquals(EXPECTED, doParse(BODY, 5, upload));
+    }
+
+
+    private static String doParse(String body, int blockSize, FileUpload upload) throws IOException {
+        RecordingHandler handler = new RecordingHandler();
+        MultipartParser parser = new MultipartParser(handler, upload, BOUNDARY.getBytes(StandardCharsets.ISO_8859_1),
+                StandardCharsets.ISO_8859_1);
+        byte[] bytes = body.getBytes(StandardCharsets.ISO_8859_1);
+        // Copy each block to check the parser does not retain references to the blocks
+        byte[] block = new byte[blockSize];
+        for (int pos = 0; pos < bytes.length; pos += blockSize) {
+            int len = Math.min(blockSize, bytes.length - pos);
+            System.arraycopy(bytes, pos, block, 0, len);
+            parser.parse(block, 0, len);
+            Arrays.fill(block, (byte) 0);
+        }
+        parser.end();
+        return handler.toString();
+    }
+
+
+    static class RecordingHandler implements StreamingPartHandler {
+
+        private final StringBuilder result = new StringBuilder();
+        private StreamingPart current;
+        private boolean inData;
+
+        @Override
+        public void onPartStart(StreamingPart part) {
+            current = part;
+            result.append("start[").append(part.getName()).append(',').append(part.getSubmittedFileName())
+                    .append(',').append(part.getContentType()).append(']');
+        }
+
+        @Override
+        public void onPartData(StreamingPart part, byte[] b, int off, int len) {
+            Assert.assertSame(current, part);
+            if (!inData) {
+                result.append("data[");
+                inData = true;
+            }
+            result.append(new String(b, off, len, StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        public void onPartEnd(StreamingPart part) {
+            Assert.assertSame(current, part);
+            if (inData) {
+                result.append(']');
+                inData = false;
+            }
+            result.append("end[").append(part.getName()).append(']');
+            current = null;
+        }
+
+        @Override
+        public void onComplete() {
+            result.append("complete");
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            result.append("error[").append(t.getClass().getSimpleName()).append(']');
+        }
+
+        @Override
+        public String toString() {
+            return result.toString();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.connector;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.MultipartConfigElement;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.tomcat.StreamingPart;
+import org.apache.tomcat.StreamingPartHandler;
+import org.apache.tomcat.StreamingParts;
+import org.apache.tomcat.util.buf.ByteChunk;
+
+public class TestStreamingMultipart extends TomcatBaseTest {
+
+    private static final String BOUNDARY = "AaB03x";
+
+    @Test
+    public void testBlocking() throws Exception {
+        doTest(false, 1024, "a", "start[field]data[value]end[field]start[file]data[" + fileContent(1000) +
+                "]end[file]complete query[a] parts[ISE]");
+    }
+
+
+    @Test
+    public void testNonBlocking() throws Exception {
+        doTest(true, 1024, "a", "start[field]data[value]end[field]start[file]data[" + fileContent(1000) +
+                "]end[file]complete query[a] parts[ISE]");
+    }
+
+
+    @Test
+    public void testBlockingFileSizeMax() throws Exception {
+        doTest(false, 500, null, "start[field]data[value]end[field]start[file]error[FileSizeLimitExceededException]");
+    }
+
+
+    @Test
+    public void testNonBlockingFileSizeMax() throws Exception {
+        doTest(true, 500, null, "start[field]data[value]end[field]start[file]error[FileSizeLimitExceededException]");
+    }
+
+
+    @Test
+    public void testNotMultipart() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        Context ctx = getProgrammaticRootContext();
+        Wrapper w = Tomcat.addServlet(ctx, "streaming", new StreamingServlet(false));
+        w.setMultipartConfigElement(new MultipartConfigElement(""));
+        ctx.addServletMappingDecoded("/", "streaming");
+        tomcat.start();
+
+        ByteChunk bc = new ByteChunk();
+        Map<String,List<String>> reqHeaders = new HashMap<>();
+        reqHeaders.put("Content-Type", Collections.singletonList("application/x-www-form-urlencoded"));
+        int rc = postUrl("a=b".getBytes(StandardCharsets.ISO_8859_1), "http://localhost:" + getPort() + "/", bc,
+                reqHeaders, null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, rc);
+        Assert.assertEquals("none", bc.toString());
+    }
+
+
+    private void doTest(boolean async, long maxFileSize, String query, String expected) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        Context ctx = getProgrammaticRootContext();
+        Wrapper w = Tomcat.addServlet(ctx, "streaming", new StreamingServlet(async));
+        w.setMultipartConfigElement(new MultipartConfigElement("", maxFileSize, -1, 0));
+        w.setAsyncSupported(true);
+        ctx.addServletMappingDecoded("/", "streaming");
+        tomcat.start();
+
+        String body = "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"field\"\r\n" +
+                "\r\n" +
+                "value\r\n" +
+                "--" + BOUNDARY + "\r\n" +
+                "Content-Disposition: form-data; name=\"file\"; filename=\"a.txt\"\r\n" +
+                "\r\n" +
+                fileContent(1000) + "\r\n" +
+                "--" + BOUNDARY + "--\r\n";
+
+        ByteChunk bc = new ByteChunk();
+        Map<String,List<String>> reqHeaders = new HashMap<>();
+        reqHeaders.put("Content-Type", Arrays.asList("multipart/form-data; boundary=" + BOUNDARY));
+        String url = "http://localhost:" + getPort() + "/" + (query == null ? "" : "?q=" + query);
+        int rc = postUrl(body.getBytes(StandardCharsets.ISO_8859_1), url, bc, reqHeaders, null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, rc);
+        Assert.assertEquals(expected, bc.toString());
+    }
+
+
+    private static String fileContent(int len) {
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+
+    private static class StreamingServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean async;
+
+        StreamingServlet(boolean async) {
+            this.async = async;
+        }
+
+        @Override
+        protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+            resp.setContentType("text/plain");
+            resp.setCharacterEncoding("ISO-8859-1");
+
+            StreamingParts parts = (StreamingParts) req.getAttribute(StreamingParts.ATTRIBUTE_NAME);
+            if (parts == null) {
+                resp.getWriter().print("none");
+                return;
+            }
+
+            if (async) {
+                AsyncContext ac = req.startAsync();
+                parts.setHandler(new Handler(req, resp, ac));
+            } else {
+                Handler handler = new Handler(req, resp, null);
+                try {
+                    parts.read(handler);
+                } catch (IOException e) {
+                    handler.onError(e);
+                }
+            }
+        }
+    }
+
+
+    private static class Handler implements StreamingPartHandler {
+
+        private final HttpServletRequest req;
+        private final HttpServletResponse resp;
+        private final AsyncContext ac;
+        private final StringBuilder result = new StringBuilder();
+        private boolean inData;
+
+        Handler(HttpServletRequest req, HttpServletResponse resp, AsyncContext ac) {
+            this.req = req;
+            this.resp = resp;
+            this.ac = ac;
+        }
+
+        @Override
+        public void onPartStart(StreamingPart part) {
+            result.append("start[").append(part.getName()).append(']');
+        }
+
+        @Override
+        public void onPartData(StreamingPart part, byte[] b, int off, int len) {
+            if (!inData) {
+                result.append("data[");
+                inData = true;
+            }
+            result.append(new String(b, off, len, StandardCharsets.ISO_8859_1));
+        }
+
+        @Override
+        public void onPartEnd(StreamingPart part) {
+            if (inData) {
+                result.append(']');
+                inData = false;
+            }
+            result.append("end[").append(part.getName()).append(']');
+        }
+
+        @Override
+        public void onComplete() throws IOException {
+            result.append("complete");
+            result.append(" query[").append(req.getParameter("q")).append(']');
+            try {
+                req.getParts();
+                result.append(" parts[OK]");
+            } catch (IllegalStateException | ServletException e) {
+                result.append(" parts[ISE]");
+            }
+            finish();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (inData) {
+                inData = false;
+                // The data received before the limit was exceeded is not checked
+                result.setLength(result.lastIndexOf("data["));
+            }
+            result.append("error[").append(t.getClass().getSimpleName()).append(']');
+            try {
+                finish();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private void finish() throws IOException {
+            resp.getWriter().print(result);
+            if (ac != null) {
+                ac.complete();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.catalina.connector;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ */
+public class TesterResponsePerformance extends TomcatBaseTest {
+
+    private static final int SIZE = 64 * 1024 * 1024;
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void testLargeByteBufferWritePerformance() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        Context root = tomcat.addContext("", TEMP_DIR);
+        Tomcat.addServlet(root, "write", new WriteServlet());
+        root.addServletMappingDecoded("/", "write");
+
+        tomcat.start();
+
+        // Warm up
+        doRequests("copy", 5);
+        doRequests("heap", 5);
+        doRequests("direct", 5);
+
+        // Writes the same data in response buffer sized byte arrays so it is copied to the response buffer
+        long copy = doRequests("copy", ITERATIONS);
+        // Writes the data as a single, large ByteBuffer that is passed through to the socket
+        long heap = doRequests("heap", ITERATIONS);
+        long direct = doRequests("direct", ITERATIONS);
+
+        System.out.println("Buffer sized byte[] writes: " + copy + "ms, Large heap ByteBuffer write: " + heap +
+                "ms, Large direct ByteBuffer write: " + direct + "ms");
+    }
+
+
+    private long doRequests(String mode, int iterations) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            URL url = new URL("http://localhost:" + getPort() + "/?mode=" + mode);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            Assert.assertEquals(HttpServletResponse.SC_OK, connection.getResponseCode());
+            long total = 0;
+            try (InputStream is = connection.getInputStream()) {
+                int read;
+                while ((read = is.read(buf)) > 0) {
+                    total += read;
+                }
+            }
+            Assert.assertEquals(SIZE, total);
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+
+    private static final class WriteServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer heap = ByteBuffer.allocate(SIZE);
+        private final ByteBuffer direct = ByteBuffer.allocateDirect(SIZE);
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            resp.setContentType("application/octet-stream");
+            resp.setContentLength(SIZE);
+            CoyoteOutputStream os = (CoyoteOutputStream) resp.getOutputStream();
+            String mode = req.getParameter("mode");
+            if ("copy".equals(mode)) {
+                byte[] data = new byte[resp.getBufferSize()];
+                for (int written = 0; written < SIZE; written += data.length) {
+                    os.write(data, 0, Math.min(data.length, SIZE - written));
+                }
+            } else if ("heap".equals(mode)) {
+                os.write(heap.duplicate());
+            } else {
+                os.write(direct.duplicate());
+            }
+        }
+    }
+}
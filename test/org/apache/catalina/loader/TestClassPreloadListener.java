@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.loader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+public class TestClassPreloadListener extends TomcatBaseTest {
+
+    private static final String CLASS_NAME = "org.apache.tomcat.Bug58096";
+
+    @Test
+    public void testRecordAndPreload() throws Exception {
+        ClassPreloadListener listener = new ClassPreloadListener();
+        StandardContext ctx = startContext(listener);
+
+        // Nothing recorded yet
+        Assert.assertEquals(0, listener.getPreloadedCount());
+
+        ctx.getLoader().getClassLoader().loadClass(CLASS_NAME);
+        ctx.stop();
+
+        File file = new File(ctx.getWorkPath(), ClassPreloadListener.CLASS_LIST_FILE);
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        Assert.assertTrue(lines.contains(CLASS_NAME));
+
+        ctx.start();
+
+        Assert.assertEquals(lines.size() - 1, listener.getPreloadedCount());
+        Assert.assertEquals(0, listener.getFailedCount());
+        WebappClassLoaderBase classLoader = (WebappClassLoaderBase) ctx.getLoader().getClassLoader();
+        Assert.assertTrue(classLoader.getLoadedClassNames().contains(CLASS_NAME));
+    }
+
+
+    @Test
+    public void testJarsChanged() throws Exception {
+        ClassPreloadListener listener = new ClassPreloadListener();
+        listener.setRecord(false);
+        StandardContext ctx = startContext(listener);
+        ctx.stop();
+
+        File file = new File(ctx.getWorkPath(), ClassPreloadListener.CLASS_LIST_FILE);
+        // Fingerprint does not match the JARs of the web application
+        Files.write(file.toPath(), Arrays.asList("changed", CLASS_NAME), StandardCharsets.UTF_8);
+
+        ctx.start();
+
+        Assert.assertEquals(0, listener.getPreloadedCount());
+        WebappClassLoaderBase classLoader = (WebappClassLoaderBase) ctx.getLoader().getClassLoader();
+        Assert.assertFalse(classLoader.getLoadedClassNames().contains(CLASS_NAME));
+    }
+
+
+    @Test
+    public void testClassesChanged() throws Exception {
+        ClassPreloadListener listener = new ClassPreloadListener();
+        StandardContext ctx = startContext(listener);
+        ctx.getLoader().getClassLoader().loadClass(CLASS_NAME);
+        ctx.stop();
+
+        File classFile = new File("test/webapp/WEB-INF/classes/" + CLASS_NAME.replace('.', '/') + ".class");
+        long lastModified = classFile.lastModified();
+        try {
+            Assert.assertTrue(classFile.setLastModified(lastModified - 60000));
+
+            ctx.start();
+
+            Assert.assertEquals(0, listener.getPreloadedCount());
+            WebappClassLoaderBase classLoader = (WebappClassLoaderBase) ctx.getLoader().getClassLoader();
+            Assert.assertFalse(classLoader.getLoadedClassNames().contains(CLASS_NAME));
+        } finally {
+            classFile.setLastModified(lastModified);
+        }
+    }
+
+
+    private StandardContext startContext(ClassPreloadListener listener) throws Exception {
+        Tomcat tomcat = getTomcatInstanceTestWebapp(false, false);
+        StandardContext ctx = (StandardContext) tomcat.getHost().findChild("/test");
+        // Preload before the start completes so the results can be checked
+        listener.setBackground(false);
+        ctx.addLifecycleListener(listener);
+        tomcat.start();
+        return ctx;
+    }
+}
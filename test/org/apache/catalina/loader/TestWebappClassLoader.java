@@ -60,6 +60,62 @@ public class TestWebappClassLoader extends TomcatBaseTest {
         }
     }
 
+    @Test
+    public void testNotFoundClassResourceFilter() throws Exception {
+        Tomcat tomcat = getTomcatInstanceTestWebapp(false, false);
+        StandardContext ctx = (StandardContext) tomcat.getHost().findChild("/test");
+        ctx.setNotFoundClassResourceFilter(true);
+
+        tomcat.start();
+
+        WebappClassLoaderBase cl = (WebappClassLoaderBase) ctx.getLoader().getClassLoader();
+
+        // From WEB-INF/classes
+        Assert.assertNotNull(cl.loadClass("org.apache.tomcat.Bug58096"));
+        Assert.assertNotNull(cl.getResource("org/apache/tomcat/Bug58096.class"));
+        Assert.assertNotNull(cl.getResource("org/apache/tomcat/"));
+        Assert.assertNotNull(cl.getResource("org/apache/tomcat"));
+        // From a JAR in WEB-INF/lib
+        Assert.assertNotNull(cl.getResource("META-INF/test-lib.tld"));
+        Assert.assertNotNull(cl.getResource("META-INF/tags/echo.tag"));
+        Assert.assertNotNull(cl.getResourceAsStream("META-INF/tags/echo.tag"));
+
+        long hits = cl.getNotFoundFilterHitCount();
+        Assert.assertNull(cl.getResource("org/apache/tomcat/DoesNotExist.class"));
+        Assert.assertEquals(hits + 1, cl.getNotFoundFilterHitCount());
+
+        // From the parent class loader
+        long count = cl.getLoadClassCount();
+        Assert.assertNotNull(cl.loadClass("org.junit.Assert"));
+        Assert.assertEquals(count + 1, cl.getLoadClassCount());
+        Assert.assertTrue(cl.getNotFoundFilterHitCount() > hits + 1);
+
+        // Previously loaded
+        long cacheHits = cl.getLoadClassCacheHitCount();
+        Assert.assertNotNull(cl.loadClass("org.apache.tomcat.Bug58096"));
+        Assert.assertEquals(cacheHits + 1, cl.getLoadClassCacheHitCount());
+    }
+
+    @Test
+    public void testNotFoundClassResourceFilterPackedWar() throws Exception {
+        File f = new File("test/webresources/war-url-connection.war");
+
+        Tomcat tomcat = getTomcatInstance();
+
+        StandardContext ctx = (StandardContext) tomcat.addContext("", f.getAbsolutePath());
+        ctx.setNotFoundClassResourceFilter(true);
+
+        tomcat.start();
+
+        WebappClassLoaderBase cl = (WebappClassLoaderBase) ctx.getLoader().getClassLoader();
+
+        Assert.assertNotNull(cl.getResource("META-INF/resources/index.html"));
+        Assert.assertNotNull(cl.getResource("META-INF/resources"));
+        long hits = cl.getNotFoundFilterHitCount();
+        Assert.assertNull(cl.getResource("META-INF/resources/missing.html"));
+        Assert.assertEquals(hits + 1, cl.getNotFoundFilterHitCount());
+    }
+
     @Test
     public void testFilter() throws IOException {
 
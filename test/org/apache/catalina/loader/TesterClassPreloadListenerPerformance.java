@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.loader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.junit.Test;
+
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ *
+ * Measures the time taken by the first use (loading and linking) of the classes of the examples web application and
+ * its JARs, with and without preloading.
+ */
+public class TesterClassPreloadListenerPerformance extends TomcatBaseTest {
+
+    private static final int ITERATIONS = 5;
+
+    @Test
+    public void testFirstUse() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        File appDir = new File(getBuildDirectory(), "webapps/examples");
+        StandardContext ctx = (StandardContext) tomcat.addWebapp(null, "/examples", appDir.getAbsolutePath());
+        ClassPreloadListener listener = new ClassPreloadListener();
+        listener.setBackground(false);
+        listener.setPreload(false);
+        ctx.addLifecycleListener(listener);
+        tomcat.start();
+
+        // Use every class of the web application so they are all recorded
+        List<String> classNames = new ArrayList<>();
+        addClassNames(new File(appDir, "WEB-INF/classes"), "", classNames);
+        File[] jars = new File(appDir, "WEB-INF/lib").listFiles();
+        if (jars != null) {
+            for (File jar : jars) {
+                try (JarFile jarFile = new JarFile(jar)) {
+                    Enumeration<JarEntry> entries = jarFile.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.endsWith(".class") && !name.endsWith("module-info.class")) {
+                            classNames.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                        }
+                    }
+                }
+            }
+        }
+        use(ctx, classNames);
+        ctx.stop();
+        listener.setRecord(false);
+
+        File file = new File(ctx.getWorkPath(), ClassPreloadListener.CLASS_LIST_FILE);
+        List<String> recorded = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        recorded = recorded.subList(1, recorded.size());
+        System.out.println("Recorded [" + recorded.size() + "] classes");
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            listener.setPreload(false);
+            long start = System.nanoTime();
+            ctx.start();
+            long startWithout = System.nanoTime() - start;
+            long without = use(ctx, recorded);
+            ctx.stop();
+
+            listener.setPreload(true);
+            start = System.nanoTime();
+            ctx.start();
+            long startWith = System.nanoTime() - start;
+            long with = use(ctx, recorded);
+            ctx.stop();
+
+            System.out.println("Without preload: start [" + startWithout / 1000000 + "] ms, first use [" +
+                    without / 1000000 + "] ms. With preload: start [" + startWith / 1000000 + "] ms, first use [" +
+                    with / 1000000 + "] ms, preloaded [" + listener.getPreloadedCount() + "]");
+        }
+    }
+
+
+    private static long use(StandardContext ctx, List<String> classNames) {
+        ClassLoader classLoader = ctx.getLoader().getClassLoader();
+        long start = System.nanoTime();
+        for (String className : classNames) {
+            try {
+                Class.forName(className, false, classLoader).getDeclaredConstructors();
+            } catch (Throwable t) {
+                // Ignore classes with missing dependencies
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+
+    private static void addClassNames(File dir, String packageName, List<String> classNames) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                addClassNames(file, packageName + name + '.', classNames);
+            } else if (name.endsWith(".class")) {
+                classNames.add(packageName + name.substring(0, name.length() - 6));
+            }
+        }
+    }
+}
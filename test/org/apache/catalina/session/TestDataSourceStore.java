@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.session;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Session;
+import org.apache.catalina.startup.LoggingBaseTest;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.apache.tomcat.unittest.TesterContext;
+import org.apache.tomcat.unittest.TesterHost;
+import org.apache.tomcat.util.compat.JreCompat;
+
+public class TestDataSourceStore extends LoggingBaseTest {
+
+    public static final String SCHEMA =
+            "create table tomcat_sessions (\n"
+            + "  id                varchar(100) not null,\n"
+            + "  app               varchar(255) not null,\n"
+            + "  data              blob,\n"
+            + "  valid             char(1) not null,\n"
+            + "  maxinactive       int not null,\n"
+            + "  lastaccess        bigint not null,\n"
+            + "  primary key (id, app)\n"
+            + ");\n"
+            + "create table tomcat_session_attributes (\n"
+            + "  id                varchar(100) not null,\n"
+            + "  app               varchar(255) not null,\n"
+            + "  name              varchar(255) not null,\n"
+            + "  data              blob,\n"
+            + "  primary key (id, app, name)\n"
+            + ")";
+
+    private EmbeddedDataSource dataSource;
+    private PersistentManager manager;
+    private DataSourceStore store;
+
+
+    @Before
+    public void setUpStore() throws Exception {
+        Assume.assumeTrue(JreCompat.isJre16Available());
+        dataSource = createDataSource(getTemporaryDirectory().getAbsolutePath() + "/" + testName.getMethodName());
+        manager = new PersistentManager();
+        store = createStore(manager, dataSource);
+    }
+
+
+    static EmbeddedDataSource createDataSource(String path) throws Exception {
+        EmbeddedDataSource dataSource = new EmbeddedDataSource();
+        dataSource.setDatabaseName(path);
+        dataSource.setCreateDatabase("create");
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : SCHEMA.split(";")) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(sql);
+                }
+            }
+        }
+        return dataSource;
+    }
+
+
+    static DataSourceStore createStore(PersistentManager manager, EmbeddedDataSource dataSource) throws Exception {
+        DataSourceStore store = new DataSourceStore();
+        // Replace JNDI access with direct use of the Derby data source
+        store.dataSourceName = "jdbc/sessions";
+        store.dataSource = dataSource;
+        store.setSessionTable("tomcat_sessions");
+        manager.setStore(store);
+
+        Context context = new TesterContext();
+        context.setParent(new TesterHost());
+        manager.setContext(context);
+        manager.start();
+        return store;
+    }
+
+
+    @Test
+    public void testSaveLoad() throws Exception {
+        Session session = createSession();
+        store.save(session);
+
+        Assert.assertEquals(1, store.getSize());
+        Assert.assertEquals(0, countAttributeRows());
+
+        StandardSession loaded = (StandardSession) store.load(session.getIdInternal());
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals("a-value", loaded.getAttribute("a"));
+        Assert.assertEquals("b-value", loaded.getAttribute("b"));
+        Assert.assertEquals("c-value", loaded.getAttribute("c"));
+    }
+
+
+    @Test
+    public void testSeparateAttributes() throws Exception {
+        store.setSessionAttributeTable("tomcat_session_attributes");
+
+        StandardSession session = createSession();
+        String id = session.getIdInternal();
+        store.save(session);
+        Assert.assertEquals(3, countAttributeRows());
+
+        StandardSession loaded = (StandardSession) store.load(id);
+        Assert.assertEquals("a-value", loaded.getAttribute("a"));
+        Assert.assertEquals("b-value", loaded.getAttribute("b"));
+        Assert.assertEquals("c-value", loaded.getAttribute("c"));
+
+        // Change the stored value of an attribute behind the back of the store
+        // so it is possible to check that unchanged attributes are not written
+        updateAttributeRow(id, "c", "c-database");
+
+        loaded.setAttribute("a", "a-changed");
+        loaded.removeAttribute("b");
+        loaded.setAttribute("d", "d-value");
+        store.save(loaded);
+        Assert.assertEquals(3, countAttributeRows());
+
+        StandardSession reloaded = (StandardSession) store.load(id);
+        Assert.assertEquals("a-changed", reloaded.getAttribute("a"));
+        Assert.assertNull(reloaded.getAttribute("b"));
+        Assert.assertEquals("c-database", reloaded.getAttribute("c"));
+        Assert.assertEquals("d-value", reloaded.getAttribute("d"));
+
+        store.remove(id);
+        Assert.assertEquals(0, store.getSize());
+        Assert.assertEquals(0, countAttributeRows());
+    }
+
+
+    @Test
+    public void testWriteBehind() throws Exception {
+        store.setSessionAttributeTable("tomcat_session_attributes");
+        store.setWriteBehind(true);
+
+        StandardSession session = createSession();
+        String id = session.getIdInternal();
+        store.save(session);
+        session.setAttribute("a", "a-changed");
+        store.save(session);
+
+        // Saves are only queued
+        Assert.assertEquals(1, store.getPendingSaveCount());
+        Assert.assertEquals(0, countSessionRows());
+
+        // Loading a queued session writes the queue first
+        StandardSession loaded = (StandardSession) store.load(id);
+        Assert.assertEquals(0, store.getPendingSaveCount());
+        Assert.assertEquals(1, countSessionRows());
+        Assert.assertEquals("a-changed", loaded.getAttribute("a"));
+        Assert.assertEquals("b-value", loaded.getAttribute("b"));
+
+        // A queued save followed by a removal must not resurrect the session
+        loaded.setAttribute("b", "b-changed");
+        store.save(loaded);
+        store.remove(id);
+        store.flushPendingSaves();
+        Assert.assertEquals(0, countSessionRows());
+        Assert.assertEquals(0, countAttributeRows());
+    }
+
+
+    @Test
+    public void testWriteBehindMaxPending() throws Exception {
+        store.setWriteBehind(true);
+        store.setWriteBehindMaxPending(3);
+
+        store.save(createSession());
+        store.save(createSession());
+        Assert.assertEquals(2, store.getPendingSaveCount());
+        Assert.assertEquals(0, countSessionRows());
+
+        store.save(createSession());
+        Assert.assertEquals(0, store.getPendingSaveCount());
+        Assert.assertEquals(3, countSessionRows());
+    }
+
+
+    private StandardSession createSession() {
+        StandardSession session = (StandardSession) manager.createSession(null);
+        session.setAttribute("a", "a-value");
+        session.setAttribute("b", "b-value");
+        session.setAttribute("c", "c-value");
+        return session;
+    }
+
+
+    private int countSessionRows() throws Exception {
+        return count("tomcat_sessions");
+    }
+
+
+    private int countAttributeRows() throws Exception {
+        return count("tomcat_session_attributes");
+    }
+
+
+    private int count(String table) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+
+    private void updateAttributeRow(String id, String name, Object value) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(value);
+        }
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE tomcat_session_attributes SET data = ? WHERE id = ? AND name = ?")) {
+            ps.setBytes(1, bos.toByteArray());
+            ps.setString(2, id);
+            ps.setString(3, name);
+            Assert.assertEquals(1, ps.executeUpdate());
+        }
+    }
+}
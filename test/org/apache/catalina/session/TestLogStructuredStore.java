@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.session;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.LoggingBaseTest;
+import org.apache.tomcat.unittest.TesterContext;
+import org.apache.tomcat.unittest.TesterHost;
+
+public class TestLogStructuredStore extends LoggingBaseTest {
+
+    private PersistentManager manager;
+    private LogStructuredStore store;
+    private File dir;
+
+
+    @Before
+    public void setUpStore() throws Exception {
+        dir = new File(getTemporaryDirectory(), testName.getMethodName());
+        manager = new PersistentManager();
+        store = new LogStructuredStore();
+        store.setDirectory(dir.getAbsolutePath());
+        manager.setStore(store);
+
+        Context context = new TesterContext();
+        context.setParent(new TesterHost());
+        manager.setContext(context);
+        manager.start();
+    }
+
+
+    @Test
+    public void testSaveLoadRemove() throws Exception {
+        StandardSession session1 = createSession("value1");
+        StandardSession session2 = createSession("value2");
+        store.save(session1);
+        store.save(session2);
+
+        Assert.assertEquals(2, store.getSize());
+        String[] keys = store.keys();
+        Arrays.sort(keys);
+        String[] expected = new String[] { session1.getIdInternal(), session2.getIdInternal() };
+        Arrays.sort(expected);
+        Assert.assertArrayEquals(expected, keys);
+
+        session1.setAttribute("attr", "changed");
+        store.save(session1);
+        Assert.assertEquals(2, store.getSize());
+        Assert.assertEquals("changed", store.load(session1.getIdInternal()).getSession().getAttribute("attr"));
+
+        store.remove(session1.getIdInternal());
+        Assert.assertEquals(1, store.getSize());
+        Assert.assertNull(store.load(session1.getIdInternal()));
+        Assert.assertEquals("value2", store.load(session2.getIdInternal()).getSession().getAttribute("attr"));
+
+        store.clear();
+        Assert.assertEquals(0, store.getSize());
+    }
+
+
+    @Test
+    public void testRestart() throws Exception {
+        StandardSession session1 = createSession("value1");
+        StandardSession session2 = createSession("value2");
+        store.save(session1);
+        store.save(session2);
+        session2.setAttribute("attr", "changed");
+        store.save(session2);
+        store.remove(session1.getIdInternal());
+
+        store.stop();
+        store.start();
+
+        Assert.assertEquals(1, store.getSize());
+        Assert.assertNull(store.load(session1.getIdInternal()));
+        Assert.assertEquals("changed", store.load(session2.getIdInternal()).getSession().getAttribute("attr"));
+    }
+
+
+    @Test
+    public void testTruncatedRecord() throws Exception {
+        StandardSession session = createSession("value");
+        store.save(session);
+        long size = store.getTotalBytes();
+
+        store.stop();
+        File[] segments = dir.listFiles();
+        Assert.assertEquals(1, segments.length);
+        // Simulate a partial write
+        try (FileOutputStream fos = new FileOutputStream(segments[0], true)) {
+            fos.write(new byte[] { 1, 0, 0, 0, 32, 'x' });
+        }
+        store.start();
+
+        Assert.assertEquals(size, segments[0].length());
+        Assert.assertEquals("value", store.load(session.getIdInternal()).getSession().getAttribute("attr"));
+
+        // New records are appended after the last valid one
+        StandardSession session2 = createSession("value2");
+        store.save(session2);
+        store.stop();
+        store.start();
+        Assert.assertEquals(2, store.getSize());
+        Assert.assertEquals("value2", store.load(session2.getIdInternal()).getSession().getAttribute("attr"));
+    }
+
+
+    @Test
+    public void testCompaction() throws Exception {
+        store.setMaxSegmentSize(2048);
+
+        StandardSession[] sessions = new StandardSession[10];
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = createSession("value" + i);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (StandardSession session : sessions) {
+                session.setAttribute("round", Integer.valueOf(round));
+                store.save(session);
+            }
+        }
+        store.remove(sessions[0].getIdInternal());
+
+        int segmentCount = store.getSegmentCount();
+        Assert.assertTrue(segmentCount > 2);
+        Assert.assertTrue(store.getLiveBytes() * 2 < store.getTotalBytes());
+
+        store.compact();
+
+        Assert.assertTrue(store.getSegmentCount() < segmentCount);
+        Assert.assertTrue(store.getLiveBytes() * 2 >= store.getTotalBytes());
+        Assert.assertEquals(store.getSegmentCount(), dir.list().length);
+        Assert.assertEquals(sessions.length - 1, store.getSize());
+
+        // Check the compacted state survives a restart
+        store.stop();
+        store.start();
+        Assert.assertEquals(sessions.length - 1, store.getSize());
+        Assert.assertNull(store.load(sessions[0].getIdInternal()));
+        for (int i = 1; i < sessions.length; i++) {
+            StandardSession loaded = (StandardSession) store.load(sessions[i].getIdInternal());
+            Assert.assertEquals("value" + i, loaded.getAttribute("attr"));
+            Assert.assertEquals(Integer.valueOf(9), loaded.getAttribute("round"));
+        }
+    }
+
+
+    @Test
+    public void testExpiredKeys() throws Exception {
+        StandardSession session1 = createSession("value1");
+        session1.setMaxInactiveInterval(3600);
+        StandardSession session2 = createSession("value2");
+        session2.setMaxInactiveInterval(1);
+        session2.thisAccessedTime = System.currentTimeMillis() - 5000;
+        store.save(session1);
+        store.save(session2);
+
+        Assert.assertArrayEquals(new String[] { session2.getIdInternal() }, store.expiredKeys());
+    }
+
+
+    @Test
+    public void testIdTooLong() throws Exception {
+        StandardSession session1 = createSession("value1");
+        StandardSession session2 = createSession("value2");
+        StandardSession session3 = createSession("value3");
+        char[] id = new char[2048];
+        Arrays.fill(id, 'x');
+        session2.setId(new String(id), false);
+
+        store.save(session1);
+        try {
+            store.save(session2);
+            Assert.fail("Expected an IOException");
+        } catch (IOException expected) {
+            // Expected
+        }
+        store.save(session3);
+
+        // Sessions saved after the rejected one must survive a restart
+        store.stop();
+        store.start();
+
+        Assert.assertEquals(2, store.getSize());
+        Assert.assertEquals("value1", store.load(session1.getIdInternal()).getSession().getAttribute("attr"));
+        Assert.assertEquals("value3", store.load(session3.getIdInternal()).getSession().getAttribute("attr"));
+    }
+
+
+    private StandardSession createSession(String value) {
+        StandardSession session = (StandardSession) manager.createSession(null);
+        session.setAttribute("attr", value);
+        return session;
+    }
+}
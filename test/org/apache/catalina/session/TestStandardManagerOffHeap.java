@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.session;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.tomcat.unittest.TesterContext;
+import org.apache.tomcat.unittest.TesterHost;
+
+public class TestStandardManagerOffHeap {
+
+    private StandardManager manager;
+
+
+    @Before
+    public void setUpManager() throws Exception {
+        manager = new StandardManager();
+        manager.setPathname(null);
+        manager.setOffHeapIdleThreshold(60);
+
+        Context context = new TesterContext();
+        context.setParent(new TesterHost());
+        manager.setContext(context);
+        manager.start();
+    }
+
+
+    @After
+    public void tearDownManager() throws Exception {
+        manager.stop();
+    }
+
+
+    @Test
+    public void testOffloadAndRestore() throws Exception {
+        StandardSession idle = createSession();
+        idle.setAttribute("list", new ArrayList<>(Collections.singletonList("value")));
+        idle.setAttribute("listener", new Listener());
+        makeIdle(idle, 120);
+        StandardSession active = createSession();
+        active.setAttribute("attr", "value");
+
+        manager.processExpires();
+
+        Assert.assertTrue(idle.isAttributesOffHeap());
+        Assert.assertFalse(active.isAttributesOffHeap());
+        Assert.assertEquals(1, manager.getOffHeapSessionCount());
+        Assert.assertTrue(manager.getOffHeapBytes() > 0);
+        Assert.assertEquals(1, manager.getOffHeapStoreCount());
+        // Listeners remain on the heap
+        Assert.assertEquals(1, idle.attributes.size());
+        Assert.assertTrue(idle.attributes.containsKey("listener"));
+
+        Assert.assertEquals(Collections.singletonList("value"), idle.getAttribute("list"));
+        Assert.assertFalse(idle.isAttributesOffHeap());
+        Assert.assertEquals(0, manager.getOffHeapSessionCount());
+        Assert.assertEquals(0, manager.getOffHeapBytes());
+        Assert.assertEquals(1, manager.getOffHeapRestoreCount());
+        Assert.assertEquals(2, Collections.list(idle.getAttributeNames()).size());
+    }
+
+
+    @Test
+    public void testSetAttributeWhileOffHeap() throws Exception {
+        StandardSession session = createSession();
+        session.setAttribute("a", "a-value");
+        session.setAttribute("b", "b-value");
+        makeIdle(session, 120);
+
+        manager.processExpires();
+        Assert.assertTrue(session.isAttributesOffHeap());
+
+        session.setAttribute("a", "a-changed");
+        session.removeAttribute("b");
+
+        Assert.assertFalse(session.isAttributesOffHeap());
+        Assert.assertEquals("a-changed", session.getAttribute("a"));
+        Assert.assertNull(session.getAttribute("b"));
+    }
+
+
+    @Test
+    public void testLimit() throws Exception {
+        manager.setMaxOffHeapBytes(1);
+
+        StandardSession session = createSession();
+        session.setAttribute("attr", "value");
+        makeIdle(session, 120);
+
+        manager.processExpires();
+
+        Assert.assertFalse(session.isAttributesOffHeap());
+        Assert.assertEquals(0, manager.getOffHeapBytes());
+    }
+
+
+    @Test
+    public void testExpireWhileOffHeap() throws Exception {
+        StandardSession session = createSession();
+        session.setAttribute("attr", "value");
+        makeIdle(session, 120);
+
+        manager.processExpires();
+        Assert.assertTrue(session.isAttributesOffHeap());
+
+        session.expire();
+
+        Assert.assertEquals(0, manager.getOffHeapSessionCount());
+        Assert.assertEquals(0, manager.getOffHeapBytes());
+    }
+
+
+    @Test
+    public void testNotOffloadedWhileInUse() throws Exception {
+        StandardSession session = createSession();
+        session.setAttribute("attr", "value");
+        session.access();
+        makeIdle(session, 120);
+
+        manager.processExpires();
+        Assert.assertFalse(session.isAttributesOffHeap());
+
+        session.endAccess();
+        makeIdle(session, 120);
+
+        manager.processExpires();
+        Assert.assertTrue(session.isAttributesOffHeap());
+    }
+
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        StandardSession session = createSession();
+        session.setAttribute("attr", "value");
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger nullCount = new AtomicInteger();
+        Thread[] requests = new Thread[4];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new Thread(() -> {
+                while (running.get()) {
+                    session.access();
+                    try {
+                        for (int j = 0; j < 10; j++) {
+                            if (session.getAttribute("attr") == null) {
+                                nullCount.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        session.endAccess();
+                    }
+                }
+            });
+            requests[i].start();
+        }
+
+        long offloads = 0;
+        try {
+            long end = System.currentTimeMillis() + 2000;
+            while (System.currentTimeMillis() < end) {
+                makeIdle(session, 120);
+                manager.processOffHeap();
+                if (session.isAttributesOffHeap()) {
+                    offloads++;
+                }
+            }
+        } finally {
+            running.set(false);
+            for (Thread request : requests) {
+                request.join();
+            }
+        }
+
+        Assert.assertEquals(0, nullCount.get());
+        Assert.assertEquals("value", session.getAttribute("attr"));
+        // Make sure the test exercised the off-heap code
+        Assert.assertTrue(offloads + manager.getOffHeapStoreCount() > 0);
+    }
+
+
+    private StandardSession createSession() {
+        StandardSession session = (StandardSession) manager.createSession(null);
+        session.setMaxInactiveInterval(3600);
+        return session;
+    }
+
+
+    private static void makeIdle(StandardSession session, int seconds) {
+        session.thisAccessedTime = System.currentTimeMillis() - seconds * 1000L;
+    }
+
+
+    private static class Listener implements HttpSessionBindingListener, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void valueBound(HttpSessionBindingEvent event) {
+            // NO-OP
+        }
+
+        @Override
+        public void valueUnbound(HttpSessionBindingEvent event) {
+            // NO-OP
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.session;
+
+import java.util.logging.Level;
+import java.util.logging.LogManager;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import org.apache.catalina.startup.LoggingBaseTest;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.apache.tomcat.util.compat.JreCompat;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ *
+ * Each session has a number of large attributes and one attribute is changed between saves, mimicking repeated
+ * backups of sessions with mostly static content.
+ */
+public class TesterDataSourceStorePerformance extends LoggingBaseTest {
+
+    private static final int SESSION_COUNT = 500;
+    private static final int ATTRIBUTE_COUNT = 20;
+    private static final int ATTRIBUTE_SIZE = 1024;
+    private static final int SAVE_ROUNDS = 5;
+
+    @Test
+    public void testSessionTable() throws Exception {
+        doTest("sessionTable", false, false);
+    }
+
+    @Test
+    public void testSessionTableWriteBehind() throws Exception {
+        doTest("sessionTableWriteBehind", false, true);
+    }
+
+    @Test
+    public void testAttributeTable() throws Exception {
+        doTest("attributeTable", true, false);
+    }
+
+    @Test
+    public void testAttributeTableWriteBehind() throws Exception {
+        doTest("attributeTableWriteBehind", true, true);
+    }
+
+
+    private void doTest(String name, boolean attributeTable, boolean writeBehind) throws Exception {
+        Assume.assumeTrue(JreCompat.isJre16Available());
+        LogManager.getLogManager().getLogger("").setLevel(Level.OFF);
+
+        EmbeddedDataSource dataSource =
+                TestDataSourceStore.createDataSource(getTemporaryDirectory().getAbsolutePath() + "/" + name);
+        PersistentManager manager = new PersistentManager();
+        DataSourceStore store = TestDataSourceStore.createStore(manager, dataSource);
+        if (attributeTable) {
+            store.setSessionAttributeTable("tomcat_session_attributes");
+        }
+        store.setWriteBehind(writeBehind);
+
+        StandardSession[] sessions = new StandardSession[SESSION_COUNT];
+        char[] chars = new char[ATTRIBUTE_SIZE];
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            sessions[i] = (StandardSession) manager.createSession(null);
+            for (int j = 0; j < ATTRIBUTE_COUNT; j++) {
+                chars[0] = (char) ('a' + j);
+                sessions[i].setAttribute("attr" + j, new String(chars));
+            }
+        }
+
+        // Initial save of every session
+        long start = System.nanoTime();
+        for (StandardSession session : sessions) {
+            store.save(session);
+        }
+        store.flushPendingSaves();
+        long initial = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int round = 0; round < SAVE_ROUNDS; round++) {
+            for (StandardSession session : sessions) {
+                session.setAttribute("counter", Integer.valueOf(round));
+                store.save(session);
+            }
+            // Equivalent of the background processing
+            store.flushPendingSaves();
+        }
+        long updates = System.nanoTime() - start;
+
+        System.out.println(name + ": initial save of " + SESSION_COUNT + " sessions took " + initial / 1000000 +
+                "ms, " + SAVE_ROUNDS + " rounds of single attribute updates took " + updates / 1000000 + "ms");
+
+        manager.stop();
+    }
+}
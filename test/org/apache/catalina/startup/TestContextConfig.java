@@ -18,6 +18,7 @@ package org.apache.catalina.startup;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Set;
 
 import javax.servlet.Servlet;
@@ -33,6 +34,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleListener;
 import org.apache.catalina.core.StandardContext;
 import org.apache.tomcat.util.buf.ByteChunk;
 
@@ -154,6 +156,87 @@ public class TestContextConfig extends TomcatBaseTest {
         assertPageContains("/test/TesterServlet2", "OK");
     }
 
+    @Test
+    public void testJarScanIndex() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        File appDir = new File("test/webapp-fragments");
+        StandardContext ctx = (StandardContext) tomcat.addWebapp(null, "/test", appDir.getAbsolutePath());
+        ctx.setJarScanIndex(true);
+
+        tomcat.start();
+
+        ContextConfig config = null;
+        for (LifecycleListener listener : ctx.findLifecycleListeners()) {
+            if (listener instanceof ContextConfig) {
+                config = (ContextConfig) listener;
+            }
+        }
+        Assert.assertNotNull(config);
+        Assert.assertEquals(0, config.jarScanIndex.getHitCount());
+        Assert.assertTrue(config.jarScanIndex.getMissCount() > 0);
+
+        ctx.stop();
+        ctx.start();
+
+        // All the JARs are unchanged
+        Assert.assertTrue(config.jarScanIndex.getHitCount() > 0);
+        Assert.assertEquals(0, config.jarScanIndex.getMissCount());
+        assertPageContains("/test/TesterServlet1", "OK");
+        assertPageContains("/test/TesterServlet2", "OK");
+    }
+
+    @Test
+    public void testJarScanIndexClassesChanged() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        File appDir = new File(getTemporaryDirectory(), "webapp-fragments");
+        addDeleteOnTearDown(appDir);
+        Assert.assertTrue(ExpandWar.copy(new File("test/webapp-fragments"), appDir));
+
+        ContextConfig config = new NonAnnotationHandlesTypesContextConfig();
+        StandardContext ctx =
+                (StandardContext) tomcat.addWebapp(null, "/test", appDir.getAbsolutePath(), config);
+        ctx.setJarScanIndex(true);
+
+        tomcat.start();
+        ctx.stop();
+        ctx.start();
+
+        // All the classes and JARs are unchanged
+        Assert.assertTrue(config.jarScanIndex.getHitCount() > 0);
+        Assert.assertEquals(0, config.jarScanIndex.getMissCount());
+
+        ctx.stop();
+        // A class in /WEB-INF/classes may be the super class of a class in a JAR
+        String className = "WEB-INF/classes/org/apache/tomcat/Bug58096.class";
+        File classFile = new File(appDir, className);
+        Assert.assertTrue(classFile.getParentFile().mkdirs());
+        Assert.assertTrue(ExpandWar.copy(new File("test/webapp", className), classFile));
+        ctx.start();
+
+        Assert.assertTrue(config.jarScanIndex.getMissCount() > 0);
+        assertPageContains("/test/TesterServlet1", "OK");
+    }
+
+    /*
+     * Adds a non-annotation HandlesTypes entry so the annotation scan results depend on classes outside of the JAR
+     * being scanned.
+     */
+    private static class NonAnnotationHandlesTypesContextConfig extends ContextConfig {
+
+        @Override
+        protected void processServletContainerInitializers() {
+            super.processServletContainerInitializers();
+            ServletContainerInitializer sci = (c, ctx) -> {
+                // NO-OP
+            };
+            initializerClassMap.put(sci, new HashSet<>());
+            typeInitializerMap.computeIfAbsent(Servlet.class, k -> new HashSet<>()).add(sci);
+            handlesTypesNonAnnotations = true;
+        }
+    }
+
     private static class CustomDefaultServletSCI
             implements ServletContainerInitializer {
 
@@ -18,12 +18,18 @@ package org.apache.catalina.startup;
 
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.Servlet;
@@ -353,6 +359,57 @@ public class TestContextConfigAnnotation {
         public void removePropertyChangeListener(PropertyChangeListener l) {}
     }
 
+    @Test
+    public void testParallelJarScan() throws Exception {
+        File dir = Files.createTempDirectory("parallelJarScan").toFile();
+        try {
+            File jar = new File(dir, "test.jar");
+            byte[] plainClass = Files.readAllBytes(paramClassResource("org/apache/catalina/startup/TesterServlet")
+                    .toPath());
+            try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+                // Enough classes for the JAR to be split into several batches
+                for (int i = 0; i < 1000; i++) {
+                    if (i == 100) {
+                        addClass(jos, "org/apache/catalina/startup/ParamServlet");
+                    } else if (i == 500) {
+                        addClass(jos, "org/apache/catalina/startup/ParamFilter");
+                    } else if (i == 900) {
+                        addClass(jos, "org/apache/catalina/startup/TestListener");
+                    }
+                    jos.putNextEntry(new JarEntry("copies/Copy" + i + ".class"));
+                    jos.write(plainClass);
+                    jos.closeEntry();
+                }
+            }
+            URL url = new URL("jar:" + jar.toURI().toURL().toExternalForm() + "!/");
+
+            WebXml sequential = new WebXml();
+            new ContextConfig().processAnnotationsJar(url, sequential, false, new HashMap<>());
+
+            WebXml parallel = new WebXml();
+            ContextConfig config = new ContextConfig();
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                config.classParserPool = pool;
+                config.processAnnotationsJar(url, parallel, false, new ConcurrentHashMap<>());
+            } finally {
+                pool.shutdown();
+            }
+
+            Assert.assertNotNull(parallel.getServlets().get("param"));
+            Assert.assertNotNull(parallel.getFilters().get("paramFilter"));
+            Assert.assertEquals(sequential.toXml(), parallel.toXml());
+        } finally {
+            ExpandWar.delete(dir);
+        }
+    }
+
+    private void addClass(JarOutputStream jos, String className) throws Exception {
+        jos.putNextEntry(new JarEntry(className + ".class"));
+        jos.write(Files.readAllBytes(paramClassResource(className).toPath()));
+        jos.closeEntry();
+    }
+
     /*
      * Find compiled test class
      */
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.startup;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.Lifecycle;
+import org.apache.catalina.LifecycleListener;
+import org.apache.catalina.core.StandardHost;
+
+/**
+ * The purpose of this class is to test the ordering of the concurrent deployment of applications by
+ * {@link HostConfig}.
+ */
+public class TestHostConfigAutomaticDeploymentDependencies extends HostConfigAutomaticDeploymentBaseTest {
+
+    @Test
+    public void testDependencies() throws Exception {
+        doTestDependencies(4);
+    }
+
+
+    @Test
+    public void testDependenciesSingleThread() throws Exception {
+        doTestDependencies(1);
+    }
+
+
+    private void doTestDependencies(int startStopThreads) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        StandardHost host = (StandardHost) tomcat.getHost();
+        host.setStartStopThreads(startStopThreads);
+
+        createXml(host, "a", "/b, /c");
+        createXml(host, "b", "/c");
+        createXml(host, "c", null);
+        // Circular dependencies are ignored
+        createXml(host, "x", "/y");
+        createXml(host, "y", "/x");
+
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        host.addContainerListener(event -> {
+            if (Container.ADD_CHILD_EVENT.equals(event.getType())) {
+                Container child = (Container) event.getData();
+                LifecycleListener listener = e -> {
+                    if (Lifecycle.AFTER_START_EVENT.equals(e.getType())) {
+                        started.add(child.getName());
+                    }
+                };
+                child.addLifecycleListener(listener);
+            }
+        });
+
+        tomcat.start();
+        host.backgroundProcess();
+
+        Assert.assertEquals(5, started.size());
+        Assert.assertTrue(started.indexOf("/c") < started.indexOf("/b"));
+        Assert.assertTrue(started.indexOf("/b") < started.indexOf("/a"));
+
+        HostConfig hostConfig = null;
+        for (LifecycleListener listener : host.findLifecycleListeners()) {
+            if (listener instanceof HostConfig) {
+                hostConfig = (HostConfig) listener;
+            }
+        }
+        Assert.assertNotNull(hostConfig);
+        for (String name : started) {
+            Assert.assertTrue(hostConfig.getDeploymentDuration(name) >= 0);
+        }
+        Assert.assertEquals(-1, hostConfig.getDeploymentDuration("/missing"));
+    }
+
+
+    @Test
+    public void testSchedulingFailure() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        StandardHost host = (StandardHost) tomcat.getHost();
+        for (LifecycleListener listener : host.findLifecycleListeners()) {
+            if (listener instanceof HostConfig) {
+                host.removeLifecycleListener(listener);
+            }
+        }
+        FailingHostConfig hostConfig = new FailingHostConfig();
+        host.addLifecycleListener(hostConfig);
+
+        createXml(host, "a", null);
+        createXml(host, "b", null);
+        String[] files = new String[] { "a.xml", "b.xml" };
+
+        tomcat.start();
+
+        hostConfig.failName = "/b";
+        try {
+            hostConfig.deployDescriptors(host.getConfigBaseFile(), files);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // Thrown while scheduling /b
+        }
+        // The deployment of /a, scheduled before the failure, has been released
+        Assert.assertFalse(hostConfig.isServiced("/a"));
+        Assert.assertNull(host.findChild("/a"));
+
+        hostConfig.deployDescriptors(host.getConfigBaseFile(), files);
+        Assert.assertNotNull(host.findChild("/a"));
+        Assert.assertNotNull(host.findChild("/b"));
+    }
+
+
+    private void createXml(StandardHost host, String name, String startAfter) throws Exception {
+        File xml = new File(host.getConfigBaseFile(), name + ".xml");
+        Assert.assertTrue(xml.getParentFile().isDirectory() || xml.getParentFile().mkdirs());
+        StringBuilder sb = new StringBuilder("<Context docBase=\"");
+        sb.append(DIR_SOURCE.getAbsolutePath()).append('"');
+        if (startAfter != null) {
+            sb.append(" startAfter=\"").append(startAfter).append('"');
+        }
+        sb.append(" />");
+        Files.write(xml.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private static class FailingHostConfig extends HostConfig {
+
+        private volatile String failName;
+
+        @Override
+        protected boolean deploymentExists(String contextName) {
+            if (contextName.equals(failName)) {
+                failName = null;
+                throw new IllegalStateException();
+            }
+            return super.deploymentExists(contextName);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.webresources;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.WebResource;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+public class TestClassResourceIndex extends TomcatBaseTest {
+
+    private static final String[] PATHS = new String[] { "/WEB-INF/classes", "/WEB-INF/classes/",
+            "/WEB-INF/classes/META-INF", "/WEB-INF/classes/META-INF/", "/WEB-INF/classes/META-INF/tags",
+            "/WEB-INF/classes/META-INF/tags/", "/WEB-INF/classes/META-INF/tags/echo.tag",
+            "/WEB-INF/classes/META-INF/tags/echo.tag/", "/WEB-INF/classes/META-INF/test-lib.tld",
+            "/WEB-INF/classes/META-INF/bz69135.tld", "/WEB-INF/classes/META-INF/missing.tld",
+            "/WEB-INF/classes/org/apache/tomcat/Bug58096.class", "/WEB-INF/classes/org/apache/tomcat",
+            "/WEB-INF/classes/org/apache/tomcat/Missing.class" };
+
+
+    @Test
+    public void testReadCentralDirectory() throws Exception {
+        for (File file : new File[] { new File("test/webresources/dir1.jar"),
+                new File("test/webapp/WEB-INF/lib/test-lib.jar"), new File("test/webresources/war-url-connection.war") }) {
+            List<String> expected = new ArrayList<>();
+            try (JarFile jarFile = new JarFile(file)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    expected.add(entries.nextElement().getName());
+                }
+            }
+            Assert.assertEquals(expected, ClassResourceIndex.readCentralDirectory(file));
+        }
+    }
+
+
+    @Test
+    public void testReadCentralDirectoryNotArchive() throws Exception {
+        Assert.assertNull(ClassResourceIndex.readCentralDirectory(new File("test/webresources/dir1/d1/d1-f1.txt")));
+    }
+
+
+    @Test
+    public void testLookups() throws Exception {
+        Tomcat tomcat = getTomcatInstanceTestWebapp(false, true);
+        StandardContext ctx = (StandardContext) tomcat.getHost().findChild("/test");
+        doTestLookups((StandardRoot) ctx.getResources(), PATHS);
+    }
+
+
+    @Test
+    public void testLookupsPackedWar() throws Exception {
+        File f = new File("test/webresources/war-url-connection.war");
+        Tomcat tomcat = getTomcatInstance();
+        StandardContext ctx = (StandardContext) tomcat.addContext("", f.getAbsolutePath());
+        tomcat.start();
+        doTestLookups((StandardRoot) ctx.getResources(),
+                new String[] { "/WEB-INF/classes/META-INF/resources/index.html", "/WEB-INF/classes/META-INF/resources",
+                        "/WEB-INF/classes/META-INF/MANIFEST.MF", "/WEB-INF/classes/META-INF/resources/missing.html" });
+    }
+
+
+    private void doTestLookups(StandardRoot root, String[] paths) {
+        root.setCachingAllowed(false);
+
+        List<String> expected = new ArrayList<>();
+        for (String path : paths) {
+            expected.add(describe(root, path));
+        }
+
+        root.setMergedArchiveIndex(true);
+        // Confirm the index is in use
+        Assert.assertTrue(root.getClassResources(paths[paths.length - 1]).isEmpty());
+
+        for (int i = 0; i < paths.length; i++) {
+            Assert.assertEquals(paths[i], expected.get(i), describe(root, paths[i]));
+        }
+    }
+
+
+    @Test
+    public void testCandidates() throws Exception {
+        Tomcat tomcat = getTomcatInstanceTestWebapp(false, false);
+        StandardContext ctx = (StandardContext) tomcat.getHost().findChild("/test");
+        ctx.setResources(new StandardRoot(ctx));
+        ((StandardRoot) ctx.getResources()).setMergedArchiveIndex(true);
+        tomcat.start();
+
+        StandardRoot root = (StandardRoot) ctx.getResources();
+        int jars = root.getClassResources().length;
+        Assert.assertEquals(2, jars);
+        Assert.assertEquals(jars, root.getClassResources("/WEB-INF/classes/").size());
+        Assert.assertEquals(jars, root.getClassResources("/WEB-INF/classes/META-INF/tags").size());
+        Assert.assertEquals(1, root.getClassResources("/WEB-INF/classes/META-INF/tags/echo.tag").size());
+        Assert.assertEquals(0, root.getClassResources("/WEB-INF/classes/org/apache/tomcat/Bug58096.class").size());
+    }
+
+
+    private static String describe(StandardRoot root, String path) {
+        StringBuilder sb = new StringBuilder();
+        WebResource resource = root.getClassLoaderResource(path);
+        sb.append(resource.exists()).append(' ').append(resource.isDirectory()).append(' ');
+        sb.append(resource.getWebappPath()).append(' ').append(resource.getURL());
+        for (WebResource r : root.getClassLoaderResources(path)) {
+            sb.append(' ').append(r.getURL());
+        }
+        return sb.toString();
+    }
+}
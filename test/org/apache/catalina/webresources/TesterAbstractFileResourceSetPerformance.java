@@ -16,10 +16,18 @@
  */
 package org.apache.catalina.webresources;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.jar.JarOutputStream;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
 
+import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.catalina.WebResourceSet;
+import org.apache.catalina.startup.ExpandWar;
+
 /*
  * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
  * excluded due to the name starting Tester...
@@ -64,6 +72,81 @@ public class TesterAbstractFileResourceSetPerformance {
 
     }
 
+    /*
+     * Compares looking up class loader resources by checking each JAR in turn with using the merged index of the JARs.
+     * With 300 JARs a look-up of a class in the last JAR, or of a class that is not present, is around two orders of
+     * magnitude faster with the index.
+     */
+    @Test
+    public void testClassResourceLookup() throws Exception {
+        final int jars = 300;
+        final int classes = 50;
+        final int lookups = 10_000;
+
+        File dir = new File(System.getProperty("java.io.tmpdir"), "class-resource-index");
+        ExpandWar.delete(dir);
+        Assert.assertTrue(dir.mkdirs());
+
+        try {
+            TesterWebResourceRoot root = new TesterWebResourceRoot();
+            root.setMainResources(new EmptyResourceSet(root));
+            for (int i = 0; i < jars; i++) {
+                File jar = new File(dir, "lib" + i + ".jar");
+                try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+                    for (int j = 0; j < classes; j++) {
+                        jos.putNextEntry(new ZipEntry("org/example/lib" + i + "/Class" + j + ".class"));
+                        jos.write(new byte[16]);
+                        jos.closeEntry();
+                    }
+                }
+                JarResourceSet jarResourceSet =
+                        new JarResourceSet(root, "/WEB-INF/classes", jar.getAbsolutePath(), "/");
+                jarResourceSet.setClassLoaderOnly(true);
+                root.addClassResources(jarResourceSet);
+            }
+
+            String[] paths = new String[] { "/WEB-INF/classes/org/example/lib" + (jars - 1) + "/Class0.class",
+                    "/WEB-INF/classes/org/example/Missing.class" };
+
+            for (String path : paths) {
+                // Warm-up
+                doLookups(root, path, lookups);
+                long start = System.nanoTime();
+                doLookups(root, path, lookups);
+                long end = System.nanoTime();
+                System.out.println("Without index, [" + path + "] took " + (end - start) / lookups + "ns per lookup");
+            }
+
+            long start = System.nanoTime();
+            root.setMergedArchiveIndex(true);
+            long end = System.nanoTime();
+            System.out.println("Creating the index took " + (end - start) / 1_000_000 + "ms");
+
+            for (String path : paths) {
+                doLookups(root, path, lookups);
+                start = System.nanoTime();
+                doLookups(root, path, lookups);
+                end = System.nanoTime();
+                System.out.println("With index, [" + path + "] took " + (end - start) / lookups + "ns per lookup");
+            }
+
+            for (WebResourceSet webResourceSet : root.getClassResources()) {
+                webResourceSet.stop();
+                webResourceSet.destroy();
+            }
+        } finally {
+            ExpandWar.delete(dir);
+        }
+    }
+
+
+    private void doLookups(TesterWebResourceRoot root, String path, int lookups) {
+        for (int i = 0; i < lookups; i++) {
+            root.getClassLoaderResource(path);
+        }
+    }
+
+
     private boolean checkForBadCharsArray(String filename) {
         char[] chars = filename.toCharArray();
         for (char c : chars) {
@@ -17,11 +17,14 @@
 package org.apache.coyote.http11;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -30,6 +33,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.CoyoteOutputStream;
 import org.apache.catalina.startup.ExpectationClient;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.startup.TomcatBaseTest;
@@ -115,6 +120,147 @@ public class TestHttp11OutputBuffer extends TomcatBaseTest {
     }
 
 
+    @Test
+    public void testChunkedSmall() throws Exception {
+        doTestChunked(false, false, 100, 10);
+    }
+
+
+    @Test
+    public void testChunkedBufferSize() throws Exception {
+        doTestChunked(false, false, 8192, 10);
+    }
+
+
+    @Test
+    public void testChunkedLargeHeap() throws Exception {
+        doTestChunked(false, false, 64 * 1024 + 1, 10);
+    }
+
+
+    @Test
+    public void testChunkedLargeDirect() throws Exception {
+        doTestChunked(false, true, 1024 * 1024, 4);
+    }
+
+
+    @Test
+    public void testChunkedNonBlockingSmall() throws Exception {
+        doTestChunked(true, false, 100, 10);
+    }
+
+
+    @Test
+    public void testChunkedNonBlockingLargeHeap() throws Exception {
+        doTestChunked(true, false, 64 * 1024 + 1, 10);
+    }
+
+
+    @Test
+    public void testChunkedNonBlockingLargeDirect() throws Exception {
+        doTestChunked(true, true, 1024 * 1024, 4);
+    }
+
+
+    private void doTestChunked(boolean nonBlocking, boolean direct, int size, int count) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        // No file system docBase required
+        Context ctx = getProgrammaticRootContext();
+
+        Wrapper w = Tomcat.addServlet(ctx, "chunked", new ChunkedServlet(nonBlocking, direct, size, count));
+        w.setAsyncSupported(true);
+        ctx.addServletMappingDecoded("/chunked", "chunked");
+
+        tomcat.start();
+
+        ByteChunk res = new ByteChunk();
+        res.setLimit(-1);
+        Map<String, List<String>> resHeaders = new HashMap<>();
+        int rc = getUrl("http://localhost:" + getPort() + "/chunked", res, resHeaders);
+
+        Assert.assertEquals(HttpServletResponse.SC_OK, rc);
+        Assert.assertEquals("chunked", getSingleHeader("Transfer-Encoding", resHeaders));
+        Assert.assertEquals(size * count, res.getLength());
+        byte[] body = res.getBytes();
+        for (int i = 0; i < res.getLength(); i++) {
+            if (body[res.getStart() + i] != ChunkedServlet.getByte(i % size)) {
+                Assert.fail("Unexpected response body content at position [" + i + "]");
+            }
+        }
+    }
+
+
+    private static class ChunkedServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean nonBlocking;
+        private final boolean direct;
+        private final int size;
+        private final int count;
+
+        ChunkedServlet(boolean nonBlocking, boolean direct, int size, int count) {
+            this.nonBlocking = nonBlocking;
+            this.direct = direct;
+            this.size = size;
+            this.count = count;
+        }
+
+        static byte getByte(int i) {
+            return (byte) ('a' + i % 26);
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            resp.setContentType("application/octet-stream");
+
+            ByteBuffer data = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+            for (int i = 0; i < size; i++) {
+                data.put(getByte(i));
+            }
+            data.flip();
+
+            CoyoteOutputStream os = (CoyoteOutputStream) resp.getOutputStream();
+            if (!nonBlocking) {
+                for (int i = 0; i < count; i++) {
+                    os.write(data.duplicate());
+                    os.flush();
+                }
+                return;
+            }
+
+            AsyncContext ac = req.startAsync();
+            os.setWriteListener(new WriteListener() {
+
+                private int written = 0;
+
+                @Override
+                public void onWritePossible() throws IOException {
+                    while (os.isReady()) {
+                        if (written == count) {
+                            ac.complete();
+                            return;
+                        }
+                        os.write(data.duplicate());
+                        written++;
+                        // Send each write as a chunk
+                        if (os.isReady()) {
+                            os.flush();
+                        }
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    throwable.printStackTrace();
+                    ac.complete();
+                }
+            });
+        }
+    }
+
+
     private static class HeaderServlet extends HttpServlet {
 
         private static final long serialVersionUID = 1L;
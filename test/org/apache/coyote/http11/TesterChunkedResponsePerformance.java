@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.coyote.http11;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ *
+ * Reports the time taken and, where the platform provides /proc/self/io, the number of write system calls made by the
+ * JVM per chunked response. The client and the server run in the same JVM so the count includes the writes of the
+ * client which are one per request.
+ */
+public class TesterChunkedResponsePerformance extends TomcatBaseTest {
+
+    private static final int SIZE = 16 * 1024 * 1024;
+    private static final int ITERATIONS = 20;
+    private static final Path PROC_IO = Paths.get("/proc/self/io");
+
+    @Test
+    public void testChunkedResponsePerformance() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        Context root = tomcat.addContext("", TEMP_DIR);
+        Tomcat.addServlet(root, "write", new WriteServlet());
+        root.addServletMappingDecoded("/", "write");
+
+        tomcat.start();
+
+        String[] modes = new String[] { "array-8k", "array-64k", "heap-1m", "direct-1m" };
+
+        // Warm up
+        for (String mode : modes) {
+            doRequests(mode, 5);
+        }
+
+        for (String mode : modes) {
+            long writes = getWriteCount();
+            long start = System.nanoTime();
+            doRequests(mode, ITERATIONS);
+            long duration = (System.nanoTime() - start) / 1000000;
+            writes = getWriteCount() - writes;
+            System.out.println("Mode [" + mode + "]: " + duration + "ms, " +
+                    (writes < 0 ? "unknown" : Long.toString(writes / ITERATIONS)) + " write system calls per response");
+        }
+    }
+
+
+    private void doRequests(String mode, int iterations) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        for (int i = 0; i < iterations; i++) {
+            URL url = new URL("http://localhost:" + getPort() + "/?mode=" + mode);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            Assert.assertEquals(HttpServletResponse.SC_OK, connection.getResponseCode());
+            Assert.assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+            long total = 0;
+            try (InputStream is = connection.getInputStream()) {
+                int read;
+                while ((read = is.read(buf)) > 0) {
+                    total += read;
+                }
+            }
+            Assert.assertEquals(SIZE, total);
+        }
+    }
+
+
+    private static long getWriteCount() throws IOException {
+        if (!Files.isReadable(PROC_IO)) {
+            return Long.MIN_VALUE;
+        }
+        List<String> lines = Files.readAllLines(PROC_IO, StandardCharsets.ISO_8859_1);
+        for (String line : lines) {
+            if (line.startsWith("syscw:")) {
+                return Long.parseLong(line.substring(6).trim());
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+
+    private static final class WriteServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer heap = ByteBuffer.allocate(1024 * 1024);
+        private final ByteBuffer direct = ByteBuffer.allocateDirect(1024 * 1024);
+
+        @Override
+        protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+            resp.setContentType("application/octet-stream");
+            String mode = req.getParameter("mode");
+            if ("array-64k".equals(mode)) {
+                resp.setBufferSize(64 * 1024);
+            }
+            CoyoteOutputStream os = (CoyoteOutputStream) resp.getOutputStream();
+            if (mode.startsWith("array")) {
+                byte[] data = new byte[4096];
+                for (int written = 0; written < SIZE; written += data.length) {
+                    os.write(data);
+                }
+            } else {
+                ByteBuffer source = mode.startsWith("heap") ? heap : direct;
+                for (int written = 0; written < SIZE; written += source.capacity()) {
+                    os.write(source.duplicate());
+                }
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.connector.CoyoteOutputStream;
 import org.apache.catalina.startup.Tomcat;
 
 import trailers.ResponseTrailers;
@@ -114,6 +115,66 @@ public class TestStream extends Http2TestBase {
     }
 
 
+    @Test
+    public void testLargeByteBufferWrite() throws Exception {
+
+        enableHttp2();
+
+        Tomcat tomcat = getTomcatInstance();
+
+        Context ctxt = getProgrammaticRootContext();
+        Tomcat.addServlet(ctxt, "simple", new SimpleServlet());
+        ctxt.addServletMappingDecoded("/simple", "simple");
+        Tomcat.addServlet(ctxt, "bytebuffer", new ByteBufferServlet());
+        ctxt.addServletMappingDecoded("/bytebuffer", "bytebuffer");
+
+        tomcat.start();
+
+        openClientConnection();
+        doHttpUpgrade();
+        sendClientPreface();
+        validateHttp2InitialResponse();
+
+        byte[] frameHeader = new byte[9];
+        ByteBuffer headersPayload = ByteBuffer.allocate(128);
+        buildGetRequest(frameHeader, headersPayload, null, 3, "/bytebuffer");
+        writeFrame(frameHeader, headersPayload);
+
+        // The client rejects DATA frames larger than its maximum frame size
+        while (!output.getTrace().contains("3-EndOfStream")) {
+            parser.readFrame();
+        }
+
+        int bodySize = 0;
+        for (String line : output.getTrace().split("\n")) {
+            if (line.startsWith("3-Body-")) {
+                bodySize += Integer.parseInt(line.substring(7));
+            }
+        }
+        Assert.assertEquals(ByteBufferServlet.SIZE, bodySize);
+    }
+
+
+    private static final class ByteBufferServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 1L;
+
+        // Larger than the maximum frame size but smaller than the flow control window
+        public static final int SIZE = 40000;
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response)
+                throws ServletException, IOException {
+
+            response.setContentType("application/octet-stream");
+            response.setContentLength(SIZE);
+
+            ByteBuffer data = ByteBuffer.allocateDirect(SIZE);
+            ((CoyoteOutputStream) response.getOutputStream()).write(data);
+        }
+    }
+
+
     private static final class PathParam extends HttpServlet {
 
         private static final long serialVersionUID = 1L;
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.el.lang;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.el.parser.Node;
+
+public class TestExpressionCache {
+
+    @Test
+    public void testSizeBound() {
+        ExpressionCache cache = new ExpressionCache(100);
+        Node node = ExpressionBuilder.createNode("${1}");
+        for (int i = 0; i < 1000; i++) {
+            cache.put("${" + i + "}", node);
+        }
+        Assert.assertTrue(cache.size() <= 100);
+    }
+
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        // Single segment
+        ExpressionCache cache = new ExpressionCache(1);
+        Node node = ExpressionBuilder.createNode("${1}");
+        cache.put("${a}", node);
+        cache.put("${b}", node);
+        Assert.assertNull(cache.get("${a}"));
+        Assert.assertSame(node, cache.get("${b}"));
+    }
+
+
+    @Test
+    public void testMetrics() {
+        ExpressionCache cache = new ExpressionCache(10);
+        Node node = ExpressionBuilder.createNode("${1}");
+        Assert.assertNull(cache.get("${a}"));
+        cache.put("${a}", node);
+        Assert.assertSame(node, cache.get("${a}"));
+        Assert.assertSame(node, cache.get("${a}"));
+        Assert.assertEquals(2, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+
+    @Test
+    public void testHotExpressions() {
+        ExpressionCache cache = new ExpressionCache(10);
+        Node node = ExpressionBuilder.createNode("${1}");
+        cache.put("${a}", node);
+        cache.put("${b}", node);
+        cache.put("${c}", node);
+        cache.get("${b}");
+        cache.get("${b}");
+        cache.get("${a}");
+
+        Assert.assertEquals(Arrays.asList("${b}", "${a}"), cache.getHotExpressions(10));
+        Assert.assertEquals(Arrays.asList("${b}"), cache.getHotExpressions(1));
+    }
+
+
+    @Test
+    public void testSnapshot() throws Exception {
+        String multiLine = "${'line1\\\\\nline2'}";
+        ExpressionBuilder.createNode(multiLine);
+        ExpressionBuilder.createNode(multiLine);
+
+        File snapshot = File.createTempFile("el-snapshot", ".txt");
+        try {
+            Assert.assertTrue(ExpressionBuilder.writeSnapshot(snapshot) > 0);
+            List<String> lines = Files.readAllLines(snapshot.toPath(), StandardCharsets.UTF_8);
+            Assert.assertTrue(lines.contains("${'line1\\\\\\\\\\nline2'}"));
+
+            Files.write(snapshot.toPath(), Arrays.asList("${x.y}", "${'unterminated}", "${'a\\nb'}"),
+                    StandardCharsets.UTF_8);
+            long misses = ExpressionBuilder.getCacheMissCount();
+            Assert.assertEquals(2, ExpressionBuilder.readSnapshot(snapshot));
+            // Already parsed
+            ExpressionBuilder.createNode("${x.y}");
+            ExpressionBuilder.createNode("${'a\nb'}");
+            Assert.assertEquals(misses, ExpressionBuilder.getCacheMissCount());
+        } finally {
+            Assert.assertTrue(snapshot.delete());
+        }
+    }
+}
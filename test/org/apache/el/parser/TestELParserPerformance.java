@@ -31,6 +31,7 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import org.apache.el.lang.ExpressionBuilder;
 import org.apache.tomcat.util.collections.SynchronizedStack;
 
 /*
@@ -95,6 +96,58 @@ public class TestELParserPerformance {
     }
 
 
+    /*
+     * Compares creating expressions that have not been parsed before (cold cache) with creating expressions that are
+     * already in the cache of parsed expressions (warm cache). The expressions used must fit in the cache.
+     */
+    @Test
+    public void testExpressionCacheWarmVsCold() {
+        final int runs = 5;
+        final int expressionCount = 1000;
+
+        ELManager manager = new ELManager();
+        ELContext context = manager.getELContext();
+        ExpressionFactory factory = ELManager.getExpressionFactory();
+
+        String[] warmExpressions = new String[expressionCount];
+        for (int i = 0; i < expressionCount; i++) {
+            warmExpressions[i] = "${bean.warm" + i + " + 1 > 2 ? 'a' : 'b'}";
+            factory.createValueExpression(context, warmExpressions[i], Object.class);
+        }
+
+        long coldTotalTime = 0;
+        long warmTotalTime = 0;
+        long hitCount = 0;
+
+        for (int j = 0; j < runs; j++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < expressionCount; i++) {
+                factory.createValueExpression(context, "${bean.cold" + j + "_" + i + " + 1 > 2 ? 'a' : 'b'}",
+                        Object.class);
+            }
+            long end = System.nanoTime();
+            coldTotalTime += (end - start);
+            System.out.println(expressionCount + " cold expressions took " + (end - start) + "ns");
+
+            long hitsBefore = ExpressionBuilder.getCacheHitCount();
+            start = System.nanoTime();
+            for (int i = 0; i < expressionCount; i++) {
+                // Create a new String so the cost of the look-up includes hashing the expression
+                factory.createValueExpression(context, new String(warmExpressions[i]), Object.class);
+            }
+            end = System.nanoTime();
+            hitCount += ExpressionBuilder.getCacheHitCount() - hitsBefore;
+            warmTotalTime += (end - start);
+            System.out.println(expressionCount + " warm expressions took " + (end - start) + "ns");
+        }
+
+        System.out.println("Total: cold " + coldTotalTime + "ns, warm " + warmTotalTime + "ns");
+
+        // Every warm expression must have been found in the cache rather than parsed again
+        Assert.assertEquals(runs * expressionCount, hitCount);
+    }
+
+
     /*
      * Ignored by default since this is an absolute test primarily for
      * https://bz.apache.org/bugzilla/show_bug.cgi?id=69338
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.el.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.el.ELContext;
+import javax.el.ELException;
+import javax.el.ELManager;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.el.lang.EvaluationContext;
+import org.apache.el.lang.ExpressionBuilder;
+
+public class TestValueCompiler {
+
+    private ELManager manager;
+    private EvaluationContext ctx;
+    private AstValue node;
+
+
+    @Before
+    public void setup() {
+        manager = new ELManager();
+        ELContext context = manager.getELContext();
+        ctx = new EvaluationContext(context, context.getFunctionMapper(), context.getVariableMapper());
+    }
+
+
+    @Test
+    public void testIsCompilable() {
+        Assert.assertTrue(ValueCompiler.isCompilable(getNode("${bean.text}")));
+        Assert.assertTrue(ValueCompiler.isCompilable(getNode("${bean.outer.text}")));
+        Assert.assertFalse(ValueCompiler.isCompilable(getNode("${bean['text']}")));
+        Assert.assertFalse(ValueCompiler.isCompilable(getNode("${bean.text.toLowerCase()}")));
+    }
+
+
+    @Test
+    public void testCompile() {
+        TesterBeanB beanB = new TesterBeanB();
+        beanB.setText("text");
+        manager.defineBean("bean", new Outer(beanB));
+        ValueCompiler compiler = createCompiler("${bean.inner.text}");
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertFalse(isCompiled(compiler));
+            Assert.assertEquals("text", getValue(compiler));
+        }
+        Assert.assertTrue(isCompiled(compiler));
+
+        beanB.setText("changed");
+        Assert.assertEquals("changed", getValue(compiler));
+        Assert.assertTrue(isCompiled(compiler));
+        Assert.assertTrue(ctx.isPropertyResolved());
+
+        // A null part way through the expression is not a change of type
+        manager.defineBean("bean", new Outer(null));
+        Assert.assertNull(getValue(compiler));
+        Assert.assertTrue(isCompiled(compiler));
+    }
+
+
+    @Test
+    public void testDeoptimize() {
+        TesterBeanB beanB = new TesterBeanB();
+        beanB.setText("b");
+        Other other = new Other();
+        ValueCompiler compiler = createCompiler("${bean.text}");
+
+        for (int i = 0; i < 4; i++) {
+            manager.defineBean("bean", beanB);
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals("b", getValue(compiler));
+            }
+            Assert.assertTrue(isCompiled(compiler));
+
+            // Change of type
+            manager.defineBean("bean", other);
+            Assert.assertEquals("other", getValue(compiler));
+            Assert.assertFalse(isCompiled(compiler));
+        }
+
+        // Too many changes of type
+        Assert.assertTrue(isDisabled(compiler));
+        manager.defineBean("bean", beanB);
+        for (int j = 0; j < 3; j++) {
+            Assert.assertEquals("b", getValue(compiler));
+        }
+        Assert.assertFalse(isCompiled(compiler));
+    }
+
+
+    @Test
+    public void testResolversIndependent() {
+        manager.defineBean("bean", new Other());
+        ValueCompiler compiler = createCompiler("${bean.text}");
+        for (int i = 0; i < 3; i++) {
+            getValue(compiler);
+        }
+        Assert.assertTrue(isCompiled(compiler));
+        EvaluationContext first = ctx;
+
+        // Same expression but a different resolver
+        setup();
+        TesterBeanB beanB = new TesterBeanB();
+        beanB.setText("b");
+        for (int i = 0; i < 4; i++) {
+            manager.defineBean("bean", new Other());
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals("other", getValue(compiler));
+            }
+            Assert.assertTrue(isCompiled(compiler));
+            manager.defineBean("bean", beanB);
+            Assert.assertEquals("b", getValue(compiler));
+            Assert.assertFalse(isCompiled(compiler));
+        }
+        Assert.assertTrue(isDisabled(compiler));
+
+        // Changes of type seen with one resolver do not affect the other
+        Assert.assertTrue(compiler.isCompiled(first.getELResolver()));
+        Assert.assertFalse(compiler.isDisabled(first.getELResolver()));
+        Assert.assertEquals(2, compiler.getResolverCount());
+    }
+
+
+    @Test
+    public void testResolverLimit() {
+        ValueCompiler compiler = createCompiler("${bean.text}");
+        // Keep the resolvers reachable
+        List<EvaluationContext> contexts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            setup();
+            contexts.add(ctx);
+            manager.defineBean("bean", new Other());
+            for (int j = 0; j < 3; j++) {
+                Assert.assertEquals("other", getValue(compiler));
+            }
+            Assert.assertEquals(i < 8, isCompiled(compiler));
+        }
+        Assert.assertEquals(8, compiler.getResolverCount());
+    }
+
+
+    @Test
+    public void testNotCompiledForMap() {
+        manager.defineBean("bean", Collections.singletonMap("text", "map"));
+        ValueCompiler compiler = createCompiler("${bean.text}");
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("map", getValue(compiler));
+        }
+        Assert.assertFalse(isCompiled(compiler));
+        Assert.assertTrue(isDisabled(compiler));
+        Assert.assertEquals("map", getValue(compiler));
+    }
+
+
+    @Test(expected = ELException.class)
+    public void testReadError() {
+        Other other = new Other();
+        manager.defineBean("bean", other);
+        ValueCompiler compiler = createCompiler("${bean.failure}");
+        for (int i = 0; i < 3; i++) {
+            try {
+                getValue(compiler);
+                Assert.fail();
+            } catch (ELException e) {
+                // Expected
+            }
+        }
+        // Failures are not compiled
+        Assert.assertFalse(isCompiled(compiler));
+        other.fail = false;
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("ok", getValue(compiler));
+        }
+        Assert.assertTrue(isCompiled(compiler));
+        other.fail = true;
+        getValue(compiler);
+    }
+
+
+    private boolean isCompiled(ValueCompiler compiler) {
+        return compiler.isCompiled(ctx.getELResolver());
+    }
+
+
+    private boolean isDisabled(ValueCompiler compiler) {
+        return compiler.isDisabled(ctx.getELResolver());
+    }
+
+
+    private static AstValue getNode(String expression) {
+        return (AstValue) ExpressionBuilder.createNode(expression);
+    }
+
+
+    private ValueCompiler createCompiler(String expression) {
+        node = getNode(expression);
+        return new ValueCompiler(node, 3);
+    }
+
+
+    private Object getValue(ValueCompiler compiler) {
+        Object base = node.jjtGetChild(0).getValue(ctx);
+        return compiler.getValue(ctx, base);
+    }
+
+
+    public static class Outer {
+
+        private final TesterBeanB inner;
+
+        public Outer(TesterBeanB inner) {
+            this.inner = inner;
+        }
+
+        public TesterBeanB getInner() {
+            return inner;
+        }
+    }
+
+
+    public static class Other {
+
+        private boolean fail = true;
+
+        public String getText() {
+            return "other";
+        }
+
+        public String getFailure() {
+            if (fail) {
+                throw new IllegalStateException();
+            }
+            return "ok";
+        }
+    }
+}
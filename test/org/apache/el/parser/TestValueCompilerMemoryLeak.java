@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.el.parser;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.tomcat.util.buf.ByteChunk;
+
+import util.el.TesterValueCompilerServlet;
+
+public class TestValueCompilerMemoryLeak extends TomcatBaseTest {
+
+    static {
+        // Must be set before the ValueCompiler class is initialised
+        System.setProperty("org.apache.el.parser.COMPILE_THRESHOLD", "3");
+    }
+
+
+    @Test
+    public void testUndeploy() throws Exception {
+        Assert.assertEquals(3, ValueCompiler.THRESHOLD);
+
+        // The servlet and the bean must be loaded by the web application class loader
+        File docBase = new File(getTemporaryDirectory(), "valueCompiler");
+        File classes = new File(docBase, "WEB-INF/classes/util/el");
+        Assert.assertTrue(classes.mkdirs());
+        addDeleteOnTearDown(docBase);
+        copyClass(TesterValueCompilerServlet.class, classes);
+        copyClass(TesterValueCompilerServlet.Bean.class, classes);
+
+        Tomcat tomcat = getTomcatInstance();
+        Context ctx = tomcat.addContext("/leak", docBase.getAbsolutePath());
+        Tomcat.addServlet(ctx, "el", TesterValueCompilerServlet.class.getName());
+        ctx.addServletMappingDecoded("/", "el");
+
+        tomcat.start();
+
+        ByteChunk res = getUrl("http://localhost:" + getPort() + "/leak/");
+        Assert.assertEquals("OK", res.toString());
+
+        ClassLoader webappClassLoader = ctx.getLoader().getClassLoader();
+        Assert.assertNotSame(TesterValueCompilerServlet.class,
+                webappClassLoader.loadClass(TesterValueCompilerServlet.class.getName()));
+        WeakReference<ClassLoader> loaderRef = new WeakReference<>(webappClassLoader);
+        webappClassLoader = null;
+
+        // Undeploy. The parsed expression remains in the global cache of parsed expressions.
+        tomcat.getHost().removeChild(ctx);
+        ctx = null;
+
+        for (int i = 0; i < 50 && loaderRef.get() != null; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Assert.assertNull("The web application class loader was not collected", loaderRef.get());
+    }
+
+
+    private static void copyClass(Class<?> clazz, File dir) throws Exception {
+        String name = clazz.getName();
+        name = name.substring(name.lastIndexOf('.') + 1) + ".class";
+        try (InputStream is = clazz.getResourceAsStream(name)) {
+            Files.copy(is, new File(dir, name).toPath());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.el.parser;
+
+import javax.el.ELContext;
+import javax.el.ELManager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.el.lang.EvaluationContext;
+import org.apache.el.lang.ExpressionBuilder;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ */
+public class TesterValueCompilerPerformance {
+
+    private static final int ITERATIONS = 10000000;
+
+    @Test
+    public void testPropertyChain() throws Exception {
+        ELManager manager = new ELManager();
+        TesterBeanB beanB = new TesterBeanB();
+        beanB.setText("text");
+        manager.defineBean("bean", new TestValueCompiler.Outer(beanB));
+        ELContext context = manager.getELContext();
+        EvaluationContext ctx = new EvaluationContext(context, context.getFunctionMapper(),
+                context.getVariableMapper());
+
+        AstValue node = (AstValue) ExpressionBuilder.createNode("${bean.inner.text}");
+        // A threshold that is never reached is equivalent to the interpreter
+        ValueCompiler interpreted = new ValueCompiler(node, Integer.MAX_VALUE);
+        ValueCompiler compiled = new ValueCompiler(node, 1);
+
+        // Warm-up
+        evaluate(ctx, node, interpreted);
+        evaluate(ctx, node, compiled);
+        Assert.assertTrue(compiled.isCompiled(ctx.getELResolver()));
+
+        long start = System.nanoTime();
+        evaluate(ctx, node, interpreted);
+        long interpretedDuration = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        evaluate(ctx, node, compiled);
+        long compiledDuration = System.nanoTime() - start;
+
+        System.out.println("Interpreted property chain evaluation complete in " + interpretedDuration + "ns");
+        System.out.println("Compiled property chain evaluation complete in " + compiledDuration + "ns");
+    }
+
+
+    private void evaluate(EvaluationContext ctx, AstValue node, ValueCompiler compiler) {
+        Node identifier = node.jjtGetChild(0);
+        for (int i = 0; i < ITERATIONS; i++) {
+            compiler.getValue(ctx, identifier.getValue(ctx));
+        }
+    }
+}
@@ -22,7 +22,9 @@ import java.beans.PropertyDescriptor;
 import java.beans.PropertyEditorSupport;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.Scanner;
 
@@ -330,6 +332,53 @@ public class TestGenerator extends TomcatBaseTest {
         scanner.close();
     }
 
+    @Test
+    public void testEncodedText01() throws Exception {
+        String result = doTestEncodedText("encodedtext-01.jsp", StandardCharsets.UTF_8);
+        Assert.assertTrue(result,
+                result.contains("Template text with non-ASCII characters \u00e4\u00f6\u00fc \u20ac \ud83d\ude00\n"));
+        Assert.assertTrue(result, result.contains("Expression\nTemplate text after an expression\n"));
+        Assert.assertTrue(result, result.contains("TEMPLATE TEXT IN A BODY\n"));
+    }
+
+    @Test
+    public void testEncodedText02() throws Exception {
+        String result = doTestEncodedText("encodedtext-02.jsp", StandardCharsets.ISO_8859_1);
+        Assert.assertTrue(result,
+                result.contains("Template text that is shorter than the page buffer \u00e4\u00f6\u00fc\n"));
+        Assert.assertTrue(result, result.contains("Expression\nTemplate text that is longer than the page buffer 0"));
+        Assert.assertTrue(result, result.contains("Template text that is longer than the page buffer ? abc"));
+    }
+
+    private String doTestEncodedText(String page, Charset charset) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        File appDir = new File("test/webapp");
+        Context ctxt = tomcat.addContext("", appDir.getAbsolutePath());
+        ctxt.addServletContainerInitializer(new JasperInitializer(), null);
+        Tomcat.initWebappDefaults(ctxt);
+
+        Context ctxtEncoded = tomcat.addContext("/encoded", appDir.getAbsolutePath());
+        ctxtEncoded.addServletContainerInitializer(new JasperInitializer(), null);
+        Tomcat.initWebappDefaults(ctxtEncoded);
+        Wrapper w = (Wrapper) ctxtEncoded.findChild("jsp");
+        w.addInitParameter("genStringAsByteArray", "true");
+
+        tomcat.start();
+
+        ByteChunk res = getUrl("http://localhost:" + getPort() + "/jsp/generator/" + page);
+        ByteChunk resEncoded = getUrl("http://localhost:" + getPort() + "/encoded/jsp/generator/" + page);
+
+        String result = new String(res.getBytes(), res.getStart(), res.getLength(), charset);
+        String resultEncoded =
+                new String(resEncoded.getBytes(), resEncoded.getStart(), resEncoded.getLength(), charset);
+
+        // Writing the template text as bytes must not change the response
+        Assert.assertEquals(result, resultEncoded);
+
+        return resultEncoded;
+    }
+
     @Test
     public void testEscape01() {
         String result = Generator.escape("\"\\\n\r");
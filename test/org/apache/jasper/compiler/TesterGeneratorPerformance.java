@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.compiler;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.jasper.servlet.JasperInitializer;
+import org.apache.tomcat.util.buf.ByteChunk;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ */
+public class TesterGeneratorPerformance extends TomcatBaseTest {
+
+    private static final int ITERATIONS = 5000;
+
+    @Test
+    public void testTemplateText() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+
+        File appDir = new File("test/webapp");
+        String[] options = { "none", "genStringAsCharArray", "genStringAsByteArray" };
+        for (String option : options) {
+            Context ctxt = tomcat.addContext("/" + option, appDir.getAbsolutePath());
+            ctxt.addServletContainerInitializer(new JasperInitializer(), null);
+            Tomcat.initWebappDefaults(ctxt);
+            if (!"none".equals(option)) {
+                Wrapper w = (Wrapper) ctxt.findChild("jsp");
+                w.addInitParameter(option, "true");
+            }
+        }
+
+        tomcat.start();
+
+        // Warm-up
+        for (String option : options) {
+            doTestTemplateText(option);
+        }
+
+        for (String option : options) {
+            long start = System.nanoTime();
+            doTestTemplateText(option);
+            long duration = System.nanoTime() - start;
+            System.out.println("Template text with [" + option + "] complete in " + duration + "ns");
+        }
+    }
+
+
+    private void doTestTemplateText(String option) throws Exception {
+        ByteChunk res = new ByteChunk();
+        for (int i = 0; i < ITERATIONS; i++) {
+            res.recycle();
+            getUrl("http://localhost:" + getPort() + "/" + option + "/jsp/generator/encodedtext-03.jsp", res, null);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.runtime;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.jasper.servlet.JspServlet;
+import org.apache.tomcat.util.buf.ByteChunk;
+
+public class TestFragmentCache extends TomcatBaseTest {
+
+    @Test
+    public void testGetAndPut() {
+        FragmentCache cache = new FragmentCache();
+        EncodedText content = new EncodedText("content", null);
+
+        Assert.assertNull(cache.get("name", "key"));
+        cache.put("name", "key", content, 60000);
+        Assert.assertSame(content, cache.get("name", "key"));
+        Assert.assertNull(cache.get("name", "other"));
+        Assert.assertNull(cache.get("other", "key"));
+
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(3, cache.getMissCount());
+    }
+
+
+    @Test
+    public void testExpiry() throws Exception {
+        FragmentCache cache = new FragmentCache();
+        cache.put("name", "key", new EncodedText("content", null), 1);
+        Thread.sleep(10);
+        Assert.assertNull(cache.get("name", "key"));
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+
+    @Test
+    public void testInvalidate() {
+        FragmentCache cache = new FragmentCache();
+        cache.put("a", "1", new EncodedText("a1", null), 60000);
+        cache.put("a", "2", new EncodedText("a2", null), 60000);
+        cache.put("b", "1", new EncodedText("b1", null), 60000);
+
+        cache.invalidate("a");
+        Assert.assertNull(cache.get("a", "1"));
+        Assert.assertNull(cache.get("a", "2"));
+        Assert.assertNotNull(cache.get("b", "1"));
+
+        cache.invalidateAll();
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+
+    @Test
+    public void testBounded() {
+        FragmentCache cache = new FragmentCache();
+        cache.setMaxSize(10);
+        // The first entry is the closest to expiry
+        cache.put("name", "0", new EncodedText("0", null), 30000);
+        for (int i = 1; i <= 10; i++) {
+            cache.put("name", Integer.toString(i), new EncodedText(Integer.toString(i), null), 60000);
+        }
+
+        Assert.assertTrue(cache.getSize() <= 10);
+        Assert.assertTrue(cache.getEvictionCount() > 0);
+        Assert.assertNull(cache.get("name", "0"));
+        Assert.assertNotNull(cache.get("name", "10"));
+    }
+
+
+    @Test
+    public void testDisabled() {
+        FragmentCache cache = new FragmentCache();
+        cache.setMaxSize(0);
+        cache.put("name", "key", new EncodedText("content", null), 60000);
+        Assert.assertNull(cache.get("name", "key"));
+    }
+
+
+    @Test
+    public void testTag() throws Exception {
+        Tomcat tomcat = getTomcatInstanceTestWebapp(false, true);
+        Wrapper w = (Wrapper) tomcat.getHost().findChildren()[0].findChild("jsp");
+        JspServlet jspServlet = (JspServlet) w.getServlet();
+
+        Assert.assertEquals("Rendered [a] 1", getFragment("a"));
+        Assert.assertEquals("Rendered [a] 1", getFragment("a"));
+        Assert.assertEquals("Rendered [b] 2", getFragment("b"));
+        Assert.assertEquals(2, jspServlet.getFragmentCacheSize());
+        Assert.assertEquals(1, jspServlet.getFragmentCacheHitCount());
+        Assert.assertEquals(2, jspServlet.getFragmentCacheMissCount());
+
+        jspServlet.invalidateFragment("counter");
+        Assert.assertEquals(0, jspServlet.getFragmentCacheSize());
+        Assert.assertEquals("Rendered [a] 3", getFragment("a"));
+    }
+
+
+    private String getFragment(String key) throws Exception {
+        ByteChunk res = new ByteChunk();
+        int rc = getUrl("http://localhost:" + getPort() + "/test/jsp/fragment-cache.jsp?key=" + key, res, null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, rc);
+        return res.toString().trim();
+    }
+}
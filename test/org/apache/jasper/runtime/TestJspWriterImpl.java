@@ -16,12 +16,20 @@
  */
 package org.apache.jasper.runtime;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 import javax.servlet.http.HttpServletResponse;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.tomcat.EncodedTextWriter;
+import org.apache.tomcat.unittest.TesterResponse;
 import org.apache.tomcat.util.buf.ByteChunk;
 
 public class TestJspWriterImpl extends TomcatBaseTest {
@@ -54,4 +62,86 @@ public class TestJspWriterImpl extends TomcatBaseTest {
         Assert.assertEquals(res.toString(),
                 HttpServletResponse.SC_INTERNAL_SERVER_ERROR, rc);
     }
+
+    @Test
+    public void testEncodedTextBuffered() throws Exception {
+        TesterEncodedTextWriter writer = new TesterEncodedTextWriter();
+        JspWriterImpl out = new JspWriterImpl(new TesterWriterResponse(writer), 16, true);
+
+        out.write("abc");
+        // Fits in the remaining space so is buffered
+        new EncodedText("defgh", "UTF-8").write(out);
+        Assert.assertEquals(0, writer.encodedCount);
+        Assert.assertEquals("", writer.toString());
+
+        // Does not fit in the remaining space so the buffer is flushed and the bytes are written
+        new EncodedText("0123456789", "UTF-8").write(out);
+        Assert.assertEquals(1, writer.encodedCount);
+        Assert.assertEquals("abcdefgh0123456789", writer.toString());
+        Assert.assertEquals(16, out.getRemaining());
+    }
+
+    @Test
+    public void testEncodedTextOverflow() throws Exception {
+        TesterEncodedTextWriter writer = new TesterEncodedTextWriter();
+        JspWriterImpl out = new JspWriterImpl(new TesterWriterResponse(writer), 16, false);
+
+        out.write("abcdefgh");
+        try {
+            new EncodedText("0123456789", "UTF-8").write(out);
+            Assert.fail();
+        } catch (IOException expected) {
+            // The buffer is not flushed automatically
+        }
+        Assert.assertEquals(0, writer.encodedCount);
+        Assert.assertEquals("", writer.toString());
+    }
+
+
+    private static class TesterWriterResponse extends TesterResponse {
+
+        private final PrintWriter writer;
+
+        TesterWriterResponse(PrintWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+    }
+
+
+    private static class TesterEncodedTextWriter extends PrintWriter implements EncodedTextWriter {
+
+        private final StringWriter sw;
+        private int encodedCount;
+
+        TesterEncodedTextWriter() {
+            this(new StringWriter());
+        }
+
+        private TesterEncodedTextWriter(StringWriter sw) {
+            super(sw);
+            this.sw = sw;
+        }
+
+        @Override
+        public Charset getCharset() {
+            return StandardCharsets.UTF_8;
+        }
+
+        @Override
+        public boolean writeEncoded(byte[] bytes, int charCount, Charset charset) {
+            encodedCount++;
+            sw.write(new String(bytes, charset));
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return sw.toString();
+        }
+    }
 }
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.jasper.runtime;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.Tag;
+import javax.servlet.jsp.tagext.TagSupport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+public class TestStripedTagHandlerPool extends TomcatBaseTest {
+
+    private static final AtomicInteger releaseCount = new AtomicInteger();
+
+
+    @Test
+    public void testSelectedByOption() throws Exception {
+        TagHandlerPool pool = TagHandlerPool.getTagHandlerPool(getConfig("10"));
+        Assert.assertEquals(StripedTagHandlerPool.class, pool.getClass());
+    }
+
+
+    @Test
+    public void testReuse() throws Exception {
+        TagHandlerPool pool = TagHandlerPool.getTagHandlerPool(getConfig("10"));
+
+        Tag t1 = pool.get(CountingTag.class);
+        Tag t2 = pool.get(CountingTag.class);
+        Assert.assertNotSame(t1, t2);
+        pool.reuse(t1);
+        pool.reuse(t2);
+
+        Set<Tag> reused = new HashSet<>();
+        reused.add(pool.get(CountingTag.class));
+        reused.add(pool.get(CountingTag.class));
+        Assert.assertTrue(reused.contains(t1));
+        Assert.assertTrue(reused.contains(t2));
+    }
+
+
+    @Test
+    public void testBoundedAndRelease() throws Exception {
+        TagHandlerPool pool = TagHandlerPool.getTagHandlerPool(getConfig("3"));
+
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tags.add(pool.get(CountingTag.class));
+        }
+
+        int count = releaseCount.get();
+        for (Tag tag : tags) {
+            pool.reuse(tag);
+        }
+        // Only three handlers may be pooled
+        Assert.assertEquals(count + 2, releaseCount.get());
+
+        pool.release();
+        Assert.assertEquals(count + 5, releaseCount.get());
+
+        // Handlers returned after release are not pooled
+        Tag tag = pool.get(CountingTag.class);
+        pool.reuse(tag);
+        Assert.assertEquals(count + 6, releaseCount.get());
+    }
+
+
+    @Test
+    public void testConcurrentRelease() throws Exception {
+        TagHandlerPool pool = TagHandlerPool.getTagHandlerPool(getConfig("20"));
+
+        int threadCount = 8;
+        int iterations = 10000;
+        AtomicInteger created = new AtomicInteger();
+        int count = releaseCount.get();
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < iterations; j++) {
+                        Tag tag = pool.get(CountingTag.class);
+                        if (((CountingTag) tag).created.compareAndSet(false, true)) {
+                            created.incrementAndGet();
+                        }
+                        pool.reuse(tag);
+                    }
+                } catch (JspException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            threads[i].start();
+        }
+        // Release while the pool is in use
+        pool.release();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pool.release();
+
+        // Every handler must have been released exactly once
+        Assert.assertEquals(created.get(), releaseCount.get() - count);
+    }
+
+
+    private ServletConfig getConfig(String maxSize) throws Exception {
+        Tomcat tomcat = getTomcatInstanceTestWebapp(false, true);
+        Wrapper w = (Wrapper) tomcat.getHost().findChildren()[0].findChild("jsp");
+        ServletConfig config = w.getServlet().getServletConfig();
+
+        return new ServletConfig() {
+
+            @Override
+            public String getServletName() {
+                return config.getServletName();
+            }
+
+            @Override
+            public ServletContext getServletContext() {
+                return config.getServletContext();
+            }
+
+            @Override
+            public String getInitParameter(String name) {
+                if (TagHandlerPool.OPTION_TAGPOOL.equals(name)) {
+                    return StripedTagHandlerPool.class.getName();
+                }
+                if (TagHandlerPool.OPTION_MAXSIZE.equals(name)) {
+                    return maxSize;
+                }
+                return config.getInitParameter(name);
+            }
+
+            @Override
+            public Enumeration<String> getInitParameterNames() {
+                return config.getInitParameterNames();
+            }
+        };
+    }
+
+
+    public static class CountingTag extends TagSupport {
+
+        private static final long serialVersionUID = 1L;
+
+        private final AtomicBoolean created = new AtomicBoolean();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void release() {
+            Assert.assertTrue("Released more than once", released.compareAndSet(false, true));
+            releaseCount.incrementAndGet();
+            super.release();
+        }
+    }
+}
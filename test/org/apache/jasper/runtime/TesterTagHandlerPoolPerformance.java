@@ -38,18 +38,30 @@ public class TesterTagHandlerPoolPerformance extends TomcatBaseTest {
 
     @Test
     public void testConcurrency() throws Exception {
+        doTestConcurrency(new TagHandlerPool());
+    }
+
+
+    @Test
+    public void testConcurrencyStriped() throws Exception {
+        doTestConcurrency(new StripedTagHandlerPool());
+    }
+
+
+    private void doTestConcurrency(TagHandlerPool tagHandlerPool) throws Exception {
         // Create a working TagHandlerPool
         Tomcat tomcat = getTomcatInstanceTestWebapp(false, true);
 
         Wrapper w = (Wrapper) tomcat.getHost().findChildren()[0].findChild("jsp");
-        TagHandlerPool tagHandlerPool = new TagHandlerPool();
         tagHandlerPool.init(w.getServlet().getServletConfig());
 
-        for (int i = 1; i < 9; i++) {
+        // Same total number of iterations for each thread count
+        for (int i = 1; i <= 64; i *= 2) {
             TesterThreadedPerformance test = new TesterThreadedPerformance(
-                    i, 5000000, new TestInstanceSupplier(tagHandlerPool));
+                    i, 64000000 / i, new TestInstanceSupplier(tagHandlerPool));
             long duration = test.doTest();
-            System.out.println(i + " threads completed in " + duration + "ns");
+            System.out.println(tagHandlerPool.getClass().getSimpleName() + ": " + i + " threads completed in " +
+                    duration + "ns");
         }
     }
 
@@ -18,7 +18,10 @@ package org.apache.jasper.servlet;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
+import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -28,6 +31,8 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.core.StandardWrapper;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.startup.TomcatBaseTest;
 import org.apache.tomcat.util.buf.ByteChunk;
@@ -96,6 +101,82 @@ public class TestJspServlet  extends TomcatBaseTest {
     }
 
 
+    @Test
+    public void testBatchCompile() throws Exception {
+        File appDir = new File(getTemporaryDirectory(), "batch");
+        Assert.assertTrue(new File(appDir, "sub").mkdirs());
+        addDeleteOnTearDown(appDir);
+        writeJsp(appDir, "a.jsp", "<%= \"A\" + 1 %>");
+        writeJsp(appDir, "b.jsp", "<%@ include file=\"/sub/c.jsp\" %>B");
+        writeJsp(appDir, "sub/c.jsp", "<%= \"C\" + 3 %>");
+        writeJsp(appDir, "error.jsp", "<% int i = ; %>");
+        // A fragment that is only valid when included
+        Assert.assertTrue(new File(appDir, "WEB-INF").mkdirs());
+        writeJsp(appDir, "WEB-INF/fragment.jsp", "<%= value %>");
+
+        Tomcat tomcat = getTomcatInstance();
+        Context ctxt = tomcat.addContext("", appDir.getAbsolutePath());
+        ctxt.addServletContainerInitializer(new JasperInitializer(), null);
+        Tomcat.initWebappDefaults(ctxt);
+        Wrapper w = (Wrapper) ctxt.findChild("jsp");
+        w.addInitParameter("batchCompileThreads", "2");
+
+        tomcat.start();
+
+        JspServlet jspServlet = (JspServlet) ((StandardWrapper) w).getServlet();
+        int count = 0;
+        while (jspServlet.getBatchCompileQueueLength() > 0 && count < 300) {
+            Thread.sleep(100);
+            count++;
+        }
+        Assert.assertEquals(0, jspServlet.getBatchCompileQueueLength());
+        Assert.assertEquals(3, jspServlet.getBatchCompileCount());
+        Assert.assertEquals(4, jspServlet.getJspCount());
+        // Compiled before the first request
+        File scratchDir = (File) ctxt.getServletContext().getAttribute(ServletContext.TEMPDIR);
+        Assert.assertTrue(new File(scratchDir, "org/apache/jsp/sub/c_jsp.class").isFile());
+        Assert.assertFalse(new File(scratchDir, "org/apache/jsp/error_jsp.class").exists());
+        Assert.assertFalse(new File(scratchDir, "org/apache/jsp/WEB_002dINF/fragment_jsp.java").exists());
+
+        Assert.assertEquals("A1", getUrl("http://localhost:" + getPort() + "/a.jsp").toString().trim());
+        Assert.assertEquals("C3B", getUrl("http://localhost:" + getPort() + "/b.jsp").toString().trim());
+        Assert.assertEquals("C3", getUrl("http://localhost:" + getPort() + "/sub/c.jsp").toString().trim());
+        int rc = getUrl("http://localhost:" + getPort() + "/error.jsp", new ByteChunk(), null);
+        Assert.assertEquals(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, rc);
+    }
+
+
+    @Test
+    public void testBatchCompileStop() throws Exception {
+        File appDir = new File(getTemporaryDirectory(), "batchstop");
+        Assert.assertTrue(appDir.mkdirs());
+        addDeleteOnTearDown(appDir);
+        for (int i = 0; i < 50; i++) {
+            writeJsp(appDir, "page" + i + ".jsp", "<%= \"Page\" + " + i + " %>");
+        }
+
+        Tomcat tomcat = getTomcatInstance();
+        Context ctxt = tomcat.addContext("", appDir.getAbsolutePath());
+        ctxt.addServletContainerInitializer(new JasperInitializer(), null);
+        Tomcat.initWebappDefaults(ctxt);
+        Wrapper w = (Wrapper) ctxt.findChild("jsp");
+        w.addInitParameter("batchCompileThreads", "2");
+
+        tomcat.start();
+        ctxt.stop();
+
+        // Stopping the context waits for the batch compilation to stop
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            Assert.assertFalse(t.getName(), t.getName().startsWith("JspBatchCompile"));
+        }
+    }
+
+
+    private static void writeJsp(File appDir, String name, String content) throws IOException {
+        Files.write(new File(appDir, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+
     private static class Bug56568aServlet extends HttpServlet {
 
         private static final long serialVersionUID = 1L;
@@ -30,6 +30,7 @@ import org.junit.Test;
 import org.apache.catalina.Context;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.jasper.runtime.FragmentCacheTag;
 import org.apache.juli.logging.LogFactory;
 import org.apache.tomcat.Jar;
 import org.apache.tomcat.util.buf.ByteChunk;
@@ -49,7 +50,9 @@ public class TestTldScanner extends TomcatBaseTest {
         TldScanner scanner =
                 new TldScanner(context.getServletContext(), true, true, true);
         scanner.scan();
-        Assert.assertEquals(5, scanner.getUriTldResourcePathMap().size());
+        // Includes the fragment cache tag library provided by Jasper
+        Assert.assertEquals(6, scanner.getUriTldResourcePathMap().size());
+        Assert.assertTrue(scanner.getUriTldResourcePathMap().containsKey(FragmentCacheTag.TAGLIB_URI));
         Assert.assertEquals(1, scanner.getListeners().size());
     }
 
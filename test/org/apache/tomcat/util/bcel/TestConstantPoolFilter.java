@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.bcel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.startup.ParamServlet;
+import org.apache.catalina.startup.TesterServlet;
+import org.apache.catalina.util.IOTools;
+import org.apache.tomcat.util.bcel.classfile.ClassFormatException;
+import org.apache.tomcat.util.bcel.classfile.ConstantPoolFilter;
+
+public class TestConstantPoolFilter {
+
+    private static final ConstantPoolFilter WEB_SERVLET_FILTER =
+            new ConstantPoolFilter(Collections.singletonList("Ljavax/servlet/annotation/WebServlet;"));
+
+
+    @Test
+    public void testMatch() throws Exception {
+        Assert.assertTrue(WEB_SERVLET_FILTER.matches(getClassFile(ParamServlet.class)));
+    }
+
+
+    @Test
+    public void testNoMatch() throws Exception {
+        Assert.assertFalse(WEB_SERVLET_FILTER.matches(getClassFile(TesterServlet.class)));
+    }
+
+
+    @Test
+    public void testMultipleConstants() throws Exception {
+        ConstantPoolFilter filter = new ConstantPoolFilter(
+                Arrays.asList("Ljavax/servlet/annotation/WebFilter;", "javax/servlet/http/HttpServlet"));
+        // Matches any constant, here the internal name of the super class
+        Assert.assertTrue(filter.matches(getClassFile(TesterServlet.class)));
+    }
+
+
+    @Test(expected = ClassFormatException.class)
+    public void testNotClassFile() throws Exception {
+        WEB_SERVLET_FILTER.matches(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 });
+    }
+
+
+    @Test(expected = ClassFormatException.class)
+    public void testTruncated() throws Exception {
+        byte[] classFile = getClassFile(TesterServlet.class);
+        WEB_SERVLET_FILTER.matches(Arrays.copyOf(classFile, 64));
+    }
+
+
+    private static byte[] getClassFile(Class<?> clazz) throws IOException {
+        String name = "/" + clazz.getName().replace('.', '/') + ".class";
+        try (InputStream is = clazz.getResourceAsStream(name)) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            IOTools.flow(is, baos);
+            return baos.toByteArray();
+        }
+    }
+}
@@ -16,19 +16,31 @@
  */
 package org.apache.tomcat.util.bcel;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.catalina.util.IOTools;
 import org.apache.tomcat.Jar;
 import org.apache.tomcat.util.bcel.classfile.ClassParser;
+import org.apache.tomcat.util.bcel.classfile.ConstantPoolFilter;
 import org.apache.tomcat.util.scan.JarFactory;
 
 /*
@@ -40,6 +52,7 @@ import org.apache.tomcat.util.scan.JarFactory;
 public class TesterPerformance {
 
     private static final String JAR_LOCATION = "/tmp/jira-libs";
+    private static final int BATCH_SIZE = 128;
 
     @Test
     public void testClassParserPerformance() throws IOException {
@@ -79,4 +92,134 @@ public class TesterPerformance {
 
         System.out.println("ClassParser performance test took: " + duration + " ns");
     }
+
+
+    /*
+     * Compares the throughput of parsing every class of every JAR sequentially with parsing the classes of each JAR in
+     * batches in parallel from a shared JarFile as ContextConfig does for large JARs.
+     */
+    @Test
+    public void testParallelClassParserThroughput() throws Exception {
+        File libDir = new File(JAR_LOCATION);
+        File[] libs = libDir.listFiles((dir, name) -> name.toLowerCase(Locale.ENGLISH).endsWith(".jar"));
+
+        Assert.assertNotNull(libs);
+
+        // Warm up
+        int classCount = parseAll(libs, null);
+
+        long start = System.nanoTime();
+        parseAll(libs, null);
+        long sequential = System.nanoTime() - start;
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            start = System.nanoTime();
+            parseAll(libs, pool);
+            long parallel = System.nanoTime() - start;
+
+            System.out.println("Parsed " + classCount + " classes from " + libs.length + " JARs");
+            System.out.println("Sequential: " + sequential + " ns (" + classCount * 1_000_000_000L / sequential +
+                    " classes/s)");
+            System.out.println("Parallel with " + pool.getParallelism() + " threads: " + parallel + " ns (" +
+                    classCount * 1_000_000_000L / parallel + " classes/s)");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+
+    /*
+     * Compares the time taken to parse every class of every JAR with the time taken to check every class with the
+     * filter ContextConfig uses when there are no non-annotation HandlesTypes entries and then only parse the classes
+     * that match.
+     */
+    @Test
+    public void testConstantPoolFilterPerformance() throws Exception {
+        File libDir = new File(JAR_LOCATION);
+        File[] libs = libDir.listFiles((dir, name) -> name.toLowerCase(Locale.ENGLISH).endsWith(".jar"));
+
+        Assert.assertNotNull(libs);
+
+        ConstantPoolFilter filter = new ConstantPoolFilter(Arrays.asList("Ljavax/servlet/annotation/WebServlet;",
+                "Ljavax/servlet/annotation/WebFilter;", "Ljavax/servlet/annotation/WebListener;"));
+
+        List<byte[]> classFiles = new ArrayList<>();
+        for (File lib : libs) {
+            try (JarFile jarFile = new JarFile(lib)) {
+                for (JarEntry entry : Collections.list(jarFile.entries())) {
+                    if (entry.getName().endsWith(".class")) {
+                        try (InputStream is = jarFile.getInputStream(entry)) {
+                            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                            IOTools.flow(is, baos);
+                            classFiles.add(baos.toByteArray());
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            for (byte[] classFile : classFiles) {
+                new ClassParser(new ByteArrayInputStream(classFile)).parse();
+            }
+            long parseAll = System.nanoTime() - start;
+
+            int matched = 0;
+            start = System.nanoTime();
+            for (byte[] classFile : classFiles) {
+                if (filter.matches(classFile)) {
+                    matched++;
+                    new ClassParser(new ByteArrayInputStream(classFile)).parse();
+                }
+            }
+            long filtered = System.nanoTime() - start;
+
+            System.out.println("Classes: " + classFiles.size() + ", matched: " + matched + ", parse all: " +
+                    parseAll + " ns, filter then parse: " + filtered + " ns");
+        }
+    }
+
+
+    private static int parseAll(File[] libs, ForkJoinPool pool) throws Exception {
+        int count = 0;
+        for (File lib : libs) {
+            try (JarFile jarFile = new JarFile(lib)) {
+                List<JarEntry> entries = new ArrayList<>();
+                for (JarEntry entry : Collections.list(jarFile.entries())) {
+                    if (entry.getName().endsWith(".class")) {
+                        entries.add(entry);
+                    }
+                }
+                if (pool == null) {
+                    parse(jarFile, entries);
+                } else {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int i = 0; i < entries.size(); i += BATCH_SIZE) {
+                        List<JarEntry> batch = entries.subList(i, Math.min(i + BATCH_SIZE, entries.size()));
+                        futures.add(pool.submit(() -> {
+                            parse(jarFile, batch);
+                            return null;
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                }
+                count += entries.size();
+            }
+        }
+        return count;
+    }
+
+
+    private static void parse(JarFile jarFile, List<JarEntry> entries) throws IOException {
+        for (JarEntry entry : entries) {
+            try (InputStream is = jarFile.getInputStream(entry)) {
+                ClassParser cp = new ClassParser(is);
+                cp.parse();
+            }
+        }
+    }
 }
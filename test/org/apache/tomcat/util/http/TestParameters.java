@@ -24,6 +24,8 @@ import java.util.Enumeration;
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.tomcat.util.http.Parameters.FailReason;
+
 public class TestParameters {
 
     private static final Parameter SIMPLE =
@@ -41,32 +43,41 @@ public class TestParameters {
 
     @Test
     public void testProcessParametersByteArrayIntInt() {
-        doTestProcessParametersByteArrayIntInt(-1, SIMPLE);
-        doTestProcessParametersByteArrayIntInt(-1, SIMPLE_MULTIPLE);
-        doTestProcessParametersByteArrayIntInt(-1, NO_VALUE);
-        doTestProcessParametersByteArrayIntInt(-1, EMPTY_VALUE);
-        doTestProcessParametersByteArrayIntInt(-1, EMPTY);
-        doTestProcessParametersByteArrayIntInt(-1, UTF8);
-        doTestProcessParametersByteArrayIntInt(-1,
+        doTestProcessParametersByteArrayIntInt(false);
+    }
+
+    @Test
+    public void testProcessParametersByteArrayIntIntLazy() {
+        doTestProcessParametersByteArrayIntInt(true);
+    }
+
+    private void doTestProcessParametersByteArrayIntInt(boolean lazy) {
+        doTestProcessParametersByteArrayIntInt(lazy, -1, SIMPLE);
+        doTestProcessParametersByteArrayIntInt(lazy, -1, SIMPLE_MULTIPLE);
+        doTestProcessParametersByteArrayIntInt(lazy, -1, NO_VALUE);
+        doTestProcessParametersByteArrayIntInt(lazy, -1, EMPTY_VALUE);
+        doTestProcessParametersByteArrayIntInt(lazy, -1, EMPTY);
+        doTestProcessParametersByteArrayIntInt(lazy, -1, UTF8);
+        doTestProcessParametersByteArrayIntInt(lazy, -1,
                 SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY, UTF8);
-        doTestProcessParametersByteArrayIntInt(-1,
+        doTestProcessParametersByteArrayIntInt(lazy, -1,
                 SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY, UTF8, SIMPLE);
-        doTestProcessParametersByteArrayIntInt(-1,
+        doTestProcessParametersByteArrayIntInt(lazy, -1,
                 NO_VALUE, EMPTY_VALUE, EMPTY, UTF8, SIMPLE, SIMPLE_MULTIPLE);
-        doTestProcessParametersByteArrayIntInt(-1,
+        doTestProcessParametersByteArrayIntInt(lazy, -1,
                 EMPTY_VALUE, EMPTY, UTF8, SIMPLE, SIMPLE_MULTIPLE, NO_VALUE);
-        doTestProcessParametersByteArrayIntInt(-1,
+        doTestProcessParametersByteArrayIntInt(lazy, -1,
                 EMPTY, UTF8, SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE);
-        doTestProcessParametersByteArrayIntInt(-1,
+        doTestProcessParametersByteArrayIntInt(lazy, -1,
                 UTF8, SIMPLE, SIMPLE_MULTIPLE, NO_VALUE, EMPTY_VALUE, EMPTY);
 
-        doTestProcessParametersByteArrayIntInt(1,
+        doTestProcessParametersByteArrayIntInt(lazy, 1,
                 SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
-        doTestProcessParametersByteArrayIntInt(2,
+        doTestProcessParametersByteArrayIntInt(lazy, 2,
                 SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
-        doTestProcessParametersByteArrayIntInt(3,
+        doTestProcessParametersByteArrayIntInt(lazy, 3,
                 SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
-        doTestProcessParametersByteArrayIntInt(4,
+        doTestProcessParametersByteArrayIntInt(lazy, 4,
                 SIMPLE, NO_VALUE, EMPTY_VALUE, UTF8);
     }
 
@@ -82,7 +93,7 @@ public class TestParameters {
         Assert.assertEquals("foo4=", EMPTY_VALUE.toString());
     }
 
-    private long doTestProcessParametersByteArrayIntInt(int limit,
+    private long doTestProcessParametersByteArrayIntInt(boolean lazy, int limit,
             Parameter... parameters) {
 
         // Build the byte array
@@ -102,6 +113,7 @@ public class TestParameters {
         Parameters p = new Parameters();
         p.setCharset(StandardCharsets.UTF_8);
         p.setLimit(limit);
+        p.setLazyDecoding(lazy);
 
         long start = System.nanoTime();
         p.processParameters(data, 0, data.length);
@@ -240,6 +252,67 @@ public class TestParameters {
 
     }
 
+    @Test
+    public void testLazyDecoding() {
+        Parameters p = new Parameters();
+        p.setCharset(StandardCharsets.UTF_8);
+        p.setLazyDecoding(true);
+
+        byte[] data = "a=1&b=x+y&a=%322&c&%E2%82%AC=euro&d=%zz&e=%2".getBytes(StandardCharsets.ISO_8859_1);
+        p.processParameters(data, 0, data.length);
+        p.addParameter("b", "added");
+
+        // The invalid %nn sequences are detected when the parameters are parsed
+        Assert.assertTrue(p.isParseFailed());
+        Assert.assertEquals(FailReason.URL_DECODING, p.getParseFailedReason());
+        Assert.assertEquals(6, p.size());
+
+        Assert.assertEquals("1", p.getParameter("a"));
+        Assert.assertArrayEquals(new String[] { "1", "22" }, p.getParameterValues("a"));
+        Assert.assertArrayEquals(new String[] { "x y", "added" }, p.getParameterValues("b"));
+        Assert.assertEquals("", p.getParameter("c"));
+        Assert.assertEquals("euro", p.getParameter("\u20ac"));
+        Assert.assertNull(p.getParameter("d"));
+        Assert.assertNull(p.getParameterValues("e"));
+
+        // Enough look-ups to switch to the index
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("x y", p.getParameter("b"));
+        }
+        Assert.assertArrayEquals(new String[] { "1", "22" }, p.getParameterValues("a"));
+
+        Enumeration<String> names = p.getParameterNames();
+        Assert.assertEquals("a", names.nextElement());
+        Assert.assertEquals("b", names.nextElement());
+        Assert.assertEquals("c", names.nextElement());
+        Assert.assertEquals("\u20ac", names.nextElement());
+        Assert.assertFalse(names.hasMoreElements());
+
+        // Parameters added after the index was built
+        p.addParameter("a", "3");
+        Assert.assertArrayEquals(new String[] { "1", "22", "3" }, p.getParameterValues("a"));
+
+        p.recycle();
+        Assert.assertEquals(0, p.size());
+        Assert.assertNull(p.getParameter("a"));
+        Assert.assertFalse(p.getParameterNames().hasMoreElements());
+    }
+
+    @Test
+    public void testLazyDecodingLimit() {
+        Parameters p = new Parameters();
+        p.setLimit(2);
+        p.setLazyDecoding(true);
+
+        byte[] data = "a=1&b=2&c=3".getBytes(StandardCharsets.ISO_8859_1);
+        p.processParameters(data, 0, data.length);
+
+        Assert.assertEquals(FailReason.TOO_MANY_PARAMETERS, p.getParseFailedReason());
+        Assert.assertEquals(2, p.size());
+        Assert.assertEquals("2", p.getParameter("b"));
+        Assert.assertNull(p.getParameter("c"));
+    }
+
     private void validateParameters(Parameter[] parameters, Parameters p) {
         Enumeration<String> names = p.getParameterNames();
 
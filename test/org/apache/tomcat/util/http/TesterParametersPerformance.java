@@ -77,6 +77,43 @@ public class TesterParametersPerformance {
         return result;
     }
 
+    @Test
+    public void testLazyDecoding() {
+        LogManager.getLogManager().getLogger("").setLevel(Level.OFF);
+        // A form with many fields where the application only reads one of them
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0) {
+                sb.append('&');
+            }
+            sb.append("field").append(i).append("=some+value+%E2%82%AC").append(i);
+        }
+        byte[] params = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        // Warm up
+        doTestLazyDecoding(params, false, 2000);
+        doTestLazyDecoding(params, true, 2000);
+
+        System.out.println("Eager: " + doTestLazyDecoding(params, false, 2000) + "ms");
+        System.out.println("Lazy:  " + doTestLazyDecoding(params, true, 2000) + "ms");
+    }
+
+    private long doTestLazyDecoding(byte[] params, boolean lazy, int iterations) {
+        Parameters p = new Parameters();
+        byte[] copy = new byte[params.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            // Decoding is performed in place so each iteration needs a fresh copy
+            System.arraycopy(params, 0, copy, 0, params.length);
+            p.setLazyDecoding(lazy);
+            p.setCharset(StandardCharsets.UTF_8);
+            p.processParameters(copy, 0, copy.length);
+            Assert.assertEquals("some value \u20ac2500", p.getParameter("field2500"));
+            p.recycle();
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
     @Test
     public void testCreateString() throws UnsupportedEncodingException {
         B2CConverter.getCharset("ISO-8859-1");
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.net;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.catalina.startup.ExpandWar;
+
+public class TestSessionTicketKeys {
+
+    private static final int KEY_LENGTH = SessionTicketKeys.KEY_LENGTH;
+
+    private File dir;
+
+
+    @Before
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("ticketKeys").toFile();
+    }
+
+
+    @After
+    public void deleteDir() {
+        ExpandWar.delete(dir);
+    }
+
+
+    @Test
+    public void testSingleFile() throws Exception {
+        byte[] key = createKey(1);
+        File f = write("keys", key);
+
+        SessionTicketKeys keys = new SessionTicketKeys(f.getAbsolutePath(), 0);
+        Assert.assertArrayEquals(key, keys.refresh(System.currentTimeMillis()));
+        // Unchanged
+        Assert.assertNull(keys.refresh(System.currentTimeMillis()));
+    }
+
+
+    @Test
+    public void testDirectory() throws Exception {
+        byte[] older = createKey(1);
+        byte[] newer = createKey(2);
+        write("20250101", older);
+        write("20250201", newer);
+
+        SessionTicketKeys keys = new SessionTicketKeys(dir.getAbsolutePath(), 0);
+        byte[] result = keys.refresh(System.currentTimeMillis());
+        Assert.assertEquals(2 * KEY_LENGTH, result.length);
+        // The newest key is first
+        Assert.assertArrayEquals(newer, Arrays.copyOfRange(result, 0, KEY_LENGTH));
+        Assert.assertArrayEquals(older, Arrays.copyOfRange(result, KEY_LENGTH, 2 * KEY_LENGTH));
+
+        // Removing a file is detected even though no remaining file changed
+        Assert.assertTrue(new File(dir, "20250101").delete());
+        Assert.assertArrayEquals(newer, keys.refresh(System.currentTimeMillis()));
+    }
+
+
+    @Test(expected = IOException.class)
+    public void testInvalidLength() throws Exception {
+        File f = write("keys", new byte[KEY_LENGTH + 1]);
+        new SessionTicketKeys(f.getAbsolutePath(), 0).refresh(System.currentTimeMillis());
+    }
+
+
+    @Test(expected = IOException.class)
+    public void testEmptyDirectory() throws Exception {
+        new SessionTicketKeys(dir.getAbsolutePath(), 0).refresh(System.currentTimeMillis());
+    }
+
+
+    @Test
+    public void testRotation() throws Exception {
+        byte[] secret = createKey(1);
+        File f = write("keys", secret);
+        int rotation = 3600;
+        long now = 1000L * rotation * 100;
+
+        SessionTicketKeys keys = new SessionTicketKeys(f.getAbsolutePath(), rotation);
+        byte[] first = keys.refresh(now);
+        Assert.assertEquals(3 * KEY_LENGTH, first.length);
+        Assert.assertFalse(Arrays.equals(secret, Arrays.copyOfRange(first, 0, KEY_LENGTH)));
+
+        // Same interval
+        Assert.assertNull(keys.refresh(now + 1000L * rotation - 1));
+
+        byte[] second = keys.refresh(now + 1000L * rotation);
+        Assert.assertEquals(3 * KEY_LENGTH, second.length);
+        // The current key becomes the previous key
+        Assert.assertArrayEquals(Arrays.copyOfRange(first, 0, KEY_LENGTH),
+                Arrays.copyOfRange(second, KEY_LENGTH, 2 * KEY_LENGTH));
+        // The next key becomes the current key
+        Assert.assertArrayEquals(Arrays.copyOfRange(first, 2 * KEY_LENGTH, 3 * KEY_LENGTH),
+                Arrays.copyOfRange(second, 0, KEY_LENGTH));
+
+        // Another node with the same secret derives the same keys
+        Assert.assertArrayEquals(second,
+                new SessionTicketKeys(f.getAbsolutePath(), rotation).refresh(now + 1000L * rotation));
+    }
+
+
+    private File write(String name, byte[] content) throws IOException {
+        File f = new File(dir, name);
+        Files.write(f.toPath(), content);
+        return f;
+    }
+
+
+    private static byte[] createKey(int seed) {
+        byte[] key = new byte[KEY_LENGTH];
+        Arrays.fill(key, (byte) seed);
+        return key;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.SimpleHttpClient;
+import org.apache.catalina.startup.TesterServlet;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+import org.apache.tomcat.util.modeler.Registry;
+
+public class TestSocketBufferPool extends TomcatBaseTest {
+
+    @Test
+    public void testSizeClasses() {
+        SocketBufferPool pool = new SocketBufferPool(false, -1);
+
+        Assert.assertEquals(512, pool.acquire(1).capacity());
+        Assert.assertEquals(8192, pool.acquire(8192).capacity());
+        Assert.assertEquals(16384, pool.acquire(8193).capacity());
+
+        Assert.assertEquals(3, pool.getAcquiredCount());
+        Assert.assertEquals(512 + 8192 + 16384, pool.getAcquiredBytes());
+        Assert.assertEquals(0, pool.getPooledCount());
+    }
+
+
+    @Test
+    public void testReuse() {
+        SocketBufferPool pool = new SocketBufferPool(true, -1);
+
+        ByteBuffer buffer = pool.acquire(8192);
+        Assert.assertTrue(buffer.isDirect());
+        buffer.put((byte) 1);
+        pool.release(buffer);
+
+        Assert.assertEquals(0, pool.getAcquiredCount());
+        Assert.assertEquals(1, pool.getPooledCount());
+        Assert.assertEquals(8192, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(5000);
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(0, reused.position());
+        Assert.assertEquals(8192, reused.limit());
+        Assert.assertEquals(0, pool.getPooledCount());
+
+        pool.release(reused);
+        pool.clear();
+        Assert.assertEquals(0, pool.getPooledCount());
+        Assert.assertEquals(0, pool.getPooledBytes());
+    }
+
+
+    @Test
+    public void testLimit() {
+        SocketBufferPool pool = new SocketBufferPool(false, 8192);
+
+        ByteBuffer b1 = pool.acquire(4096);
+        ByteBuffer b2 = pool.acquire(4096);
+        ByteBuffer b3 = pool.acquire(4096);
+        pool.release(b1);
+        pool.release(b2);
+        pool.release(b3);
+
+        Assert.assertEquals(2, pool.getPooledCount());
+        Assert.assertEquals(8192, pool.getPooledBytes());
+        Assert.assertEquals(0, pool.getAcquiredCount());
+        Assert.assertEquals(0, pool.getAcquiredBytes());
+    }
+
+
+    @Test
+    public void testNoPooling() {
+        SocketBufferPool pool = new SocketBufferPool(false, 0);
+
+        pool.release(pool.acquire(4096));
+
+        Assert.assertEquals(0, pool.getPooledCount());
+        Assert.assertEquals(0, pool.getAcquiredCount());
+    }
+
+
+    @Test
+    public void testHandlerRelease() {
+        SocketBufferPool pool = new SocketBufferPool(false, -1);
+        SocketBufferHandler sbh = new SocketBufferHandler(8192, 8192, pool);
+
+        // Buffers are only acquired when used
+        Assert.assertEquals(0, pool.getAcquiredCount());
+        Assert.assertTrue(sbh.isReadBufferEmpty());
+
+        sbh.configureReadBufferForWrite();
+        sbh.getReadBuffer().put("AB".getBytes(StandardCharsets.ISO_8859_1));
+        Assert.assertEquals(2, pool.getAcquiredCount());
+
+        // Buffers holding data are not released
+        Assert.assertFalse(sbh.release());
+        Assert.assertEquals(2, pool.getAcquiredCount());
+
+        sbh.configureReadBufferForRead();
+        sbh.getReadBuffer().get(new byte[2]);
+        Assert.assertTrue(sbh.release());
+        Assert.assertEquals(0, pool.getAcquiredCount());
+        Assert.assertEquals(2, pool.getPooledCount());
+
+        sbh.configureWriteBufferForWrite();
+        Assert.assertEquals(8192, sbh.getWriteBuffer().remaining());
+        Assert.assertEquals(2, pool.getAcquiredCount());
+
+        sbh.expand(10000);
+        Assert.assertEquals(16384, sbh.getReadBuffer().capacity());
+        Assert.assertEquals(16384, sbh.getWriteBuffer().capacity());
+        Assert.assertEquals(2, pool.getAcquiredCount());
+
+        sbh.free();
+        Assert.assertEquals(0, pool.getAcquiredCount());
+        Assert.assertEquals(4, pool.getPooledCount());
+    }
+
+
+    @Test
+    public void testIdleConnection() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        Connector connector = tomcat.getConnector();
+        Assume.assumeTrue("Idle buffers are only released by NIO",
+                connector.getProtocolHandlerClassName().contains("Http11NioProtocol"));
+        Assert.assertTrue(connector.setProperty("socket.releaseIdleBuffers", "true"));
+
+        Context ctx = tomcat.addContext("", null);
+        Tomcat.addServlet(ctx, "servlet", new TesterServlet());
+        ctx.addServletMappingDecoded("/", "servlet");
+
+        tomcat.start();
+
+        MBeanServer mbeanServer = Registry.getRegistry(null, null).getMBeanServer();
+        Set<ObjectName> onames = mbeanServer.queryNames(new ObjectName("Tomcat:type=ThreadPool,*"), null);
+        Assert.assertEquals(1, onames.size());
+        ObjectName oname = onames.iterator().next();
+
+        Client client = new Client(getPort());
+        client.connect();
+        for (int i = 0; i < 3; i++) {
+            client.processRequest();
+            Assert.assertTrue(client.isResponse200());
+            Assert.assertTrue(client.isResponseBodyOK());
+
+            // The connection remains open but should not hold any buffers
+            int count = 0;
+            while (((Integer) mbeanServer.getAttribute(oname, "acquiredSocketBufferCount")).intValue() > 0 &&
+                    count < 100) {
+                Thread.sleep(50);
+                count++;
+            }
+            Assert.assertEquals(Integer.valueOf(0), mbeanServer.getAttribute(oname, "acquiredSocketBufferCount"));
+            Assert.assertEquals(Long.valueOf(0), mbeanServer.getAttribute(oname, "acquiredSocketBufferBytes"));
+            Assert.assertEquals(Integer.valueOf(2), mbeanServer.getAttribute(oname, "pooledSocketBufferCount"));
+        }
+        client.disconnect();
+    }
+
+
+    private static final class Client extends SimpleHttpClient {
+
+        Client(int port) {
+            setPort(port);
+            setUseContentLength(true);
+            setRequest(new String[] {
+                    "GET / HTTP/1.1" + CRLF +
+                    "Host: localhost" + CRLF +
+                    CRLF });
+        }
+
+        @Override
+        public boolean isResponseBodyOK() {
+            return "OK".equals(getResponseBody());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.net;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.easymock.EasyMock;
+
+public class TestSocketWrapperBase {
+
+    @Test
+    public void testDefaultGatheringWriteBlocking() throws Exception {
+        StringBuilder written = new StringBuilder();
+        SocketWrapperBase<?> socketWrapper = createSocketWrapper(written, Integer.MAX_VALUE);
+
+        ByteBuffer[] buffers = new ByteBuffer[] { wrap("abc"), wrap(""), ByteBuffer.allocateDirect(3), wrap("def") };
+        buffers[2].put("xyz".getBytes(StandardCharsets.ISO_8859_1)).flip();
+        socketWrapper.doWrite(true, buffers);
+
+        Assert.assertEquals("abcxyzdef", written.toString());
+        for (ByteBuffer buffer : buffers) {
+            Assert.assertFalse(buffer.hasRemaining());
+        }
+        EasyMock.verify(socketWrapper);
+    }
+
+
+    @Test
+    public void testDefaultGatheringWriteNonBlockingPartial() throws Exception {
+        StringBuilder written = new StringBuilder();
+        // Only the first four bytes can be written without blocking
+        SocketWrapperBase<?> socketWrapper = createSocketWrapper(written, 4);
+
+        ByteBuffer[] buffers = new ByteBuffer[] { wrap("abc"), wrap("def"), wrap("ghi") };
+        socketWrapper.doWrite(false, buffers);
+
+        // Nothing may be written from a buffer while data remains in an earlier buffer
+        Assert.assertEquals("abcd", written.toString());
+        Assert.assertFalse(buffers[0].hasRemaining());
+        Assert.assertEquals(2, buffers[1].remaining());
+        Assert.assertEquals(3, buffers[2].remaining());
+    }
+
+
+    private static ByteBuffer wrap(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+
+    /*
+     * Only doWrite(boolean, ByteBuffer) is mocked. It writes at most the given number of bytes in total.
+     */
+    private static SocketWrapperBase<?> createSocketWrapper(StringBuilder written, int limit) throws Exception {
+        SocketWrapperBase<?> socketWrapper = EasyMock.partialMockBuilder(SocketWrapperBase.class)
+                .addMockedMethod("doWrite", boolean.class, ByteBuffer.class).createMock();
+        socketWrapper.doWrite(EasyMock.anyBoolean(), EasyMock.anyObject(ByteBuffer.class));
+        EasyMock.expectLastCall().andAnswer(() -> {
+            ByteBuffer from = (ByteBuffer) EasyMock.getCurrentArguments()[1];
+            Assert.assertTrue(from.hasRemaining());
+            while (from.hasRemaining() && written.length() < limit) {
+                written.append((char) from.get());
+            }
+            return null;
+        }).anyTimes();
+        EasyMock.replay(socketWrapper);
+        return socketWrapper;
+    }
+}
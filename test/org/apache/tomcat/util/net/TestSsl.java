@@ -287,6 +287,43 @@ public class TestSsl extends TomcatBaseTest {
                 TesterSupport.getLastClientAuthRequestedIssuerCount() == 0);
     }
 
+    @Test
+    public void testHandshakeCounts() throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        TesterSupport.initSsl(tomcat);
+        TesterSupport.configureSSLImplementation(tomcat, sslImplementationName, useOpenSSL);
+
+        Context root = tomcat.addContext("", TEMP_DIR);
+        Tomcat.addServlet(root, "tester", new TesterServlet());
+        root.addServletMappingDecoded("/", "tester");
+
+        tomcat.start();
+
+        SSLContext sslCtx = SSLContext.getInstance(Constants.SSL_PROTO_TLS);
+        sslCtx.init(null, TesterSupport.getTrustManagers(), null);
+        SSLSocketFactory socketFactory = sslCtx.getSocketFactory();
+
+        // The second connection resumes the session of the first
+        for (int i = 0; i < 2; i++) {
+            try (SSLSocket socket = (SSLSocket) socketFactory.createSocket("localhost", getPort())) {
+                doRequest(socket.getOutputStream(), new InputStreamReader(socket.getInputStream()));
+            }
+            /*
+             * The Tomcat Native OpenSSL engine treats a session as resumed if it was created before the engine and
+             * OpenSSL only tracks session creation times to the second.
+             */
+            Thread.sleep(1000);
+        }
+
+        SSLHostConfig sslHostConfig = tomcat.getConnector().findSslHostConfigs()[0];
+        Assert.assertEquals(1, sslHostConfig.getFullHandshakeCount());
+        Assert.assertEquals(1, sslHostConfig.getResumedHandshakeCount());
+
+        sslHostConfig.resetHandshakeCounts();
+        Assert.assertEquals(0, sslHostConfig.getFullHandshakeCount());
+        Assert.assertEquals(0, sslHostConfig.getResumedHandshakeCount());
+    }
+
     @Test
     public void testClientInitiatedRenegotiation() throws Exception {
 
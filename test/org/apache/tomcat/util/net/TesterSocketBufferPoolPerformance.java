@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.TesterServlet;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.startup.TomcatBaseTest;
+
+/*
+ * This is an absolute performance test. There is no benefit it running it as part of a standard test run so it is
+ * excluded due to the name starting Tester...
+ *
+ * Reports the heap used per idle keep-alive connection with and without the release of idle buffers. Only NIO
+ * supports the release of idle buffers.
+ */
+public class TesterSocketBufferPoolPerformance extends TomcatBaseTest {
+
+    private static final int CONNECTIONS = 2000;
+
+    private static final byte[] REQUEST =
+            "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+
+    @Test
+    public void testIdleConnectionsWithoutRelease() throws Exception {
+        doTestIdleConnections(false);
+    }
+
+
+    @Test
+    public void testIdleConnectionsWithRelease() throws Exception {
+        doTestIdleConnections(true);
+    }
+
+
+    private void doTestIdleConnections(boolean releaseIdleBuffers) throws Exception {
+        Tomcat tomcat = getTomcatInstance();
+        Assert.assertTrue(tomcat.getConnector().setProperty("socket.releaseIdleBuffers",
+                Boolean.toString(releaseIdleBuffers)));
+        // Don't let closed connections hide the memory used by open connections
+        Assert.assertTrue(tomcat.getConnector().setProperty("socket.bufferPool", "0"));
+
+        Context ctx = tomcat.addContext("", null);
+        Tomcat.addServlet(ctx, "servlet", new TesterServlet());
+        ctx.addServletMappingDecoded("/", "servlet");
+
+        tomcat.start();
+
+        // Warm up
+        closeAll(openIdleConnections(100));
+
+        long before = getUsedHeap();
+        List<Socket> sockets = openIdleConnections(CONNECTIONS);
+        long after = getUsedHeap();
+        closeAll(sockets);
+
+        System.out.println("Release idle buffers [" + releaseIdleBuffers + "]: " + CONNECTIONS +
+                " idle connections used " + (after - before) / CONNECTIONS + " bytes of heap per connection");
+    }
+
+
+    private List<Socket> openIdleConnections(int count) throws IOException {
+        List<Socket> sockets = new ArrayList<>(count);
+        byte[] buf = new byte[1024];
+        for (int i = 0; i < count; i++) {
+            Socket socket = new Socket("localhost", getPort());
+            sockets.add(socket);
+            OutputStream os = socket.getOutputStream();
+            os.write(REQUEST);
+            os.flush();
+            // Read the response, ending with the body of the TesterServlet
+            InputStream is = socket.getInputStream();
+            StringBuilder response = new StringBuilder();
+            while (!response.toString().endsWith("OK")) {
+                int read = is.read(buf);
+                Assert.assertTrue(read > 0);
+                response.append(new String(buf, 0, read, StandardCharsets.ISO_8859_1));
+            }
+        }
+        return sockets;
+    }
+
+
+    private static void closeAll(List<Socket> sockets) throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+
+    private static long getUsedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.net.openssl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.apache.tomcat.util.buf.HexUtils;
+
+public class TestKernelTlsCryptoInfo {
+
+    // Server application traffic secret and derived keys from RFC 8448, section 3
+    private static final byte[] SERVER_SECRET = HexUtils.fromHexString(
+            "a11af9f05531f856ad47116b45a950328204b4f44bfb6b3a4b4f1f3fcb631643");
+    private static final byte[] SERVER_KEY = HexUtils.fromHexString("9f02283b6c9c07efc26bb9f2ac92e356");
+    private static final byte[] SERVER_IV = HexUtils.fromHexString("cf782b88dd83549aadf1e984");
+
+
+    @Test
+    public void testExpandLabel() throws Exception {
+        Assert.assertArrayEquals(SERVER_KEY,
+                KernelTlsCryptoInfo.expandLabel("HmacSHA256", SERVER_SECRET, "key", 16));
+        Assert.assertArrayEquals(SERVER_IV,
+                KernelTlsCryptoInfo.expandLabel("HmacSHA256", SERVER_SECRET, "iv", 12));
+    }
+
+
+    @Test
+    public void testCreate() throws Exception {
+        byte[] info = KernelTlsCryptoInfo.create("TLS_AES_128_GCM_SHA256", SERVER_SECRET, 3);
+        Assert.assertEquals(40, info.length);
+
+        ByteBuffer buffer = ByteBuffer.wrap(info).order(ByteOrder.nativeOrder());
+        Assert.assertEquals(0x0304, buffer.getShort());
+        Assert.assertEquals(51, buffer.getShort());
+        Assert.assertArrayEquals(Arrays.copyOfRange(SERVER_IV, 4, 12), Arrays.copyOfRange(info, 4, 12));
+        Assert.assertArrayEquals(SERVER_KEY, Arrays.copyOfRange(info, 12, 28));
+        Assert.assertArrayEquals(Arrays.copyOfRange(SERVER_IV, 0, 4), Arrays.copyOfRange(info, 28, 32));
+        Assert.assertEquals(3, ByteBuffer.wrap(info, 32, 8).getLong());
+    }
+
+
+    @Test
+    public void testCreate256() throws Exception {
+        byte[] secret = new byte[48];
+        byte[] info = KernelTlsCryptoInfo.create("TLS_AES_256_GCM_SHA384", secret, 0);
+        Assert.assertEquals(56, info.length);
+        Assert.assertEquals(52, ByteBuffer.wrap(info).order(ByteOrder.nativeOrder()).getShort(2));
+    }
+
+
+    @Test
+    public void testNextTrafficSecret() throws Exception {
+        byte[] next = KernelTlsCryptoInfo.nextTrafficSecret("TLS_AES_128_GCM_SHA256", SERVER_SECRET);
+        Assert.assertEquals(SERVER_SECRET.length, next.length);
+        Assert.assertArrayEquals(KernelTlsCryptoInfo.expandLabel("HmacSHA256", SERVER_SECRET, "traffic upd", 32),
+                next);
+        Assert.assertFalse(Arrays.equals(SERVER_SECRET, next));
+    }
+
+
+    @Test
+    public void testSupported() {
+        Assert.assertTrue(KernelTlsCryptoInfo.isSupported("TLS_AES_128_GCM_SHA256"));
+        Assert.assertTrue(KernelTlsCryptoInfo.isSupported("TLS_AES_256_GCM_SHA384"));
+        Assert.assertFalse(KernelTlsCryptoInfo.isSupported("TLS_CHACHA20_POLY1305_SHA256"));
+        Assert.assertFalse(KernelTlsCryptoInfo.isSupported("ECDHE-RSA-AES128-GCM-SHA256"));
+    }
+}
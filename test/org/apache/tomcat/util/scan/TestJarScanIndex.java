@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.scan;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.catalina.startup.ExpandWar;
+
+public class TestJarScanIndex {
+
+    private static final List<String> NAMES = Arrays.asList("a/A.class", "b/B.class");
+
+    private File dir;
+    private File jar;
+    private URL jarUrl;
+    private File indexFile;
+
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("jarScanIndex").toFile();
+        jar = new File(dir, "test.jar");
+        Files.write(jar.toPath(), new byte[] { 1, 2, 3 });
+        jarUrl = jar.toURI().toURL();
+        indexFile = new File(dir, "index.dat");
+    }
+
+
+    @After
+    public void tearDown() {
+        ExpandWar.delete(dir);
+    }
+
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        JarScanIndex index = JarScanIndex.load(indexFile);
+        Assert.assertNull(index.get("section", jarUrl, "fp"));
+        Assert.assertEquals(1, index.getMissCount());
+        index.put("section", jarUrl, "fp", NAMES, 5_000_000);
+        index.save();
+
+        index = JarScanIndex.load(indexFile);
+        Assert.assertEquals(NAMES, index.get("section", jarUrl, "fp"));
+        Assert.assertEquals(1, index.getHitCount());
+        Assert.assertEquals(0, index.getMissCount());
+        Assert.assertEquals(5, index.getTimeSaved());
+        // Sections are independent
+        Assert.assertNull(index.get("other", jarUrl, "fp"));
+    }
+
+
+    @Test
+    public void testFingerprintChanged() throws Exception {
+        JarScanIndex index = JarScanIndex.load(indexFile);
+        index.put("section", jarUrl, "fp", NAMES, 0);
+        index.put("tld", jarUrl, null, NAMES, 0);
+        index.save();
+
+        index = JarScanIndex.load(indexFile);
+        Assert.assertNull(index.get("section", jarUrl, "changed"));
+        Assert.assertEquals(NAMES, index.get("tld", jarUrl, null));
+    }
+
+
+    @Test
+    public void testJarChanged() throws Exception {
+        JarScanIndex index = JarScanIndex.load(indexFile);
+        index.put("section", jarUrl, null, NAMES, 0);
+        index.save();
+
+        Files.write(jar.toPath(), new byte[] { 1, 2, 3, 4 });
+
+        index = JarScanIndex.load(indexFile);
+        Assert.assertNull(index.get("section", jarUrl, null));
+    }
+
+
+    @Test
+    public void testUnusedNotSaved() throws Exception {
+        JarScanIndex index = JarScanIndex.load(indexFile);
+        index.put("section", jarUrl, null, NAMES, 0);
+        index.save();
+
+        // Not used so dropped on save
+        JarScanIndex.load(indexFile).save();
+
+        Assert.assertNull(JarScanIndex.load(indexFile).get("section", jarUrl, null));
+    }
+
+
+    @Test
+    public void testCorruptIndex() throws Exception {
+        Files.write(indexFile.toPath(), new byte[] { 0, 0, 0, 1, 0, 0, 0, 5 });
+        JarScanIndex index = JarScanIndex.load(indexFile);
+        Assert.assertNull(index.get("section", jarUrl, null));
+    }
+
+
+    @Test
+    public void testNotFile() throws Exception {
+        JarScanIndex index = JarScanIndex.load(indexFile);
+        URL url = new URL("jar:" + jarUrl.toExternalForm() + "!/inner.jar");
+        index.put("section", url, null, NAMES, 0);
+        Assert.assertNull(index.get("section", url, null));
+        Assert.assertEquals(0, index.getMissCount());
+    }
+}
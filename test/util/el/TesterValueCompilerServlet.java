@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package util.el;
+
+import java.io.IOException;
+
+import javax.el.ELContext;
+import javax.el.ELManager;
+import javax.el.ExpressionFactory;
+import javax.el.ValueExpression;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tester class used for {@link org.apache.el.parser.TestValueCompilerMemoryLeak}. The class is loaded by the web
+ * application class loader since this package is not filtered.
+ */
+public class TesterValueCompilerServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String EXPRESSION = "${bean.inner.text}";
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        ELManager manager = new ELManager();
+        manager.defineBean("bean", new Bean(new Bean(null)));
+        ELContext context = manager.getELContext();
+        ExpressionFactory factory = ELManager.getExpressionFactory();
+
+        Object result = null;
+        for (int i = 0; i < 20; i++) {
+            ValueExpression ve = factory.createValueExpression(context, EXPRESSION, Object.class);
+            result = ve.getValue(context);
+        }
+
+        resp.setContentType("text/plain");
+        resp.getWriter().print(result);
+    }
+
+
+    public static class Bean {
+
+        private final Bean inner;
+
+        public Bean(Bean inner) {
+            this.inner = inner;
+        }
+
+        public Bean getInner() {
+            return inner;
+        }
+
+        public String getText() {
+            return "OK";
+        }
+    }
+}
@@ -0,0 +1,54 @@
+<%--
+ Licensed to the Apache Software Foundation (ASF) under one or more
+  contributor license agreements.  See the NOTICE file distributed with
+  this work for additional information regarding copyright ownership.
+  The ASF licenses this file to You under the Apache License, Version 2.0
+  (the "License"); you may not use this file except in compliance with
+  the License.  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+  Unless required by applicable law or agreed to in writing, software
+  distributed under the License is distributed on an "AS IS" BASIS,
+  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+  See the License for the specific language governing permissions and
+  limitations under the License.
+--%>
+<%@ page contentType="text/plain;charset=ISO-8859-1" pageEncoding="UTF-8" buffer="1kb" %>
+Template text that is shorter than the page buffer äöü
+<% out.print("Expression"); %>
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer 0123456789 abcdefghijklmnopqrstuvwxyz
+<% out.print("Expression"); %>
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+Template text that is longer than the page buffer € abcdefghijklmnopqrstuvwxyz
+<% out.print("Expression"); %>
+End of template text